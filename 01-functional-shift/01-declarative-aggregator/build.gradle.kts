@@ -1,7 +1,14 @@
-plugins { id("java-quality") }
+plugins {
+  id("java-quality")
+  // Version is pinned once in the root build; see libs.plugins.jmh.
+  id("me.champeau.jmh")
+}
 
 dependencies {
-  implementation(libs.java.uuid.generator)
+  // Ids come from the in-house UuidV7; the library is only the baseline of IdAllocationBenchmark
+  // and the id source of the original SalesAnalyzerTests.
+  jmhImplementation(libs.java.uuid.generator)
+  testImplementation(libs.java.uuid.generator)
 
   testImplementation(platform(libs.spring.boot.bom))
   testImplementation(libs.spring.boot.starter.test)
@@ -9,3 +16,14 @@ dependencies {
 }
 
 tasks.test { useJUnitPlatform() }
+
+// Micro-benchmarks live in src/jmh/java and run with `./gradlew :<module>:jmh`.
+// Narrow the run with -PjmhIncludes=<regex>, e.g. -PjmhIncludes=SalesAnalyzerBenchmark.
+// Results (including the GC profiler's alloc rate, gc.alloc.rate.norm) land in
+// build/results/jmh/results.json so they can be diffed between commits.
+jmh {
+  jmhVersion = libs.versions.jmh
+  profilers = listOf("gc")
+  resultFormat = "JSON"
+  includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(listOf(".*"))
+}
@@ -0,0 +1,103 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineId;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineKey;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+
+/**
+ * Deterministic order fixtures shared by the benchmarks.
+ *
+ * <p>Every dataset is derived from a fixed seed so two runs (or two commits) measure exactly the
+ * same input. UUIDv7 ids are assembled by hand from the seeded random source instead of the
+ * system clock for the same reason.
+ */
+final class BenchmarkOrders {
+  static final Currency USD = Currency.getInstance("USD");
+
+  private static final long SEED = 0x5EED_0001L;
+  private static final long EPOCH_MILLIS = 1_700_000_000_000L;
+  private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+  private BenchmarkOrders() {}
+
+  /** Returns a catalog of {@code size} distinct products with prices in [1.00, 1000.00). */
+  static List<ProductSnapshot> catalog(int size) {
+    SplittableRandom random = new SplittableRandom(SEED);
+    List<ProductSnapshot> products = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      long cents = 100 + random.nextLong(99_900);
+      products.add(
+          new ProductSnapshot(
+              new Sku("SKU-" + i), Money.of(BigDecimal.valueOf(cents, 2), USD)));
+    }
+    return List.copyOf(products);
+  }
+
+  /**
+   * Returns {@code orderCount} orders with {@code linesPerOrder} lines each.
+   *
+   * <p>Roughly {@code duplicatePercent}% of the entries repeat an earlier order id, so the {@code
+   * distinct()} stages of {@code SalesAnalyzer} have real work to do.
+   */
+  static List<Order> orders(int orderCount, int linesPerOrder, int duplicatePercent) {
+    SplittableRandom random =
+        new SplittableRandom(SEED ^ orderCount ^ ((long) linesPerOrder << 32));
+    List<ProductSnapshot> catalog = catalog(Math.max(linesPerOrder, 1_000));
+    List<Order> orders = new ArrayList<>(orderCount);
+    for (int i = 0; i < orderCount; i++) {
+      if (i > 0 && random.nextInt(100) < duplicatePercent) {
+        orders.add(orders.get(random.nextInt(i)));
+        continue;
+      }
+      OrderStatus status = STATUSES[random.nextInt(STATUSES.length)];
+      orders.add(order(random, catalog, linesPerOrder, status, EPOCH_MILLIS + i));
+    }
+    return orders;
+  }
+
+  /** Returns a single order with {@code lineCount} lines over distinct products. */
+  static Order order(int lineCount) {
+    SplittableRandom random = new SplittableRandom(SEED ^ lineCount);
+    return order(random, catalog(Math.max(lineCount, 1)), lineCount, OrderStatus.NEW, EPOCH_MILLIS);
+  }
+
+  private static Order order(
+      SplittableRandom random,
+      List<ProductSnapshot> catalog,
+      int lineCount,
+      OrderStatus status,
+      long epochMillis) {
+    Map<LineKey, LineId> primaryLineForKey = new LinkedHashMap<>();
+    Map<LineId, OrderLine> lines = new LinkedHashMap<>();
+    int offset = random.nextInt(catalog.size());
+    for (int j = 0; j < lineCount; j++) {
+      ProductSnapshot product = catalog.get((offset + j) % catalog.size());
+      LineKey key = new LineKey(product, null);
+      LineId lineId = new LineId(uuidV7(random, epochMillis));
+      primaryLineForKey.put(key, lineId);
+      lines.put(lineId, new OrderLine(lineId, key, 1 + random.nextInt(5)));
+    }
+    return new Order(new OrderId(uuidV7(random, epochMillis)), primaryLineForKey, lines, status, 0);
+  }
+
+  /** Builds an RFC 9562 UUIDv7 from a timestamp and the seeded random source. */
+  static UUID uuidV7(SplittableRandom random, long epochMillis) {
+    long msb = (epochMillis << 16) | 0x7000L | random.nextInt(0x1000);
+    long lsb = (random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+    return new UUID(msb, lsb);
+  }
+}
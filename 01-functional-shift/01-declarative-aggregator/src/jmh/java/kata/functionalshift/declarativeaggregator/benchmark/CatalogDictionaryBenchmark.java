@@ -0,0 +1,75 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.vo.CatalogDictionary;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing a feed of repeated raw SKUs with {@code new Sku(..)} against resolving them through a
+ * warm {@link CatalogDictionary}, which skips trimming, upper-casing and the regex on hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CatalogDictionaryBenchmark {
+
+  @Param({"1000"})
+  public int distinctSkus;
+
+  @Param({"0", "500"})
+  public int capacity;
+
+  private String[] feed;
+  private CatalogDictionary dictionary;
+
+  /** Builds a feed of 10 000 raw SKUs over {@code distinctSkus} values and warms the dictionary. */
+  @Setup
+  public void setUp() {
+    List<ProductSnapshot> catalog = BenchmarkOrders.catalog(distinctSkus);
+    feed = new String[10_000];
+    for (int i = 0; i < feed.length; i++) {
+      feed[i] = catalog.get((i * 31) % distinctSkus).sku().value().toLowerCase();
+    }
+    if (capacity == 0) {
+      dictionary = CatalogDictionary.unbounded();
+    } else {
+      dictionary = CatalogDictionary.bounded(capacity, capacity);
+    }
+    for (String raw : feed) {
+      dictionary.sku(raw);
+    }
+  }
+
+  @Benchmark
+  public void parse(Blackhole blackhole) {
+    for (String raw : feed) {
+      blackhole.consume(new Sku(raw));
+    }
+  }
+
+  @Benchmark
+  public void intern(Blackhole blackhole) {
+    for (String raw : feed) {
+      blackhole.consume(dictionary.sku(raw));
+    }
+  }
+}
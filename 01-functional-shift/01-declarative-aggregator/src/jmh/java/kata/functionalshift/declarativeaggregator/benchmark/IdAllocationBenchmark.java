@@ -0,0 +1,79 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import com.fasterxml.uuid.Generators;
+import com.fasterxml.uuid.impl.TimeBasedEpochRandomGenerator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * UUIDv7 allocation from 4 threads: a new generator per id (the former {@code LineId.newRandom()}),
+ * one generator shared by all threads, and the thread-local generator behind {@link
+ * LineId#newRandom()}, singly and in batches of {@value #BATCH}.
+ *
+ * <p>{@link #createOrder()} builds a 5-line order the way {@code Order.add} callers do, to show the
+ * share of order creation spent on ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class IdAllocationBenchmark {
+  private static final int BATCH = 64;
+
+  private final TimeBasedEpochRandomGenerator shared = Generators.timeBasedEpochRandomGenerator();
+  private List<ProductSnapshot> products;
+
+  @Setup
+  public void setUp() {
+    products = BenchmarkOrders.catalog(5);
+  }
+
+  @Benchmark
+  public LineId generatorPerId() {
+    return new LineId(Generators.timeBasedEpochRandomGenerator().generate());
+  }
+
+  @Benchmark
+  public LineId sharedGenerator() {
+    return new LineId(shared.generate());
+  }
+
+  @Benchmark
+  public LineId threadLocal() {
+    return LineId.newRandom();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public List<LineId> threadLocalBatch() {
+    return LineId.newRandom(BATCH);
+  }
+
+  @Benchmark
+  public Order createOrder() {
+    Order.Builder builder = Order.builder(OrderId.newRandom());
+    for (ProductSnapshot product : products) {
+      builder.add(product, 1, null);
+    }
+    return builder.build();
+  }
+}
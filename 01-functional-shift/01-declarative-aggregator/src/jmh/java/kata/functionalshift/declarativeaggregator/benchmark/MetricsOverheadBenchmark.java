@@ -0,0 +1,71 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.metrics.Metrics;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the {@link Metrics} hooks, off and on, on a small aggregation and on a single {@code
+ * Money} addition, the smallest instrumented operation.
+ *
+ * <p>Compare {@code enabled=false} with the same benchmarks on the commit before the hooks; run
+ * with {@code -XX:StartFlightRecording} to include the cost of committing JFR events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+  @Param({"false", "true"})
+  public boolean enabled;
+
+  private List<Order> orders;
+  private Money a;
+  private Money b;
+
+  @Setup
+  public void setUp() {
+    orders = BenchmarkOrders.orders(100, 3, 10);
+    a = Money.of(new BigDecimal("12.34"), BenchmarkOrders.USD);
+    b = Money.of(new BigDecimal("0.66"), BenchmarkOrders.USD);
+    Metrics.setEnabled(enabled);
+    Metrics.setAllocationTracking(enabled);
+  }
+
+  @TearDown
+  public void tearDown() {
+    Metrics.setEnabled(false);
+    Metrics.setAllocationTracking(false);
+  }
+
+  @Benchmark
+  public Map<OrderStatus, BigDecimal> revenueByStatus() {
+    return SalesAnalyzer.calculateRevenueByStatus(orders);
+  }
+
+  @Benchmark
+  public Money moneyAdd() {
+    return a.add(b);
+  }
+}
@@ -0,0 +1,98 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the {@link Order} mutators and derived totals as the number of lines grows.
+ *
+ * <p>Every mutator returns a fresh immutable {@code Order}, so the interesting numbers are the
+ * time and bytes per call relative to {@code lineCount}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBenchmark {
+
+  @Param({"1", "16", "256", "4096"})
+  public int lineCount;
+
+  private Order order;
+  private ProductSnapshot existingProduct;
+  private ProductSnapshot newProduct;
+  private List<ProductSnapshot> products;
+
+  /** Builds an order with {@code lineCount} lines and picks an existing and a new product. */
+  @Setup
+  public void setUp() {
+    order = BenchmarkOrders.order(lineCount);
+    List<OrderLine> lines = order.lines();
+    existingProduct = lines.get(lines.size() / 2).key().productSnapshot();
+    newProduct =
+        new ProductSnapshot(
+            new Sku("BENCH-NEW"), Money.of(new BigDecimal("12.34"), BenchmarkOrders.USD));
+    products = lines.stream().map(line -> line.key().productSnapshot()).toList();
+  }
+
+  /** Adds a product that is not yet in the order, creating a new line. */
+  @Benchmark
+  public Order addNewLine() {
+    return order.add(newProduct, 1, null);
+  }
+
+  /** Adds more of a product that already has a line, merging into it. */
+  @Benchmark
+  public Order addToExistingLine() {
+    return order.add(existingProduct, 1, null);
+  }
+
+  @Benchmark
+  public Order setQuantity() {
+    return order.setQuantity(existingProduct, 7, null);
+  }
+
+  @Benchmark
+  public Money totalBeforeDiscount() {
+    return order.totalBeforeDiscount();
+  }
+
+  /** Builds a {@code lineCount}-line order from scratch through chained {@link Order#add} calls. */
+  @Benchmark
+  public Order buildByChainedAdd() {
+    Order built = Order.builder(order.id()).build();
+    for (ProductSnapshot product : products) {
+      built = built.add(product, 1, null);
+    }
+    return built;
+  }
+
+  /** Builds the same order through one {@link Order.Builder}. */
+  @Benchmark
+  public Order buildByBuilder() {
+    Order.Builder builder = Order.builder(order.id());
+    for (ProductSnapshot product : products) {
+      builder.add(product, 1, null);
+    }
+    return builder.build();
+  }
+}
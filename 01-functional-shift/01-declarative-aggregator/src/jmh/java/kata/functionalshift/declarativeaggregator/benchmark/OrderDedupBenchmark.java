@@ -0,0 +1,80 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.solution.OrderDedup;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The dedup stage on its own and inside {@link SalesAnalyzer}, with the seen ids on the heap and
+ * off it.
+ *
+ * <p>{@link #firstOccurrences} feeds {@code idCount} ids, 10% of them repeats, through a fresh
+ * stage; {@link #countOrdersByStatus} runs the analyzer over {@code idCount / 10} orders. Run with
+ * the {@code gc} profiler to compare {@code gc.alloc.rate.norm}: the off-heap stage allocates its
+ * table outside the heap, so it should show next to nothing per id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderDedupBenchmark {
+
+  @Param({"1000000", "10000000"})
+  public int idCount;
+
+  @Param({"ON_HEAP", "OFF_HEAP"})
+  public String stage;
+
+  private OrderId[] ids;
+  private List<Order> orders;
+  private OrderDedup dedup;
+
+  @Setup
+  public void setUp() {
+    dedup = "ON_HEAP".equals(stage) ? OrderDedup.ON_HEAP : OrderDedup.OFF_HEAP;
+    SplittableRandom random = new SplittableRandom(7);
+    ids = OrderId.newRandom(idCount).toArray(OrderId[]::new);
+    for (int i = 1; i < ids.length; i++) {
+      if (random.nextInt(100) < 10) {
+        ids[i] = ids[random.nextInt(i)];
+      }
+    }
+    orders = BenchmarkOrders.orders(idCount / 10, 1, 10);
+  }
+
+  @Benchmark
+  public long firstOccurrences() {
+    long kept = 0;
+    try (OrderDedup.Stage firstSeen = dedup.open(0)) {
+      for (OrderId id : ids) {
+        if (firstSeen.test(id)) {
+          kept++;
+        }
+      }
+    }
+    return kept;
+  }
+
+  @Benchmark
+  public long countOrdersByStatus() {
+    return SalesAnalyzer.countOrdersByStatus(orders, OrderStatus.PAID, dedup);
+  }
+}
@@ -0,0 +1,94 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.solution.OrderFile;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Aggregating straight over a memory-mapped {@link OrderFile} versus decoding it into orders first.
+ *
+ * <p>{@link #openFile()} is the fixed cost of mapping the file and decoding its dictionaries; the
+ * {@code *Decoded} variants add the cost of materializing every {@code Order} before running the
+ * {@code List<Order>} analyzer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderFileBenchmark {
+
+  @Param({"100000", "1000000"})
+  public int orderCount;
+
+  @Param({"10"})
+  public int linesPerOrder;
+
+  private Path path;
+  private OrderFile file;
+
+  /** Writes the dataset to a temporary file once per trial and maps it. */
+  @Setup
+  public void setUp() throws IOException {
+    List<Order> orders = BenchmarkOrders.orders(orderCount, linesPerOrder, 10);
+    path = Files.createTempFile("orders", ".bin");
+    OrderFile.write(path, orders);
+    file = OrderFile.open(path);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  @Benchmark
+  public OrderFile openFile() throws IOException {
+    return OrderFile.open(path);
+  }
+
+  @Benchmark
+  public long countOrdersByStatusMapped() {
+    return SalesAnalyzer.countOrdersByStatus(file, OrderStatus.PAID);
+  }
+
+  @Benchmark
+  public BigDecimal calculateTotalRevenueMapped() {
+    return SalesAnalyzer.calculateTotalRevenue(file);
+  }
+
+  @Benchmark
+  public BigDecimal calculateTotalRevenueDecoded() {
+    return SalesAnalyzer.calculateTotalRevenue(file.orders());
+  }
+
+  @Benchmark
+  public Map<OrderStatus, BigDecimal> calculateRevenueByStatusMapped() {
+    return SalesAnalyzer.calculateRevenueByStatus(file);
+  }
+
+  @Benchmark
+  public Map<OrderStatus, BigDecimal> calculateRevenueByStatusDecoded() {
+    return SalesAnalyzer.calculateRevenueByStatus(file.orders());
+  }
+}
@@ -0,0 +1,56 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.solution.OrderGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Streaming revenue over {@code orderCount} synthetic orders generated on the fly, sequentially and
+ * on the common pool.
+ *
+ * <p>Nothing is retained between orders, so the heap stays flat however large {@code orderCount}
+ * is; pass {@code -p orderCount=100000000} for a soak-sized run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class OrderGeneratorBenchmark {
+
+  @Param({"1000000", "10000000"})
+  public long orderCount;
+
+  private OrderGenerator generator;
+
+  @Setup
+  public void setUp() {
+    generator = OrderGenerator.builder(0x5EED_0001L, orderCount).duplicatePercent(5).build();
+  }
+
+  @Benchmark
+  public long revenueSequential() {
+    return generator.stream().mapToLong(OrderGeneratorBenchmark::minorUnits).sum();
+  }
+
+  @Benchmark
+  public long revenueParallel() {
+    return generator.stream().parallel().mapToLong(OrderGeneratorBenchmark::minorUnits).sum();
+  }
+
+  private static long minorUnits(Order order) {
+    return order.lineCount() == 0 ? 0 : order.totalMinorUnits();
+  }
+}
@@ -0,0 +1,96 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.solution.OrderGenerator;
+import kata.functionalshift.declarativeaggregator.solution.OrderJson;
+import kata.functionalshift.declarativeaggregator.solution.OrderNdjson;
+import kata.functionalshift.declarativeaggregator.solution.RunningTotals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ingesting {@code orderCount} orders from a file into {@link RunningTotals}: as a JSON array
+ * through the sequential {@link OrderJson} reader, and as NDJSON through {@link OrderNdjson} with
+ * {@code parallelism} workers.
+ *
+ * <p>Both files hold the same orders in the same layout but for the separators, so the difference
+ * is parsing in parallel and the reused buffers; {@code parallelism = 1} isolates the latter.
+ * Ingestion into the totals stays on the calling thread either way and bounds the speedup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OrderNdjsonBenchmark {
+
+  @Param({"1000000"})
+  public long orderCount;
+
+  @Param({"1", "4", "8"})
+  public int parallelism;
+
+  private Path arrayFile;
+  private Path file;
+  private ExecutorService pool;
+
+  /** Writes the dataset to both temporary files once per trial. */
+  @Setup
+  public void setUp() throws IOException {
+    List<Order> orders =
+        OrderGenerator.builder(0x5EED_0024L, orderCount).build().list(0, orderCount);
+    arrayFile = Files.createTempFile("orders", ".json");
+    try (Writer out = Files.newBufferedWriter(arrayFile, StandardCharsets.UTF_8)) {
+      OrderJson.write(orders, out);
+    }
+    file = Files.createTempFile("orders", ".ndjson");
+    try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      OrderNdjson.write(orders, out);
+    }
+    pool = Executors.newFixedThreadPool(parallelism);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    pool.close();
+    Files.deleteIfExists(arrayFile);
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public long sequential() throws IOException {
+    RunningTotals totals = RunningTotals.create();
+    try (Reader in = Files.newBufferedReader(arrayFile, StandardCharsets.UTF_8)) {
+      OrderJson.read(in, totals::accept);
+    }
+    return totals.orderCount();
+  }
+
+  @Benchmark
+  public long chunked() throws IOException {
+    RunningTotals totals = RunningTotals.create();
+    new OrderNdjson(pool, parallelism).read(file, totals::accept);
+    return totals.orderCount();
+  }
+}
@@ -0,0 +1,129 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.solution.OrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Line edits per second on an {@link OrderRepository} as threads are added, over {@code hotOrders}
+ * orders: 1 is a single cart edited by everyone, 1024 spreads the edits out.
+ *
+ * <p>Each edit adds one unit of one of 8 products, so orders stay small. The {@code batched}
+ * variants apply {@value #BATCH} edits per compare-and-set; throughput is still per edit. The
+ * retries per update of the last iteration are printed at tear-down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderRepositoryBenchmark {
+  private static final int BATCH = 8;
+  private static final List<ProductSnapshot> PRODUCTS = BenchmarkOrders.catalog(8);
+
+  @Param({"1", "16", "1024"})
+  public int hotOrders;
+
+  private OrderRepository repository;
+  private OrderId[] ids;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    repository = new OrderRepository();
+    ids = OrderId.newRandom(hotOrders).toArray(OrderId[]::new);
+    for (OrderId id : ids) {
+      repository.insert(Order.builder(id).add(PRODUCTS.get(0), 1, null).build());
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void report() {
+    OrderRepository.Contention contention = repository.contention();
+    System.out.printf(
+        "%n  retries/update %.3f, max retries %d%n",
+        contention.retriesPerUpdate(), contention.maxRetries());
+  }
+
+  /** Per-thread random source, so threads pick orders and products independently. */
+  @State(Scope.Thread)
+  public static class Picker {
+    private final SplittableRandom random = new SplittableRandom();
+    private final List<Consumer<Order.Builder>> edits =
+        PRODUCTS.stream().<Consumer<Order.Builder>>map(p -> b -> b.add(p, 1, null)).toList();
+
+    OrderId order(OrderId[] ids) {
+      return ids[random.nextInt(ids.length)];
+    }
+
+    Consumer<Order.Builder> edit() {
+      return edits.get(random.nextInt(edits.size()));
+    }
+
+    List<Consumer<Order.Builder>> batch() {
+      return List.of(edit(), edit(), edit(), edit(), edit(), edit(), edit(), edit());
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Order oneThread(Picker picker) {
+    return edit(picker);
+  }
+
+  @Benchmark
+  @Threads(2)
+  public Order twoThreads(Picker picker) {
+    return edit(picker);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Order fourThreads(Picker picker) {
+    return edit(picker);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Order eightThreads(Picker picker) {
+    return edit(picker);
+  }
+
+  @Benchmark
+  @Threads(4)
+  @OperationsPerInvocation(BATCH)
+  public Order fourThreadsBatched(Picker picker) {
+    return repository.update(picker.order(ids), picker.batch());
+  }
+
+  @Benchmark
+  @Threads(8)
+  @OperationsPerInvocation(BATCH)
+  public Order eightThreadsBatched(Picker picker) {
+    return repository.update(picker.order(ids), picker.batch());
+  }
+
+  private Order edit(Picker picker) {
+    return repository.update(picker.order(ids), picker.edit());
+  }
+}
@@ -0,0 +1,78 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.solution.OrderTimeIndex;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Revenue over a time interval: filtering the whole {@code List<Order>} versus slicing an {@link
+ * OrderTimeIndex}.
+ *
+ * <p>The fixture creates one order per millisecond, so the interval holds {@code windowPercent}% of
+ * the orders. {@link #buildIndex()} measures the append path on ids that arrive in order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderTimeIndexBenchmark {
+
+  @Param({"100000", "1000000"})
+  public int orderCount;
+
+  @Param({"1", "10"})
+  public int windowPercent;
+
+  private List<Order> orders;
+  private OrderTimeIndex index;
+  private Instant from;
+  private Instant to;
+
+  @Setup
+  public void setUp() {
+    orders = BenchmarkOrders.orders(orderCount, 5, 0);
+    index = OrderTimeIndex.of(orders);
+    Instant first = orders.get(0).id().creationInstant();
+    from = first.plusMillis(orderCount / 2);
+    to = from.plusMillis((long) orderCount * windowPercent / 100);
+  }
+
+  @Benchmark
+  public Map<OrderStatus, BigDecimal> revenueByStatusFullScan() {
+    return SalesAnalyzer.calculateRevenueByStatus(
+        orders.stream()
+            .filter(o -> !o.id().creationInstant().isBefore(from))
+            .filter(o -> o.id().creationInstant().isBefore(to))
+            .toList());
+  }
+
+  @Benchmark
+  public Map<OrderStatus, BigDecimal> revenueByStatusIndexed() {
+    return SalesAnalyzer.calculateRevenueByStatus(index, from, to);
+  }
+
+  @Benchmark
+  public int buildIndex() {
+    OrderTimeIndex fresh = new OrderTimeIndex();
+    return fresh.addAll(orders);
+  }
+}
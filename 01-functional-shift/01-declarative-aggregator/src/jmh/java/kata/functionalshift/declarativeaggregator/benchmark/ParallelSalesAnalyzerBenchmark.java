@@ -0,0 +1,85 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.solution.ParallelSalesAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scaling of {@link ParallelSalesAnalyzer} with the parallelism of its pool.
+ *
+ * <p>Compare each {@code parallelism} row against {@code parallelism=1} (and against {@link
+ * SalesAnalyzerBenchmark}) for the speed-up curve.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSalesAnalyzerBenchmark {
+
+  @Param({"1000000"})
+  public int orderCount;
+
+  @Param({"10"})
+  public int linesPerOrder;
+
+  @Param({"1", "2", "4", "8", "16", "32"})
+  public int parallelism;
+
+  private List<Order> orders;
+  private ForkJoinPool pool;
+  private ParallelSalesAnalyzer analyzer;
+
+  /** Builds the dataset and a dedicated pool once per trial. */
+  @Setup
+  public void setUp() {
+    orders = BenchmarkOrders.orders(orderCount, linesPerOrder, 10);
+    pool = new ForkJoinPool(parallelism);
+    analyzer = new ParallelSalesAnalyzer(pool);
+  }
+
+  /** Releases the pool's worker threads. */
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public long countOrdersByStatus() {
+    return analyzer.countOrdersByStatus(orders, OrderStatus.PAID);
+  }
+
+  @Benchmark
+  public BigDecimal calculateTotalRevenue() {
+    return analyzer.calculateTotalRevenue(orders);
+  }
+
+  @Benchmark
+  public Map<OrderStatus, List<OrderId>> groupOrderIdsByStatus() {
+    return analyzer.groupOrderIdsByStatus(orders);
+  }
+
+  @Benchmark
+  public Map<OrderStatus, BigDecimal> calculateRevenueByStatus() {
+    return analyzer.calculateRevenueByStatus(orders);
+  }
+}
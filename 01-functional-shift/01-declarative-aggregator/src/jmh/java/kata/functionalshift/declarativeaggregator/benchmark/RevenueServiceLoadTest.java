@@ -0,0 +1,108 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import kata.functionalshift.declarativeaggregator.solution.OrderJson;
+import kata.functionalshift.declarativeaggregator.solution.RevenueService;
+
+/**
+ * Closed-loop load test of {@link RevenueService}: p50/p99 latency and throughput per concurrency.
+ *
+ * <p>Not a JMH benchmark; run its {@code main} from the IDE or with the jmh source set on the
+ * classpath. Arguments, all optional: orders per request (default 1000), lines per order (5),
+ * requests per concurrency level (2000), then the concurrency levels (1 8 64 256). Each level
+ * starts with a warm-up of one tenth of its requests, which is not measured. The service runs
+ * in-process on a free port and every request posts the same payload.
+ */
+public final class RevenueServiceLoadTest {
+  private RevenueServiceLoadTest() {}
+
+  public static void main(String[] args) throws Exception {
+    int ordersPerRequest = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int linesPerOrder = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    int requests = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+    int[] levels =
+        args.length > 3
+            ? Arrays.stream(args, 3, args.length).mapToInt(Integer::parseInt).toArray()
+            : new int[] {1, 8, 64, 256};
+
+    StringBuilder json = new StringBuilder();
+    OrderJson.write(BenchmarkOrders.orders(ordersPerRequest, linesPerOrder, 0), json);
+    byte[] payload = json.toString().getBytes(StandardCharsets.UTF_8);
+
+    try (RevenueService service = RevenueService.start(new InetSocketAddress("localhost", 0));
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient http = HttpClient.newBuilder().executor(clients).build()) {
+      URI uri = URI.create("http://localhost:" + service.address().getPort() + RevenueService.PATH);
+      System.out.printf(
+          "payload: %d orders, %d KiB%n%-12s %10s %10s %12s%n",
+          ordersPerRequest, payload.length / 1024, "concurrency", "p50 ms", "p99 ms", "req/s");
+      for (int concurrency : levels) {
+        run(http, clients, uri, payload, concurrency, Math.max(requests / 10, concurrency));
+        long start = System.nanoTime();
+        long[] latencies = run(http, clients, uri, payload, concurrency, requests);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        System.out.printf(
+            "%-12d %10.2f %10.2f %12.0f%n",
+            concurrency,
+            percentile(latencies, 0.50) / 1e6,
+            percentile(latencies, 0.99) / 1e6,
+            requests / seconds);
+      }
+    }
+  }
+
+  /** Sends {@code requests} posts from {@code concurrency} loops; returns each latency in nanos. */
+  private static long[] run(
+      HttpClient http,
+      ExecutorService clients,
+      URI uri,
+      byte[] payload,
+      int concurrency,
+      int requests)
+      throws Exception {
+    HttpRequest request =
+        HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+            .build();
+    long[] latencies = new long[requests];
+    AtomicInteger next = new AtomicInteger();
+    Future<?>[] loops = new Future<?>[concurrency];
+    for (int c = 0; c < concurrency; c++) {
+      loops[c] =
+          clients.submit(
+              () -> {
+                for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                  long start = System.nanoTime();
+                  HttpResponse<String> response =
+                      http.send(request, HttpResponse.BodyHandlers.ofString());
+                  latencies[i] = System.nanoTime() - start;
+                  if (response.statusCode() != 200) {
+                    throw new IOException("HTTP " + response.statusCode() + ": " + response.body());
+                  }
+                }
+                return null;
+              });
+    }
+    for (Future<?> loop : loops) {
+      loop.get();
+    }
+    return latencies;
+  }
+
+  private static long percentile(long[] sorted, double quantile) {
+    return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+  }
+}
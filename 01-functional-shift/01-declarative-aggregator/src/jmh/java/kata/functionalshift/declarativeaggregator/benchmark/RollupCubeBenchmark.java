@@ -0,0 +1,79 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.solution.RollupCube;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fresh revenue by status after one status change: recomputing over the whole {@code List<Order>}
+ * versus applying the change to a {@link RollupCube}.
+ *
+ * <p>Each invocation moves the next order one status forward, so both variants see the same stream
+ * of changes; the cube's cost is independent of {@code orderCount}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RollupCubeBenchmark {
+  private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+  @Param({"10000", "100000"})
+  public int orderCount;
+
+  private List<Order> orders;
+  private RollupCube cube;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    orders = new ArrayList<>(BenchmarkOrders.orders(orderCount, 5, 0));
+    cube = RollupCube.bucketedBy(Duration.ofMinutes(1));
+    orders.forEach(cube::upsert);
+  }
+
+  @Benchmark
+  public Map<OrderStatus, BigDecimal> changeAndRecompute() {
+    int i = advance();
+    Order order = orders.get(i);
+    orders.set(i, order.toBuilder().status(nextStatus(order.status())).build());
+    return SalesAnalyzer.calculateRevenueByStatus(orders);
+  }
+
+  @Benchmark
+  public Map<OrderStatus, BigDecimal> changeIncrementally() {
+    Order order = orders.get(advance());
+    cube.changeStatus(order.id(), nextStatus(cube.order(order.id()).status()));
+    return cube.revenueByStatus();
+  }
+
+  private int advance() {
+    int i = next;
+    next = (i + 1) % orderCount;
+    return i;
+  }
+
+  private static OrderStatus nextStatus(OrderStatus status) {
+    return STATUSES[(status.ordinal() + 1) % STATUSES.length];
+  }
+}
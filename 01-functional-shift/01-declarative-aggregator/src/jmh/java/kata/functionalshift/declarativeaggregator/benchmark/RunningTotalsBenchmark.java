@@ -0,0 +1,81 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.solution.OrderGenerator;
+import kata.functionalshift.declarativeaggregator.solution.RunningTotals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time for a restarted aggregator to be back where it was after {@code orderCount} orders: by
+ * replaying the history, or by restoring a {@link RunningTotals} checkpoint and accepting the first
+ * {@value #RESUMED} orders after it.
+ *
+ * <p>{@link #checkpoint} is the cost of writing that checkpoint, flushed, on the calling thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class RunningTotalsBenchmark {
+  private static final int RESUMED = 100_000;
+
+  @Param({"1000000", "10000000"})
+  public long orderCount;
+
+  private OrderGenerator generator;
+  private RunningTotals totals;
+  private Path directory;
+  private Path file;
+
+  @Setup
+  public void setUp() throws IOException {
+    generator = OrderGenerator.builder(0x5EED_0023L, orderCount + RESUMED).build();
+    totals = RunningTotals.create();
+    generator.stream(0, orderCount).forEach(totals::accept);
+    directory = Files.createTempDirectory("running-totals");
+    file = directory.resolve("totals.ckpt");
+    totals.checkpoint(file, Runnable::run).join();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+    Files.deleteIfExists(directory.resolve("again.ckpt"));
+    Files.deleteIfExists(directory);
+  }
+
+  @Benchmark
+  public long replay() {
+    RunningTotals replayed = RunningTotals.create();
+    generator.stream(0, orderCount + RESUMED).forEach(replayed::accept);
+    return replayed.orderCount();
+  }
+
+  @Benchmark
+  public long restore() throws IOException {
+    RunningTotals restored = RunningTotals.restore(file);
+    generator.stream(orderCount, orderCount + RESUMED).forEach(restored::accept);
+    return restored.orderCount();
+  }
+
+  @Benchmark
+  public Path checkpoint() {
+    return totals.checkpoint(directory.resolve("again.ckpt"), Runnable::run).join();
+  }
+}
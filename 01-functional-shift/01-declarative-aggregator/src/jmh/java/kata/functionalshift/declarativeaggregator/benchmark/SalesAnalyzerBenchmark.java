@@ -0,0 +1,145 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.solution.OrderBatch;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import kata.functionalshift.declarativeaggregator.solution.SalesReport;
+import kata.functionalshift.declarativeaggregator.solution.SalesReport.Metric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of every {@link SalesAnalyzer} entry point over datasets of increasing size.
+ *
+ * <p>Run with the {@code gc} profiler (enabled by default in the module build) to also get {@code
+ * gc.alloc.rate.norm}, the bytes allocated per call.
+ *
+ * <p>The {@code *Columnar} variants run the {@link OrderBatch} overloads over the same dataset; the
+ * one-off cost of building the batch is measured separately by {@link #buildOrderBatch()}.
+ *
+ * <p>{@link #dashboardSequential} and {@link #dashboardSinglePass} compare calling the analyzer
+ * methods one after another with computing the same metrics through one {@link SalesReport}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SalesAnalyzerBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  public int orderCount;
+
+  @Param({"1", "10", "50"})
+  public int linesPerOrder;
+
+  @Param({"10"})
+  public int duplicatePercent;
+
+  private List<Order> orders;
+  private OrderBatch batch;
+  private SalesReport dashboard;
+
+  /** Builds the dataset once per trial; it is never mutated by the analyzer. */
+  @Setup
+  public void setUp() {
+    orders = BenchmarkOrders.orders(orderCount, linesPerOrder, duplicatePercent);
+    batch = OrderBatch.of(orders);
+    dashboard =
+        SalesReport.of(
+            Metric.STATUS_COUNTS,
+            Metric.TOTAL_REVENUE,
+            Metric.ORDER_IDS_BY_STATUS,
+            Metric.REVENUE_BY_STATUS,
+            Metric.DISTINCT_PRODUCTS);
+  }
+
+  @Benchmark
+  public long countOrdersByStatus() {
+    return SalesAnalyzer.countOrdersByStatus(orders, OrderStatus.PAID);
+  }
+
+  @Benchmark
+  public BigDecimal calculateTotalRevenue() {
+    return SalesAnalyzer.calculateTotalRevenue(orders);
+  }
+
+  @Benchmark
+  public List<ProductSnapshot> getDistinctProductsSold() {
+    return SalesAnalyzer.getDistinctProductsSold(orders);
+  }
+
+  @Benchmark
+  public Map<OrderStatus, List<OrderId>> groupOrderIdsByStatus() {
+    return SalesAnalyzer.groupOrderIdsByStatus(orders);
+  }
+
+  @Benchmark
+  public Map<OrderStatus, BigDecimal> calculateRevenueByStatus() {
+    return SalesAnalyzer.calculateRevenueByStatus(orders);
+  }
+
+  @Benchmark
+  public OrderBatch buildOrderBatch() {
+    return OrderBatch.of(orders);
+  }
+
+  @Benchmark
+  public long countOrdersByStatusColumnar() {
+    return SalesAnalyzer.countOrdersByStatus(batch, OrderStatus.PAID);
+  }
+
+  @Benchmark
+  public BigDecimal calculateTotalRevenueColumnar() {
+    return SalesAnalyzer.calculateTotalRevenue(batch);
+  }
+
+  @Benchmark
+  public List<ProductSnapshot> getDistinctProductsSoldColumnar() {
+    return SalesAnalyzer.getDistinctProductsSold(batch);
+  }
+
+  @Benchmark
+  public Map<OrderStatus, List<OrderId>> groupOrderIdsByStatusColumnar() {
+    return SalesAnalyzer.groupOrderIdsByStatus(batch);
+  }
+
+  @Benchmark
+  public Map<OrderStatus, BigDecimal> calculateRevenueByStatusColumnar() {
+    return SalesAnalyzer.calculateRevenueByStatus(batch);
+  }
+
+  @Benchmark
+  public void dashboardSequential(Blackhole blackhole) {
+    for (OrderStatus status : OrderStatus.values()) {
+      blackhole.consume(SalesAnalyzer.countOrdersByStatus(orders, status));
+    }
+    blackhole.consume(SalesAnalyzer.calculateTotalRevenue(orders));
+    blackhole.consume(SalesAnalyzer.groupOrderIdsByStatus(orders));
+    blackhole.consume(SalesAnalyzer.calculateRevenueByStatus(orders));
+    blackhole.consume(SalesAnalyzer.getDistinctProductsSold(orders));
+  }
+
+  @Benchmark
+  public SalesReport.Result dashboardSinglePass() {
+    return dashboard.run(orders);
+  }
+}
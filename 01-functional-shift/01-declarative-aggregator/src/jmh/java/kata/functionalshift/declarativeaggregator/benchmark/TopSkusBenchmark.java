@@ -0,0 +1,68 @@
+package kata.functionalshift.declarativeaggregator.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.SalesReport;
+import kata.functionalshift.declarativeaggregator.solution.SpaceSaving;
+import kata.functionalshift.declarativeaggregator.solution.TopSkus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Top-3 SKUs by revenue: full report, exact heap, Space-Saving sketch and Count-Min ranking. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopSkusBenchmark {
+
+  @Param({"100000"})
+  public int orderCount;
+
+  @Param({"10"})
+  public int linesPerOrder;
+
+  private List<Order> orders;
+
+  /** Builds the seeded order list. */
+  @Setup
+  public void setUp() {
+    orders = BenchmarkOrders.orders(orderCount, linesPerOrder, 0);
+  }
+
+  @Benchmark
+  public List<Sku> report() {
+    return SalesReport.of(SalesReport.Metric.TOP_SKUS_BY_REVENUE).run(orders).topSkusByRevenue();
+  }
+
+  @Benchmark
+  public List<Sku> exact() {
+    return TopSkus.exact(orders, TopSkus.Measure.REVENUE, 3);
+  }
+
+  @Benchmark
+  public List<SpaceSaving.Estimate<Sku>> sketch() {
+    TopSkus.Sketch sketch = TopSkus.approximate(TopSkus.Measure.REVENUE, 0.001);
+    orders.forEach(sketch::accept);
+    return sketch.top(3);
+  }
+
+  @Benchmark
+  public List<SpaceSaving.Estimate<Sku>> countMin() {
+    TopSkus.CountMinRanking ranking = TopSkus.countMin(TopSkus.Measure.REVENUE, 3, 0.001, 0.01);
+    orders.forEach(ranking::accept);
+    return ranking.top(3);
+  }
+}
@@ -1,8 +1,6 @@
 package kata.functionalshift.declarativeaggregator.domain;
 
 import java.time.Instant;
-import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -10,9 +8,13 @@ import kata.functionalshift.declarativeaggregator.domain.vo.DiscountId;
 import kata.functionalshift.declarativeaggregator.domain.vo.LineId;
 import kata.functionalshift.declarativeaggregator.domain.vo.LineKey;
 import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.MoneyAccumulator;
 import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
 import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
 import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.metrics.Metrics;
+import kata.functionalshift.declarativeaggregator.metrics.Operation;
+import kata.functionalshift.declarativeaggregator.metrics.Probe;
 
 /**
  * Simplistic implementation of the Order immutable entity.
@@ -28,9 +30,16 @@ public final class Order {
   /** Optimistic concurrency control. */
   private final int version;
 
-  // Helps merge same item added twice
-  private final Map<LineKey, LineId> primaryLineForKey;
-  private final Map<LineId, OrderLine> lines;
+  // Helps merge same item added twice. Both maps are persistent: updates share structure.
+  private final PersistentOrderedMap<LineKey, LineId> primaryLineForKey;
+  private final PersistentOrderedMap<LineId, OrderLine> lines;
+
+  // Derived values, computed on first use. Racy single-check like String.hashCode: both records
+  // only have final fields, so a thread sees either null (and recomputes the same value) or a
+  // fully initialized instance. They are kept apart because totalling can fail while listing
+  // lines cannot.
+  private LineView lineView;
+  private Total total;
 
   /** Creates an immutable order from identity, lines, status, and version metadata. */
   public Order(
@@ -39,15 +48,25 @@ public final class Order {
       Map<LineId, OrderLine> lines,
       OrderStatus status,
       int version) {
+    this(
+        id,
+        PersistentOrderedMap.copyOf(
+            Objects.requireNonNull(primaryLineForKey, "Order primaryLineForKey cannot be null")),
+        PersistentOrderedMap.copyOf(Objects.requireNonNull(lines, "Order Lines cannot be null")),
+        status,
+        version);
+  }
+
+  private Order(
+      OrderId id,
+      PersistentOrderedMap<LineKey, LineId> primaryLineForKey,
+      PersistentOrderedMap<LineId, OrderLine> lines,
+      OrderStatus status,
+      int version) {
     this.id = Objects.requireNonNull(id, "Order ID is required");
     this.status = Objects.requireNonNull(status, "Order Status is required");
-
-    Objects.requireNonNull(lines, "Order Lines cannot be null");
-    Objects.requireNonNull(primaryLineForKey, "Order primaryLineForKey cannot be null");
-
-    this.primaryLineForKey =
-        Collections.unmodifiableMap(new LinkedHashMap<>(Objects.requireNonNull(primaryLineForKey)));
-    this.lines = Collections.unmodifiableMap(new LinkedHashMap<>(Objects.requireNonNull(lines)));
+    this.primaryLineForKey = primaryLineForKey;
+    this.lines = lines;
 
     if (lines.isEmpty() && OrderStatus.SHIPPED.equals(status)) {
       throw new IllegalStateException("Cannot ship an empty order");
@@ -55,49 +74,33 @@ public final class Order {
     this.version = version;
   }
 
-  /** Adds quantity of a product line and returns a new immutable order instance. */
-  public Order add(ProductSnapshot productSnapshot, int quantity, DiscountId discountId) {
-    Objects.requireNonNull(productSnapshot, "product is required");
-    if (quantity <= 0) {
-      throw new IllegalArgumentException("Quantity must be positive");
-    }
-
-    LineKey key = new LineKey(productSnapshot, discountId);
-    LinkedHashMap<LineKey, LineId> nextPrimaryLineForKey =
-        new LinkedHashMap<>(this.primaryLineForKey);
-
-    LineId id = this.primaryLineForKey.getOrDefault(key, LineId.newRandom());
-
-    LinkedHashMap<LineId, OrderLine> nextLines = new LinkedHashMap<>(this.lines);
+  /** Returns a builder for a new, empty order with status {@link OrderStatus#NEW}. */
+  public static Builder builder(OrderId id) {
+    return new Builder(
+        id, PersistentOrderedMap.empty(), PersistentOrderedMap.empty(), OrderStatus.NEW, 0);
+  }
 
-    nextLines.merge(
-        id,
-        new OrderLine(id, key, 0),
-        (oldLine, newLine) -> oldLine.increaseBy(newLine.quantity()));
+  /** Returns a builder starting from this order; the order itself is left unchanged. */
+  public Builder toBuilder() {
+    return new Builder(id, primaryLineForKey, lines, status, version);
+  }
 
-    return new Order(this.id, nextPrimaryLineForKey, nextLines, this.status, this.version);
+  /** Adds quantity of a product line and returns a new immutable order instance. */
+  public Order add(ProductSnapshot productSnapshot, int quantity, DiscountId discountId) {
+    Probe probe = Metrics.begin(Operation.ORDER_ADD);
+    int inputLines = lineCount();
+    Order updated = toBuilder().add(productSnapshot, quantity, discountId).build();
+    probe.end(inputLines, -1);
+    return updated;
   }
 
   /** Sets line quantity for a product and returns a new immutable order instance. */
   public Order setQuantity(ProductSnapshot product, int quantity, DiscountId discountId) {
-    Objects.requireNonNull(product, "product is required");
-    var key = new LineKey(product, discountId);
-    LineId id = this.primaryLineForKey.getOrDefault(key, null);
-    if (id == null) {
-      throw new IllegalArgumentException("Product does not exist in order");
-    }
-
-    var next = new LinkedHashMap<>(this.lines);
-    if (quantity <= 0) {
-      next.remove(id); // common UX: set to 0 => remove
-    } else {
-      var existing = next.get(id);
-      if (existing == null) {
-        throw new IllegalArgumentException("Line not found");
-      }
-      next.put(id, existing.withQuantity(quantity));
-    }
-    return new Order(this.id, this.primaryLineForKey, next, this.status, this.version);
+    Probe probe = Metrics.begin(Operation.ORDER_SET_QUANTITY);
+    int inputLines = lineCount();
+    Order updated = toBuilder().setQuantity(product, quantity, discountId).build();
+    probe.end(inputLines, -1);
+    return updated;
   }
 
   /** Returns the order creation time encoded in the order identifier. */
@@ -110,9 +113,19 @@ public final class Order {
     return id;
   }
 
-  /** Returns the current lines as an immutable list copy. */
+  /** Returns the current lines in insertion order as an unmodifiable list, built once. */
   public List<OrderLine> lines() {
-    return List.copyOf(lines.values());
+    return lineView().lines();
+  }
+
+  /** Returns the number of lines. */
+  public int lineCount() {
+    return lines.size();
+  }
+
+  /** Returns the sum of all line quantities. */
+  public long totalQuantity() {
+    return lineView().totalQuantity();
   }
 
   /** Returns the current order status. */
@@ -120,12 +133,164 @@ public final class Order {
     return status;
   }
 
-  /** Returns total gross amount before discount for all lines. */
+  /** Returns the optimistic concurrency version. */
+  public int version() {
+    return version;
+  }
+
+  /**
+   * Returns total gross amount before discount for all lines, computed once.
+   *
+   * @throws IllegalStateException if the order has no lines.
+   * @throws IllegalArgumentException if the lines are priced in different currencies.
+   */
   public Money totalBeforeDiscount() {
-    return lines.values().stream()
-        .map(OrderLine::totalBeforeDiscount)
-        .reduce(Money::add)
-        .orElseThrow(() -> new IllegalStateException("Cannot total an empty order"));
+    return total().money();
+  }
+
+  /**
+   * Returns {@link #totalBeforeDiscount()} in minor units of its currency, without allocating.
+   *
+   * @throws IllegalStateException if the order has no lines.
+   * @throws ArithmeticException if the total does not fit in a {@code long}.
+   */
+  public long totalMinorUnits() {
+    Total t = total();
+    if (!t.fitsLong()) {
+      throw new ArithmeticException("Total does not fit in a long: " + t.money());
+    }
+    return t.minorUnits();
+  }
+
+  private LineView lineView() {
+    LineView view = lineView;
+    if (view == null) {
+      List<OrderLine> copy = List.copyOf(lines.values());
+      long quantity = 0;
+      for (OrderLine line : copy) {
+        quantity += line.quantity();
+      }
+      view = new LineView(copy, quantity);
+      lineView = view;
+    }
+    return view;
+  }
+
+  private Total total() {
+    Total t = total;
+    if (t == null) {
+      MoneyAccumulator sum = new MoneyAccumulator();
+      for (OrderLine line : lines()) {
+        sum.addLine(line);
+      }
+      if (sum.isEmpty()) {
+        throw new IllegalStateException("Cannot total an empty order");
+      }
+      Money money = sum.total();
+      long minorUnits = 0;
+      boolean fitsLong = true;
+      try {
+        minorUnits = money.minorUnits();
+      } catch (ArithmeticException tooLarge) {
+        fitsLong = false;
+      }
+      t = new Total(money, minorUnits, fitsLong);
+      total = t;
+    }
+    return t;
+  }
+
+  private record LineView(List<OrderLine> lines, long totalQuantity) {}
+
+  private record Total(Money money, long minorUnits, boolean fitsLong) {}
+
+  /**
+   * Mutable companion of {@link Order} for bulk construction.
+   *
+   * <p>Edits go to transient line maps that are updated in place, where chained {@link Order#add}
+   * calls copy a trie path and allocate an intermediate order per line. {@link #build()} freezes
+   * the current lines into an order without copying them; the builder stays usable afterwards and
+   * its later edits never affect orders it has already built. Not thread-safe.
+   */
+  public static final class Builder {
+    private final OrderId id;
+    private final PersistentOrderedMap.Transient<LineKey, LineId> primaryLineForKey;
+    private final PersistentOrderedMap.Transient<LineId, OrderLine> lines;
+    private OrderStatus status;
+    private int version;
+
+    private Builder(
+        OrderId id,
+        PersistentOrderedMap<LineKey, LineId> primaryLineForKey,
+        PersistentOrderedMap<LineId, OrderLine> lines,
+        OrderStatus status,
+        int version) {
+      this.id = Objects.requireNonNull(id, "Order ID is required");
+      this.primaryLineForKey = primaryLineForKey.asTransient();
+      this.lines = lines.asTransient();
+      this.status = status;
+      this.version = version;
+    }
+
+    /** Sets the status of the orders built from now on. */
+    public Builder status(OrderStatus status) {
+      this.status = Objects.requireNonNull(status, "Order Status is required");
+      return this;
+    }
+
+    /** Sets the version of the orders built from now on. */
+    public Builder version(int version) {
+      this.version = version;
+      return this;
+    }
+
+    /** Adds quantity of a product line, merging into the existing line for the same key. */
+    public Builder add(ProductSnapshot productSnapshot, int quantity, DiscountId discountId) {
+      Objects.requireNonNull(productSnapshot, "product is required");
+      if (quantity <= 0) {
+        throw new IllegalArgumentException("Quantity must be positive");
+      }
+
+      LineKey key = new LineKey(productSnapshot, discountId);
+      LineId lineId = primaryLineForKey.get(key);
+      if (lineId == null) {
+        lineId = LineId.newRandom();
+        primaryLineForKey.put(key, lineId);
+      }
+
+      OrderLine existing = lines.get(lineId);
+      if (existing == null) {
+        lines.put(lineId, new OrderLine(lineId, key, quantity));
+      } else {
+        lines.put(lineId, existing.increaseBy(quantity));
+      }
+      return this;
+    }
+
+    /** Sets line quantity for a product; a quantity of zero or less removes the line. */
+    public Builder setQuantity(ProductSnapshot product, int quantity, DiscountId discountId) {
+      Objects.requireNonNull(product, "product is required");
+      LineId lineId = primaryLineForKey.get(new LineKey(product, discountId));
+      if (lineId == null) {
+        throw new IllegalArgumentException("Product does not exist in order");
+      }
+
+      if (quantity <= 0) {
+        lines.remove(lineId); // common UX: set to 0 => remove
+      } else {
+        OrderLine existing = lines.get(lineId);
+        if (existing == null) {
+          throw new IllegalArgumentException("Line not found");
+        }
+        lines.put(lineId, existing.withQuantity(quantity));
+      }
+      return this;
+    }
+
+    /** Freezes the current state into an immutable order. */
+    public Order build() {
+      return new Order(id, primaryLineForKey.persistent(), lines.persistent(), status, version);
+    }
   }
 
   @Override
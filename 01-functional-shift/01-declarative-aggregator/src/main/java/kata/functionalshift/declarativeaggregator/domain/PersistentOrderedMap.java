@@ -0,0 +1,433 @@
+package kata.functionalshift.declarativeaggregator.domain;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable, insertion-ordered map with structural sharing.
+ *
+ * <p>Entries live in a hash array mapped trie (32-way branching on the key hash), and every entry
+ * also records the keys of its predecessor and successor in insertion order. {@link #plus} and
+ * {@link #minus} therefore copy only the few trie nodes on the affected paths, O(log32 n), and
+ * share everything else with the original map. Replacing the value of an existing key keeps its
+ * position, like {@link java.util.LinkedHashMap}.
+ *
+ * <p>A {@link Transient} edits the same trie in place for bulk construction and freezes back into
+ * a persistent map in O(1). Keys and values must not be null.
+ */
+final class PersistentOrderedMap<K, V> extends AbstractMap<K, V> {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+  private static final int HASH_BITS = 32;
+
+  private static final PersistentOrderedMap<?, ?> EMPTY =
+      new PersistentOrderedMap<>(Node.EMPTY, null, null, 0);
+
+  private final Node root;
+  private final Object head;
+  private final Object tail;
+  private final int size;
+
+  private PersistentOrderedMap(Node root, Object head, Object tail, int size) {
+    this.root = root;
+    this.head = head;
+    this.tail = tail;
+    this.size = size;
+  }
+
+  /** Returns the empty map. */
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentOrderedMap<K, V> empty() {
+    return (PersistentOrderedMap<K, V>) EMPTY;
+  }
+
+  /** Returns {@code map} itself if it is already persistent, else a copy in its iteration order. */
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentOrderedMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+    if (map instanceof PersistentOrderedMap<?, ?> persistent) {
+      return (PersistentOrderedMap<K, V>) persistent;
+    }
+    Transient<K, V> copy = PersistentOrderedMap.<K, V>empty().asTransient();
+    map.forEach(copy::put);
+    return copy.persistent();
+  }
+
+  /** Returns a map with {@code key} mapped to {@code value}; new keys go last. */
+  PersistentOrderedMap<K, V> plus(K key, V value) {
+    return new Transient<K, V>(this, null).put(key, value).persistent();
+  }
+
+  /** Returns a map without {@code key}. */
+  PersistentOrderedMap<K, V> minus(K key) {
+    return new Transient<K, V>(this, null).remove(key).persistent();
+  }
+
+  /** Returns a transient that starts from this map and leaves it untouched. */
+  Transient<K, V> asTransient() {
+    return new Transient<>(this, new Object());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    Leaf leaf = key == null ? null : find(root, hash(key), key);
+    return leaf == null ? null : (V) leaf.value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key != null && find(root, hash(key), key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+          private Object next = head;
+
+          @Override
+          public boolean hasNext() {
+            return next != null;
+          }
+
+          @Override
+          @SuppressWarnings("unchecked")
+          public Entry<K, V> next() {
+            if (next == null) {
+              throw new NoSuchElementException();
+            }
+            Leaf leaf = find(root, hash(next), next);
+            next = leaf.next;
+            return (Entry<K, V>) (Entry<?, ?>) leaf;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Mutable view used to build a {@link PersistentOrderedMap} without copying the trie per edit.
+   *
+   * <p>Nodes created by a transient are tagged with its owner token and updated in place; nodes
+   * shared with persistent maps are copied on first write. {@link #persistent()} hands the trie
+   * over and switches to a fresh token, so later edits never touch a frozen map. Not thread-safe.
+   */
+  static final class Transient<K, V> {
+    private Object owner;
+    private Node root;
+    private Object head;
+    private Object tail;
+    private int size;
+
+    private Transient(PersistentOrderedMap<K, V> from, Object owner) {
+      this.owner = owner;
+      this.root = from.root;
+      this.head = from.head;
+      this.tail = from.tail;
+      this.size = from.size;
+    }
+
+    /** Returns the value for {@code key}, or null. */
+    @SuppressWarnings("unchecked")
+    V get(K key) {
+      Leaf leaf = find(root, hash(key), key);
+      return leaf == null ? null : (V) leaf.value;
+    }
+
+    /** Maps {@code key} to {@code value}; new keys go last. */
+    Transient<K, V> put(K key, V value) {
+      Objects.requireNonNull(key, "key is required");
+      Objects.requireNonNull(value, "value is required");
+      int hash = hash(key);
+      Leaf existing = find(root, hash, key);
+      if (existing != null) {
+        if (existing.value != value) {
+          root = Node.put(root, existing.withValue(value), 0, owner);
+        }
+        return this;
+      }
+      if (tail == null) {
+        head = key;
+      } else {
+        relink(tail, key);
+      }
+      root = Node.put(root, new Leaf(key, hash, value, tail, null), 0, owner);
+      tail = key;
+      size++;
+      return this;
+    }
+
+    /** Removes {@code key} if present. */
+    Transient<K, V> remove(K key) {
+      int hash = hash(key);
+      Leaf existing = find(root, hash, key);
+      if (existing == null) {
+        return this;
+      }
+      root = Node.remove(root, hash, key, 0, owner);
+      if (existing.prev == null) {
+        head = existing.next;
+      } else {
+        relink(existing.prev, existing.next);
+      }
+      if (existing.next == null) {
+        tail = existing.prev;
+      } else {
+        Leaf following = find(root, hash(existing.next), existing.next);
+        root = Node.put(root, following.withLinks(existing.prev, following.next), 0, owner);
+      }
+      size--;
+      return this;
+    }
+
+    /** Returns the number of entries. */
+    int size() {
+      return size;
+    }
+
+    /** Freezes the current contents into a persistent map in O(1). */
+    PersistentOrderedMap<K, V> persistent() {
+      if (owner != null) {
+        owner = new Object();
+      }
+      return size == 0 ? empty() : new PersistentOrderedMap<>(root, head, tail, size);
+    }
+
+    /** Points the {@code next} link of {@code key} at {@code next}, keeping its other links. */
+    private void relink(Object key, Object next) {
+      Leaf leaf = find(root, hash(key), key);
+      root = Node.put(root, leaf.withLinks(leaf.prev, next), 0, owner);
+    }
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static Leaf find(Node node, int hash, Object key) {
+    for (int shift = 0; ; shift += BITS) {
+      if (shift >= HASH_BITS) {
+        for (Object slot : node.slots) {
+          Leaf leaf = (Leaf) slot;
+          if (leaf.key.equals(key)) {
+            return leaf;
+          }
+        }
+        return null;
+      }
+      int bit = bit(hash, shift);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      Object slot = node.slots[node.index(bit)];
+      if (slot instanceof Leaf leaf) {
+        return leaf.hash == hash && leaf.key.equals(key) ? leaf : null;
+      }
+      node = (Node) slot;
+    }
+  }
+
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  /** An entry together with its cached hash and its neighbours in insertion order. */
+  private static final class Leaf implements Entry<Object, Object> {
+    final Object key;
+    final int hash;
+    final Object value;
+    final Object prev;
+    final Object next;
+
+    Leaf(Object key, int hash, Object value, Object prev, Object next) {
+      this.key = key;
+      this.hash = hash;
+      this.value = value;
+      this.prev = prev;
+      this.next = next;
+    }
+
+    Leaf withValue(Object value) {
+      return new Leaf(key, hash, value, prev, next);
+    }
+
+    Leaf withLinks(Object prev, Object next) {
+      return new Leaf(key, hash, value, prev, next);
+    }
+
+    @Override
+    public Object getKey() {
+      return key;
+    }
+
+    @Override
+    public Object getValue() {
+      return value;
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Entry<?, ?> entry
+          && key.equals(entry.getKey())
+          && value.equals(entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return key.hashCode() ^ value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + value;
+    }
+  }
+
+  /**
+   * Trie node: {@code slots} holds one {@link Leaf} or child {@code Node} per set bit of {@code
+   * bitmap}. Below the last hash level a node is a plain list of leaves whose hashes collide.
+   */
+  private static final class Node {
+    static final Node EMPTY = new Node(0, new Object[0], null);
+
+    int bitmap;
+    Object[] slots;
+    final Object owner;
+
+    Node(int bitmap, Object[] slots, Object owner) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+      this.owner = owner;
+    }
+
+    int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    /** Returns {@code node} with {@code leaf} inserted or replacing the leaf with its key. */
+    static Node put(Node node, Leaf leaf, int shift, Object owner) {
+      if (shift >= HASH_BITS) {
+        for (int i = 0; i < node.slots.length; i++) {
+          if (((Leaf) node.slots[i]).key.equals(leaf.key)) {
+            return node.withSlot(i, leaf, owner);
+          }
+        }
+        return node.withInserted(node.slots.length, 0, leaf, owner);
+      }
+      int bit = bit(leaf.hash, shift);
+      int index = node.index(bit);
+      if ((node.bitmap & bit) == 0) {
+        return node.withInserted(index, bit, leaf, owner);
+      }
+      Object slot = node.slots[index];
+      if (slot instanceof Node child) {
+        Node updated = put(child, leaf, shift + BITS, owner);
+        return updated == child ? node : node.withSlot(index, updated, owner);
+      }
+      Leaf existing = (Leaf) slot;
+      if (existing.hash == leaf.hash && existing.key.equals(leaf.key)) {
+        return node.withSlot(index, leaf, owner);
+      }
+      return node.withSlot(index, pair(existing, leaf, shift + BITS, owner), owner);
+    }
+
+    /** Returns {@code node} without the leaf for {@code key}, which must be present. */
+    static Node remove(Node node, int hash, Object key, int shift, Object owner) {
+      if (shift >= HASH_BITS) {
+        for (int i = 0; i < node.slots.length; i++) {
+          if (((Leaf) node.slots[i]).key.equals(key)) {
+            return node.withRemoved(i, 0, owner);
+          }
+        }
+        return node;
+      }
+      int bit = bit(hash, shift);
+      int index = node.index(bit);
+      Object slot = node.slots[index];
+      if (slot instanceof Node child) {
+        Node updated = remove(child, hash, key, shift + BITS, owner);
+        if (updated.slots.length == 1 && updated.slots[0] instanceof Leaf only) {
+          // a single remaining leaf moves up so lookups stay as short as possible
+          return node.withSlot(index, only, owner);
+        }
+        return updated == child ? node : node.withSlot(index, updated, owner);
+      }
+      return node.withRemoved(index, bit, owner);
+    }
+
+    private static Node pair(Leaf a, Leaf b, int shift, Object owner) {
+      if (shift >= HASH_BITS) {
+        return new Node(0, new Object[] {a, b}, owner);
+      }
+      int fragmentA = (a.hash >>> shift) & MASK;
+      int fragmentB = (b.hash >>> shift) & MASK;
+      if (fragmentA == fragmentB) {
+        return new Node(1 << fragmentA, new Object[] {pair(a, b, shift + BITS, owner)}, owner);
+      }
+      Object[] slots = fragmentA < fragmentB ? new Object[] {a, b} : new Object[] {b, a};
+      return new Node((1 << fragmentA) | (1 << fragmentB), slots, owner);
+    }
+
+    private boolean editable(Object owner) {
+      return owner != null && this.owner == owner;
+    }
+
+    private Node withSlot(int index, Object value, Object owner) {
+      if (editable(owner)) {
+        slots[index] = value;
+        return this;
+      }
+      Object[] copy = slots.clone();
+      copy[index] = value;
+      return new Node(bitmap, copy, owner);
+    }
+
+    private Node withInserted(int index, int bit, Object value, Object owner) {
+      Object[] copy = new Object[slots.length + 1];
+      System.arraycopy(slots, 0, copy, 0, index);
+      copy[index] = value;
+      System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+      if (editable(owner)) {
+        bitmap |= bit;
+        slots = copy;
+        return this;
+      }
+      return new Node(bitmap | bit, copy, owner);
+    }
+
+    private Node withRemoved(int index, int bit, Object owner) {
+      Object[] copy = new Object[slots.length - 1];
+      System.arraycopy(slots, 0, copy, 0, index);
+      System.arraycopy(slots, index + 1, copy, index, slots.length - index - 1);
+      if (editable(owner)) {
+        bitmap &= ~bit;
+        slots = copy;
+        return this;
+      }
+      return new Node(bitmap & ~bit, copy, owner);
+    }
+  }
+}
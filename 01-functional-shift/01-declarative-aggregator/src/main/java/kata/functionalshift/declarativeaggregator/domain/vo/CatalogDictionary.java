@@ -0,0 +1,118 @@
+package kata.functionalshift.declarativeaggregator.domain.vo;
+
+import java.util.Currency;
+
+/**
+ * Interning dictionary for the catalog values that repeat across an order feed: {@link Sku},
+ * {@link ProductSnapshot} and {@link Currency}.
+ *
+ * <p>Parsing a SKU trims, upper-cases and matches a regex; the dictionary does that once per raw
+ * string and returns the same canonical {@code Sku} afterwards. Product snapshots are interned
+ * with their canonical SKU, so equal snapshots from different orders share one instance. Every
+ * value also gets a dense {@code int} code for array-indexed aggregation, see {@link InternTable}
+ * for how long codes stay stable. Thread-safe.
+ */
+public final class CatalogDictionary {
+  private final InternTable<Sku> skus;
+  private final InternTable<ProductSnapshot> products;
+  private final InternTable<Currency> currencies;
+
+  private CatalogDictionary(
+      InternTable<Sku> skus,
+      InternTable<ProductSnapshot> products,
+      InternTable<Currency> currencies) {
+    this.skus = skus;
+    this.products = products;
+    this.currencies = currencies;
+  }
+
+  /** Returns a dictionary that keeps every value it has seen. */
+  public static CatalogDictionary unbounded() {
+    return new CatalogDictionary(
+        InternTable.unbounded(), InternTable.unbounded(), InternTable.unbounded());
+  }
+
+  /**
+   * Returns a dictionary holding at most {@code skuCapacity} SKUs and {@code productCapacity}
+   * products, evicting values that were not used recently beyond that. Currencies are never
+   * evicted.
+   */
+  public static CatalogDictionary bounded(int skuCapacity, int productCapacity) {
+    return new CatalogDictionary(
+        InternTable.bounded(skuCapacity),
+        InternTable.bounded(productCapacity),
+        InternTable.unbounded());
+  }
+
+  /**
+   * Returns the canonical SKU for {@code raw}, validating it only the first time it is seen.
+   *
+   * @throws IllegalArgumentException if {@code raw} is not a valid SKU.
+   */
+  public Sku sku(String raw) {
+    return skus.resolve(raw, Sku::new);
+  }
+
+  /** Returns the canonical instance of {@code sku}. */
+  public Sku sku(Sku sku) {
+    return skus.intern(sku);
+  }
+
+  /** Returns the code of {@code sku}, interning it if needed. */
+  public int skuCode(Sku sku) {
+    return skus.code(sku);
+  }
+
+  /** Returns the SKU currently holding {@code code}. */
+  public Sku skuOf(int code) {
+    return skus.valueOf(code);
+  }
+
+  /** Returns the canonical snapshot equal to {@code product}, made of a canonical SKU. */
+  public ProductSnapshot product(ProductSnapshot product) {
+    return products.resolve(product, this::canonical);
+  }
+
+  /**
+   * Returns the canonical snapshot of {@code rawSku} at {@code unitPrice}.
+   *
+   * @throws IllegalArgumentException if {@code rawSku} is not a valid SKU.
+   */
+  public ProductSnapshot product(String rawSku, Money unitPrice) {
+    return product(new ProductSnapshot(sku(rawSku), unitPrice));
+  }
+
+  /** Returns the code of {@code product}, interning it if needed. */
+  public int productCode(ProductSnapshot product) {
+    return products.resolveCode(product, this::canonical);
+  }
+
+  /** Returns the product snapshot currently holding {@code code}. */
+  public ProductSnapshot productOf(int code) {
+    return products.valueOf(code);
+  }
+
+  /**
+   * Returns the currency for an ISO 4217 {@code currencyCode}.
+   *
+   * @throws IllegalArgumentException if {@code currencyCode} is not a supported ISO 4217 code.
+   */
+  public Currency currency(String currencyCode) {
+    return currencies.resolve(currencyCode, Currency::getInstance);
+  }
+
+  /** Returns the code of {@code currency}, interning it if needed. */
+  public int currencyCode(Currency currency) {
+    return currencies.code(currency);
+  }
+
+  /** Returns the currency holding {@code code}. */
+  public Currency currencyOf(int code) {
+    return currencies.valueOf(code);
+  }
+
+  private ProductSnapshot canonical(ProductSnapshot product) {
+    Sku sku = skus.intern(product.sku());
+    return sku == product.sku() ? product : new ProductSnapshot(sku, product.unitPrice());
+  }
+}
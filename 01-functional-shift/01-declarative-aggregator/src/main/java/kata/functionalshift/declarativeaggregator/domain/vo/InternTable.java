@@ -0,0 +1,182 @@
+package kata.functionalshift.declarativeaggregator.domain.vo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Concurrent interning table handing out one canonical instance and a dense {@code int} code per
+ * distinct value.
+ *
+ * <p>Values can be looked up by themselves or by an <em>alias</em>, typically the raw input they
+ * are parsed from. The factory turning an alias into a value (and validating it) only runs the
+ * first time that alias is seen; afterwards lookups are a single {@link ConcurrentHashMap#get}.
+ * Misses are serialized on the table, hits never lock.
+ *
+ * <p>An unbounded table never forgets a value, so codes are {@code 0 .. size() - 1} and stable
+ * forever. A bounded table holds at most {@code capacity} values with codes {@code 0 .. capacity -
+ * 1}; when full, a miss evicts a value that was not used since the clock hand last passed it and
+ * recycles its code. A code is therefore only stable while its value stays resident, which suits
+ * long-running services that re-resolve codes per batch.
+ */
+public final class InternTable<V> {
+  /** Aliases remembered per value; more variants of the same value just re-run the factory. */
+  private static final int MAX_ALIASES = 4;
+
+  private final ConcurrentHashMap<Object, Entry<V>> index = new ConcurrentHashMap<>();
+  private final int capacity;
+
+  // guarded by this; published to readers through index
+  private volatile Entry<V>[] slots;
+  private int size;
+  private int hand;
+
+  private InternTable(int capacity, int initialSlots) {
+    this.capacity = capacity;
+    this.slots = newSlots(initialSlots);
+  }
+
+  /** Returns a table that keeps every value it has seen. */
+  public static <V> InternTable<V> unbounded() {
+    return new InternTable<>(Integer.MAX_VALUE, 64);
+  }
+
+  /**
+   * Returns a table holding at most {@code capacity} values.
+   *
+   * @throws IllegalArgumentException if {@code capacity} is not positive.
+   */
+  public static <V> InternTable<V> bounded(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    return new InternTable<>(capacity, Math.min(capacity, 64));
+  }
+
+  /** Returns the canonical instance equal to {@code value}, interning it if needed. */
+  public V intern(V value) {
+    return entry(Objects.requireNonNull(value, "value is required"), Function.identity()).value;
+  }
+
+  /** Returns the code of {@code value}, interning it if needed. */
+  public int code(V value) {
+    return entry(Objects.requireNonNull(value, "value is required"), Function.identity()).code;
+  }
+
+  /** Returns the canonical value for {@code alias}, created by {@code factory} on first use. */
+  public <A> V resolve(A alias, Function<? super A, ? extends V> factory) {
+    return entry(Objects.requireNonNull(alias, "alias is required"), factory).value;
+  }
+
+  /** Returns the code of the value for {@code alias}, created by {@code factory} on first use. */
+  public <A> int resolveCode(A alias, Function<? super A, ? extends V> factory) {
+    return entry(Objects.requireNonNull(alias, "alias is required"), factory).code;
+  }
+
+  /**
+   * Returns the value currently holding {@code code}.
+   *
+   * @throws IllegalArgumentException if no value holds {@code code}.
+   */
+  public V valueOf(int code) {
+    Entry<V>[] current = slots;
+    Entry<V> entry = code >= 0 && code < current.length ? current[code] : null;
+    if (entry == null) {
+      throw new IllegalArgumentException("Unknown code: " + code);
+    }
+    return entry.value;
+  }
+
+  /** Returns the number of resident values. */
+  public synchronized int size() {
+    return size;
+  }
+
+  /** Returns the maximum number of resident values, {@link Integer#MAX_VALUE} if unbounded. */
+  public int capacity() {
+    return capacity;
+  }
+
+  private <A> Entry<V> entry(A alias, Function<? super A, ? extends V> factory) {
+    Entry<V> hit = index.get(alias);
+    if (hit != null) {
+      if (!hit.referenced) { // a read keeps hot entries' cache line shared between readers
+        hit.referenced = true;
+      }
+      return hit;
+    }
+    // validate and normalize outside the lock; a racing miss at worst does this twice
+    V candidate = Objects.requireNonNull(factory.apply(alias), "factory returned null");
+    synchronized (this) {
+      Entry<V> entry = index.get(alias);
+      if (entry != null) {
+        return entry;
+      }
+      entry = index.get(candidate);
+      if (entry == null) {
+        entry = insert(candidate);
+      }
+      if (!alias.equals(entry.value) && entry.aliases.size() < MAX_ALIASES) {
+        entry.aliases.add(alias);
+        index.put(alias, entry);
+      }
+      return entry;
+    }
+  }
+
+  // guarded by this
+  private Entry<V> insert(V value) {
+    int code;
+    if (size < capacity) {
+      code = size++;
+      if (code == slots.length) {
+        slots = Arrays.copyOf(slots, Math.min(slots.length * 2, capacity));
+      }
+    } else {
+      code = evict();
+    }
+    Entry<V> entry = new Entry<>(value, code);
+    slots[code] = entry;
+    index.put(value, entry);
+    return entry;
+  }
+
+  // guarded by this; CLOCK: skip and clear recently used entries, evict the first idle one
+  private int evict() {
+    Entry<V>[] current = slots;
+    while (true) {
+      Entry<V> candidate = current[hand];
+      int code = hand;
+      hand = hand + 1 == capacity ? 0 : hand + 1;
+      if (candidate.referenced) {
+        candidate.referenced = false;
+        continue;
+      }
+      index.remove(candidate.value, candidate);
+      for (Object alias : candidate.aliases) {
+        index.remove(alias, candidate);
+      }
+      return code;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> Entry<V>[] newSlots(int length) {
+    return (Entry<V>[]) new Entry<?>[length];
+  }
+
+  private static final class Entry<V> {
+    final V value;
+    final int code;
+    final List<Object> aliases = new ArrayList<>(1);
+    volatile boolean referenced;
+
+    Entry(V value, int code) {
+      this.value = value;
+      this.code = code;
+    }
+  }
+}
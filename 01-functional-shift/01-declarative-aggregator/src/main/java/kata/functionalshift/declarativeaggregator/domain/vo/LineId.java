@@ -1,7 +1,8 @@
 package kata.functionalshift.declarativeaggregator.domain.vo;
 
-import com.fasterxml.uuid.Generators;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -21,8 +22,15 @@ public record LineId(UUID uuidv7) {
     return Instant.ofEpochMilli(uuidv7.getMostSignificantBits() >>> 16);
   }
 
-  /** Creates a new random UUIDv7-backed line identifier. */
+  /** Creates a new UUIDv7-backed line identifier, after every other one made by this thread. */
   public static LineId newRandom() {
-    return new LineId(Generators.timeBasedEpochRandomGenerator().generate());
+    return new LineId(UuidV7.next());
+  }
+
+  /** Creates {@code count} new line identifiers in increasing order, reading the clock once. */
+  public static List<LineId> newRandom(int count) {
+    UUID[] ids = new UUID[count];
+    UuidV7.next(ids);
+    return Arrays.stream(ids).map(LineId::new).toList();
   }
 }
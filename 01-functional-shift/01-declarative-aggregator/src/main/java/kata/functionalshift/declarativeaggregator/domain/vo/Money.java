@@ -4,6 +4,8 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Currency;
 import java.util.Objects;
+import kata.functionalshift.declarativeaggregator.metrics.Metrics;
+import kata.functionalshift.declarativeaggregator.metrics.Operation;
 
 /** Value object for an amount and currency pair. */
 public record Money(BigDecimal amount, Currency currency) {
@@ -13,8 +15,10 @@ public record Money(BigDecimal amount, Currency currency) {
     Objects.requireNonNull(currency, "currency is required");
 
     // Normalize scale (most currencies use 2; some don't, but this is a sane default)
-    int scale = Math.max(currency.getDefaultFractionDigits(), 0);
-    amount = amount.setScale(scale, RoundingMode.HALF_UP);
+    int scale = scaleOf(currency);
+    if (amount.scale() != scale) {
+      amount = amount.setScale(scale, RoundingMode.HALF_UP);
+    }
   }
 
   /** Factory method to create money from amount and currency values. */
@@ -22,6 +26,21 @@ public record Money(BigDecimal amount, Currency currency) {
     return new Money(amount, currency);
   }
 
+  /** Factory method to create money from an amount in minor units (e.g. cents for USD). */
+  public static Money ofMinor(long minorUnits, Currency currency) {
+    return new Money(BigDecimal.valueOf(minorUnits, scaleOf(currency)), currency);
+  }
+
+  /**
+   * Returns the amount in minor units of the currency (e.g. cents for USD).
+   *
+   * @throws ArithmeticException if the amount does not fit in a {@code long}.
+   */
+  public long minorUnits() {
+    // movePointRight keeps the compact long representation; unscaledValue() would go via BigInteger
+    return amount.movePointRight(amount.scale()).longValueExact();
+  }
+
   /** Ensures this amount is non-negative or throws with the supplied message. */
   public Money requireNonNegative(String message) {
     if (amount.signum() < 0) {
@@ -32,18 +51,25 @@ public record Money(BigDecimal amount, Currency currency) {
 
   /** Adds another money value in the same currency. */
   public Money add(Money other) {
+    Metrics.count(Operation.MONEY_ADD);
     requireSameCurrency(other);
     return new Money(this.amount.add(other.amount), this.currency);
   }
 
   /** Multiplies this amount by a non-negative integer factor. */
   public Money multiply(int factor) {
+    Metrics.count(Operation.MONEY_MULTIPLY);
     if (factor < 0) {
       throw new IllegalArgumentException("factor must be >= 0");
     }
     return new Money(this.amount.multiply(BigDecimal.valueOf(factor)), this.currency);
   }
 
+  /** Returns the scale every amount in {@code currency} is normalized to. */
+  static int scaleOf(Currency currency) {
+    return Math.max(currency.getDefaultFractionDigits(), 0);
+  }
+
   /** Validates currency compatibility for arithmetic operations. */
   private void requireSameCurrency(Money other) {
     if (!this.currency.equals(other.currency)) {
@@ -0,0 +1,157 @@
+package kata.functionalshift.declarativeaggregator.domain.vo;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Mutable, exact running total of {@link Money} in a single currency.
+ *
+ * <p>Summing with {@link Money#add} creates a new {@code BigDecimal} and a new {@code Money} per
+ * step. This accumulator keeps the total as a {@code long} of minor units instead and only spills
+ * into a {@code BigDecimal} when a value has more than 18 digits or a sum would overflow. Since
+ * every {@code Money} amount already carries the currency's scale, {@link #total()} is identical,
+ * value and scale, to reducing the same values with {@code Money::add}.
+ *
+ * <p>Not thread-safe; use one accumulator per thread and {@link #merge} them.
+ */
+public final class MoneyAccumulator {
+  /** Any amount with at most this many digits has an unscaled value that fits in a long. */
+  private static final int MAX_LONG_DIGITS = 18;
+
+  private Currency currency;
+  private int scale;
+  private long minorUnits;
+  private BigDecimal spilled;
+  private boolean empty = true;
+
+  /** Creates an empty accumulator whose currency is fixed by the first value added. */
+  public MoneyAccumulator() {}
+
+  /** Creates an empty accumulator for {@code currency}. */
+  public MoneyAccumulator(Currency currency) {
+    bind(Objects.requireNonNull(currency, "currency is required"));
+  }
+
+  /**
+   * Adds {@code money} to the total.
+   *
+   * @throws IllegalArgumentException if {@code money} is in another currency.
+   */
+  public MoneyAccumulator add(Money money) {
+    requireCurrency(money.currency());
+    BigDecimal amount = money.amount();
+    if (amount.precision() <= MAX_LONG_DIGITS) {
+      addMinor(money.minorUnits());
+    } else {
+      spill(amount);
+    }
+    return this;
+  }
+
+  /**
+   * Adds {@code unitPrice * quantity} to the total, the same amount as {@code
+   * unitPrice.multiply(quantity)} without materializing it.
+   *
+   * @throws IllegalArgumentException if {@code unitPrice} is in another currency or {@code
+   *     quantity} is negative.
+   */
+  public MoneyAccumulator addLine(Money unitPrice, int quantity) {
+    if (quantity < 0) {
+      throw new IllegalArgumentException("factor must be >= 0");
+    }
+    requireCurrency(unitPrice.currency());
+    BigDecimal amount = unitPrice.amount();
+    if (amount.precision() <= MAX_LONG_DIGITS) {
+      long unit = unitPrice.minorUnits();
+      long high = Math.multiplyHigh(unit, quantity);
+      long low = unit * quantity;
+      if (high == (low >> 63)) {
+        addMinor(low);
+        return this;
+      }
+    }
+    spill(amount.multiply(BigDecimal.valueOf(quantity)));
+    return this;
+  }
+
+  /** Adds the total of {@code line} before discount, see {@link OrderLine#totalBeforeDiscount}. */
+  public MoneyAccumulator addLine(OrderLine line) {
+    return addLine(line.key().productSnapshot().unitPrice(), line.quantity());
+  }
+
+  /**
+   * Adds an amount already expressed in minor units of this accumulator's currency.
+   *
+   * @throws IllegalStateException if no currency is bound yet.
+   */
+  public MoneyAccumulator addMinor(long minor) {
+    if (currency == null) {
+      throw new IllegalStateException("Currency is not known yet");
+    }
+    long sum = minorUnits + minor;
+    if (((minorUnits ^ sum) & (minor ^ sum)) < 0) {
+      // long overflow: park what we have in the BigDecimal and restart the fast path
+      spill(BigDecimal.valueOf(minorUnits, scale));
+      minorUnits = minor;
+    } else {
+      minorUnits = sum;
+    }
+    empty = false;
+    return this;
+  }
+
+  /** Adds the total of {@code other} to this accumulator. */
+  public MoneyAccumulator merge(MoneyAccumulator other) {
+    if (other.empty) {
+      return this;
+    }
+    requireCurrency(other.currency);
+    addMinor(other.minorUnits);
+    if (other.spilled != null) {
+      spill(other.spilled);
+    }
+    return this;
+  }
+
+  /** Returns whether nothing has been added yet. */
+  public boolean isEmpty() {
+    return empty;
+  }
+
+  /**
+   * Returns the exact total.
+   *
+   * @throws IllegalStateException if nothing has been added.
+   */
+  public Money total() {
+    if (empty) {
+      throw new IllegalStateException("Nothing accumulated");
+    }
+    return Money.of(amount(), currency);
+  }
+
+  /** Returns the exact total amount, or zero in the currency's scale when nothing was added. */
+  public BigDecimal amount() {
+    BigDecimal fast = BigDecimal.valueOf(minorUnits, currency == null ? 0 : scale);
+    return spilled == null ? fast : spilled.add(fast);
+  }
+
+  private void spill(BigDecimal amount) {
+    spilled = spilled == null ? amount : spilled.add(amount);
+    empty = false;
+  }
+
+  private void requireCurrency(Currency other) {
+    if (currency == null) {
+      bind(other);
+    } else if (!currency.equals(other)) {
+      throw new IllegalArgumentException("Currency mismatch");
+    }
+  }
+
+  private void bind(Currency currency) {
+    this.currency = currency;
+    this.scale = Money.scaleOf(currency);
+  }
+}
@@ -1,6 +1,8 @@
 package kata.functionalshift.declarativeaggregator.domain.vo;
 
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -18,4 +20,16 @@ public record OrderId(UUID uuidv7) {
   public Instant creationInstant() {
     return Instant.ofEpochMilli(uuidv7.getMostSignificantBits() >>> 16);
   }
+
+  /** Creates a new order identifier, after every other one made by this thread. */
+  public static OrderId newRandom() {
+    return new OrderId(UuidV7.next());
+  }
+
+  /** Creates {@code count} new order identifiers in increasing order, reading the clock once. */
+  public static List<OrderId> newRandom(int count) {
+    UUID[] ids = new UUID[count];
+    UuidV7.next(ids);
+    return Arrays.stream(ids).map(OrderId::new).toList();
+  }
 }
@@ -0,0 +1,65 @@
+package kata.functionalshift.declarativeaggregator.domain.vo;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Thread-local, monotonic UUIDv7 generator behind {@link OrderId} and {@link LineId}.
+ *
+ * <p>Layout (RFC 9562, section 6.2, method 1): 48-bit Unix milliseconds, version, a 42-bit counter
+ * split over the 12 {@code rand_a} bits and the top 30 {@code rand_b} bits, then 32 random bits.
+ * The counter starts at a random value below 2^41 on every new millisecond and counts up within
+ * it, also while the clock stands still or goes back; if it ever overflows, the timestamp is
+ * carried one millisecond forward. So the ids a thread generates are strictly increasing as
+ * unsigned 128-bit values, within a millisecond too. Ids from different threads are not ordered
+ * within a millisecond, and are as unlikely to collide as random UUIDv7s.
+ *
+ * <p>Each thread owns its generator, so generating takes no lock and no shared write; randomness
+ * comes from {@link ThreadLocalRandom}. That is fast but not unpredictable, which is fine for
+ * identifiers that are not secrets.
+ */
+final class UuidV7 {
+  private static final ThreadLocal<UuidV7> LOCAL = ThreadLocal.withInitial(UuidV7::new);
+
+  private static final long VERSION = 0x7000L;
+  private static final long VARIANT = 0x8000_0000_0000_0000L;
+  private static final int COUNTER_BITS = 42;
+  private static final int COUNTER_LOW_BITS = 30;
+  private static final long COUNTER_MAX = (1L << COUNTER_BITS) - 1;
+
+  private long millis = Long.MIN_VALUE;
+  private long counter;
+
+  private UuidV7() {}
+
+  /** Returns the next id of the current thread. */
+  static UUID next() {
+    return LOCAL.get().generate(System.currentTimeMillis());
+  }
+
+  /** Fills {@code ids} with the next ids of the current thread, reading the clock once. */
+  static void next(UUID[] ids) {
+    UuidV7 generator = LOCAL.get();
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = generator.generate(now);
+    }
+  }
+
+  private UUID generate(long now) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (now > millis) {
+      millis = now;
+      counter = random.nextLong() >>> (Long.SIZE - COUNTER_BITS + 1);
+    } else if (++counter > COUNTER_MAX) {
+      millis++;
+      counter = random.nextLong() >>> (Long.SIZE - COUNTER_BITS + 1);
+    }
+    long msb = (millis << 16) | VERSION | (counter >>> COUNTER_LOW_BITS);
+    long lsb =
+        VARIANT
+            | ((counter & ((1L << COUNTER_LOW_BITS) - 1)) << 32)
+            | (random.nextInt() & 0xFFFF_FFFFL);
+    return new UUID(msb, lsb);
+  }
+}
@@ -0,0 +1,98 @@
+package kata.functionalshift.declarativeaggregator.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Log-linear histogram of non-negative {@code long} values, in the style of HdrHistogram.
+ *
+ * <p>Values below 16 have a bucket each; above that, every power of two is split into 8 equal
+ * buckets, so a recorded value is reported with at most 12.5% relative error. The whole {@code
+ * long} range fits in 512 counters, recording is one atomic increment and never allocates.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int LINEAR = 2 * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /** Records one value; negative values are recorded as 0. */
+  public void record(long value) {
+    long v = Math.max(value, 0);
+    counts.incrementAndGet(indexOf(v));
+    max.accumulate(v);
+  }
+
+  /** Returns the number of recorded values. */
+  public long count() {
+    long total = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      total += counts.get(i);
+    }
+    return total;
+  }
+
+  /** Returns the largest recorded value, exactly; 0 if none. */
+  public long max() {
+    return max.get();
+  }
+
+  /**
+   * Returns the highest value equivalent to the one at {@code percentile}: at least {@code
+   * percentile}% of the recorded values are not above it.
+   *
+   * @return The value, or 0 if nothing was recorded.
+   * @throws IllegalArgumentException if {@code percentile} is not within [0, 100].
+   */
+  public long valueAtPercentile(double percentile) {
+    if (!(percentile >= 0 && percentile <= 100)) {
+      throw new IllegalArgumentException("percentile must be within [0, 100]");
+    }
+    long[] snapshot = new long[counts.length()];
+    long total = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(highestEquivalent(i), max());
+      }
+    }
+    return max();
+  }
+
+  /** Clears all recorded values; not atomic with concurrent recording. */
+  public void reset() {
+    for (int i = 0; i < counts.length(); i++) {
+      counts.set(i, 0);
+    }
+    max.reset();
+  }
+
+  static int indexOf(long value) {
+    if (value < LINEAR) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+
+  static long highestEquivalent(int index) {
+    if (index < LINEAR) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = SUB_BUCKETS + index % SUB_BUCKETS;
+    long next = (subBucket + 1) << shift;
+    return next < 0 ? Long.MAX_VALUE : next - 1;
+  }
+}
@@ -0,0 +1,175 @@
+package kata.functionalshift.declarativeaggregator.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters, latency histograms and Flight Recorder events for the aggregator's hot
+ * paths.
+ *
+ * <p>Instrumented code brackets an operation with {@link #begin} and {@link Probe#end}, or calls
+ * {@link #count} for operations too small to time. Each {@link Operation} keeps its number of
+ * calls, total input size, total distinct count, allocated bytes and a {@link LatencyHistogram} of
+ * elapsed nanoseconds; {@link #snapshot} reads them. A Flight Recorder event, {@code
+ * kata.aggregator.Operation}, is also emitted per run, but only while a recording has it enabled.
+ *
+ * <p>Metrics start disabled unless the {@code kata.metrics} system property is {@code true}, and
+ * can be switched at runtime with {@link #setEnabled}. Disabled, every hook costs one volatile read
+ * and a branch. Enabled, a run costs two {@link System#nanoTime()} calls and a few uncontended
+ * atomic adds, which is noise next to any aggregation but not next to one {@code Money} addition;
+ * that is why {@code Money} arithmetic is only counted.
+ *
+ * <p>Allocated bytes are only measured after {@link #setAllocationTracking} turns them on, since
+ * that switches the JVM-wide per-thread allocation accounting for every other user of the domain
+ * classes; a benchmark or harness opts in during its setup. Each run then also reads the thread's
+ * allocation counter twice.
+ */
+public final class Metrics {
+  private static final com.sun.management.ThreadMXBean THREADS = threads();
+  private static final Stats[] STATS = new Stats[Operation.values().length];
+
+  static {
+    for (int i = 0; i < STATS.length; i++) {
+      STATS[i] = new Stats();
+    }
+  }
+
+  private static volatile boolean enabled = Boolean.getBoolean("kata.metrics");
+  private static volatile boolean trackAllocations;
+
+  private Metrics() {}
+
+  /** Returns whether operations are being measured. */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Turns measuring on or off; runs already begun still end normally. */
+  public static void setEnabled(boolean on) {
+    enabled = on;
+  }
+
+  /**
+   * Turns measuring allocated bytes on or off, where the JVM supports it. Turning it on enables
+   * the JVM's per-thread allocation accounting, which stays on for the process.
+   */
+  public static void setAllocationTracking(boolean on) {
+    if (on && THREADS != null) {
+      THREADS.setThreadAllocatedMemoryEnabled(true);
+    }
+    trackAllocations = on && THREADS != null;
+  }
+
+  /** Begins a run of {@code operation}; returns an inactive probe while metrics are disabled. */
+  public static Probe begin(Operation operation) {
+    if (!enabled) {
+      return Probe.INACTIVE;
+    }
+    OperationEvent event = new OperationEvent();
+    if (event.isEnabled()) {
+      event.begin();
+    } else {
+      event = null;
+    }
+    return new Probe(operation, System.nanoTime(), allocatedBytes(), event);
+  }
+
+  /** Counts one call of an operation that is not timed. */
+  public static void count(Operation operation) {
+    if (enabled) {
+      STATS[operation.ordinal()].calls.increment();
+    }
+  }
+
+  /** Returns the totals recorded for {@code operation} so far. */
+  public static Snapshot snapshot(Operation operation) {
+    Stats stats = STATS[operation.ordinal()];
+    LatencyHistogram latency = stats.latencyNanos;
+    return new Snapshot(
+        operation,
+        stats.calls.sum(),
+        stats.inputs.sum(),
+        stats.distinct.sum(),
+        stats.allocatedBytes.sum(),
+        latency.valueAtPercentile(50),
+        latency.valueAtPercentile(99),
+        latency.max());
+  }
+
+  /** Clears every recorded total; not atomic with concurrent recording. */
+  public static void reset() {
+    for (Stats stats : STATS) {
+      stats.calls.reset();
+      stats.inputs.reset();
+      stats.distinct.reset();
+      stats.allocatedBytes.reset();
+      stats.latencyNanos.reset();
+    }
+  }
+
+  static void record(
+      Operation operation,
+      long inputSize,
+      long distinctCount,
+      long allocatedBytes,
+      long elapsedNanos) {
+    Stats stats = STATS[operation.ordinal()];
+    stats.calls.increment();
+    stats.inputs.add(inputSize);
+    if (distinctCount >= 0) {
+      stats.distinct.add(distinctCount);
+    }
+    if (allocatedBytes >= 0) {
+      stats.allocatedBytes.add(allocatedBytes);
+    }
+    stats.latencyNanos.record(elapsedNanos);
+  }
+
+  /** Returns the bytes allocated by the current thread so far, or -1 if not tracked. */
+  static long allocatedBytes() {
+    return trackAllocations ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+  }
+
+  private static com.sun.management.ThreadMXBean threads() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+        && threads.isThreadAllocatedMemorySupported()) {
+      return threads;
+    }
+    return null;
+  }
+
+  /**
+   * Totals for one operation.
+   *
+   * @param calls Completed runs, or calls for counted-only operations.
+   * @param inputs Sum of the runs' input sizes.
+   * @param distinct Sum of the runs' distinct counts, where applicable.
+   * @param allocatedBytes Sum of the bytes the runs allocated, while tracked.
+   * @param p50Nanos Median elapsed time.
+   * @param p99Nanos 99th percentile elapsed time.
+   * @param maxNanos Longest elapsed time.
+   */
+  public record Snapshot(
+      Operation operation,
+      long calls,
+      long inputs,
+      long distinct,
+      long allocatedBytes,
+      long p50Nanos,
+      long p99Nanos,
+      long maxNanos) {
+
+    /** Returns distinct over inputs, for operations that dedupe; NaN if nothing was counted. */
+    public double distinctRatio() {
+      return inputs == 0 ? Double.NaN : (double) distinct / inputs;
+    }
+  }
+
+  private static final class Stats {
+    final LongAdder calls = new LongAdder();
+    final LongAdder inputs = new LongAdder();
+    final LongAdder distinct = new LongAdder();
+    final LongAdder allocatedBytes = new LongAdder();
+    final LatencyHistogram latencyNanos = new LatencyHistogram();
+  }
+}
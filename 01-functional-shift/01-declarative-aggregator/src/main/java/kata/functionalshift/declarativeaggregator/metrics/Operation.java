@@ -0,0 +1,16 @@
+package kata.functionalshift.declarativeaggregator.metrics;
+
+/** The instrumented operations, one set of {@link Metrics} each. */
+public enum Operation {
+  COUNT_ORDERS_BY_STATUS,
+  CALCULATE_TOTAL_REVENUE,
+  GET_DISTINCT_PRODUCTS_SOLD,
+  GROUP_ORDER_IDS_BY_STATUS,
+  CALCULATE_REVENUE_BY_STATUS,
+  ORDER_ADD,
+  ORDER_SET_QUANTITY,
+  /** Counted only; see {@link Metrics#count(Operation)}. */
+  MONEY_ADD,
+  /** Counted only; see {@link Metrics#count(Operation)}. */
+  MONEY_MULTIPLY
+}
@@ -0,0 +1,44 @@
+package kata.functionalshift.declarativeaggregator.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one instrumented operation; the event duration is its elapsed time.
+ *
+ * <p>Stack traces are off by default to keep the event cheap; enable them in the recording settings
+ * when looking for the caller of a slow aggregation.
+ */
+@Name(OperationEvent.NAME)
+@Label("Aggregator Operation")
+@Category({"Kata", "Declarative Aggregator"})
+@Description("A SalesAnalyzer aggregation or an Order update")
+@StackTrace(false)
+final class OperationEvent extends jdk.jfr.Event {
+  static final String NAME = "kata.aggregator.Operation";
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Input Size")
+  @Description("Orders, or lines for product listings, read by the operation")
+  long inputSize;
+
+  @Label("Distinct Count")
+  @Description("Distinct elements among the input; -1 if not applicable")
+  long distinctCount;
+
+  @Label("Distinct Ratio")
+  @Percentage
+  double distinctRatio;
+
+  @Label("Allocated")
+  @Description("Bytes allocated by the thread during the operation; -1 if unsupported")
+  @DataAmount
+  long allocatedBytes;
+}
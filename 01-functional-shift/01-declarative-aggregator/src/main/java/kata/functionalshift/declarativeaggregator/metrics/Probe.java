@@ -0,0 +1,68 @@
+package kata.functionalshift.declarativeaggregator.metrics;
+
+/**
+ * One measured run of an {@link Operation}, from {@link Metrics#begin} to {@link #end}.
+ *
+ * <p>While metrics are disabled {@link Metrics#begin} returns a shared inactive probe whose methods
+ * do nothing. A probe belongs to the thread that began it; an operation that throws is simply not
+ * ended and leaves no trace.
+ */
+public final class Probe {
+  static final Probe INACTIVE = new Probe(null, 0, 0, null);
+
+  private final Operation operation;
+  private final long startNanos;
+  private final long startAllocatedBytes;
+  private final OperationEvent event;
+  private long distinctSeen;
+
+  Probe(Operation operation, long startNanos, long startAllocatedBytes, OperationEvent event) {
+    this.operation = operation;
+    this.startNanos = startNanos;
+    this.startAllocatedBytes = startAllocatedBytes;
+    this.event = event;
+  }
+
+  /** Returns whether this run is measured, to skip work done only for the metrics. */
+  public boolean isActive() {
+    return operation != null;
+  }
+
+  /** Counts one distinct element, e.g. from a {@code peek} after {@code distinct()}. */
+  public void countDistinct() {
+    distinctSeen++;
+  }
+
+  /** Returns the number of {@link #countDistinct()} calls so far. */
+  public long distinctSeen() {
+    return distinctSeen;
+  }
+
+  /**
+   * Ends the run and records it.
+   *
+   * @param inputSize Elements the operation read.
+   * @param distinctCount Distinct elements among them, or -1 if the operation does not dedupe.
+   */
+  public void end(long inputSize, long distinctCount) {
+    if (operation == null) {
+      return;
+    }
+    long elapsedNanos = System.nanoTime() - startNanos;
+    long endAllocatedBytes = startAllocatedBytes < 0 ? -1 : Metrics.allocatedBytes();
+    long allocatedBytes = endAllocatedBytes < 0 ? -1 : endAllocatedBytes - startAllocatedBytes;
+    Metrics.record(operation, inputSize, distinctCount, allocatedBytes, elapsedNanos);
+    if (event != null) {
+      event.end();
+      if (event.shouldCommit()) {
+        event.operation = operation.name();
+        event.inputSize = inputSize;
+        event.distinctCount = distinctCount;
+        event.distinctRatio =
+            distinctCount < 0 || inputSize == 0 ? Double.NaN : (double) distinctCount / inputSize;
+        event.allocatedBytes = allocatedBytes;
+        event.commit();
+      }
+    }
+  }
+}
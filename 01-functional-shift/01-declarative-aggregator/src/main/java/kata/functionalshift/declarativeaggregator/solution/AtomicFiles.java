@@ -0,0 +1,68 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replaces files so that a crash leaves either the previous or the new content, never a mix.
+ *
+ * <p>The content goes to a sibling {@code .tmp} file, which is flushed and then renamed over the
+ * target; the directory is flushed after the rename so that the rename itself survives a crash.
+ * If anything fails before the rename, the temporary file is deleted and the target is untouched.
+ */
+final class AtomicFiles {
+
+  /** Writes the content of a file through its channel and returns what the caller keeps of it. */
+  @FunctionalInterface
+  interface Content<T> {
+    T writeTo(FileChannel channel) throws IOException;
+  }
+
+  private AtomicFiles() {}
+
+  /**
+   * Writes {@code content} to a temporary file next to {@code target} and renames it into place.
+   *
+   * @return The value returned by {@code content}.
+   * @throws IOException if the file cannot be written, flushed or renamed.
+   */
+  static <T> T replace(Path target, Content<T> content) throws IOException {
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    T written;
+    try {
+      try (FileChannel channel =
+          FileChannel.open(
+              temp,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE)) {
+        written = content.writeTo(channel);
+        channel.force(true);
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (Throwable e) {
+      try {
+        Files.deleteIfExists(temp);
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    syncDirectory(target.toAbsolutePath().getParent());
+    return written;
+  }
+
+  private static void syncDirectory(Path directory) throws IOException {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (UnsupportedOperationException | AccessDeniedException e) {
+      // directories cannot be opened or flushed on every platform, e.g. Windows
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.util.Objects;
+
+/**
+ * Weighted Count-Min sketch: approximate weight per key in a fixed {@code depth x width} table.
+ *
+ * <p>Every key adds its weight to one cell per row; its estimate is the smallest of those cells.
+ * Estimates never underestimate, and with {@code width = ceil(e / epsilon)} and {@code depth =
+ * ceil(ln(1 / delta))} they overestimate by more than {@code epsilon} times the total weight with
+ * probability at most {@code delta}. Unlike {@link SpaceSaving} it answers for any key, not only
+ * the heavy ones, but cannot list keys; {@link TopSkus#countMin} pairs it with a bounded set of
+ * candidate keys for that.
+ *
+ * <p>Sketches with the same dimensions and seed can be {@link #merge merged} by adding cells. Not
+ * thread-safe.
+ */
+public final class CountMinSketch {
+  private final int depth;
+  private final int width;
+  private final long seed;
+  private final long[] cells;
+  private long totalWeight;
+
+  private CountMinSketch(int depth, int width, long seed) {
+    this.depth = depth;
+    this.width = width;
+    this.seed = seed;
+    this.cells = new long[Math.multiplyExact(depth, width)];
+  }
+
+  /**
+   * Creates a sketch overestimating by more than {@code epsilon * totalWeight} with probability at
+   * most {@code delta}.
+   *
+   * @throws IllegalArgumentException if {@code epsilon} or {@code delta} is not in (0, 1).
+   */
+  public static CountMinSketch withError(double epsilon, double delta, long seed) {
+    if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+      throw new IllegalArgumentException("epsilon and delta must be in (0, 1)");
+    }
+    int width = (int) Math.ceil(Math.E / epsilon);
+    int depth = (int) Math.ceil(Math.log(1 / delta));
+    return new CountMinSketch(depth, width, seed);
+  }
+
+  /**
+   * Adds {@code weight} to {@code key}.
+   *
+   * @throws IllegalArgumentException if {@code weight} is negative.
+   */
+  public void add(Object key, long weight) {
+    if (weight < 0) {
+      throw new IllegalArgumentException("weight must not be negative");
+    }
+    long hash = hash(key);
+    for (int row = 0; row < depth; row++) {
+      cells[row * width + column(hash, row)] += weight;
+    }
+    totalWeight += weight;
+  }
+
+  /** Returns an upper bound of the total weight added for {@code key}. */
+  public long estimate(Object key) {
+    long hash = hash(key);
+    long min = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      min = Math.min(min, cells[row * width + column(hash, row)]);
+    }
+    return min;
+  }
+
+  /**
+   * Adds every cell of {@code other} to this sketch.
+   *
+   * @throws IllegalArgumentException if the sketches differ in dimensions or seed.
+   */
+  public CountMinSketch merge(CountMinSketch other) {
+    if (depth != other.depth || width != other.width || seed != other.seed) {
+      throw new IllegalArgumentException("Sketches differ in dimensions or seed");
+    }
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] += other.cells[i];
+    }
+    totalWeight += other.totalWeight;
+    return this;
+  }
+
+  /** Returns the total weight added. */
+  public long totalWeight() {
+    return totalWeight;
+  }
+
+  private long hash(Object key) {
+    return Hashing.mix(Objects.requireNonNull(key, "key is required").hashCode() ^ seed);
+  }
+
+  /** Row {@code row} uses the Kirsch-Mitzenmacher combination h1 + row * h2 of one 64-bit hash. */
+  private int column(long hash, int row) {
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32) | 1;
+    return Math.floorMod(h1 + row * h2, width);
+  }
+}
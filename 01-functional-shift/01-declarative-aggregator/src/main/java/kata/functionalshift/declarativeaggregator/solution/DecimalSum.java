@@ -0,0 +1,85 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.math.BigDecimal;
+import java.util.stream.Collector;
+
+/**
+ * Mutable, exact {@code BigDecimal} sum with a {@code long} fast path.
+ *
+ * <p>Values that share the scale of the first value and fit in 18 digits are summed as unscaled
+ * {@code long}s; anything else (other scales, huge values, overflow) spills into a {@code
+ * BigDecimal}. {@link #sum()} is identical, value and scale, to {@code reduce(BigDecimal.ZERO,
+ * BigDecimal::add)} over the same values, but allocates nothing per value on the fast path.
+ *
+ * <p>Unlike {@link kata.functionalshift.declarativeaggregator.domain.vo.MoneyAccumulator} this
+ * sum does not look at currencies: it reproduces the analyzer's plain amount arithmetic.
+ */
+final class DecimalSum {
+  private static final int MAX_LONG_DIGITS = 18;
+
+  private long unscaled;
+  private int scale;
+  private boolean hasUnscaled;
+  private BigDecimal spilled;
+
+  /** Returns a collector summing amounts exactly, like {@code reducing(ZERO, BigDecimal::add)}. */
+  static Collector<BigDecimal, ?, BigDecimal> summing() {
+    return Collector.of(DecimalSum::new, DecimalSum::add, DecimalSum::merge, DecimalSum::sum);
+  }
+
+  /** Adds {@code value}. */
+  DecimalSum add(BigDecimal value) {
+    if (value.precision() <= MAX_LONG_DIGITS && (!hasUnscaled || value.scale() == scale)) {
+      return addUnscaled(value.movePointRight(value.scale()).longValueExact(), value.scale());
+    }
+    return spill(value);
+  }
+
+  /** Adds {@code unscaledValue × 10^-valueScale}. */
+  DecimalSum addUnscaled(long unscaledValue, int valueScale) {
+    if (!hasUnscaled) {
+      scale = valueScale;
+      hasUnscaled = true;
+    } else if (valueScale != scale) {
+      return spill(BigDecimal.valueOf(unscaledValue, valueScale));
+    }
+    long sum = unscaled + unscaledValue;
+    if (((unscaled ^ sum) & (unscaledValue ^ sum)) < 0) {
+      spill(BigDecimal.valueOf(unscaledValue, valueScale));
+    } else {
+      unscaled = sum;
+    }
+    return this;
+  }
+
+  /** Adds everything accumulated by {@code other}. */
+  DecimalSum merge(DecimalSum other) {
+    if (other.hasUnscaled) {
+      addUnscaled(other.unscaled, other.scale);
+    }
+    if (other.spilled != null) {
+      spill(other.spilled);
+    }
+    return this;
+  }
+
+  /** Returns whether nothing was added. */
+  boolean isEmpty() {
+    return !hasUnscaled && spilled == null;
+  }
+
+  /** Returns the exact sum; {@code BigDecimal.ZERO} when nothing was added. */
+  BigDecimal sum() {
+    BigDecimal total = hasUnscaled ? BigDecimal.valueOf(unscaled, scale) : BigDecimal.ZERO;
+    if (total.scale() < 0) {
+      // reduce(ZERO, add) never ends below ZERO's scale of 0
+      total = total.setScale(0);
+    }
+    return spilled == null ? total : total.add(spilled);
+  }
+
+  private DecimalSum spill(BigDecimal value) {
+    spilled = spilled == null ? value : spilled.add(value);
+    return this;
+  }
+}
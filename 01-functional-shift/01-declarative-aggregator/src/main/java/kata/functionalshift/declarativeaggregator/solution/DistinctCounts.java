@@ -0,0 +1,133 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Collector;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+
+/**
+ * Approximate distinct counts of orders, SKUs and products per status in fixed memory.
+ *
+ * <p>The exact {@link SalesAnalyzer} answers keep every distinct {@code Order} or {@code
+ * ProductSnapshot} in a {@code HashSet} just to count them. Here each count is a {@link
+ * HyperLogLog} sketch instead: orders are keyed on the UUID bits of their id, SKUs on their code
+ * and products on SKU code, currency code and unit price in minor units. Memory is {@code
+ * 2^precision} bytes per sketch, whatever the number of orders.
+ *
+ * <pre>{@code
+ * DistinctCounts counts = orders.parallelStream().collect(DistinctCounts.collector(14));
+ * long orders = counts.distinctOrders();
+ * }</pre>
+ *
+ * <p>Counts merge exactly like their sketches, so they can be built per thread (see {@link
+ * #collector}) or per window (see {@link SalesReport.Metric#DISTINCT_COUNTS}) and combined. Every
+ * key is hashed from its value alone, never from an identity hash code, so counts built in
+ * different processes merge as well. Since nothing is deduplicated by id first, an order repeated
+ * with another status counts towards both statuses. Not thread-safe.
+ */
+public final class DistinctCounts {
+  /** Precision used by {@link #collector()}: 16 KiB per sketch, about 0.8 % standard error. */
+  public static final int DEFAULT_PRECISION = 14;
+
+  private final int precision;
+  private final HyperLogLog orders;
+  private final HyperLogLog skus;
+  private final Map<OrderStatus, HyperLogLog> productsByStatus = new EnumMap<>(OrderStatus.class);
+
+  /**
+   * Creates empty counts backed by sketches of {@code precision}, see {@link HyperLogLog}.
+   *
+   * @throws IllegalArgumentException if {@code precision} is outside [4, 18].
+   */
+  public DistinctCounts(int precision) {
+    this.precision = precision;
+    this.orders = new HyperLogLog(precision);
+    this.skus = new HyperLogLog(precision);
+  }
+
+  /** Returns a collector counting with {@link #DEFAULT_PRECISION}; fine on parallel streams. */
+  public static Collector<Order, ?, DistinctCounts> collector() {
+    return collector(DEFAULT_PRECISION);
+  }
+
+  /** Returns a collector counting with sketches of {@code precision}; fine on parallel streams. */
+  public static Collector<Order, ?, DistinctCounts> collector(int precision) {
+    HyperLogLog.requirePrecision(precision); // fail here, not on the first worker thread
+    return Collector.of(
+        () -> new DistinctCounts(precision),
+        DistinctCounts::accept,
+        DistinctCounts::merge,
+        Collector.Characteristics.IDENTITY_FINISH,
+        Collector.Characteristics.UNORDERED);
+  }
+
+  /**
+   * Adds {@code order}, its SKUs and its products.
+   *
+   * @throws ArithmeticException if a unit price does not fit in a {@code long} of minor units.
+   */
+  public DistinctCounts accept(Order order) {
+    orders.add(order.id().uuidv7());
+    HyperLogLog products = null;
+    for (OrderLine line : order.lines()) {
+      ProductSnapshot product = line.key().productSnapshot();
+      long skuHash = Hashing.hash(product.sku().value());
+      skus.addHash(skuHash);
+      if (products == null) {
+        products =
+            productsByStatus.computeIfAbsent(order.status(), s -> new HyperLogLog(precision));
+      }
+      products.addHash(productHash(skuHash, product.unitPrice()));
+    }
+    return this;
+  }
+
+  private static long productHash(long skuHash, Money unitPrice) {
+    long currencyHash = Hashing.hash(unitPrice.currency().getCurrencyCode());
+    return Hashing.mix(Hashing.mix(skuHash ^ currencyHash) + unitPrice.minorUnits());
+  }
+
+  /**
+   * Folds {@code other} into these counts, which then cover both inputs.
+   *
+   * @throws IllegalArgumentException if the precisions differ.
+   */
+  public DistinctCounts merge(DistinctCounts other) {
+    orders.merge(other.orders);
+    skus.merge(other.skus);
+    for (Map.Entry<OrderStatus, HyperLogLog> entry : other.productsByStatus.entrySet()) {
+      productsByStatus
+          .computeIfAbsent(entry.getKey(), s -> new HyperLogLog(precision))
+          .merge(entry.getValue());
+    }
+    return this;
+  }
+
+  /** Returns the estimated number of distinct order ids. */
+  public long distinctOrders() {
+    return orders.estimate();
+  }
+
+  /** Returns the estimated number of distinct {@link Sku}s across all lines. */
+  public long distinctSkus() {
+    return skus.estimate();
+  }
+
+  /** Returns the estimated number of distinct products per status, for statuses with lines. */
+  public Map<OrderStatus, Long> distinctProductsByStatus() {
+    Map<OrderStatus, Long> estimates = new EnumMap<>(OrderStatus.class);
+    productsByStatus.forEach((status, sketch) -> estimates.put(status, sketch.estimate()));
+    return Collections.unmodifiableMap(estimates);
+  }
+
+  /** Returns the relative standard error of every estimate. */
+  public double standardError() {
+    return orders.standardError();
+  }
+}
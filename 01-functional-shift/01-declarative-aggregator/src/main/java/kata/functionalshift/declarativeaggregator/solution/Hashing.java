@@ -0,0 +1,25 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+/** 64-bit hashing shared by the sketches. */
+final class Hashing {
+  private Hashing() {}
+
+  /** Murmur3 64-bit finalizer: spreads every input bit over the whole result. */
+  static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /** FNV-1a over UTF-16 code units, finished with {@link #mix}. */
+  static long hash(CharSequence value) {
+    long h = 0xCBF29CE484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      h = (h ^ value.charAt(i)) * 0x100000001B3L;
+    }
+    return mix(h);
+  }
+}
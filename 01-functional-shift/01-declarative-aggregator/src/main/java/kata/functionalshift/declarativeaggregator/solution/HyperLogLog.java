@@ -0,0 +1,125 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.util.UUID;
+
+/**
+ * HyperLogLog cardinality sketch over 64-bit hashes.
+ *
+ * <p>A sketch of precision {@code p} keeps {@code 2^p} one-byte registers whatever the number of
+ * distinct values added, with a relative standard error of about {@code 1.04 / sqrt(2^p)}: p = 10
+ * is 1 KiB and ~3.3 %, p = 14 is 16 KiB and ~0.8 %. Small cardinalities fall back to linear
+ * counting, which is close to exact while most registers are still empty.
+ *
+ * <p>Adding the same value twice changes nothing, and sketches of the same precision {@link
+ * #merge merge} into the sketch of the union of their inputs, so they can be built per thread or
+ * per window and combined afterwards. Not thread-safe.
+ */
+public final class HyperLogLog {
+  /** Smallest supported precision, 16 registers. */
+  public static final int MIN_PRECISION = 4;
+
+  /** Largest supported precision, 256 Ki registers. */
+  public static final int MAX_PRECISION = 18;
+
+  private final int precision;
+  private final byte[] registers;
+
+  /**
+   * Creates an empty sketch with {@code 2^precision} registers.
+   *
+   * @throws IllegalArgumentException if {@code precision} is outside [4, 18].
+   */
+  public HyperLogLog(int precision) {
+    this.precision = requirePrecision(precision);
+    this.registers = new byte[1 << precision];
+  }
+
+  /** Adds a value identified by {@code key}; keys are hashed, so dense codes are fine. */
+  public HyperLogLog add(long key) {
+    return addHash(Hashing.mix(key));
+  }
+
+  /** Adds a UUID, e.g. an order id, by both of its 64-bit halves. */
+  public HyperLogLog add(UUID uuid) {
+    return addHash(
+        Hashing.mix(uuid.getMostSignificantBits() ^ Hashing.mix(uuid.getLeastSignificantBits())));
+  }
+
+  /** Adds a string by a 64-bit hash of its characters. */
+  public HyperLogLog add(CharSequence value) {
+    return addHash(Hashing.hash(value));
+  }
+
+  /** Adds an already well-mixed 64-bit hash. */
+  public HyperLogLog addHash(long hash) {
+    int index = (int) (hash >>> (Long.SIZE - precision));
+    // leading zeros of the remaining bits, capped by a sentinel bit, plus one
+    int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+    if (rank > registers[index]) {
+      registers[index] = (byte) rank;
+    }
+    return this;
+  }
+
+  /**
+   * Folds {@code other} into this sketch, which then estimates the union of both inputs.
+   *
+   * @throws IllegalArgumentException if the precisions differ.
+   */
+  public HyperLogLog merge(HyperLogLog other) {
+    if (precision != other.precision) {
+      throw new IllegalArgumentException("Cannot merge sketches of different precision");
+    }
+    for (int i = 0; i < registers.length; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+    return this;
+  }
+
+  /** Returns the estimated number of distinct values added. */
+  public long estimate() {
+    int m = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += Double.longBitsToDouble((1023L - register) << 52); // 2^-register
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double estimate = alpha(m) * m * m / sum;
+    if (estimate <= 2.5 * m && zeros > 0) {
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  /** Returns the precision; the sketch has {@code 2^precision} registers. */
+  public int precision() {
+    return precision;
+  }
+
+  /** Returns the relative standard error of {@link #estimate()} for this precision. */
+  public double standardError() {
+    return 1.04 / Math.sqrt(registers.length);
+  }
+
+  /** Returns {@code precision} if supported, else throws {@link IllegalArgumentException}. */
+  static int requirePrecision(int precision) {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException("precision must be between 4 and 18");
+    }
+    return precision;
+  }
+
+  private static double alpha(int m) {
+    return switch (m) {
+      case 16 -> 0.673;
+      case 32 -> 0.697;
+      case 64 -> 0.709;
+      default -> 0.7213 / (1 + 1.079 / m);
+    };
+  }
+}
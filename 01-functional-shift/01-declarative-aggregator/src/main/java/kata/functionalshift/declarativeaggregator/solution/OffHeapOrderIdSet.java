@@ -0,0 +1,438 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+
+/**
+ * Exact set of {@link OrderId}s kept outside the Java heap, for deduplicating inputs too large for
+ * a {@code HashSet}.
+ *
+ * <p>A {@code HashSet<Order>} costs 60 to 80 bytes of heap per entry and keeps every order
+ * reachable. This set stores only the two {@code long}s of each id's UUID, in the 16-byte slots of
+ * an open-addressing table with linear probing held in direct buffers: nothing per id lives on
+ * the heap and the collector never scans the table. A UUIDv7 has its version bits set in the high
+ * half, so an all-zero slot is empty and no occupancy bitmap is needed.
+ *
+ * <p>The table doubles when it is three-quarters full, so it holds between 21 and 43 bytes per id,
+ * not the 16 bytes of the ids alone: a fuller table would make probe sequences, and so every
+ * {@link #add}, longer. A {@link ByteBuffer} addresses at most 2 GiB, so the table is split into
+ * buffers of 1 GiB. Past {@code maxDirectBytes}, a set with a spill directory allocates its next
+ * table in a temporary memory-mapped file instead, letting the page cache rather than the
+ * direct-memory limit hold it. Its channel deletes the file when closed right after mapping; the
+ * mapping outlives the name (on platforms that refuse to delete a mapped file, {@link #close}
+ * deletes it after unmapping).
+ *
+ * <p>Slots are little-endian, so a table written into a file by {@link RunningTotals} maps back
+ * as is. {@link #close} frees the direct memory or unmaps the file at once, and a table replaced
+ * by a larger one is freed as soon as its ids are copied; a set that is never closed is released
+ * by the garbage collector once unreachable. Freeing at once goes through {@code
+ * sun.misc.Unsafe.invokeCleaner}; where the runtime denies it, the class logs a warning when it
+ * loads, {@link #freesOnClose()} answers false, and every table is left to the collector. Size
+ * {@code -XX:MaxDirectMemorySize} for the largest table expected. Not thread-safe, and a set must
+ * not be closed while another thread reads it.
+ */
+public final class OffHeapOrderIdSet implements AutoCloseable {
+  private static final int SLOT_BYTES = 2 * Long.BYTES;
+  private static final int SEGMENT_BITS = 26; // 2^26 slots = 1 GiB per buffer
+  private static final long MIN_CAPACITY = 16;
+  private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+  private static final LongBuffer[] NO_SEGMENTS = {};
+
+  // sun.misc.Unsafe.invokeCleaner, which frees a direct or mapped buffer at once; null if the
+  // runtime does not offer it, in which case buffers are left to the garbage collector
+  private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+  private static volatile boolean freeOnClose = INVOKE_CLEANER != null;
+
+  private final long maxDirectBytes;
+  private final Path spillDirectory;
+  private ByteBuffer[] buffers; // the table's own buffers, which close() frees
+  private LongBuffer[] segments; // views of the buffers, probed by add and contains
+  private Path spillFile; // set while the table lives in a spill file
+  private long capacity;
+  private long size;
+  private boolean spilled;
+  private boolean closed;
+
+  private OffHeapOrderIdSet(long expectedSize, long maxDirectBytes, Path spillDirectory) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("expectedSize must not be negative");
+    }
+    this.maxDirectBytes = maxDirectBytes;
+    this.spillDirectory = spillDirectory;
+    allocate(capacityFor(expectedSize));
+  }
+
+  private OffHeapOrderIdSet(MappedByteBuffer[] buffers, long capacity, long size) {
+    this.maxDirectBytes = Long.MAX_VALUE;
+    this.spillDirectory = null;
+    this.buffers = buffers;
+    this.segments = views(buffers);
+    this.capacity = capacity;
+    this.size = size;
+    this.spilled = true;
+  }
+
+  /**
+   * Creates a set in direct memory.
+   *
+   * @param expectedSize The number of ids to presize for; 0 if unknown.
+   * @return The empty set.
+   */
+  public static OffHeapOrderIdSet create(long expectedSize) {
+    return new OffHeapOrderIdSet(expectedSize, Long.MAX_VALUE, null);
+  }
+
+  /**
+   * Creates a set in direct memory that moves to a memory-mapped file in {@code spillDirectory}
+   * once its table would exceed {@code maxDirectBytes}.
+   *
+   * @param expectedSize The number of ids to presize for; 0 if unknown.
+   * @param maxDirectBytes The largest table kept in direct memory.
+   * @param spillDirectory The directory for the temporary table file.
+   * @return The empty set.
+   */
+  public static OffHeapOrderIdSet create(
+      long expectedSize, long maxDirectBytes, Path spillDirectory) {
+    if (maxDirectBytes < 0) {
+      throw new IllegalArgumentException("maxDirectBytes must not be negative");
+    }
+    Objects.requireNonNull(spillDirectory, "spillDirectory is required");
+    return new OffHeapOrderIdSet(expectedSize, maxDirectBytes, spillDirectory);
+  }
+
+  /**
+   * Returns whether {@link #close} and growth free tables at once. False if turned off or if the
+   * runtime denies access to {@code sun.misc.Unsafe.invokeCleaner}: tables are then released by
+   * the garbage collector, so direct memory and mappings can outlive {@link #close} for a while.
+   */
+  public static boolean freesOnClose() {
+    return freeOnClose;
+  }
+
+  /**
+   * Turns freeing tables at once on or off for every set. Turning it off trades prompt release for
+   * safety where a closed set might still be read, since freed memory must never be read again.
+   * Turning it on does nothing where the runtime denies access to the cleaner.
+   */
+  public static void setFreeOnClose(boolean on) {
+    freeOnClose = on && INVOKE_CLEANER != null;
+  }
+
+  /**
+   * Adds an order id.
+   *
+   * @return True if the id was not in the set yet.
+   * @throws UncheckedIOException if the table has to grow into a spill file and cannot.
+   * @throws IllegalStateException if the set is closed.
+   */
+  public boolean add(OrderId id) {
+    requireOpen();
+    UUID uuid = id.uuidv7();
+    return add(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+  }
+
+  /**
+   * Returns whether the set holds an order id.
+   *
+   * @throws IllegalStateException if the set is closed.
+   */
+  public boolean contains(OrderId id) {
+    requireOpen();
+    UUID uuid = id.uuidv7();
+    long hi = uuid.getMostSignificantBits();
+    long lo = uuid.getLeastSignificantBits();
+    long mask = capacity - 1;
+    for (long slot = hash(hi, lo) & mask; ; slot = (slot + 1) & mask) {
+      LongBuffer segment = segments[(int) (slot >>> SEGMENT_BITS)];
+      int at = offset(slot);
+      long h = segment.get(at);
+      if (h == 0 && segment.get(at + 1) == 0) {
+        return false;
+      }
+      if (h == hi && segment.get(at + 1) == lo) {
+        return true;
+      }
+    }
+  }
+
+  /** Returns the number of ids in the set. */
+  public long size() {
+    return size;
+  }
+
+  /** Returns the number of slots in the table; each takes 16 bytes. */
+  public long capacity() {
+    return capacity;
+  }
+
+  /** Returns whether the table lives in a memory-mapped spill file. */
+  public boolean isSpilled() {
+    return spilled;
+  }
+
+  /**
+   * Frees the table's direct memory, or unmaps it, and deletes its spill file if one is left.
+   * Closing again does nothing.
+   *
+   * @throws UncheckedIOException if a spill file cannot be deleted.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    ByteBuffer[] table = buffers;
+    Path file = spillFile;
+    buffers = new ByteBuffer[0];
+    segments = NO_SEGMENTS;
+    spillFile = null;
+    release(table, file);
+  }
+
+  private void requireOpen() {
+    if (closed) {
+      throw new IllegalStateException("Order id set is closed");
+    }
+  }
+
+  private boolean add(long hi, long lo) {
+    if (!insert(segments, capacity, hi, lo)) {
+      return false;
+    }
+    if (++size > capacity / 4 * 3) {
+      grow();
+    }
+    return true;
+  }
+
+  /** Stores {@code (hi, lo)} in the first free slot of its probe sequence, unless present. */
+  private static boolean insert(LongBuffer[] segments, long capacity, long hi, long lo) {
+    long mask = capacity - 1;
+    for (long slot = hash(hi, lo) & mask; ; slot = (slot + 1) & mask) {
+      LongBuffer segment = segments[(int) (slot >>> SEGMENT_BITS)];
+      int at = offset(slot);
+      long h = segment.get(at);
+      long l = segment.get(at + 1);
+      if (h == 0 && l == 0) {
+        segment.put(at, hi);
+        segment.put(at + 1, lo);
+        return true;
+      }
+      if (h == hi && l == lo) {
+        return false;
+      }
+    }
+  }
+
+  private void grow() {
+    ByteBuffer[] oldBuffers = buffers;
+    LongBuffer[] oldSegments = segments;
+    Path oldFile = spillFile;
+    long oldCapacity = capacity;
+    allocate(capacity * 2);
+    copyInto(oldSegments, oldCapacity, segments, capacity);
+    release(oldBuffers, oldFile);
+  }
+
+  /** Inserts every id of this set into {@code table}, which has room for them. */
+  private void copyInto(LongBuffer[] table, long tableCapacity) {
+    copyInto(segments, capacity, table, tableCapacity);
+  }
+
+  private static void copyInto(
+      LongBuffer[] segments, long capacity, LongBuffer[] table, long tableCapacity) {
+    for (long slot = 0; slot < capacity; slot++) {
+      LongBuffer segment = segments[(int) (slot >>> SEGMENT_BITS)];
+      int at = offset(slot);
+      long hi = segment.get(at);
+      long lo = segment.get(at + 1);
+      if (hi != 0 || lo != 0) {
+        insert(table, tableCapacity, hi, lo);
+      }
+    }
+  }
+
+  /**
+   * Makes a zeroed table of {@code slots} slots the current one, in a spill file if it is too
+   * large. The previous table, if any, is left to the caller.
+   */
+  private void allocate(long slots) {
+    long segmentSlots = Math.min(slots, 1L << SEGMENT_BITS);
+    ByteBuffer[] table = new ByteBuffer[(int) (slots / segmentSlots)];
+    long bytes = slots * SLOT_BYTES;
+    Path file = null;
+    if (bytes <= maxDirectBytes || spillDirectory == null) {
+      for (int s = 0; s < table.length; s++) {
+        table[s] = ByteBuffer.allocateDirect((int) (segmentSlots * SLOT_BYTES));
+      }
+    } else {
+      try {
+        file = Files.createTempFile(spillDirectory, "order-ids-", ".table");
+        try (FileChannel channel =
+            FileChannel.open(
+                file,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE)) {
+          table = map(channel, FileChannel.MapMode.READ_WRITE, 0, slots);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot spill the order id table", e);
+      }
+      spilled = true;
+    }
+    buffers = table;
+    segments = views(table);
+    spillFile = file;
+    capacity = slots;
+  }
+
+  /** Frees or unmaps {@code table} and deletes {@code file}, the spill file behind it, if left. */
+  private static void release(ByteBuffer[] table, Path file) {
+    if (freeOnClose) {
+      for (ByteBuffer buffer : table) {
+        try {
+          INVOKE_CLEANER.invokeExact(buffer);
+        } catch (Throwable e) {
+          throw new IllegalStateException("Cannot free an order id table", e);
+        }
+      }
+    }
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot delete the spill file " + file, e);
+      }
+    }
+  }
+
+  private static MethodHandle invokeCleaner() {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      return MethodHandles.lookup()
+          .findVirtual(
+              unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+          .bindTo(theUnsafe.get(null));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      System.getLogger(OffHeapOrderIdSet.class.getName())
+          .log(
+              System.Logger.Level.WARNING,
+              "sun.misc.Unsafe.invokeCleaner is unavailable; order id tables are left to the"
+                  + " garbage collector",
+              e);
+      return null;
+    }
+  }
+
+  // --- File-backed tables, for RunningTotals checkpoints ---
+
+  /** Returns the bytes a table for {@code expectedSize} ids takes in a file. */
+  static long tableBytes(long expectedSize) {
+    return capacityFor(expectedSize) * SLOT_BYTES;
+  }
+
+  /**
+   * Writes the union of {@code sets}, which must be disjoint, as one table at {@code position} of
+   * {@code channel}, flushed to the device, and returns the set mapped from it. The sets are only
+   * read, so they may keep serving lookups meanwhile.
+   */
+  static OffHeapOrderIdSet union(List<OffHeapOrderIdSet> sets, FileChannel channel, long position)
+      throws IOException {
+    long size = 0;
+    for (OffHeapOrderIdSet set : sets) {
+      size += set.size;
+    }
+    long capacity = capacityFor(size);
+    MappedByteBuffer[] buffers = map(channel, FileChannel.MapMode.READ_WRITE, position, capacity);
+    OffHeapOrderIdSet union = new OffHeapOrderIdSet(buffers, capacity, size);
+    for (OffHeapOrderIdSet set : sets) {
+      set.copyInto(union.segments, capacity);
+    }
+    for (MappedByteBuffer buffer : buffers) {
+      buffer.force();
+    }
+    return union;
+  }
+
+  /**
+   * Maps, read-only, the table of {@code size} ids that {@link #union} wrote at {@code position}.
+   *
+   * @throws IOException if the file is too short for that table.
+   */
+  static OffHeapOrderIdSet mapped(FileChannel channel, long position, long size)
+      throws IOException {
+    long capacity = capacityFor(size);
+    if (channel.size() < position + capacity * SLOT_BYTES) {
+      throw new IOException("Order id table is truncated");
+    }
+    return new OffHeapOrderIdSet(
+        map(channel, FileChannel.MapMode.READ_ONLY, position, capacity), capacity, size);
+  }
+
+  /** Returns the CRC-32 of the table's slots, in the order {@link #union} writes them. */
+  int checksum() {
+    requireOpen();
+    CRC32 crc = new CRC32();
+    for (ByteBuffer buffer : buffers) {
+      crc.update(buffer.duplicate().clear());
+    }
+    return (int) crc.getValue();
+  }
+
+  /** Maps {@code slots} slots at {@code position}, one buffer per 1 GiB segment. */
+  private static MappedByteBuffer[] map(
+      FileChannel channel, FileChannel.MapMode mode, long position, long slots)
+      throws IOException {
+    long segmentBytes = Math.min(slots, 1L << SEGMENT_BITS) * SLOT_BYTES;
+    MappedByteBuffer[] buffers = new MappedByteBuffer[(int) (slots * SLOT_BYTES / segmentBytes)];
+    for (int s = 0; s < buffers.length; s++) {
+      buffers[s] = channel.map(mode, position + s * segmentBytes, segmentBytes);
+    }
+    return buffers;
+  }
+
+  private static LongBuffer[] views(ByteBuffer[] buffers) {
+    LongBuffer[] views = new LongBuffer[buffers.length];
+    for (int s = 0; s < buffers.length; s++) {
+      views[s] = buffers[s].order(ORDER).asLongBuffer();
+    }
+    return views;
+  }
+
+  private static long capacityFor(long expectedSize) {
+    long capacity = MIN_CAPACITY;
+    while (capacity / 4 * 3 < expectedSize) {
+      capacity *= 2;
+    }
+    return capacity;
+  }
+
+  private static int offset(long slot) {
+    return (int) (slot & ((1L << SEGMENT_BITS) - 1)) * 2;
+  }
+
+  private static long hash(long hi, long lo) {
+    return Hashing.mix(hi ^ Hashing.mix(lo));
+  }
+}
@@ -0,0 +1,251 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.CatalogDictionary;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+
+/**
+ * Immutable, columnar (struct-of-arrays) copy of a list of orders.
+ *
+ * <p>Each order-level attribute lives in its own primitive array indexed by order position, and
+ * each line-level attribute in its own array indexed by line position. The lines of order {@code i}
+ * are {@code lineStart[i] .. lineStart[i + 1] - 1}. Amounts are stored as {@code long} minor units
+ * (cents for USD) in the scale of the order's currency; SKUs, products and currencies are
+ * dictionary-encoded as dense {@code int} codes in first-seen order.
+ *
+ * <p>Orders are deduplicated by {@link OrderId} while the batch is built (first occurrence wins),
+ * which is the {@code distinct()} step every order-level {@link SalesAnalyzer} metric starts with.
+ * The product dictionary is the exception: like {@link
+ * SalesAnalyzer#getDistinctProductsSold(List)}, which looks at the lines of every order, it also
+ * holds the products of dropped repeats, so it can name products no line of the batch refers to.
+ *
+ * <p>The dictionary entries are the canonical instances of a {@link CatalogDictionary}, so batches
+ * built through one shared dictionary hold one {@code Sku} and {@code ProductSnapshot} per distinct
+ * value between them. Codes stay local to the batch, dense from 0.
+ *
+ * <p>The arrays are package-private so the {@link SalesAnalyzer} overloads can scan them directly;
+ * nothing outside this package can reach or mutate them.
+ */
+public final class OrderBatch {
+  static final OrderStatus[] STATUSES = OrderStatus.values();
+
+  /** Currency code used for orders without lines, whose currency is unknown. */
+  static final int NO_CURRENCY = -1;
+
+  // --- order columns, indexed by order position ---
+  final long[] idMostSignificantBits;
+  final long[] idLeastSignificantBits;
+  final byte[] status;
+  final int[] currency;
+  final int[] lineStart;
+
+  // --- line columns, indexed by line position ---
+  final long[] lineAmount;
+  final int[] quantity;
+  final int[] sku;
+  final int[] product;
+
+  // --- dictionaries, indexed by code ---
+  final Sku[] skus;
+  final ProductSnapshot[] products;
+  final Currency[] currencies;
+  final int[] currencyScale;
+
+  private OrderBatch(Builder builder) {
+    int orders = builder.orderCount;
+    int lines = builder.lineCount;
+    this.idMostSignificantBits = Arrays.copyOf(builder.idMostSignificantBits, orders);
+    this.idLeastSignificantBits = Arrays.copyOf(builder.idLeastSignificantBits, orders);
+    this.status = Arrays.copyOf(builder.status, orders);
+    this.currency = Arrays.copyOf(builder.currency, orders);
+    this.lineStart = Arrays.copyOf(builder.lineStart, orders + 1);
+    this.lineAmount = Arrays.copyOf(builder.lineAmount, lines);
+    this.quantity = Arrays.copyOf(builder.quantity, lines);
+    this.sku = Arrays.copyOf(builder.sku, lines);
+    this.product = Arrays.copyOf(builder.product, lines);
+    this.skus = builder.skus.toArray(Sku[]::new);
+    this.products = builder.products.toArray(ProductSnapshot[]::new);
+    this.currencies = builder.currencies.toArray(Currency[]::new);
+    this.currencyScale = new int[currencies.length];
+    for (int c = 0; c < currencies.length; c++) {
+      currencyScale[c] = Math.max(currencies[c].getDefaultFractionDigits(), 0);
+    }
+  }
+
+  /**
+   * Builds a batch from the given orders, dropping repeated order ids.
+   *
+   * @param orders The order List.
+   * @return The columnar batch.
+   * @throws IllegalArgumentException if an order mixes currencies across its lines.
+   * @throws ArithmeticException if a line amount does not fit in a {@code long} of minor units.
+   */
+  public static OrderBatch of(List<Order> orders) {
+    return of(orders, CatalogDictionary.unbounded());
+  }
+
+  /**
+   * Builds a batch from the given orders, dropping repeated order ids, with dictionary entries
+   * taken from {@code catalog}.
+   *
+   * @param orders The order List.
+   * @param catalog Where the batch's SKUs, products and currencies are interned.
+   * @return The columnar batch.
+   * @throws IllegalArgumentException if an order mixes currencies across its lines.
+   * @throws ArithmeticException if a line amount does not fit in a {@code long} of minor units.
+   */
+  public static OrderBatch of(List<Order> orders, CatalogDictionary catalog) {
+    Objects.requireNonNull(orders, "orders is required");
+    Objects.requireNonNull(catalog, "catalog is required");
+    Builder builder = new Builder(orders.size(), catalog);
+    Set<OrderId> seen = new HashSet<>(Math.max(16, orders.size() * 4 / 3));
+    for (Order order : orders) {
+      if (seen.add(order.id())) {
+        builder.append(order);
+      } else {
+        builder.appendProducts(order);
+      }
+    }
+    return new OrderBatch(builder);
+  }
+
+  /** Returns the number of distinct orders in the batch. */
+  public int orderCount() {
+    return status.length;
+  }
+
+  /** Returns the number of lines across all orders in the batch. */
+  public int lineCount() {
+    return quantity.length;
+  }
+
+  /** Returns the number of distinct SKUs, which is also the exclusive upper bound of SKU codes. */
+  public int skuCount() {
+    return skus.length;
+  }
+
+  /** Returns the identifier of the order at the given position. */
+  public OrderId orderId(int order) {
+    return new OrderId(new UUID(idMostSignificantBits[order], idLeastSignificantBits[order]));
+  }
+
+  /** Returns the status of the order at the given position. */
+  public OrderStatus status(int order) {
+    return STATUSES[status[order]];
+  }
+
+  /** Returns the SKU for a dictionary code. */
+  public Sku sku(int code) {
+    return skus[code];
+  }
+
+  /** Returns the distinct products of every input order, repeats included, in first-seen order. */
+  public List<ProductSnapshot> products() {
+    return List.of(products);
+  }
+
+  /** Growable column buffers; trimmed to exact size when the batch is frozen. */
+  private static final class Builder {
+    private long[] idMostSignificantBits;
+    private long[] idLeastSignificantBits;
+    private byte[] status;
+    private int[] currency;
+    private int[] lineStart;
+    private int orderCount;
+
+    private long[] lineAmount = new long[16];
+    private int[] quantity = new int[16];
+    private int[] sku = new int[16];
+    private int[] product = new int[16];
+    private int lineCount;
+
+    private final Map<Sku, Integer> skuCodes = new HashMap<>();
+    private final Map<ProductSnapshot, Integer> productCodes = new HashMap<>();
+    private final Map<Currency, Integer> currencyCodes = new HashMap<>();
+    private final List<Sku> skus = new ArrayList<>();
+    private final List<ProductSnapshot> products = new ArrayList<>();
+    private final List<Currency> currencies = new ArrayList<>();
+    private final CatalogDictionary catalog;
+
+    Builder(int expectedOrders, CatalogDictionary catalog) {
+      this.catalog = catalog;
+      idMostSignificantBits = new long[expectedOrders];
+      idLeastSignificantBits = new long[expectedOrders];
+      status = new byte[expectedOrders];
+      currency = new int[expectedOrders];
+      lineStart = new int[expectedOrders + 1];
+    }
+
+    void append(Order order) {
+      int i = orderCount++;
+      UUID uuid = order.id().uuidv7();
+      idMostSignificantBits[i] = uuid.getMostSignificantBits();
+      idLeastSignificantBits[i] = uuid.getLeastSignificantBits();
+      status[i] = (byte) order.status().ordinal();
+      currency[i] = NO_CURRENCY;
+      for (OrderLine line : order.lines()) {
+        ProductSnapshot snapshot = line.key().productSnapshot();
+        Currency lineCurrency = snapshot.unitPrice().currency();
+        int currencyCode = code(currencyCodes, currencies, lineCurrency, UnaryOperator.identity());
+        if (currency[i] == NO_CURRENCY) {
+          currency[i] = currencyCode;
+        } else if (currency[i] != currencyCode) {
+          throw new IllegalArgumentException("Currency mismatch");
+        }
+        ensureLineCapacity();
+        int l = lineCount++;
+        long unitMinor = snapshot.unitPrice().amount().unscaledValue().longValueExact();
+        lineAmount[l] = Math.multiplyExact(unitMinor, (long) line.quantity());
+        quantity[l] = line.quantity();
+        sku[l] = code(skuCodes, skus, snapshot.sku(), catalog::sku);
+        product[l] = code(productCodes, products, snapshot, catalog::product);
+      }
+      lineStart[i + 1] = lineCount;
+    }
+
+    /** Adds the products of an order that is not itself part of the batch to the dictionary. */
+    void appendProducts(Order order) {
+      for (OrderLine line : order.lines()) {
+        code(productCodes, products, line.key().productSnapshot(), catalog::product);
+      }
+    }
+
+    private void ensureLineCapacity() {
+      if (lineCount == quantity.length) {
+        int capacity = quantity.length * 2;
+        lineAmount = Arrays.copyOf(lineAmount, capacity);
+        quantity = Arrays.copyOf(quantity, capacity);
+        sku = Arrays.copyOf(sku, capacity);
+        product = Arrays.copyOf(product, capacity);
+      }
+    }
+
+    /** Returns the local code of {@code value}; a new value enters as {@code canonical} made it. */
+    private static <T> int code(
+        Map<T, Integer> codes, List<T> dictionary, T value, UnaryOperator<T> canonical) {
+      Integer existing = codes.get(value);
+      if (existing != null) {
+        return existing;
+      }
+      int code = dictionary.size();
+      dictionary.add(canonical.apply(value));
+      codes.put(value, code);
+      return code;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+
+/**
+ * The dedup stage the analyzers start with: where the order ids seen so far are kept.
+ *
+ * <p>{@link SalesAnalyzer}, {@link ParallelSalesAnalyzer} and {@link SalesReport} (and, through
+ * it, {@link WindowedSalesAnalyzer}) keep the first occurrence of every {@link OrderId}. {@link
+ * #ON_HEAP} does so with a {@code HashSet}, the same as {@code distinct()}; {@link #OFF_HEAP} and
+ * {@link #offHeap(long, Path)} keep the ids in an {@link OffHeapOrderIdSet} instead, for inputs
+ * whose ids would not fit on the heap. Results do not depend on the stage.
+ *
+ * <p>Every run is a {@link Stage} that the caller closes once the run is over, which frees an
+ * off-heap table and deletes its spill files at once rather than whenever the collector runs.
+ */
+@FunctionalInterface
+public interface OrderDedup {
+
+  /** Keeps seen ids in a {@code HashSet} on the heap. */
+  OrderDedup ON_HEAP = expectedSize -> stage(HashSet.<OrderId>newHashSet(expectedSize));
+
+  /** Keeps seen ids in an {@link OffHeapOrderIdSet} in direct memory. */
+  OrderDedup OFF_HEAP = expectedSize -> stage(OffHeapOrderIdSet.create(expectedSize));
+
+  /**
+   * Keeps seen ids in an {@link OffHeapOrderIdSet} that spills to a memory-mapped file in {@code
+   * spillDirectory} once its table would exceed {@code maxDirectBytes}.
+   */
+  static OrderDedup offHeap(long maxDirectBytes, Path spillDirectory) {
+    Objects.requireNonNull(spillDirectory, "spillDirectory is required");
+    return expectedSize ->
+        stage(OffHeapOrderIdSet.create(expectedSize, maxDirectBytes, spillDirectory));
+  }
+
+  private static Stage stage(Set<OrderId> set) {
+    return new Stage() {
+      @Override
+      public boolean test(OrderId id) {
+        return set.add(id);
+      }
+
+      @Override
+      public boolean contains(OrderId id) {
+        return set.contains(id);
+      }
+    };
+  }
+
+  private static Stage stage(OffHeapOrderIdSet set) {
+    return new Stage() {
+      @Override
+      public boolean test(OrderId id) {
+        return set.add(id);
+      }
+
+      @Override
+      public boolean contains(OrderId id) {
+        return set.contains(id);
+      }
+
+      @Override
+      public void close() {
+        set.close();
+      }
+    };
+  }
+
+  /**
+   * Starts one run of the stage.
+   *
+   * @param expectedSize The number of distinct ids to presize for; 0 if unknown.
+   * @return A filter that is true for the first occurrence of every id only. Not thread-safe.
+   */
+  Stage open(int expectedSize);
+
+  /**
+   * One run of the stage: a filter over order ids that releases the ids it kept when closed. {@link
+   * #test} marks the id as seen; {@link #contains} only looks, for callers that validate an order
+   * before letting it claim its id.
+   */
+  interface Stage extends Predicate<OrderId>, AutoCloseable {
+
+    /** Returns whether {@code id} has been seen, without marking it. */
+    boolean contains(OrderId id);
+
+    /** Releases the ids kept; the stage must not be used afterwards. Closing again is harmless. */
+    @Override
+    default void close() {}
+  }
+}
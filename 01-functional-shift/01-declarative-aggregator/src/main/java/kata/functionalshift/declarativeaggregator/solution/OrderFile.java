@@ -0,0 +1,653 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.CatalogDictionary;
+import kata.functionalshift.declarativeaggregator.domain.vo.DiscountId;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineId;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineKey;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+
+/**
+ * Compact, versioned on-disk format for orders, read back through a memory mapping.
+ *
+ * <p>The file is the {@link OrderBatch} layout written out: a fixed header, then one little-endian
+ * column per attribute. Order and line ids are two fixed-width {@code long} columns, amounts are
+ * {@code long} minor units, and SKUs, products, discounts and currencies are dictionary-encoded as
+ * dense {@code int} codes in first-seen order. Sections are ordered {@code long}, {@code int},
+ * then {@code byte} columns, so every column is naturally aligned without padding:
+ *
+ * <pre>
+ * header   magic, version, orders, lines, skus, products, currencies, discounts,
+ *          sku bytes, currency bytes                              (10 x int)
+ * long     order id hi/lo, line id hi/lo, line amount, product unit price,
+ *          discount id hi/lo
+ * int      order version, order currency, line start (orders + 1), line quantity,
+ *          line product, line discount, product sku, product currency,
+ *          sku offsets (skus + 1), currency offsets (currencies + 1)
+ * byte     order status, sku UTF-8, currency codes
+ * </pre>
+ *
+ * <p>Orders without lines have currency {@code -1}, lines without a discount have discount {@code
+ * -1}, and statuses are stored by {@link OrderStatus} ordinal, so reordering that enum needs a new
+ * format {@link #VERSION}. As with {@link OrderBatch}, orders are deduplicated by {@link OrderId}
+ * on write (first occurrence wins), while the product dictionary also holds the products of the
+ * dropped repeats, as {@link SalesAnalyzer#getDistinctProductsSold(List)} counts them.
+ *
+ * <p>{@link #open} maps the file read-only and the {@link SalesAnalyzer} overloads scan the mapped
+ * columns directly, without building {@code Order}s; only the small dictionaries are decoded up
+ * front, through a {@link CatalogDictionary}: a SKU or currency the dictionary has seen, e.g. in
+ * another file opened with it, is neither validated nor allocated again. The mapping is released
+ * by the garbage collector once the {@code OrderFile} is unreachable. Instances are immutable and
+ * safe for concurrent readers.
+ */
+public final class OrderFile {
+  /** First four bytes of every order file, {@code "ORDF"} in ASCII. */
+  public static final int MAGIC = 0x4644524F;
+
+  /** Format version written by {@link #write}, and the only one {@link #open} reads. */
+  public static final int VERSION = 1;
+
+  private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+  private static final int HEADER_BYTES = 10 * Integer.BYTES;
+  private static final int NONE = OrderBatch.NO_CURRENCY; // also "no discount"
+
+  // --- order columns, indexed by order position ---
+  final LongBuffer idMostSignificantBits;
+  final LongBuffer idLeastSignificantBits;
+  final IntBuffer version;
+  final IntBuffer currency;
+  final IntBuffer lineStart;
+  final ByteBuffer status;
+
+  // --- line columns, indexed by line position ---
+  final LongBuffer lineIdMostSignificantBits;
+  final LongBuffer lineIdLeastSignificantBits;
+  final LongBuffer lineAmount;
+  final IntBuffer quantity;
+  final IntBuffer product;
+  final IntBuffer discount;
+
+  // --- dictionaries, decoded on open ---
+  final Sku[] skus;
+  final ProductSnapshot[] products;
+  final DiscountId[] discounts;
+  final Currency[] currencies;
+  final int[] currencyScale;
+
+  private final int orderCount;
+  private final int lineCount;
+
+  private OrderFile(ByteBuffer file, Layout layout, Path path, CatalogDictionary catalog)
+      throws IOException {
+    this.orderCount = layout.orders;
+    this.lineCount = layout.lines;
+    this.idMostSignificantBits = longs(file, layout.orderIdHigh, orderCount);
+    this.idLeastSignificantBits = longs(file, layout.orderIdLow, orderCount);
+    this.version = ints(file, layout.orderVersion, orderCount);
+    this.currency = ints(file, layout.orderCurrency, orderCount);
+    this.lineStart = ints(file, layout.lineStart, orderCount + 1);
+    this.status = file.slice(layout.orderStatus, orderCount);
+    this.lineIdMostSignificantBits = longs(file, layout.lineIdHigh, lineCount);
+    this.lineIdLeastSignificantBits = longs(file, layout.lineIdLow, lineCount);
+    this.lineAmount = longs(file, layout.lineAmount, lineCount);
+    this.quantity = ints(file, layout.lineQuantity, lineCount);
+    this.product = ints(file, layout.lineProduct, lineCount);
+    this.discount = ints(file, layout.lineDiscount, lineCount);
+
+    this.currencies = new Currency[layout.currencies];
+    this.currencyScale = new int[layout.currencies];
+    IntBuffer currencyOffsets = ints(file, layout.currencyOffsets, layout.currencies + 1);
+    checkOffsets(currencyOffsets, layout.currencyByteCount, "currency", path);
+    for (int c = 0; c < currencies.length; c++) {
+      String code = string(file, layout.currencyBytes, currencyOffsets, c);
+      try {
+        currencies[c] = catalog.currency(code);
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Corrupt order file, unknown currency " + code + ": " + path, e);
+      }
+      currencyScale[c] = Math.max(currencies[c].getDefaultFractionDigits(), 0);
+    }
+    this.skus = new Sku[layout.skus];
+    IntBuffer skuOffsets = ints(file, layout.skuOffsets, layout.skus + 1);
+    checkOffsets(skuOffsets, layout.skuByteCount, "SKU", path);
+    for (int s = 0; s < skus.length; s++) {
+      skus[s] = catalog.sku(string(file, layout.skuBytes, skuOffsets, s));
+    }
+    this.products = new ProductSnapshot[layout.products];
+    LongBuffer unitPrice = longs(file, layout.productUnitPrice, layout.products);
+    IntBuffer productSku = ints(file, layout.productSku, layout.products);
+    IntBuffer productCurrency = ints(file, layout.productCurrency, layout.products);
+    for (int p = 0; p < products.length; p++) {
+      checkCode(productSku.get(p), skus.length, false, "product SKU", path);
+      checkCode(productCurrency.get(p), currencies.length, false, "product currency", path);
+      Money price = Money.ofMinor(unitPrice.get(p), currencies[productCurrency.get(p)]);
+      products[p] = catalog.product(new ProductSnapshot(skus[productSku.get(p)], price));
+    }
+    this.discounts = new DiscountId[layout.discounts];
+    LongBuffer discountHigh = longs(file, layout.discountIdHigh, layout.discounts);
+    LongBuffer discountLow = longs(file, layout.discountIdLow, layout.discounts);
+    for (int d = 0; d < discounts.length; d++) {
+      discounts[d] = new DiscountId(new UUID(discountHigh.get(d), discountLow.get(d)));
+    }
+    checkColumns(path);
+  }
+
+  /**
+   * Range-checks every code the accessors and scans index with, so that a corrupt file fails
+   * here with an {@link IOException} rather than later with an index or buffer exception. This
+   * reads the order and line code columns once.
+   */
+  private void checkColumns(Path path) throws IOException {
+    if (lineStart.get(0) != 0 || lineStart.get(orderCount) != lineCount) {
+      throw new IOException("Corrupt order file, line starts do not cover the lines: " + path);
+    }
+    for (int o = 0; o < orderCount; o++) {
+      checkCode(status.get(o), OrderBatch.STATUSES.length, false, "status", path);
+      int orderCurrency = currency.get(o);
+      checkCode(orderCurrency, currencies.length, true, "order currency", path);
+      Currency expected = orderCurrency == NONE ? null : currencies[orderCurrency];
+      int from = lineStart.get(o);
+      int to = lineStart.get(o + 1);
+      if (to < from || to > lineCount) {
+        throw new IOException("Corrupt order file, line starts at order " + o + ": " + path);
+      }
+      for (int l = from; l < to; l++) {
+        checkCode(product.get(l), products.length, false, "line product", path);
+        checkCode(discount.get(l), discounts.length, true, "line discount", path);
+        if (products[product.get(l)].unitPrice().currency() != expected) {
+          throw new IOException("Corrupt order file, mixed currencies in order " + o + ": " + path);
+        }
+      }
+    }
+  }
+
+  private static void checkCode(int code, int size, boolean noneAllowed, String what, Path path)
+      throws IOException {
+    if ((code < 0 || code >= size) && !(noneAllowed && code == NONE)) {
+      throw new IOException("Corrupt order file, " + what + " code " + code + ": " + path);
+    }
+  }
+
+  private static void checkOffsets(IntBuffer offsets, int byteCount, String what, Path path)
+      throws IOException {
+    int previous = 0;
+    for (int i = 0; i < offsets.limit(); i++) {
+      int offset = offsets.get(i);
+      if (offset < previous || (i == 0 && offset != 0)) {
+        throw new IOException("Corrupt order file, " + what + " offsets: " + path);
+      }
+      previous = offset;
+    }
+    if (previous != byteCount) {
+      throw new IOException("Corrupt order file, " + what + " offsets: " + path);
+    }
+  }
+
+  /**
+   * Writes the given orders to {@code path}, replacing any existing file. The file is written
+   * next to {@code path} and renamed over it, so a failed write leaves the previous file intact.
+   *
+   * @param path The file to write.
+   * @param orders The order List.
+   * @throws IllegalArgumentException if an order mixes currencies across its lines.
+   * @throws ArithmeticException if a line amount does not fit in a {@code long} of minor units.
+   * @throws IOException if the file cannot be written or would exceed 2 GiB.
+   */
+  public static void write(Path path, List<Order> orders) throws IOException {
+    Objects.requireNonNull(path, "path is required");
+    Objects.requireNonNull(orders, "orders is required");
+    Columns columns = new Columns(orders.size());
+    Set<OrderId> seen = new HashSet<>(Math.max(16, orders.size() * 4 / 3));
+    for (Order order : orders) {
+      if (seen.add(order.id())) {
+        columns.append(order);
+      } else {
+        columns.appendProducts(order);
+      }
+    }
+    StringTable skuTable = StringTable.of(columns.skus, Sku::value);
+    StringTable currencyTable = StringTable.of(columns.currencies, Currency::getCurrencyCode);
+    Layout layout =
+        new Layout(
+            columns.orderCount,
+            columns.lineCount,
+            columns.skus.size(),
+            columns.products.size(),
+            columns.currencies.size(),
+            columns.discounts.size(),
+            skuTable.bytes.length,
+            currencyTable.bytes.length);
+
+    AtomicFiles.replace(
+        path,
+        channel -> {
+          MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.size);
+          file.order(ORDER);
+          layout.writeHeader(file);
+          columns.writeTo(file, layout, skuTable, currencyTable);
+          file.force();
+          return null;
+        });
+  }
+
+  /**
+   * Maps an order file read-only.
+   *
+   * @param path The file written by {@link #write}.
+   * @return The mapped file.
+   * @throws IOException if the file cannot be read, is not an order file of {@link #VERSION}, is
+   *     truncated, or holds a dictionary code out of range.
+   */
+  public static OrderFile open(Path path) throws IOException {
+    return open(path, CatalogDictionary.unbounded());
+  }
+
+  /**
+   * Maps an order file read-only, decoding its dictionaries through {@code catalog}.
+   *
+   * @param path The file written by {@link #write}.
+   * @param catalog Where the file's SKUs, products and currencies are interned.
+   * @return The mapped file.
+   * @throws IOException if the file cannot be read, is not an order file of {@link #VERSION}, is
+   *     truncated, or holds a dictionary code out of range.
+   */
+  public static OrderFile open(Path path, CatalogDictionary catalog) throws IOException {
+    Objects.requireNonNull(catalog, "catalog is required");
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_BYTES) {
+        throw new IOException("Not an order file: " + path);
+      }
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Order file exceeds 2 GiB: " + path);
+      }
+      MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      file.order(ORDER);
+      if (file.getInt(0) != MAGIC) {
+        throw new IOException("Not an order file: " + path);
+      }
+      if (file.getInt(4) != VERSION) {
+        throw new IOException("Unsupported order file version " + file.getInt(4) + ": " + path);
+      }
+      Layout layout = Layout.readHeader(file);
+      if (layout.size != size) {
+        throw new IOException("Truncated order file: " + path);
+      }
+      return new OrderFile(file, layout, path, catalog);
+    }
+  }
+
+  /** Returns the number of distinct orders in the file. */
+  public int orderCount() {
+    return orderCount;
+  }
+
+  /** Returns the number of lines across all orders in the file. */
+  public int lineCount() {
+    return lineCount;
+  }
+
+  /** Returns the identifier of the order at the given position. */
+  public OrderId orderId(int order) {
+    return new OrderId(
+        new UUID(idMostSignificantBits.get(order), idLeastSignificantBits.get(order)));
+  }
+
+  /** Returns the status of the order at the given position. */
+  public OrderStatus status(int order) {
+    return OrderBatch.STATUSES[status.get(order)];
+  }
+
+  /** Returns the distinct products of every input order, repeats included, in first-seen order. */
+  public List<ProductSnapshot> products() {
+    return List.of(products);
+  }
+
+  /**
+   * Decodes the order at the given position into an {@link Order}, with its lines, line ids,
+   * discounts, status and version; the line-key index is rebuilt from the lines.
+   */
+  public Order order(int order) {
+    int from = lineStart.get(order);
+    int to = lineStart.get(order + 1);
+    Map<LineKey, LineId> primaryLineForKey = LinkedHashMap.newLinkedHashMap(to - from);
+    Map<LineId, OrderLine> lines = LinkedHashMap.newLinkedHashMap(to - from);
+    for (int l = from; l < to; l++) {
+      LineId id =
+          new LineId(
+              new UUID(lineIdMostSignificantBits.get(l), lineIdLeastSignificantBits.get(l)));
+      int d = discount.get(l);
+      LineKey key = new LineKey(products[product.get(l)], d == NONE ? null : discounts[d]);
+      primaryLineForKey.putIfAbsent(key, id);
+      lines.put(id, new OrderLine(id, key, quantity.get(l)));
+    }
+    return new Order(orderId(order), primaryLineForKey, lines, status(order), version.get(order));
+  }
+
+  /** Decodes every order in the file, in file order. */
+  public List<Order> orders() {
+    List<Order> orders = new ArrayList<>(orderCount);
+    for (int o = 0; o < orderCount; o++) {
+      orders.add(order(o));
+    }
+    return orders;
+  }
+
+  private static LongBuffer longs(ByteBuffer file, int offset, int count) {
+    return file.slice(offset, count * Long.BYTES).order(ORDER).asLongBuffer();
+  }
+
+  private static IntBuffer ints(ByteBuffer file, int offset, int count) {
+    return file.slice(offset, count * Integer.BYTES).order(ORDER).asIntBuffer();
+  }
+
+  private static String string(ByteBuffer file, int bytesOffset, IntBuffer offsets, int code) {
+    int from = offsets.get(code);
+    byte[] bytes = new byte[offsets.get(code + 1) - from];
+    file.get(bytesOffset + from, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Byte offset of every section, derived from the header counts in one fixed order. */
+  private static final class Layout {
+    final int orders;
+    final int lines;
+    final int skus;
+    final int products;
+    final int currencies;
+    final int discounts;
+    final int skuByteCount;
+    final int currencyByteCount;
+
+    final int orderIdHigh;
+    final int orderIdLow;
+    final int lineIdHigh;
+    final int lineIdLow;
+    final int lineAmount;
+    final int productUnitPrice;
+    final int discountIdHigh;
+    final int discountIdLow;
+    final int orderVersion;
+    final int orderCurrency;
+    final int lineStart;
+    final int lineQuantity;
+    final int lineProduct;
+    final int lineDiscount;
+    final int productSku;
+    final int productCurrency;
+    final int skuOffsets;
+    final int currencyOffsets;
+    final int orderStatus;
+    final int skuBytes;
+    final int currencyBytes;
+    final long size;
+
+    private long cursor = HEADER_BYTES;
+
+    Layout(
+        int orders,
+        int lines,
+        int skus,
+        int products,
+        int currencies,
+        int discounts,
+        int skuByteCount,
+        int currencyByteCount)
+        throws IOException {
+      this.orders = orders;
+      this.lines = lines;
+      this.skus = skus;
+      this.products = products;
+      this.currencies = currencies;
+      this.discounts = discounts;
+      this.skuByteCount = skuByteCount;
+      this.currencyByteCount = currencyByteCount;
+
+      this.orderIdHigh = next(orders, Long.BYTES);
+      this.orderIdLow = next(orders, Long.BYTES);
+      this.lineIdHigh = next(lines, Long.BYTES);
+      this.lineIdLow = next(lines, Long.BYTES);
+      this.lineAmount = next(lines, Long.BYTES);
+      this.productUnitPrice = next(products, Long.BYTES);
+      this.discountIdHigh = next(discounts, Long.BYTES);
+      this.discountIdLow = next(discounts, Long.BYTES);
+      this.orderVersion = next(orders, Integer.BYTES);
+      this.orderCurrency = next(orders, Integer.BYTES);
+      this.lineStart = next(orders + 1L, Integer.BYTES);
+      this.lineQuantity = next(lines, Integer.BYTES);
+      this.lineProduct = next(lines, Integer.BYTES);
+      this.lineDiscount = next(lines, Integer.BYTES);
+      this.productSku = next(products, Integer.BYTES);
+      this.productCurrency = next(products, Integer.BYTES);
+      this.skuOffsets = next(skus + 1L, Integer.BYTES);
+      this.currencyOffsets = next(currencies + 1L, Integer.BYTES);
+      this.orderStatus = next(orders, Byte.BYTES);
+      this.skuBytes = next(skuByteCount, Byte.BYTES);
+      this.currencyBytes = next(currencyByteCount, Byte.BYTES);
+      this.size = cursor;
+    }
+
+    static Layout readHeader(ByteBuffer file) throws IOException {
+      int[] counts = new int[8];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = file.getInt(8 + i * Integer.BYTES);
+        if (counts[i] < 0) {
+          throw new IOException("Corrupt order file header");
+        }
+      }
+      return new Layout(
+          counts[0], counts[1], counts[2], counts[3], counts[4], counts[5], counts[6], counts[7]);
+    }
+
+    void writeHeader(ByteBuffer file) {
+      file.putInt(0, MAGIC).putInt(4, VERSION);
+      int[] counts = {
+        orders, lines, skus, products, currencies, discounts, skuByteCount, currencyByteCount
+      };
+      for (int i = 0; i < counts.length; i++) {
+        file.putInt(8 + i * Integer.BYTES, counts[i]);
+      }
+    }
+
+    /** Reserves {@code count} elements of {@code width} bytes and returns their offset. */
+    private int next(long count, int width) throws IOException {
+      long offset = cursor;
+      cursor += count * width;
+      if (cursor > Integer.MAX_VALUE) {
+        throw new IOException("Order file would exceed 2 GiB");
+      }
+      return (int) offset;
+    }
+  }
+
+  /** UTF-8 bytes of a string dictionary, with {@code offsets[code] .. offsets[code + 1]}. */
+  private static final class StringTable {
+    final int[] offsets;
+    final byte[] bytes;
+
+    private StringTable(int[] offsets, byte[] bytes) {
+      this.offsets = offsets;
+      this.bytes = bytes;
+    }
+
+    static <T> StringTable of(List<T> dictionary, Function<T, String> text) {
+      int[] offsets = new int[dictionary.size() + 1];
+      byte[][] encoded = new byte[dictionary.size()][];
+      for (int i = 0; i < encoded.length; i++) {
+        encoded[i] = text.apply(dictionary.get(i)).getBytes(StandardCharsets.UTF_8);
+        offsets[i + 1] = Math.addExact(offsets[i], encoded[i].length);
+      }
+      byte[] bytes = new byte[offsets[encoded.length]];
+      for (int i = 0; i < encoded.length; i++) {
+        System.arraycopy(encoded[i], 0, bytes, offsets[i], encoded[i].length);
+      }
+      return new StringTable(offsets, bytes);
+    }
+  }
+
+  /** Growable column buffers and dictionaries collected before the file size is known. */
+  private static final class Columns {
+    private long[] idMostSignificantBits;
+    private long[] idLeastSignificantBits;
+    private int[] version;
+    private int[] currency;
+    private int[] lineStart;
+    private byte[] status;
+    private int orderCount;
+
+    private long[] lineIdMostSignificantBits = new long[16];
+    private long[] lineIdLeastSignificantBits = new long[16];
+    private long[] lineAmount = new long[16];
+    private int[] quantity = new int[16];
+    private int[] product = new int[16];
+    private int[] discount = new int[16];
+    private int lineCount;
+
+    private final Map<Sku, Integer> skuCodes = new HashMap<>();
+    private final Map<ProductSnapshot, Integer> productCodes = new HashMap<>();
+    private final Map<Currency, Integer> currencyCodes = new HashMap<>();
+    private final Map<DiscountId, Integer> discountCodes = new HashMap<>();
+    private final List<Sku> skus = new ArrayList<>();
+    private final List<ProductSnapshot> products = new ArrayList<>();
+    private final List<Currency> currencies = new ArrayList<>();
+    private final List<DiscountId> discounts = new ArrayList<>();
+
+    Columns(int expectedOrders) {
+      idMostSignificantBits = new long[expectedOrders];
+      idLeastSignificantBits = new long[expectedOrders];
+      version = new int[expectedOrders];
+      currency = new int[expectedOrders];
+      lineStart = new int[expectedOrders + 1];
+      status = new byte[expectedOrders];
+    }
+
+    void append(Order order) {
+      int i = orderCount++;
+      UUID uuid = order.id().uuidv7();
+      idMostSignificantBits[i] = uuid.getMostSignificantBits();
+      idLeastSignificantBits[i] = uuid.getLeastSignificantBits();
+      version[i] = order.version();
+      status[i] = (byte) order.status().ordinal();
+      currency[i] = NONE;
+      for (OrderLine line : order.lines()) {
+        ProductSnapshot snapshot = line.key().productSnapshot();
+        int currencyCode = code(currencyCodes, currencies, snapshot.unitPrice().currency());
+        if (currency[i] == NONE) {
+          currency[i] = currencyCode;
+        } else if (currency[i] != currencyCode) {
+          throw new IllegalArgumentException("Currency mismatch");
+        }
+        code(skuCodes, skus, snapshot.sku());
+        ensureLineCapacity();
+        int l = lineCount++;
+        UUID lineId = line.id().uuidv7();
+        lineIdMostSignificantBits[l] = lineId.getMostSignificantBits();
+        lineIdLeastSignificantBits[l] = lineId.getLeastSignificantBits();
+        lineAmount[l] = Math.multiplyExact(snapshot.unitPrice().minorUnits(), line.quantity());
+        quantity[l] = line.quantity();
+        product[l] = code(productCodes, products, snapshot);
+        DiscountId discountId = line.key().discountId();
+        discount[l] = discountId == null ? NONE : code(discountCodes, discounts, discountId);
+      }
+      lineStart[i + 1] = lineCount;
+    }
+
+    /** Adds the products of an order that is not itself written to the dictionaries. */
+    void appendProducts(Order order) {
+      for (OrderLine line : order.lines()) {
+        ProductSnapshot snapshot = line.key().productSnapshot();
+        code(currencyCodes, currencies, snapshot.unitPrice().currency());
+        code(skuCodes, skus, snapshot.sku());
+        code(productCodes, products, snapshot);
+      }
+    }
+
+    void writeTo(ByteBuffer file, Layout layout, StringTable skuTable, StringTable currencyTable) {
+      longs(file, layout.orderIdHigh, orderCount).put(idMostSignificantBits, 0, orderCount);
+      longs(file, layout.orderIdLow, orderCount).put(idLeastSignificantBits, 0, orderCount);
+      longs(file, layout.lineIdHigh, lineCount).put(lineIdMostSignificantBits, 0, lineCount);
+      longs(file, layout.lineIdLow, lineCount).put(lineIdLeastSignificantBits, 0, lineCount);
+      longs(file, layout.lineAmount, lineCount).put(lineAmount, 0, lineCount);
+      ints(file, layout.orderVersion, orderCount).put(version, 0, orderCount);
+      ints(file, layout.orderCurrency, orderCount).put(currency, 0, orderCount);
+      ints(file, layout.lineStart, orderCount + 1).put(lineStart, 0, orderCount + 1);
+      ints(file, layout.lineQuantity, lineCount).put(quantity, 0, lineCount);
+      ints(file, layout.lineProduct, lineCount).put(product, 0, lineCount);
+      ints(file, layout.lineDiscount, lineCount).put(discount, 0, lineCount);
+      file.put(layout.orderStatus, status, 0, orderCount);
+
+      LongBuffer unitPrice = longs(file, layout.productUnitPrice, products.size());
+      IntBuffer productSku = ints(file, layout.productSku, products.size());
+      IntBuffer productCurrency = ints(file, layout.productCurrency, products.size());
+      for (ProductSnapshot snapshot : products) {
+        unitPrice.put(snapshot.unitPrice().minorUnits());
+        productSku.put(skuCodes.get(snapshot.sku()));
+        productCurrency.put(currencyCodes.get(snapshot.unitPrice().currency()));
+      }
+      LongBuffer discountHigh = longs(file, layout.discountIdHigh, discounts.size());
+      LongBuffer discountLow = longs(file, layout.discountIdLow, discounts.size());
+      for (DiscountId discountId : discounts) {
+        discountHigh.put(discountId.value().getMostSignificantBits());
+        discountLow.put(discountId.value().getLeastSignificantBits());
+      }
+      writeStrings(file, layout.skuOffsets, layout.skuBytes, skuTable);
+      writeStrings(file, layout.currencyOffsets, layout.currencyBytes, currencyTable);
+    }
+
+    private static void writeStrings(
+        ByteBuffer file, int offsetsAt, int bytesAt, StringTable table) {
+      ints(file, offsetsAt, table.offsets.length).put(table.offsets);
+      file.put(bytesAt, table.bytes);
+    }
+
+    private void ensureLineCapacity() {
+      if (lineCount == quantity.length) {
+        int capacity = quantity.length * 2;
+        lineIdMostSignificantBits = Arrays.copyOf(lineIdMostSignificantBits, capacity);
+        lineIdLeastSignificantBits = Arrays.copyOf(lineIdLeastSignificantBits, capacity);
+        lineAmount = Arrays.copyOf(lineAmount, capacity);
+        quantity = Arrays.copyOf(quantity, capacity);
+        product = Arrays.copyOf(product, capacity);
+        discount = Arrays.copyOf(discount, capacity);
+      }
+    }
+
+    private static <T> int code(Map<T, Integer> codes, List<T> dictionary, T value) {
+      Integer existing = codes.get(value);
+      if (existing != null) {
+        return existing;
+      }
+      int code = dictionary.size();
+      dictionary.add(value);
+      codes.put(value, code);
+      return code;
+    }
+  }
+}
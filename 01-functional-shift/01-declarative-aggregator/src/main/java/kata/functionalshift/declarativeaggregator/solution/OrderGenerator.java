@@ -0,0 +1,298 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineId;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineKey;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+
+/**
+ * Seeded generator of arbitrarily large synthetic order datasets, for load and soak tests.
+ *
+ * <p>Entry {@code i} of a dataset is a pure function of the seed and {@code i}: {@link
+ * #order(long)} derives its own random source from both, so a dataset is never materialized, any
+ * slice can be regenerated on its own, and {@link #stream()} is lazy, splits evenly, and yields the
+ * same orders sequentially or in parallel. Memory is the SKU popularity table and prices,
+ * independent of the number of orders.
+ *
+ * <p>Each order:
+ *
+ * <ul>
+ *   <li>has a UUIDv7 id whose timestamp grows linearly with {@code i} over the time span;
+ *   <li>has a line count drawn uniformly from the configured range, with SKUs drawn from a Zipf
+ *       distribution (rank 0, {@code SKU-0}, is the most popular) and quantities from 1 to 5; a SKU
+ *       drawn twice adds to the same line;
+ *   <li>is priced in one currency drawn uniformly from the configured ones, so it never mixes
+ *       currencies; a SKU has one price in minor units, whatever the currency;
+ *   <li>has a status drawn from the weighted mix, except that empty orders are never shipped.
+ * </ul>
+ *
+ * <p>With probability {@code duplicatePercent}%, entry {@code i > 0} instead repeats an earlier
+ * entry (same id, equal contents), as replayed input would.
+ */
+public final class OrderGenerator {
+  private static final OrderStatus[] STATUSES = OrderStatus.values();
+  private static final int MAX_QUANTITY = 5;
+  // keeps the price stream apart from the per-entry streams derived from the same seed
+  private static final long PRICE_SALT = 0x9E37_79B9_7F4A_7C15L;
+
+  private final long seed;
+  private final long count;
+  private final ZipfDistribution skus;
+  private final Sku[] skuNames;
+  private final long[] priceMinor;
+  private final int minLines;
+  private final int maxLines;
+  private final int duplicatePercent;
+  private final Currency[] currencies;
+  private final int[] statusCumulativeWeight;
+  private final long startMillis;
+  private final long spanMillis;
+
+  private OrderGenerator(Builder builder) {
+    this.seed = builder.seed;
+    this.count = builder.count;
+    this.skus = new ZipfDistribution(builder.skuCount, builder.zipfExponent);
+    this.skuNames = new Sku[builder.skuCount];
+    this.priceMinor = new long[builder.skuCount];
+    SplittableRandom prices = new SplittableRandom(Hashing.mix(seed ^ PRICE_SALT));
+    for (int k = 0; k < skuNames.length; k++) {
+      skuNames[k] = new Sku("SKU-" + k);
+      priceMinor[k] = 100 + prices.nextLong(99_900);
+    }
+    this.minLines = builder.minLines;
+    this.maxLines = builder.maxLines;
+    this.duplicatePercent = builder.duplicatePercent;
+    this.currencies = builder.currencies.clone();
+    this.statusCumulativeWeight = new int[STATUSES.length];
+    int total = 0;
+    for (OrderStatus status : STATUSES) {
+      total += builder.statusWeights.getOrDefault(status, 0);
+      statusCumulativeWeight[status.ordinal()] = total;
+    }
+    this.startMillis = builder.start.toEpochMilli();
+    this.spanMillis = builder.span.toMillis();
+  }
+
+  /**
+   * Returns a builder for a dataset of {@code count} entries.
+   *
+   * <p>Defaults: 10,000 SKUs with Zipf exponent 1.0, 1 to 5 lines, no duplicates, USD only, every
+   * status equally likely, over the day from 2024-01-01T00:00:00Z.
+   */
+  public static Builder builder(long seed, long count) {
+    return new Builder(seed, count);
+  }
+
+  /** Returns the number of entries, duplicates included. */
+  public long count() {
+    return count;
+  }
+
+  /** Returns every entry, in order; lazy and splittable. */
+  public Stream<Order> stream() {
+    return stream(0, count);
+  }
+
+  /**
+   * Returns the entries in {@code [from, to)}, in order; lazy and splittable.
+   *
+   * @throws IndexOutOfBoundsException if the slice is not within the dataset.
+   */
+  public Stream<Order> stream(long from, long to) {
+    Objects.checkFromToIndex(from, to, count);
+    return LongStream.range(from, to).mapToObj(this::order);
+  }
+
+  /** Returns the entries in {@code [from, to)} as a list. */
+  public List<Order> list(long from, long to) {
+    return stream(from, to).toList();
+  }
+
+  /**
+   * Returns entry {@code index}; the same for the same seed, settings and index.
+   *
+   * @throws IndexOutOfBoundsException if {@code index} is not within the dataset.
+   */
+  public Order order(long index) {
+    Objects.checkIndex(index, count);
+    long i = index;
+    SplittableRandom random = random(i);
+    // follow duplicates back to the entry that holds the order
+    while (i > 0 && random.nextInt(100) < duplicatePercent) {
+      i = random.nextLong(i);
+      random = random(i);
+    }
+    return generate(i, random);
+  }
+
+  private SplittableRandom random(long index) {
+    return new SplittableRandom(Hashing.mix(seed + Hashing.mix(index)));
+  }
+
+  private Order generate(long index, SplittableRandom random) {
+    long millis = startMillis + (long) (spanMillis * ((double) index / count));
+    OrderId id = new OrderId(uuidV7(random, millis));
+    Currency currency = currencies[random.nextInt(currencies.length)];
+    int lineCount = minLines + random.nextInt(maxLines - minLines + 1);
+    Map<LineKey, LineId> primaryLineForKey = new LinkedHashMap<>();
+    Map<LineId, OrderLine> lines = new LinkedHashMap<>();
+    for (int j = 0; j < lineCount; j++) {
+      int rank = skus.sample(random);
+      int quantity = 1 + random.nextInt(MAX_QUANTITY);
+      ProductSnapshot product =
+          new ProductSnapshot(skuNames[rank], Money.ofMinor(priceMinor[rank], currency));
+      LineKey key = new LineKey(product, null);
+      LineId lineId = primaryLineForKey.get(key);
+      if (lineId == null) {
+        lineId = new LineId(uuidV7(random, millis));
+        primaryLineForKey.put(key, lineId);
+        lines.put(lineId, new OrderLine(lineId, key, quantity));
+      } else {
+        lines.put(lineId, lines.get(lineId).increaseBy(quantity));
+      }
+    }
+    OrderStatus status = status(random);
+    if (lines.isEmpty() && status == OrderStatus.SHIPPED) {
+      status = OrderStatus.NEW;
+    }
+    return new Order(id, primaryLineForKey, lines, status, 0);
+  }
+
+  private OrderStatus status(SplittableRandom random) {
+    int draw = random.nextInt(statusCumulativeWeight[STATUSES.length - 1]);
+    int s = 0;
+    while (draw >= statusCumulativeWeight[s]) {
+      s++;
+    }
+    return STATUSES[s];
+  }
+
+  private static UUID uuidV7(SplittableRandom random, long epochMillis) {
+    long msb = (epochMillis << 16) | 0x7000L | random.nextInt(0x1000);
+    long lsb = (random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+    return new UUID(msb, lsb);
+  }
+
+  /** Settings of an {@link OrderGenerator}; every setter validates its argument. */
+  public static final class Builder {
+    private final long seed;
+    private final long count;
+    private int skuCount = 10_000;
+    private double zipfExponent = 1.0;
+    private int minLines = 1;
+    private int maxLines = 5;
+    private int duplicatePercent;
+    private Currency[] currencies = {Currency.getInstance("USD")};
+    private final Map<OrderStatus, Integer> statusWeights = new EnumMap<>(OrderStatus.class);
+    private Instant start = Instant.parse("2024-01-01T00:00:00Z");
+    private Duration span = Duration.ofDays(1);
+
+    private Builder(long seed, long count) {
+      if (count < 0) {
+        throw new IllegalArgumentException("count must be >= 0");
+      }
+      this.seed = seed;
+      this.count = count;
+      for (OrderStatus status : STATUSES) {
+        statusWeights.put(status, 1);
+      }
+    }
+
+    /** Sets the number of distinct SKUs and the Zipf exponent of their popularity. */
+    public Builder skus(int skuCount, double zipfExponent) {
+      if (skuCount <= 0) {
+        throw new IllegalArgumentException("skuCount must be positive");
+      }
+      if (!(zipfExponent >= 0) || Double.isInfinite(zipfExponent)) {
+        throw new IllegalArgumentException("zipfExponent must be finite and >= 0");
+      }
+      this.skuCount = skuCount;
+      this.zipfExponent = zipfExponent;
+      return this;
+    }
+
+    /** Sets the range of lines drawn per order, both ends inclusive; 0 allows empty orders. */
+    public Builder lines(int min, int max) {
+      if (min < 0 || max < min) {
+        throw new IllegalArgumentException("lines must satisfy 0 <= min <= max");
+      }
+      this.minLines = min;
+      this.maxLines = max;
+      return this;
+    }
+
+    /** Sets the percentage of entries that repeat an earlier entry. */
+    public Builder duplicatePercent(int percent) {
+      if (percent < 0 || percent > 99) {
+        throw new IllegalArgumentException("duplicatePercent must be within [0, 99]");
+      }
+      this.duplicatePercent = percent;
+      return this;
+    }
+
+    /** Sets the currencies orders are priced in, each equally likely. */
+    public Builder currencies(Currency... currencies) {
+      if (currencies.length == 0) {
+        throw new IllegalArgumentException("at least one currency is required");
+      }
+      for (Currency currency : currencies) {
+        Objects.requireNonNull(currency, "currency is required");
+      }
+      this.currencies = currencies.clone();
+      return this;
+    }
+
+    /** Sets the relative weight of every status; statuses absent from the map get weight 0. */
+    public Builder statusMix(Map<OrderStatus, Integer> weights) {
+      long total = 0;
+      for (OrderStatus status : STATUSES) {
+        int weight = weights.getOrDefault(status, 0);
+        if (weight < 0) {
+          throw new IllegalArgumentException("status weights must be >= 0");
+        }
+        total += weight;
+      }
+      if (total == 0 || total > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("status weights must add up to a positive int");
+      }
+      statusWeights.clear();
+      statusWeights.putAll(weights);
+      return this;
+    }
+
+    /** Sets the time span the order ids are spread over. */
+    public Builder timeSpan(Instant start, Duration span) {
+      if (span.isNegative()) {
+        throw new IllegalArgumentException("span must not be negative");
+      }
+      if (start.toEpochMilli() < 0 || start.plus(span).toEpochMilli() >= 1L << 48) {
+        throw new IllegalArgumentException("time span must fit a 48-bit UUIDv7 timestamp");
+      }
+      this.start = start;
+      this.span = span;
+      return this;
+    }
+
+    /** Builds the generator; the SKU table is computed here. */
+    public OrderGenerator build() {
+      return new OrderGenerator(this);
+    }
+  }
+}
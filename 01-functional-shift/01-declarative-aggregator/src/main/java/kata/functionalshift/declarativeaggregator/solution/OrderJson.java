@@ -0,0 +1,608 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.CatalogDictionary;
+import kata.functionalshift.declarativeaggregator.domain.vo.DiscountId;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineId;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineKey;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+
+/**
+ * Streaming JSON codec for lists of orders.
+ *
+ * <p>{@link #read} pulls tokens from a {@link Reader} through a fixed 8 KiB buffer and hands each
+ * order to the consumer as soon as its closing brace is read, so neither the text nor the list is
+ * ever held in memory. The shape is:
+ *
+ * <pre>{@code
+ * [
+ *   {
+ *     "id": "0190b1a2-...", "status": "PAID", "version": 0,
+ *     "lines": [
+ *       {
+ *         "id": "0190b1a2-...", "sku": "SKU-1", "quantity": 2, "discountId": null,
+ *         "unitPrice": {"amount": "10.00", "currency": "USD"}
+ *       }
+ *     ]
+ *   }
+ * ]
+ * }</pre>
+ *
+ * <p>{@code version}, {@code lines}, line {@code id} (a fresh one is generated) and {@code
+ * discountId} are optional, amounts may be JSON strings or numbers, and unknown fields are skipped.
+ * Malformed JSON and values the domain rejects both surface as {@link IllegalArgumentException}.
+ *
+ * <p>SKUs, currencies and amounts repeat across orders, so the parser caches the value made from
+ * each distinct text and looks it up straight from its character buffer: a repeated SKU costs
+ * neither a {@code String} nor a dictionary lookup. SKUs and currencies missing from that cache are
+ * resolved through a {@link CatalogDictionary}, which validates each raw text once, so every order
+ * read through the same dictionary shares one {@link Sku} instance. UUIDs in canonical form are
+ * parsed without an intermediate {@code String} as well.
+ */
+public final class OrderJson {
+  private OrderJson() {}
+
+  /**
+   * Reads a JSON array of orders, passing each to {@code sink} in document order.
+   *
+   * @param in The JSON text; not closed.
+   * @param sink Receives every order.
+   * @return The number of orders read.
+   * @throws IllegalArgumentException if the text is not a valid order array.
+   * @throws IOException if reading fails.
+   */
+  public static long read(Reader in, Consumer<? super Order> sink) throws IOException {
+    return read(in, CatalogDictionary.unbounded(), sink);
+  }
+
+  /**
+   * Reads a JSON array of orders, passing each to {@code sink} in document order, with SKUs and
+   * currencies resolved through {@code catalog}.
+   *
+   * @param in The JSON text; not closed.
+   * @param catalog Where SKUs and currencies are interned; may be shared between readers.
+   * @param sink Receives every order.
+   * @return The number of orders read.
+   * @throws IllegalArgumentException if the text is not a valid order array.
+   * @throws IOException if reading fails.
+   */
+  public static long read(Reader in, CatalogDictionary catalog, Consumer<? super Order> sink)
+      throws IOException {
+    Objects.requireNonNull(sink, "sink is required");
+    Parser parser =
+        new Parser(
+            Objects.requireNonNull(in, "in is required"),
+            Objects.requireNonNull(catalog, "catalog is required"));
+    long[] count = {0};
+    parser.array(
+        () -> {
+          sink.accept(parser.order());
+          count[0]++;
+        });
+    parser.expectEnd();
+    return count[0];
+  }
+
+  /**
+   * Writes {@code orders} as a JSON array in the shape {@link #read} accepts.
+   *
+   * @param orders The orders to write.
+   * @param out Where to write; not closed.
+   * @throws IOException if writing fails.
+   */
+  public static void write(Iterable<Order> orders, Appendable out) throws IOException {
+    out.append('[');
+    boolean first = true;
+    for (Order order : orders) {
+      if (!first) {
+        out.append(',');
+      }
+      first = false;
+      writeOrder(order, out);
+    }
+    out.append(']');
+  }
+
+  /** Writes one order as a JSON object in the shape {@link #read} accepts. */
+  static void writeOrder(Order order, Appendable out) throws IOException {
+    out.append("{\"id\":");
+    quote(order.id().uuidv7().toString(), out);
+    out.append(",\"status\":");
+    quote(order.status().name(), out);
+    out.append(",\"version\":").append(Integer.toString(order.version()));
+    out.append(",\"lines\":[");
+    boolean first = true;
+    for (OrderLine line : order.lines()) {
+      if (!first) {
+        out.append(',');
+      }
+      first = false;
+      ProductSnapshot product = line.key().productSnapshot();
+      out.append("{\"id\":");
+      quote(line.id().uuidv7().toString(), out);
+      out.append(",\"sku\":");
+      quote(product.sku().value(), out);
+      out.append(",\"unitPrice\":{\"amount\":");
+      quote(product.unitPrice().amount().toPlainString(), out);
+      out.append(",\"currency\":");
+      quote(product.unitPrice().currency().getCurrencyCode(), out);
+      out.append("},\"quantity\":").append(Integer.toString(line.quantity()));
+      DiscountId discountId = line.key().discountId();
+      if (discountId != null) {
+        out.append(",\"discountId\":");
+        quote(discountId.value().toString(), out);
+      }
+      out.append('}');
+    }
+    out.append("]}");
+  }
+
+  /** Writes {@code value} as a JSON string literal. */
+  static void quote(String value, Appendable out) throws IOException {
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        out.append('\\').append(c);
+      } else if (c < 0x20) {
+        out.append(String.format("\\u%04x", (int) c));
+      } else {
+        out.append(c);
+      }
+    }
+    out.append('"');
+  }
+
+  /**
+   * Reusable parser of whitespace-separated orders held in a char array, for {@link OrderNdjson}
+   * workers: one per thread, keeping its caches from one chunk to the next. The caches front a
+   * {@link CatalogDictionary} the workers share, so orders parsed on different threads still share
+   * one instance per SKU and currency.
+   */
+  static final class ChunkParser {
+    private final Parser parser;
+
+    ChunkParser(CatalogDictionary catalog) {
+      this.parser = new Parser(null, catalog);
+    }
+
+    /**
+     * Parses every order in {@code chars[0, length)}, passing each to {@code sink} in order.
+     *
+     * @throws IllegalArgumentException if the text is not a sequence of valid order objects.
+     */
+    void parse(char[] chars, int length, Consumer<? super Order> sink) throws IOException {
+      parser.reset(chars, length);
+      while (parser.peek() != -1) {
+        sink.accept(parser.order());
+      }
+    }
+  }
+
+  /** Mutable order fields collected while its object is read; fields may come in any order. */
+  private static final class OrderDraft {
+    private OrderId id;
+    private OrderStatus status;
+    private int version;
+    private final Map<LineKey, LineId> primaryLineForKey = new LinkedHashMap<>();
+    private final Map<LineId, OrderLine> lines = new LinkedHashMap<>();
+
+    void add(OrderLine line) {
+      if (lines.putIfAbsent(line.id(), line) != null) {
+        throw new IllegalArgumentException("Duplicate line id " + line.id().uuidv7());
+      }
+      primaryLineForKey.putIfAbsent(line.key(), line.id());
+    }
+
+    Order build() {
+      if (id == null || status == null) {
+        throw new IllegalArgumentException("Order id and status are required");
+      }
+      return new Order(id, primaryLineForKey, lines, status, version);
+    }
+  }
+
+  /** Mutable line fields collected while its object is read. */
+  private static final class LineDraft {
+    private LineId id;
+    private Sku sku;
+    private BigDecimal amount;
+    private Currency currency;
+    private int quantity;
+    private DiscountId discountId;
+
+    OrderLine build() {
+      if (sku == null || amount == null || currency == null) {
+        throw new IllegalArgumentException("Line sku and unitPrice are required");
+      }
+      ProductSnapshot product = new ProductSnapshot(sku, Money.of(amount, currency));
+      return new OrderLine(
+          id == null ? LineId.newRandom() : id, new LineKey(product, discountId), quantity);
+    }
+  }
+
+  /** Reads one field value; the name and colon are already consumed. */
+  private interface FieldReader {
+    void read(String name) throws IOException;
+  }
+
+  /** Reads one array element. */
+  private interface ElementReader {
+    void read() throws IOException;
+  }
+
+  /**
+   * Pull tokenizer over a reader, buffering a fixed window of characters, or over a char array
+   * given whole by {@link #reset}.
+   */
+  private static final class Parser {
+    private Reader in;
+    private char[] buffer = new char[8192];
+    private final StringBuilder scratch = new StringBuilder();
+    private final Interner<Sku> skus;
+    private final Interner<Currency> currencies;
+    private final Interner<BigDecimal> amounts = new Interner<>(BigDecimal::new);
+    private int position;
+    private int limit;
+    private long consumed; // characters before buffer[0], for error messages
+
+    Parser(Reader in, CatalogDictionary catalog) {
+      this.in = in;
+      this.skus = new Interner<>(catalog::sku);
+      this.currencies = new Interner<>(catalog::currency);
+    }
+
+    /** Parses {@code chars[0, length)} from now on, keeping the caches. */
+    void reset(char[] chars, int length) {
+      in = null;
+      buffer = chars;
+      position = 0;
+      limit = length;
+      consumed = 0;
+    }
+
+    Order order() throws IOException {
+      OrderDraft draft = new OrderDraft();
+      object(
+          name -> {
+            switch (name) {
+              case "id" -> draft.id = new OrderId(uuid());
+              case "status" -> draft.status = OrderStatus.valueOf(string());
+              case "version" -> draft.version = Integer.parseInt(number());
+              case "lines" -> array(() -> draft.add(line()));
+              default -> skipValue();
+            }
+          });
+      return draft.build();
+    }
+
+    private OrderLine line() throws IOException {
+      LineDraft draft = new LineDraft();
+      object(
+          name -> {
+            switch (name) {
+              case "id" -> draft.id = new LineId(uuid());
+              case "sku" -> draft.sku = interned(skus);
+              case "quantity" -> draft.quantity = Integer.parseInt(number());
+              case "discountId" ->
+                  draft.discountId = skipNull() ? null : new DiscountId(uuid());
+              case "unitPrice" ->
+                  object(
+                      field -> {
+                        switch (field) {
+                          case "amount" -> draft.amount = amount();
+                          case "currency" -> draft.currency = interned(currencies);
+                          default -> skipValue();
+                        }
+                      });
+              default -> skipValue();
+            }
+          });
+      return draft.build();
+    }
+
+    void object(FieldReader fields) throws IOException {
+      expect('{');
+      if (skip('}')) {
+        return;
+      }
+      do {
+        String name = string();
+        expect(':');
+        fields.read(name);
+      } while (skip(','));
+      expect('}');
+    }
+
+    void array(ElementReader elements) throws IOException {
+      expect('[');
+      if (skip(']')) {
+        return;
+      }
+      do {
+        elements.read();
+      } while (skip(','));
+      expect(']');
+    }
+
+    String string() throws IOException {
+      scanString();
+      return scratch.toString();
+    }
+
+    /** Reads a string into {@link #scratch}. */
+    private void scanString() throws IOException {
+      expect('"');
+      scratch.setLength(0);
+      while (true) {
+        char c = nextChar();
+        if (c == '"') {
+          return;
+        }
+        if (c < 0x20) {
+          throw malformed("control character in string");
+        }
+        scratch.append(c == '\\' ? escape() : c);
+      }
+    }
+
+    private char escape() throws IOException {
+      char c = nextChar();
+      return switch (c) {
+        case '"', '\\', '/' -> c;
+        case 'b' -> '\b';
+        case 'f' -> '\f';
+        case 'n' -> '\n';
+        case 'r' -> '\r';
+        case 't' -> '\t';
+        case 'u' -> {
+          int code = 0;
+          for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(nextChar(), 16);
+            if (digit < 0) {
+              throw malformed("bad unicode escape");
+            }
+            code = code * 16 + digit;
+          }
+          yield (char) code;
+        }
+        default -> throw malformed("bad escape '\\" + c + "'");
+      };
+    }
+
+    /** Returns the text of a number token; its grammar is left to the caller's parse method. */
+    String number() throws IOException {
+      scanNumber();
+      return scratch.toString();
+    }
+
+    /** Reads a string through {@code interner}; the cached value on a repeated text. */
+    private <T> T interned(Interner<T> interner) throws IOException {
+      scanString();
+      return interner.intern(scratch);
+    }
+
+    /** Reads an amount given as a JSON string or number. */
+    private BigDecimal amount() throws IOException {
+      if (peek() == '"') {
+        scanString();
+      } else {
+        scanNumber();
+      }
+      return amounts.intern(scratch);
+    }
+
+    /** Reads a UUID string, parsing the canonical 8-4-4-4-12 form in place. */
+    private UUID uuid() throws IOException {
+      scanString();
+      if (scratch.length() != 36
+          || scratch.charAt(8) != '-'
+          || scratch.charAt(13) != '-'
+          || scratch.charAt(18) != '-'
+          || scratch.charAt(23) != '-') {
+        return UUID.fromString(scratch.toString());
+      }
+      long hi = hex(0, 8) << 32 | hex(9, 13) << 16 | hex(14, 18);
+      long lo = hex(19, 23) << 48 | hex(24, 36);
+      return new UUID(hi, lo);
+    }
+
+    private long hex(int from, int to) {
+      long value = 0;
+      for (int i = from; i < to; i++) {
+        int digit = Character.digit(scratch.charAt(i), 16);
+        if (digit < 0) {
+          throw new IllegalArgumentException("Invalid UUID string: " + scratch);
+        }
+        value = value << 4 | digit;
+      }
+      return value;
+    }
+
+    /** Reads a number token into {@link #scratch}. */
+    private void scanNumber() throws IOException {
+      peek();
+      scratch.setLength(0);
+      while (ensure()) {
+        char c = buffer[position];
+        if ((c < '0' || c > '9') && c != '-' && c != '+' && c != '.' && c != 'e' && c != 'E') {
+          break;
+        }
+        scratch.append(c);
+        position++;
+      }
+      if (scratch.isEmpty()) {
+        throw malformed("expected a value");
+      }
+    }
+
+    boolean skipNull() throws IOException {
+      if (peek() != 'n') {
+        return false;
+      }
+      literal("null");
+      return true;
+    }
+
+    void skipValue() throws IOException {
+      switch (peek()) {
+        case '{' -> object(name -> skipValue());
+        case '[' -> array(this::skipValue);
+        case '"' -> string();
+        case 't' -> literal("true");
+        case 'f' -> literal("false");
+        case 'n' -> literal("null");
+        default -> number();
+      }
+    }
+
+    private void literal(String word) throws IOException {
+      for (int i = 0; i < word.length(); i++) {
+        if (nextChar() != word.charAt(i)) {
+          throw malformed("expected " + word);
+        }
+      }
+    }
+
+    void expect(char c) throws IOException {
+      if (!skip(c)) {
+        throw malformed("expected '" + c + "'");
+      }
+    }
+
+    void expectEnd() throws IOException {
+      if (peek() != -1) {
+        throw malformed("trailing content");
+      }
+    }
+
+    /** Consumes {@code c} if it is the next non-blank character. */
+    private boolean skip(char c) throws IOException {
+      if (peek() != c) {
+        return false;
+      }
+      position++;
+      return true;
+    }
+
+    /** Returns the next non-blank character without consuming it, or -1 at end of input. */
+    private int peek() throws IOException {
+      while (ensure()) {
+        char c = buffer[position];
+        if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+          return c;
+        }
+        position++;
+      }
+      return -1;
+    }
+
+    private char nextChar() throws IOException {
+      if (!ensure()) {
+        throw malformed("unexpected end of input");
+      }
+      return buffer[position++];
+    }
+
+    /** Makes sure at least one character is buffered; false at end of input. */
+    private boolean ensure() throws IOException {
+      if (position < limit) {
+        return true;
+      }
+      if (in == null) {
+        return false;
+      }
+      consumed += limit;
+      position = 0;
+      limit = Math.max(in.read(buffer, 0, buffer.length), 0);
+      return limit > 0;
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+      return new IllegalArgumentException(
+          "Malformed order JSON at character " + (consumed + position) + ": " + reason);
+    }
+  }
+
+  /**
+   * Cache from text to the value made from it, looked up straight from a {@code CharSequence} so a
+   * hit allocates nothing. It fronts a {@link CatalogDictionary} for SKUs and currencies: the
+   * factory only runs on a miss, and a text the factory rejects is not cached. Past {@link
+   * #MAX_ENTRIES} texts, misses are no longer cached.
+   */
+  private static final class Interner<T> {
+    private static final int MAX_ENTRIES = 1 << 16;
+
+    private final Function<String, T> factory;
+    private String[] keys = new String[64];
+    private Object[] values = new Object[64];
+    private int size;
+
+    Interner(Function<String, T> factory) {
+      this.factory = factory;
+    }
+
+    @SuppressWarnings("unchecked")
+    T intern(CharSequence text) {
+      int mask = keys.length - 1;
+      int slot = hash(text) & mask;
+      for (String key = keys[slot]; key != null; key = keys[slot]) {
+        if (key.contentEquals(text)) {
+          return (T) values[slot];
+        }
+        slot = (slot + 1) & mask;
+      }
+      String key = text.toString();
+      T value = factory.apply(key);
+      if (size < MAX_ENTRIES) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length / 2) {
+          grow();
+        }
+      }
+      return value;
+    }
+
+    private void grow() {
+      String[] oldKeys = keys;
+      Object[] oldValues = values;
+      keys = new String[oldKeys.length * 2];
+      values = new Object[oldKeys.length * 2];
+      int mask = keys.length - 1;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != null) {
+          int slot = hash(oldKeys[i]) & mask;
+          while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+          }
+          keys[slot] = oldKeys[i];
+          values[slot] = oldValues[i];
+        }
+      }
+    }
+
+    private static int hash(CharSequence text) {
+      int h = 0;
+      for (int i = 0; i < text.length(); i++) {
+        h = 31 * h + text.charAt(i);
+      }
+      return h ^ (h >>> 16);
+    }
+  }
+}
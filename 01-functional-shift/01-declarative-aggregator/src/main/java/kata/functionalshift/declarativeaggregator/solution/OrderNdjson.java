@@ -0,0 +1,308 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.vo.CatalogDictionary;
+
+/**
+ * Reads newline-delimited JSON orders, one {@link OrderJson} object per line, parsing the file in
+ * parallel.
+ *
+ * <p>The file is cut into chunks of about {@code chunkBytes}, each ending just after a newline; a
+ * newline byte never occurs inside a multi-byte UTF-8 character, so every chunk decodes on its
+ * own. {@code parallelism} workers claim chunks in file order, each reading its chunk with a
+ * positional read into a buffer it keeps, decoding it into a char array it keeps and parsing it
+ * with a parser it keeps, so a worker allocates little beyond the orders themselves and its
+ * parser's SKU, currency and amount caches stay warm from chunk to chunk. Those caches front one
+ * {@link CatalogDictionary} shared by every worker of a read, so all orders of a file share one
+ * {@code Sku} and {@code Currency} instance per distinct value, whichever thread parsed them.
+ *
+ * <p>Parsed chunks are handed to the sink on the calling thread, in file order, so the sink sees
+ * exactly the sequence {@link OrderJson#read} would produce and need not be thread-safe: any
+ * single-threaded consumer, such as {@link RunningTotals#accept} or a {@link SalesReport}
+ * accumulator, can be fed directly. At most {@code 2 * parallelism} chunks are parsed ahead of the
+ * sink; past that the workers wait, so a slow sink bounds memory rather than letting parsed orders
+ * pile up.
+ *
+ * <p>The workers must run on threads other than the caller's; {@code Runnable::run} deadlocks.
+ */
+public final class OrderNdjson {
+  private static final int DEFAULT_CHUNK_BYTES = 4 << 20;
+  private static final int MAX_CHUNK_BYTES = Integer.MAX_VALUE - 8;
+
+  private final Executor workers;
+  private final int parallelism;
+  private final int chunkBytes;
+
+  /**
+   * @param workers The executor that runs the parsing workers.
+   * @param parallelism The number of chunks parsed at once.
+   */
+  public OrderNdjson(Executor workers, int parallelism) {
+    this(workers, parallelism, DEFAULT_CHUNK_BYTES);
+  }
+
+  /**
+   * @param workers The executor that runs the parsing workers.
+   * @param parallelism The number of chunks parsed at once.
+   * @param chunkBytes The size a chunk grows to before it is cut at the next newline.
+   */
+  public OrderNdjson(Executor workers, int parallelism, int chunkBytes) {
+    this.workers = Objects.requireNonNull(workers, "workers are required");
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be positive");
+    }
+    if (chunkBytes < 1) {
+      throw new IllegalArgumentException("chunkBytes must be positive");
+    }
+    this.parallelism = parallelism;
+    this.chunkBytes = chunkBytes;
+  }
+
+  /**
+   * Writes orders one per line, in the form {@link #read} accepts.
+   *
+   * @param orders The orders to write, in order.
+   * @param out The destination; not flushed or closed.
+   */
+  public static void write(Iterable<Order> orders, Appendable out) throws IOException {
+    for (Order order : orders) {
+      OrderJson.writeOrder(order, out);
+      out.append('\n');
+    }
+  }
+
+  /**
+   * Parses every order of a UTF-8 NDJSON file and passes each to {@code sink}, in file order, on
+   * the calling thread. Blank lines are skipped.
+   *
+   * @param file The file to read.
+   * @param sink The consumer of the parsed orders.
+   * @return The number of orders read.
+   * @throws IllegalArgumentException if the file holds malformed JSON or values the domain
+   *     rejects; the message names the byte range of the chunk. Orders before that chunk have been
+   *     delivered.
+   * @throws IOException if the file cannot be read or is not valid UTF-8.
+   */
+  public long read(Path file, Consumer<? super Order> sink) throws IOException {
+    return read(file, CatalogDictionary.unbounded(), sink);
+  }
+
+  /**
+   * Parses every order of a UTF-8 NDJSON file like {@link #read(Path, Consumer)}, with SKUs and
+   * currencies resolved through {@code catalog}.
+   *
+   * @param file The file to read.
+   * @param catalog Where SKUs and currencies are interned; may be shared between reads.
+   * @param sink The consumer of the parsed orders.
+   * @return The number of orders read.
+   * @throws IllegalArgumentException if the file holds malformed JSON or values the domain
+   *     rejects; the message names the byte range of the chunk. Orders before that chunk have been
+   *     delivered.
+   * @throws IOException if the file cannot be read or is not valid UTF-8.
+   */
+  public long read(Path file, CatalogDictionary catalog, Consumer<? super Order> sink)
+      throws IOException {
+    Objects.requireNonNull(catalog, "catalog is required");
+    Objects.requireNonNull(sink, "sink is required");
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long[] bounds = chunkBounds(channel);
+      Batch batch = new Batch(channel, bounds, catalog);
+      for (int w = 0; w < Math.min(parallelism, batch.chunks.size()); w++) {
+        workers.execute(new Worker(batch));
+      }
+      long count = 0;
+      try {
+        for (int c = 0; c < batch.chunks.size(); c++) {
+          List<Order> orders = await(batch.chunks.get(c), bounds[c], bounds[c + 1]);
+          batch.chunks.set(c, null);
+          batch.ahead.release();
+          orders.forEach(sink);
+          count += orders.size();
+        }
+      } finally {
+        batch.stop();
+      }
+      return count;
+    }
+  }
+
+  /** Returns the chunk offsets: 0, each cut just after a newline, then the file size. */
+  private long[] chunkBounds(FileChannel channel) throws IOException {
+    long size = channel.size();
+    long[] bounds = new long[16];
+    int count = 1;
+    ByteBuffer window = ByteBuffer.allocate(8192);
+    for (long start = 0; start < size; ) {
+      long end = lineStart(channel, Math.min(start + chunkBytes, size), size, window);
+      if (end - start > MAX_CHUNK_BYTES) {
+        throw new IllegalArgumentException("Line too long at byte " + start);
+      }
+      if (count == bounds.length) {
+        bounds = Arrays.copyOf(bounds, count * 2);
+      }
+      bounds[count++] = end;
+      start = end;
+    }
+    return Arrays.copyOf(bounds, count);
+  }
+
+  /** Returns the offset just after the first newline at or after {@code from}, else the size. */
+  private static long lineStart(FileChannel channel, long from, long size, ByteBuffer window)
+      throws IOException {
+    for (long at = from; at < size; ) {
+      window.clear();
+      int read = channel.read(window, at);
+      if (read < 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (window.get(i) == '\n') {
+          return at + i + 1;
+        }
+      }
+      at += read;
+    }
+    return size;
+  }
+
+  private static List<Order> await(CompletableFuture<List<Order>> chunk, long start, long end)
+      throws IOException {
+    try {
+      return chunk.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IllegalArgumentException malformed) {
+        throw new IllegalArgumentException(
+            "In bytes " + start + ".." + end + ": " + malformed.getMessage(), malformed);
+      }
+      if (cause instanceof UncheckedIOException io) {
+        throw io.getCause();
+      }
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw e;
+    }
+  }
+
+  /** State shared by the workers of one {@link #read}. */
+  private final class Batch {
+    final FileChannel channel;
+    final long[] bounds;
+    final CatalogDictionary catalog;
+    final List<CompletableFuture<List<Order>>> chunks;
+    final Semaphore ahead = new Semaphore(2 * parallelism);
+    final AtomicInteger next = new AtomicInteger();
+    volatile boolean stopped;
+
+    Batch(FileChannel channel, long[] bounds, CatalogDictionary catalog) {
+      this.channel = channel;
+      this.bounds = bounds;
+      this.catalog = catalog;
+      this.chunks = new ArrayList<>(bounds.length - 1);
+      for (int c = 0; c < bounds.length - 1; c++) {
+        chunks.add(new CompletableFuture<>());
+      }
+    }
+
+    /** Lets every worker finish the chunk it has claimed and claim no more. */
+    void stop() {
+      stopped = true;
+      ahead.release(parallelism);
+    }
+  }
+
+  /**
+   * Claims chunks until none are left or the batch stops. The stop flag is checked before a chunk
+   * is claimed, never after, so a claimed chunk is always parsed and its future completed, even if
+   * a later chunk fails meanwhile. Chunks are claimed in order, so the caller, which waits for
+   * chunks in order, reaches the first failed one and never waits on a chunk no worker will parse.
+   */
+  private final class Worker implements Runnable {
+    private final Batch batch;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private final OrderJson.ChunkParser parser;
+    private ByteBuffer bytes = ByteBuffer.allocate(0);
+    private CharBuffer chars = CharBuffer.allocate(0);
+
+    Worker(Batch batch) {
+      this.batch = batch;
+      this.parser = new OrderJson.ChunkParser(batch.catalog);
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        batch.ahead.acquireUninterruptibly();
+        if (batch.stopped) {
+          return;
+        }
+        int c = batch.next.getAndIncrement();
+        if (c >= batch.chunks.size()) {
+          return;
+        }
+        CompletableFuture<List<Order>> chunk = batch.chunks.get(c);
+        try {
+          chunk.complete(parse(batch.bounds[c], batch.bounds[c + 1]));
+        } catch (IOException e) {
+          batch.stopped = true;
+          chunk.completeExceptionally(new UncheckedIOException(e));
+        } catch (Throwable e) {
+          batch.stopped = true;
+          chunk.completeExceptionally(e);
+        }
+      }
+    }
+
+    private List<Order> parse(long start, long end) throws IOException {
+      int length = (int) (end - start);
+      if (bytes.capacity() < length) {
+        bytes = ByteBuffer.allocate(length);
+        chars = CharBuffer.allocate(length); // UTF-8 never decodes to more chars than bytes
+      }
+      bytes.clear().limit(length);
+      while (bytes.hasRemaining()) {
+        if (batch.channel.read(bytes, start + bytes.position()) < 0) {
+          throw new EOFException("File shrank while it was read");
+        }
+      }
+      bytes.flip();
+      chars.clear();
+      decoder.reset();
+      CoderResult result = decoder.decode(bytes, chars, true);
+      if (result.isUnderflow()) {
+        result = decoder.flush(chars);
+      }
+      if (result.isError()) {
+        result.throwException();
+      }
+      List<Order> orders = new ArrayList<>();
+      parser.parse(chars.array(), chars.position(), orders::add);
+      return orders;
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+
+/**
+ * Thread-safe in-memory store of orders keyed by {@link OrderId}, with optimistic concurrency on
+ * {@link Order#version()}.
+ *
+ * <p>Every order lives in its own {@link AtomicReference} inside a {@link ConcurrentHashMap}, so
+ * edits to different orders never meet, and edits to the same order are lock-free: read the current
+ * order, apply the edit to {@link Order#toBuilder()}, bump the version, and compare-and-set; on a
+ * lost race, retry on the newer order. Each stored state has exactly one version, so the
+ * compare-and-set on the reference is a compare-and-set on the version. {@link Order#equals} only
+ * compares ids, which is why the map's own {@code replace(key, old, new)} cannot serve here.
+ *
+ * <p>Edits are {@code Consumer<Order.Builder>}s and may run more than once, so they must not have
+ * side effects beyond the builder. Applying several edits with {@link #update(OrderId, List)} costs
+ * one builder, one build and one compare-and-set for the whole batch, and is atomic: all edits land
+ * in the same version. {@link #contention()} reports how often updates had to retry.
+ */
+public final class OrderRepository {
+  private final ConcurrentHashMap<OrderId, AtomicReference<Order>> orders =
+      new ConcurrentHashMap<>();
+  private final LongAdder updates = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder conflicts = new LongAdder();
+  private final LongAccumulator maxRetries = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Stores a new order as given, version included.
+   *
+   * @return False, with nothing changed, if an order with the same id is stored.
+   */
+  public boolean insert(Order order) {
+    return orders.putIfAbsent(order.id(), new AtomicReference<>(order)) == null;
+  }
+
+  /** Returns the current state of an order. */
+  public Optional<Order> find(OrderId id) {
+    AtomicReference<Order> entry = orders.get(id);
+    return entry == null ? Optional.empty() : Optional.of(entry.get());
+  }
+
+  /**
+   * Applies one edit to the current state of an order as its next version, retrying on conflicts.
+   * Whatever the edit or the build throws propagates, and nothing is stored.
+   *
+   * @return The stored result.
+   * @throws IllegalArgumentException if no order with that id is stored.
+   */
+  public Order update(OrderId id, Consumer<Order.Builder> edit) {
+    return update(id, List.of(edit));
+  }
+
+  /**
+   * Applies several edits, in order, to the current state of an order as one next version. Whatever
+   * an edit or the build throws propagates, and none of the edits is stored.
+   *
+   * @return The stored result.
+   * @throws IllegalArgumentException if no order with that id is stored.
+   */
+  public Order update(OrderId id, List<? extends Consumer<Order.Builder>> edits) {
+    AtomicReference<Order> entry = entry(id);
+    long attempts = 0;
+    while (true) {
+      Order current = entry.get();
+      Order.Builder builder = current.toBuilder();
+      for (Consumer<Order.Builder> edit : edits) {
+        edit.accept(builder);
+      }
+      Order next = builder.version(current.version() + 1).build();
+      if (entry.compareAndSet(current, next)) {
+        updates.increment();
+        if (attempts > 0) {
+          retries.add(attempts);
+          maxRetries.accumulate(attempts);
+        }
+        return next;
+      }
+      attempts++;
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * Stores {@code replacement} as the next version if the stored order still has the version of
+   * {@code expected}; the usual check for a client that read the order earlier.
+   *
+   * @return The stored result, or empty if the order has moved on since {@code expected}.
+   * @throws IllegalArgumentException if no order with that id is stored, or the two orders have
+   *     different ids.
+   */
+  public Optional<Order> replace(Order expected, Order replacement) {
+    if (!expected.id().equals(replacement.id())) {
+      throw new IllegalArgumentException("Cannot replace an order by another order");
+    }
+    AtomicReference<Order> entry = entry(expected.id());
+    Order next = replacement.toBuilder().version(expected.version() + 1).build();
+    while (true) {
+      Order current = entry.get();
+      if (current.version() != expected.version()) {
+        conflicts.increment();
+        return Optional.empty();
+      }
+      if (entry.compareAndSet(current, next)) {
+        updates.increment();
+        return Optional.of(next);
+      }
+    }
+  }
+
+  /**
+   * Removes an order. An update racing with the removal may still apply to the removed state and is
+   * then lost with it.
+   *
+   * @return The removed order, or empty if none was stored.
+   */
+  public Optional<Order> remove(OrderId id) {
+    AtomicReference<Order> entry = orders.remove(id);
+    return entry == null ? Optional.empty() : Optional.of(entry.get());
+  }
+
+  /** Returns the number of stored orders. */
+  public int size() {
+    return orders.size();
+  }
+
+  /** Returns the current state of every order; each is consistent, the list as a whole is not. */
+  public List<Order> snapshot() {
+    List<Order> result = new ArrayList<>(orders.size());
+    for (AtomicReference<Order> entry : orders.values()) {
+      result.add(entry.get());
+    }
+    return result;
+  }
+
+  /** Returns the contention seen so far. */
+  public Contention contention() {
+    return new Contention(updates.sum(), retries.sum(), maxRetries.get(), conflicts.sum());
+  }
+
+  private AtomicReference<Order> entry(OrderId id) {
+    AtomicReference<Order> entry = orders.get(Objects.requireNonNull(id, "Order ID is required"));
+    if (entry == null) {
+      throw new IllegalArgumentException("Order does not exist");
+    }
+    return entry;
+  }
+
+  /**
+   * Contention counters of an {@link OrderRepository}.
+   *
+   * @param updates Successful updates and replacements.
+   * @param retries Lost compare-and-set races, each followed by a retry of the edits.
+   * @param maxRetries Most retries a single update needed.
+   * @param conflicts Replacements refused because the order had a newer version.
+   */
+  public record Contention(long updates, long retries, long maxRetries, long conflicts) {
+
+    /** Returns the average number of retries per update. */
+    public double retriesPerUpdate() {
+      return updates == 0 ? 0 : (double) retries / updates;
+    }
+  }
+}
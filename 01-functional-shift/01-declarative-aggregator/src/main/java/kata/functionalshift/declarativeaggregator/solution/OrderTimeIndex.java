@@ -0,0 +1,262 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+
+/**
+ * Orders sorted by the bits of their UUIDv7 {@link OrderId}, and therefore by creation time.
+ *
+ * <p>A UUIDv7 starts with its 48-bit millisecond timestamp, so ordering ids as unsigned 128-bit
+ * numbers orders them by {@link OrderId#creationInstant()}, and every time interval is one
+ * contiguous slice of the index. {@link #between} and the {@code SalesAnalyzer} overloads that take
+ * an index find the slice with two binary searches and then only touch the orders inside it.
+ *
+ * <p>Ids are kept in two parallel {@code long} columns beside the orders, so a search compares
+ * primitives without dereferencing any {@code Order}. Ids are generated close to arrival, so
+ * {@link #add} first compares with the last entry: an in-order append is amortized O(1). A late id
+ * is binary searched and shifted into place, which costs its displacement from the end.
+ *
+ * <p>Orders are deduplicated by {@link OrderId} (first occurrence wins), the {@code distinct()}
+ * step of the {@code SalesAnalyzer} metrics. A dropped repeat can still sell products its kept
+ * order does not, and {@code getDistinctProductsSold} counts those like its {@code List} version
+ * does, so the index remembers them beside the kept order's id. Not thread-safe.
+ */
+public final class OrderTimeIndex {
+  private static final long MAX_MILLIS = 1L << 48;
+
+  private long[] idMostSignificantBits;
+  private long[] idLeastSignificantBits;
+  private Order[] orders;
+  private int size;
+  // products sold only by dropped repeats, by the id of the kept order; usually empty
+  private final Map<OrderId, Set<ProductSnapshot>> repeatProducts = new HashMap<>();
+
+  /** Creates an empty index. */
+  public OrderTimeIndex() {
+    this(16);
+  }
+
+  private OrderTimeIndex(int capacity) {
+    idMostSignificantBits = new long[capacity];
+    idLeastSignificantBits = new long[capacity];
+    orders = new Order[capacity];
+  }
+
+  /**
+   * Builds an index from the given orders, dropping repeated order ids.
+   *
+   * <p>The orders are sorted once with a stable sort, which is near-linear for input that is
+   * already almost in id order.
+   *
+   * @param orders The order List.
+   * @return The index.
+   */
+  public static OrderTimeIndex of(List<Order> orders) {
+    Objects.requireNonNull(orders, "orders is required");
+    Map<OrderId, Order> first = new HashMap<>(Math.max(16, orders.size() * 4 / 3));
+    Order[] distinct = new Order[orders.size()];
+    int count = 0;
+    OrderTimeIndex index = new OrderTimeIndex(Math.max(16, orders.size()));
+    for (Order order : orders) {
+      Order kept = first.putIfAbsent(order.id(), order);
+      if (kept == null) {
+        distinct[count++] = order;
+      } else {
+        index.addRepeat(kept, order);
+      }
+    }
+    Arrays.sort(distinct, 0, count, (a, b) -> compare(a.id().uuidv7(), b.id().uuidv7()));
+    for (int i = 0; i < count; i++) {
+      index.set(i, distinct[i]);
+    }
+    index.size = count;
+    return index;
+  }
+
+  /**
+   * Adds an order unless one with the same id is already indexed.
+   *
+   * @return Whether the order was added.
+   */
+  public boolean add(Order order) {
+    UUID id = order.id().uuidv7();
+    long msb = id.getMostSignificantBits();
+    long lsb = id.getLeastSignificantBits();
+    int at = size;
+    if (size > 0) {
+      int last =
+          compare(idMostSignificantBits[size - 1], idLeastSignificantBits[size - 1], msb, lsb);
+      if (last == 0) {
+        addRepeat(orders[size - 1], order);
+        return false;
+      }
+      if (last > 0) {
+        at = search(msb, lsb);
+        if (at < 0) {
+          addRepeat(orders[-at - 1], order);
+          return false;
+        }
+      }
+    }
+    if (size == orders.length) {
+      int capacity = size * 2;
+      idMostSignificantBits = Arrays.copyOf(idMostSignificantBits, capacity);
+      idLeastSignificantBits = Arrays.copyOf(idLeastSignificantBits, capacity);
+      orders = Arrays.copyOf(orders, capacity);
+    }
+    if (at < size) {
+      System.arraycopy(idMostSignificantBits, at, idMostSignificantBits, at + 1, size - at);
+      System.arraycopy(idLeastSignificantBits, at, idLeastSignificantBits, at + 1, size - at);
+      System.arraycopy(orders, at, orders, at + 1, size - at);
+    }
+    set(at, order);
+    size++;
+    return true;
+  }
+
+  /**
+   * Adds every order not yet indexed, in iteration order.
+   *
+   * @return The number of orders added.
+   */
+  public int addAll(Iterable<Order> orders) {
+    int added = 0;
+    for (Order order : orders) {
+      if (add(order)) {
+        added++;
+      }
+    }
+    return added;
+  }
+
+  /** Returns the number of distinct orders in the index. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns every indexed order, by creation time. */
+  public List<Order> orders() {
+    return List.of(Arrays.copyOf(orders, size));
+  }
+
+  /**
+   * Returns the orders created in {@code [from, to)}, by creation time; O(log n + k).
+   *
+   * @throws IllegalArgumentException if {@code to} is before {@code from}.
+   */
+  public List<Order> between(Instant from, Instant to) {
+    requireInterval(from, to);
+    return List.of(Arrays.copyOfRange(orders, position(from), position(to)));
+  }
+
+  static void requireInterval(Instant from, Instant to) {
+    if (to.isBefore(from)) {
+      throw new IllegalArgumentException("Interval end is before its start");
+    }
+  }
+
+  /** Returns the position of the first order created at or after {@code instant}; O(log n). */
+  int position(Instant instant) {
+    long millis = ceilMillis(instant);
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (idMostSignificantBits[mid] >>> 16 < millis) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  Order order(int position) {
+    return orders[position];
+  }
+
+  /** Returns the products that only dropped repeats of {@code id} sell, in first-seen order. */
+  Set<ProductSnapshot> repeatProducts(OrderId id) {
+    return repeatProducts.isEmpty() ? Set.of() : repeatProducts.getOrDefault(id, Set.of());
+  }
+
+  /** Remembers the products of {@code repeat} that {@code kept}, of the same id, does not sell. */
+  private void addRepeat(Order kept, Order repeat) {
+    for (OrderLine line : repeat.lines()) {
+      ProductSnapshot product = line.key().productSnapshot();
+      if (!sells(kept, product)) {
+        repeatProducts.computeIfAbsent(kept.id(), id -> new LinkedHashSet<>()).add(product);
+      }
+    }
+  }
+
+  private static boolean sells(Order order, ProductSnapshot product) {
+    for (OrderLine line : order.lines()) {
+      if (line.key().productSnapshot().equals(product)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void set(int position, Order order) {
+    UUID id = order.id().uuidv7();
+    idMostSignificantBits[position] = id.getMostSignificantBits();
+    idLeastSignificantBits[position] = id.getLeastSignificantBits();
+    orders[position] = order;
+  }
+
+  /** Returns the insertion point of an id, or {@code -(position + 1)} if it is already indexed. */
+  private int search(long msb, long lsb) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int c = compare(idMostSignificantBits[mid], idLeastSignificantBits[mid], msb, lsb);
+      if (c < 0) {
+        low = mid + 1;
+      } else if (c > 0) {
+        high = mid - 1;
+      } else {
+        return -mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /** Returns the UUIDv7 timestamp bound for an instant, rounded up to the next millisecond. */
+  private static long ceilMillis(Instant instant) {
+    if (instant.getEpochSecond() < 0) {
+      return 0;
+    }
+    if (instant.getEpochSecond() >= MAX_MILLIS / 1_000) {
+      return MAX_MILLIS;
+    }
+    long millis = instant.toEpochMilli();
+    return instant.getNano() % 1_000_000 == 0 ? millis : millis + 1;
+  }
+
+  private static int compare(UUID a, UUID b) {
+    return compare(
+        a.getMostSignificantBits(),
+        a.getLeastSignificantBits(),
+        b.getMostSignificantBits(),
+        b.getLeastSignificantBits());
+  }
+
+  private static int compare(long msbA, long lsbA, long msbB, long lsbB) {
+    int c = Long.compareUnsigned(msbA, msbB);
+    return c != 0 ? c : Long.compareUnsigned(lsbA, lsbB);
+  }
+}
@@ -0,0 +1,260 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+
+/**
+ * Parallel counterpart of {@link SalesAnalyzer} running on a caller-supplied {@link ForkJoinPool}.
+ *
+ * <p>Switching the sequential pipelines to {@code parallelStream()} does not scale: {@code
+ * distinct()} on an ordered parallel stream buffers and merges hash sets, and {@code groupingBy}
+ * merges one map per leaf task. This analyzer instead works in two stages:
+ *
+ * <ol>
+ *   <li><b>Dedup by hash partitioning.</b> Contiguous chunks of the input route each index to one
+ *       of {@code P} partitions by the hash of its {@link OrderId}. Each partition then owns a
+ *       private set, opened from the analyzer's {@link OrderDedup}, and visits its indices in
+ *       input order, so every id is decided by exactly one thread and the first occurrence still
+ *       wins. The outcome is a keep-mask over the input.
+ *   <li><b>Aggregation</b> over the kept orders, with {@code CONCURRENT, UNORDERED} collectors
+ *       whose single shared container is an {@link EnumMap} of per-status {@link
+ *       StripedDecimalAdder} slots, so there is nothing to merge. Results whose order is
+ *       observable (id lists, product lists) use ordered collectors instead.
+ * </ol>
+ *
+ * <p>Every method returns exactly what the {@link SalesAnalyzer} method of the same name returns
+ * for the same input, including list order and {@code BigDecimal} scale.
+ */
+public final class ParallelSalesAnalyzer {
+  private static final int MIN_CHUNK = 1 << 12;
+  private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+  private final ForkJoinPool pool;
+  private final OrderDedup dedup;
+  private final int partitions;
+
+  /**
+   * Creates an analyzer that runs its parallel stages in {@code pool}.
+   *
+   * @param pool The pool whose parallelism bounds the number of worker threads.
+   */
+  public ParallelSalesAnalyzer(ForkJoinPool pool) {
+    this(pool, OrderDedup.ON_HEAP);
+  }
+
+  /**
+   * Creates an analyzer that runs its parallel stages in {@code pool} and keeps the ids seen by
+   * each dedup partition in a set opened from {@code dedup}.
+   *
+   * @param pool The pool whose parallelism bounds the number of worker threads.
+   * @param dedup Where the seen order ids are kept.
+   */
+  public ParallelSalesAnalyzer(ForkJoinPool pool, OrderDedup dedup) {
+    this.pool = Objects.requireNonNull(pool, "pool is required");
+    this.dedup = Objects.requireNonNull(dedup, "dedup is required");
+    this.partitions = Integer.highestOneBit(Math.max(1, pool.getParallelism()) * 4);
+  }
+
+  /** Returns an analyzer that runs in {@link ForkJoinPool#commonPool()}. */
+  public static ParallelSalesAnalyzer onCommonPool() {
+    return new ParallelSalesAnalyzer(ForkJoinPool.commonPool());
+  }
+
+  // --- Level 1 ---
+
+  /** Parallel {@link SalesAnalyzer#countOrdersByStatus(List, OrderStatus)}. */
+  public long countOrdersByStatus(List<Order> orders, OrderStatus status) {
+    return inPool(() -> distinctOrders(orders).filter(o -> o.status() == status).count());
+  }
+
+  /** Parallel {@link SalesAnalyzer#calculateTotalRevenue(List)}. */
+  public BigDecimal calculateTotalRevenue(List<Order> orders) {
+    return inPool(
+        () ->
+            distinctOrders(orders)
+                .filter(order -> order.lineCount() > 0)
+                .map(o -> o.totalBeforeDiscount().amount())
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+  }
+
+  /** Parallel {@link SalesAnalyzer#getDistinctProductsSold(List)}; keeps first-seen order. */
+  public List<ProductSnapshot> getDistinctProductsSold(List<Order> orders) {
+    List<Order> input = randomAccess(orders);
+    Set<ProductSnapshot> products =
+        inPool(
+            () ->
+                IntStream.range(0, input.size())
+                    .parallel()
+                    .mapToObj(input::get)
+                    .flatMap(o -> o.lines().stream())
+                    .map(line -> line.key().productSnapshot())
+                    .collect(Collectors.toCollection(LinkedHashSet::new)));
+    return List.copyOf(products);
+  }
+
+  // --- Level 2 ---
+
+  /** Parallel {@link SalesAnalyzer#groupOrderIdsByStatus(List)}; ids keep input order. */
+  public Map<OrderStatus, List<OrderId>> groupOrderIdsByStatus(List<Order> orders) {
+    return inPool(
+        () ->
+            distinctOrders(orders)
+                .collect(
+                    Collectors.groupingBy(
+                        Order::status,
+                        () -> new EnumMap<>(OrderStatus.class),
+                        Collectors.mapping(Order::id, Collectors.toList()))));
+  }
+
+  // --- Level 3 ---
+
+  /** Parallel {@link SalesAnalyzer#calculateRevenueByStatus(List)}. */
+  public Map<OrderStatus, BigDecimal> calculateRevenueByStatus(List<Order> orders) {
+    return inPool(() -> distinctOrders(orders).unordered().collect(revenueByStatus()));
+  }
+
+  /**
+   * A {@code CONCURRENT, UNORDERED} collector summing order totals into per-status striped
+   * adders. All worker threads share one container; statuses without orders are left out.
+   */
+  static Collector<Order, ?, Map<OrderStatus, BigDecimal>> revenueByStatus() {
+    return Collector.of(
+        () -> slots(StripedDecimalAdder::new),
+        (slots, order) -> slots.get(order.status()).add(order.totalBeforeDiscount().amount()),
+        (left, right) -> {
+          right.forEach((status, adder) -> left.get(status).addAll(adder));
+          return left;
+        },
+        slots -> {
+          Map<OrderStatus, BigDecimal> result = new EnumMap<>(OrderStatus.class);
+          slots.forEach(
+              (status, adder) -> {
+                if (!adder.isEmpty()) {
+                  result.put(status, adder.sum());
+                }
+              });
+          return result;
+        },
+        Collector.Characteristics.CONCURRENT,
+        Collector.Characteristics.UNORDERED);
+  }
+
+  private static <T> EnumMap<OrderStatus, T> slots(Supplier<T> slot) {
+    EnumMap<OrderStatus, T> slots = new EnumMap<>(OrderStatus.class);
+    for (OrderStatus status : STATUSES) {
+      slots.put(status, slot.get());
+    }
+    return slots;
+  }
+
+  // --- Dedup stage ---
+
+  /** Returns a parallel, ordered stream of the first occurrence of every order id. */
+  private Stream<Order> distinctOrders(List<Order> orders) {
+    List<Order> input = randomAccess(orders);
+    boolean[] keep = firstOccurrences(input);
+    return IntStream.range(0, input.size()).parallel().filter(i -> keep[i]).mapToObj(input::get);
+  }
+
+  /**
+   * Marks the first occurrence of every order id.
+   *
+   * <p>Stage one splits the input into contiguous chunks and, per chunk, buckets indices by
+   * partition. Stage two gives each partition its own set and replays its buckets chunk by chunk,
+   * i.e. in input order. Partitions write disjoint indices of {@code keep}; the join at the end of
+   * each parallel stage publishes those writes.
+   */
+  private boolean[] firstOccurrences(List<Order> input) {
+    int size = input.size();
+    boolean[] keep = new boolean[size];
+    if (size == 0) {
+      return keep;
+    }
+    int chunks = Math.max(1, Math.min(partitions, size / MIN_CHUNK));
+    int[][][] buckets = new int[chunks][][];
+    IntStream.range(0, chunks)
+        .parallel()
+        .forEach(c -> buckets[c] = bucketChunk(input, c * size / chunks, (c + 1) * size / chunks));
+    IntStream.range(0, partitions)
+        .parallel()
+        .forEach(
+            p -> {
+              int expected = 0;
+              for (int[][] chunk : buckets) {
+                expected += chunk[p].length;
+              }
+              try (OrderDedup.Stage firstSeen = dedup.open(expected)) {
+                for (int[][] chunk : buckets) {
+                  for (int index : chunk[p]) {
+                    if (firstSeen.test(input.get(index).id())) {
+                      keep[index] = true;
+                    }
+                  }
+                }
+              }
+            });
+    return keep;
+  }
+
+  /** Buckets the indices {@code [from, to)} by partition, ascending within each bucket. */
+  private int[][] bucketChunk(List<Order> input, int from, int to) {
+    int[] partitionOf = new int[to - from];
+    int[] counts = new int[partitions];
+    for (int i = from; i < to; i++) {
+      int p = partition(input.get(i).id());
+      partitionOf[i - from] = p;
+      counts[p]++;
+    }
+    int[][] bucket = new int[partitions][];
+    for (int p = 0; p < partitions; p++) {
+      bucket[p] = new int[counts[p]];
+      counts[p] = 0;
+    }
+    for (int i = from; i < to; i++) {
+      int p = partitionOf[i - from];
+      bucket[p][counts[p]++] = i;
+    }
+    return bucket;
+  }
+
+  private int partition(OrderId id) {
+    long h = id.uuidv7().getLeastSignificantBits() * 0x9E37_79B9_7F4A_7C15L;
+    return (int) (h >>> 40) & (partitions - 1);
+  }
+
+  private static List<Order> randomAccess(List<Order> orders) {
+    Objects.requireNonNull(orders, "orders is required");
+    return orders instanceof RandomAccess
+        ? Collections.unmodifiableList(orders)
+        : new ArrayList<>(orders);
+  }
+
+  /**
+   * Runs {@code work} inside {@link #pool} so the parallel streams it builds fork there instead of
+   * in the common pool. Unchecked exceptions from workers surface unchanged in type.
+   */
+  private <T> T inPool(Supplier<T> work) {
+    Callable<T> task = work::get;
+    return pool.invoke(ForkJoinTask.adapt(task));
+  }
+}
@@ -0,0 +1,144 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.CatalogDictionary;
+import kata.functionalshift.declarativeaggregator.solution.SalesReport.Metric;
+
+/**
+ * Level 7: {@code POST /api/analytics/revenue-by-status} over the JDK {@link HttpServer}.
+ *
+ * <p>Every exchange runs on its own virtual thread. The request body is parsed as a token stream
+ * by {@link OrderJson#read} and each order goes straight into a {@link Metric#REVENUE_BY_STATUS}
+ * {@link SalesReport.Accumulator}, so the JSON text and the order list are never held in memory:
+ * per request, memory is one order plus the set of order ids seen so far, which the accumulator
+ * needs to count repeated orders once, like {@link SalesAnalyzer#calculateRevenueByStatus}. SKUs
+ * and currencies are resolved through one bounded {@link CatalogDictionary} shared by all requests,
+ * so a SKU is validated once per process rather than once per request while it stays in use.
+ *
+ * <p>The response is a JSON object from status name to revenue, e.g. {@code {"NEW":12.50}}.
+ * Malformed JSON or invalid orders answer 400, an order without lines 422 (its revenue is
+ * undefined), anything but {@code POST} 405, and any other failure while reading the orders 500.
+ */
+public final class RevenueService implements AutoCloseable {
+  /** The one endpoint served. */
+  public static final String PATH = "/api/analytics/revenue-by-status";
+
+  private static final SalesReport REPORT = SalesReport.of(Metric.REVENUE_BY_STATUS);
+  private static final CatalogDictionary CATALOG = CatalogDictionary.bounded(1 << 16, 1 << 16);
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private RevenueService(HttpServer server, ExecutorService executor) {
+    this.server = server;
+    this.executor = executor;
+  }
+
+  /**
+   * Starts serving on {@code address}; port 0 picks a free port, see {@link #address()}.
+   *
+   * @throws IOException if the address cannot be bound.
+   */
+  public static RevenueService start(InetSocketAddress address) throws IOException {
+    HttpServer server = HttpServer.create(address, 0);
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    server.setExecutor(executor);
+    server.createContext(PATH, RevenueService::handle);
+    server.start();
+    return new RevenueService(server, executor);
+  }
+
+  /**
+   * Runs the service on the port given as first argument, 8080 by default, until killed.
+   *
+   * <p>The JDK server leaves Nagle's algorithm on unless {@code sun.net.httpserver.nodelay} is
+   * set; together with a client's delayed ACK that stalls every response by ~40 ms. The property
+   * is read once, when the first server of the JVM is created, so this sets it before {@link
+   * #start}; embedders pass {@code -Dsun.net.httpserver.nodelay=true} instead.
+   */
+  public static void main(String[] args) throws IOException {
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+    RevenueService service = start(new InetSocketAddress(port));
+    System.out.println("Listening on http://localhost:" + service.address().getPort() + PATH);
+  }
+
+  /** Returns the bound address. */
+  public InetSocketAddress address() {
+    return server.getAddress();
+  }
+
+  /** Stops accepting requests and waits for the running ones to finish. */
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.close();
+  }
+
+  private static void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        exchange.getResponseHeaders().set("Allow", "POST");
+        respond(exchange, 405, error("Method not allowed"));
+        return;
+      }
+      Map<OrderStatus, BigDecimal> revenueByStatus;
+      try (SalesReport.Accumulator revenue = REPORT.newAccumulator();
+          Reader body = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+        OrderJson.read(body, CATALOG, revenue::accept);
+        revenueByStatus = revenue.result().revenueByStatus();
+      } catch (IllegalArgumentException e) {
+        respond(exchange, 400, error(e.getMessage()));
+        return;
+      } catch (IllegalStateException e) {
+        respond(exchange, 422, error(e.getMessage()));
+        return;
+      } catch (RuntimeException e) {
+        respond(exchange, 500, error("Internal error"));
+        return;
+      }
+      respond(exchange, 200, json(revenueByStatus));
+    }
+  }
+
+  private static String json(Map<OrderStatus, BigDecimal> revenueByStatus) throws IOException {
+    StringBuilder json = new StringBuilder("{");
+    for (Map.Entry<OrderStatus, BigDecimal> entry : revenueByStatus.entrySet()) {
+      if (json.length() > 1) {
+        json.append(',');
+      }
+      OrderJson.quote(entry.getKey().name(), json);
+      json.append(':').append(entry.getValue().toPlainString());
+    }
+    return json.append('}').toString();
+  }
+
+  private static String error(String message) throws IOException {
+    StringBuilder json = new StringBuilder("{\"error\":");
+    OrderJson.quote(String.valueOf(message), json);
+    return json.append('}').toString();
+  }
+
+  private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,285 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+
+/**
+ * Materialized rollup of the current orders, keyed on status × SKU × time bucket and kept up to
+ * date by deltas instead of rescans.
+ *
+ * <p>Every order contributes its line quantities and revenue to the cell of its status, each line's
+ * SKU, and the bucket of its creation instant, and to two marginals: revenue per status and
+ * quantity per SKU. {@link #upsert} retracts the contribution of the order it replaces and adds the
+ * new one, so a status change moves the order's lines between cells in O(lines), and {@link
+ * #revenueByStatus()}, {@link #quantity(Sku)} and the cell lookups never look at the orders.
+ *
+ * <p>Amounts are kept as exact {@code long} minor units per currency (every {@code Money} is
+ * normalized to its currency's scale) so that retraction is exact; sums must fit in a {@code long}.
+ * Revenue is turned into {@code BigDecimal} at query time and matches {@link
+ * SalesAnalyzer#calculateRevenueByStatus} over the current orders, value and scale.
+ *
+ * <p>Orders are identified by {@link OrderId}; an upsert carrying an older {@link Order#version()}
+ * than the one held is stale and ignored, so deltas may be replayed or arrive out of order. Not
+ * thread-safe.
+ */
+public final class RollupCube {
+  private static final OrderStatus[] STATUSES = OrderBatch.STATUSES;
+
+  private final long bucketMillis;
+  private final Map<OrderId, Order> orders = new HashMap<>();
+  private final Map<CellKey, Cell> cells = new HashMap<>();
+  private final Map<Sku, Long> quantityBySku = new HashMap<>();
+
+  // --- per status ---
+  private final long[] orderCount = new long[STATUSES.length];
+  private final long[] emptyOrderCount = new long[STATUSES.length];
+  private final Sums[] revenue = new Sums[STATUSES.length];
+
+  // --- currency dictionary, indexed by code ---
+  private final Map<Currency, Integer> currencyCodes = new HashMap<>();
+  private final List<Currency> currencies = new ArrayList<>();
+  private int[] currencyScale = new int[0];
+
+  private RollupCube(long bucketMillis) {
+    this.bucketMillis = bucketMillis;
+    for (int s = 0; s < STATUSES.length; s++) {
+      revenue[s] = new Sums();
+    }
+  }
+
+  /**
+   * Creates an empty cube with time buckets of {@code bucket}, aligned to the epoch.
+   *
+   * @throws IllegalArgumentException if {@code bucket} is shorter than a millisecond.
+   */
+  public static RollupCube bucketedBy(Duration bucket) {
+    long millis = bucket.toMillis();
+    if (millis <= 0) {
+      throw new IllegalArgumentException("bucket must be at least 1 ms");
+    }
+    return new RollupCube(millis);
+  }
+
+  /**
+   * Inserts an order, or replaces the held order with the same id, adjusting every rollup.
+   *
+   * @return False, with nothing changed, if the held order has a newer version.
+   * @throws IllegalArgumentException if the order mixes currencies across its lines.
+   * @throws ArithmeticException if the order total does not fit in a {@code long} of minor units.
+   */
+  public boolean upsert(Order order) {
+    Order previous = orders.get(order.id());
+    if (previous != null && previous.version() > order.version()) {
+      return false;
+    }
+    if (order.lineCount() > 0) {
+      order.totalMinorUnits(); // validates before anything is changed
+    }
+    if (previous != null) {
+      apply(previous, -1);
+    }
+    apply(order, 1);
+    orders.put(order.id(), order);
+    return true;
+  }
+
+  /**
+   * Moves a held order to {@code status}, as a new version of it.
+   *
+   * @return False if no order with that id is held.
+   * @throws IllegalStateException if the order has no lines and {@code status} is {@code SHIPPED}.
+   */
+  public boolean changeStatus(OrderId id, OrderStatus status) {
+    Order current = orders.get(id);
+    if (current == null) {
+      return false;
+    }
+    return upsert(current.toBuilder().status(status).version(current.version() + 1).build());
+  }
+
+  /**
+   * Removes a held order and its contribution.
+   *
+   * @return False if no order with that id is held.
+   */
+  public boolean remove(OrderId id) {
+    Order previous = orders.remove(id);
+    if (previous == null) {
+      return false;
+    }
+    apply(previous, -1);
+    return true;
+  }
+
+  /** Returns the held order with the given id, if any. */
+  public Order order(OrderId id) {
+    return orders.get(id);
+  }
+
+  /** Returns the number of orders held. */
+  public int size() {
+    return orders.size();
+  }
+
+  /** Returns the number of held orders with the status; O(1). */
+  public long countOrdersByStatus(OrderStatus status) {
+    return orderCount[status.ordinal()];
+  }
+
+  /**
+   * Returns revenue per status over the held orders; O(statuses × currencies).
+   *
+   * @return Revenue per status; statuses without orders are absent.
+   * @throws IllegalStateException if an order without lines is held.
+   */
+  public Map<OrderStatus, BigDecimal> revenueByStatus() {
+    Map<OrderStatus, BigDecimal> result = new EnumMap<>(OrderStatus.class);
+    for (OrderStatus status : STATUSES) {
+      int s = status.ordinal();
+      if (emptyOrderCount[s] > 0) {
+        throw new IllegalStateException("Cannot total an empty order");
+      }
+      if (orderCount[s] > 0) {
+        result.put(status, revenue[s].total());
+      }
+    }
+    return result;
+  }
+
+  /** Returns the quantity of the SKU sold across all held orders; O(1). */
+  public long quantity(Sku sku) {
+    return quantityBySku.getOrDefault(sku, 0L);
+  }
+
+  /** Returns the quantity sold per SKU across all held orders; SKUs without sales are absent. */
+  public Map<Sku, Long> quantityBySku() {
+    return Map.copyOf(quantityBySku);
+  }
+
+  /** Returns the quantity of the SKU sold by orders with the status in the bucket of {@code at}. */
+  public long quantity(OrderStatus status, Sku sku, Instant at) {
+    Cell cell = cells.get(new CellKey(status, sku, bucketOf(at)));
+    return cell == null ? 0 : cell.quantity;
+  }
+
+  /** Returns the revenue from the SKU in orders with the status in the bucket of {@code at}. */
+  public BigDecimal revenue(OrderStatus status, Sku sku, Instant at) {
+    Cell cell = cells.get(new CellKey(status, sku, bucketOf(at)));
+    return cell == null ? BigDecimal.ZERO : cell.revenue.total();
+  }
+
+  /** Returns the start of the bucket containing {@code at}. */
+  public Instant bucketStart(Instant at) {
+    return Instant.ofEpochMilli(bucketOf(at) * bucketMillis);
+  }
+
+  /** Returns the number of non-empty cells. */
+  public int cellCount() {
+    return cells.size();
+  }
+
+  private long bucketOf(Instant at) {
+    return Math.floorDiv(at.toEpochMilli(), bucketMillis);
+  }
+
+  /** Adds ({@code sign = 1}) or retracts ({@code sign = -1}) the contribution of an order. */
+  private void apply(Order order, int sign) {
+    int s = order.status().ordinal();
+    orderCount[s] += sign;
+    if (order.lineCount() == 0) {
+      emptyOrderCount[s] += sign;
+      return;
+    }
+    // upsert validated that every line is in the currency of the first
+    int c = currencyCode(order.lines().get(0).key().productSnapshot().unitPrice().currency());
+    revenue[s].add(c, sign * order.totalMinorUnits(), sign);
+    long bucket = bucketOf(order.creationInstant());
+    for (OrderLine line : order.lines()) {
+      ProductSnapshot product = line.key().productSnapshot();
+      long quantity = sign * (long) line.quantity();
+      long amount = sign * Math.multiplyExact(product.unitPrice().minorUnits(), line.quantity());
+      quantityBySku.merge(product.sku(), quantity, RollupCube::sumOrRemove);
+      CellKey key = new CellKey(order.status(), product.sku(), bucket);
+      Cell cell = cells.computeIfAbsent(key, k -> new Cell());
+      cell.quantity += quantity;
+      cell.revenue.add(c, amount, sign);
+      if (cell.revenue.isEmpty()) {
+        cells.remove(key);
+      }
+    }
+  }
+
+  private int currencyCode(Currency currency) {
+    Integer existing = currencyCodes.get(currency);
+    if (existing != null) {
+      return existing;
+    }
+    int code = currencies.size();
+    currencies.add(currency);
+    currencyCodes.put(currency, code);
+    currencyScale = Arrays.copyOf(currencyScale, code + 1);
+    currencyScale[code] = Math.max(currency.getDefaultFractionDigits(), 0);
+    return code;
+  }
+
+  private static Long sumOrRemove(Long a, Long b) {
+    long sum = a + b;
+    return sum == 0 ? null : sum;
+  }
+
+  private record CellKey(OrderStatus status, Sku sku, long bucket) {}
+
+  private final class Cell {
+    long quantity;
+    final Sums revenue = new Sums();
+  }
+
+  /** Minor-unit sums per currency code, with the number of contributions behind each. */
+  private final class Sums {
+    private long[] minor = new long[1];
+    private long[] contributions = new long[1];
+    private long total;
+
+    void add(int currency, long amount, int sign) {
+      if (currency >= minor.length) {
+        minor = Arrays.copyOf(minor, currencies.size());
+        contributions = Arrays.copyOf(contributions, currencies.size());
+      }
+      minor[currency] += amount;
+      contributions[currency] += sign;
+      total += sign;
+    }
+
+    boolean isEmpty() {
+      return total == 0;
+    }
+
+    /**
+     * Returns the sum as {@code reduce(ZERO, BigDecimal::add)} over the contributions would: the
+     * scale is the largest among the currencies contributing, and at least 0.
+     */
+    BigDecimal total() {
+      BigDecimal sum = BigDecimal.ZERO;
+      for (int c = 0; c < minor.length; c++) {
+        if (contributions[c] != 0) {
+          sum = sum.add(BigDecimal.valueOf(minor[c], currencyScale[c]));
+        }
+      }
+      return sum;
+    }
+  }
+}
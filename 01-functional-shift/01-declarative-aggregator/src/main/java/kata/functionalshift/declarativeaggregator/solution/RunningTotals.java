@@ -0,0 +1,397 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+
+/**
+ * Sales totals maintained order by order over an unbounded feed, with binary checkpoints that a
+ * restarted service restores in seconds instead of replaying the order history.
+ *
+ * <p>The state is the order count and revenue per status, the quantity and revenue per SKU, and
+ * the ids of every order seen, kept in {@link OffHeapOrderIdSet}s. Totals follow {@link
+ * SalesAnalyzer}: orders are deduplicated by {@link OrderId} (first occurrence wins), revenue is
+ * the plain sum of {@code totalBeforeDiscount()} amounts, and an order without lines is rejected
+ * like {@link SalesAnalyzer#calculateRevenueByStatus(List)} rejects it.
+ *
+ * <p><b>Checkpoints do not pause ingestion.</b> {@link #checkpoint} encodes the totals, which grow
+ * with statuses and SKUs but not with orders, on the calling thread, and seals the id set filled
+ * since the previous checkpoint: new ids go to a fresh set, and lookups check the sealed sets as
+ * well. A task on the given executor writes the totals and the union of the sealed sets into a new
+ * file, flushes it, renames it over the target and flushes the directory. The next {@link #accept}
+ * swaps the union, now mapped from that file, in for the sets it was built from, and frees those.
+ * The ingesting thread never copies ids.
+ *
+ * <p><b>Restore</b> reads the totals and maps the id table of the checkpoint read-only. The table
+ * is read once, sequentially, to check its CRC, but nothing is rebuilt: the feed resumes as soon
+ * as the check passes. The file, all little-endian:
+ *
+ * <pre>
+ * header   magic, version, totals bytes, totals CRC-32, table CRC-32 (5 x int)
+ *          order ids, table position                                 (2 x long)
+ * totals   statuses (int), per status: count (long), revenue (flag byte + decimal)
+ *          skus (int), per SKU: value (string), quantity (long), revenue (decimal)
+ * table    page-aligned OffHeapOrderIdSet slots
+ * </pre>
+ *
+ * <p>A decimal is a scale ({@code int}) and its unscaled two's-complement bytes; strings and byte
+ * runs are prefixed by their length ({@code int}). Statuses are stored by {@link OrderStatus}
+ * ordinal, so reordering that enum needs a new {@link #VERSION}.
+ *
+ * <p>Not thread-safe: one thread feeds orders and reads totals; only checkpoint writing runs
+ * elsewhere.
+ */
+public final class RunningTotals {
+  /** First four bytes of every checkpoint, {@code "CKPT"} in ASCII. */
+  public static final int MAGIC = 0x54504B43;
+
+  /** Checkpoint format version written by {@link #checkpoint}, and the only one restored. */
+  public static final int VERSION = 2;
+
+  private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+  private static final int HEADER_BYTES = 5 * Integer.BYTES + 2 * Long.BYTES;
+  private static final int TABLE_CRC_POSITION = 4 * Integer.BYTES;
+  private static final long PAGE_BYTES = 4096;
+  private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+  private final long[] counts = new long[STATUSES.length];
+  private final DecimalSum[] revenue = new DecimalSum[STATUSES.length];
+  private final Map<Sku, SkuTotals> skus = new LinkedHashMap<>();
+
+  /** Ids up to the last completed checkpoint first, then sets sealed since. */
+  private final List<OffHeapOrderIdSet> sealed = new ArrayList<>();
+
+  private OffHeapOrderIdSet recent = OffHeapOrderIdSet.create(0);
+  private Checkpoint pending;
+
+  private RunningTotals() {}
+
+  /** Returns empty totals. */
+  public static RunningTotals create() {
+    return new RunningTotals();
+  }
+
+  /**
+   * Restores the totals of a checkpoint; its id table is mapped, not read.
+   *
+   * @param checkpoint A file written by {@link #checkpoint}.
+   * @return The totals as they were when the checkpoint was taken.
+   * @throws IOException if the file cannot be read, is not a checkpoint of {@link #VERSION}, or is
+   *     truncated or corrupt.
+   */
+  public static RunningTotals restore(Path checkpoint) throws IOException {
+    try (FileChannel channel = FileChannel.open(checkpoint, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES) {
+        throw new IOException("Not a checkpoint: " + checkpoint);
+      }
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ORDER);
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Not a checkpoint: " + checkpoint);
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported checkpoint version " + version + ": " + checkpoint);
+      }
+      int totalsBytes = header.getInt();
+      int crc = header.getInt();
+      int tableCrc = header.getInt();
+      long ids = header.getLong();
+      long tablePosition = header.getLong();
+      if (totalsBytes < 0 || channel.size() < HEADER_BYTES + (long) totalsBytes) {
+        throw new IOException("Checkpoint is truncated: " + checkpoint);
+      }
+      ByteBuffer totals =
+          channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, totalsBytes).order(ORDER);
+      if (crc(totals) != crc) {
+        throw new IOException("Checkpoint totals are corrupt: " + checkpoint);
+      }
+      RunningTotals restored = new RunningTotals();
+      restored.decodeTotals(totals);
+      OffHeapOrderIdSet table = OffHeapOrderIdSet.mapped(channel, tablePosition, ids);
+      if (table.checksum() != tableCrc) {
+        table.close();
+        throw new IOException("Checkpoint order ids are corrupt: " + checkpoint);
+      }
+      restored.sealed.add(table);
+      return restored;
+    }
+  }
+
+  /**
+   * Adds an order to the totals, unless an order with the same id was added before.
+   *
+   * @return Whether the order was added.
+   * @throws IllegalStateException if the order has no lines; the totals are left unchanged.
+   * @throws IllegalArgumentException if its lines are priced in different currencies.
+   */
+  public boolean accept(Order order) {
+    adoptCheckpoint();
+    OrderId id = order.id();
+    if (seen(id)) {
+      return false;
+    }
+    BigDecimal total = order.totalBeforeDiscount().amount();
+    recent.add(id);
+    int s = order.status().ordinal();
+    counts[s]++;
+    DecimalSum sum = revenue[s] == null ? (revenue[s] = new DecimalSum()) : revenue[s];
+    sum.add(total);
+    for (OrderLine line : order.lines()) {
+      SkuTotals totals =
+          skus.computeIfAbsent(line.key().productSnapshot().sku(), k -> new SkuTotals());
+      totals.quantity += line.quantity();
+      totals.revenue.add(line.totalBeforeDiscount().amount());
+    }
+    return true;
+  }
+
+  /** Returns the number of distinct orders added. */
+  public long orderCount() {
+    return Arrays.stream(counts).sum();
+  }
+
+  /** Returns the number of orders with the provided status. */
+  public long countOrdersByStatus(OrderStatus status) {
+    return counts[status.ordinal()];
+  }
+
+  /** Returns revenue per status; statuses without orders are absent. */
+  public Map<OrderStatus, BigDecimal> revenueByStatus() {
+    Map<OrderStatus, BigDecimal> result = new EnumMap<>(OrderStatus.class);
+    for (OrderStatus status : STATUSES) {
+      if (revenue[status.ordinal()] != null) {
+        result.put(status, revenue[status.ordinal()].sum());
+      }
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  /** Returns the quantity sold per SKU, in first-seen order. */
+  public Map<Sku, Long> quantityBySku() {
+    Map<Sku, Long> result = new LinkedHashMap<>();
+    skus.forEach((sku, totals) -> result.put(sku, totals.quantity));
+    return Collections.unmodifiableMap(result);
+  }
+
+  /** Returns the line revenue per SKU, in first-seen order. */
+  public Map<Sku, BigDecimal> revenueBySku() {
+    Map<Sku, BigDecimal> result = new LinkedHashMap<>();
+    skus.forEach((sku, totals) -> result.put(sku, totals.revenue.sum()));
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * Starts writing the current totals to {@code target} on {@code executor} and returns at once;
+   * orders accepted from now on are not part of the checkpoint. The file is written next to
+   * {@code target} and renamed over it when complete, so {@code target} always holds a whole
+   * checkpoint.
+   *
+   * @return Completes with {@code target} once the checkpoint is durable, or exceptionally with an
+   *     {@link UncheckedIOException}; the totals are unaffected by a failed checkpoint.
+   * @throws IllegalStateException if the previous checkpoint is still being written.
+   */
+  public CompletableFuture<Path> checkpoint(Path target, Executor executor) {
+    Objects.requireNonNull(target, "target is required");
+    Objects.requireNonNull(executor, "executor is required");
+    adoptCheckpoint();
+    if (pending != null) {
+      throw new IllegalStateException("A checkpoint is already being written");
+    }
+    byte[] totals = encodeTotals();
+    sealed.add(recent);
+    recent = OffHeapOrderIdSet.create(0);
+    List<OffHeapOrderIdSet> parts = List.copyOf(sealed);
+    CompletableFuture<OffHeapOrderIdSet> written =
+        CompletableFuture.supplyAsync(() -> write(target, totals, parts), executor);
+    pending = new Checkpoint(parts, written);
+    return written.thenApply(ids -> target);
+  }
+
+  private boolean seen(OrderId id) {
+    for (OffHeapOrderIdSet ids : sealed) {
+      if (ids.contains(id)) {
+        return true;
+      }
+    }
+    return recent.contains(id);
+  }
+
+  /** Replaces the sets a finished checkpoint was built from by the table it wrote. */
+  private void adoptCheckpoint() {
+    if (pending == null || !pending.written.isDone()) {
+      return;
+    }
+    if (!pending.written.isCompletedExceptionally()) {
+      sealed.removeAll(pending.parts); // identity: the sets do not override equals
+      sealed.add(0, pending.written.join());
+      pending.parts.forEach(OffHeapOrderIdSet::close);
+    }
+    pending = null;
+  }
+
+  private static OffHeapOrderIdSet write(
+      Path target, byte[] totals, List<OffHeapOrderIdSet> parts) {
+    long ids = parts.stream().mapToLong(OffHeapOrderIdSet::size).sum();
+    long tablePosition = (HEADER_BYTES + totals.length + PAGE_BYTES - 1) / PAGE_BYTES * PAGE_BYTES;
+    OffHeapOrderIdSet[] table = new OffHeapOrderIdSet[1]; // closed unless the file is committed
+    boolean committed = false;
+    try {
+      OffHeapOrderIdSet written =
+          AtomicFiles.replace(
+              target,
+              channel -> {
+                ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES + totals.length).order(ORDER);
+                head.putInt(MAGIC).putInt(VERSION).putInt(totals.length);
+                head.putInt(crc(ByteBuffer.wrap(totals))).putInt(0); // table CRC, filled in below
+                head.putLong(ids).putLong(tablePosition);
+                head.put(totals).flip();
+                while (head.hasRemaining()) {
+                  channel.write(head);
+                }
+                table[0] = OffHeapOrderIdSet.union(parts, channel, tablePosition);
+                ByteBuffer tableCrc = ByteBuffer.allocate(Integer.BYTES).order(ORDER);
+                tableCrc.putInt(table[0].checksum()).flip();
+                while (tableCrc.hasRemaining()) {
+                  channel.write(tableCrc, TABLE_CRC_POSITION + tableCrc.position());
+                }
+                return table[0];
+              });
+      committed = true;
+      return written;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write checkpoint " + target, e);
+    } finally {
+      if (!committed && table[0] != null) {
+        table[0].close();
+      }
+    }
+  }
+
+  private byte[] encodeTotals() {
+    Encoder out = new Encoder();
+    out.putInt(STATUSES.length);
+    for (int s = 0; s < STATUSES.length; s++) {
+      out.putLong(counts[s]);
+      out.putByte(revenue[s] == null ? 0 : 1);
+      if (revenue[s] != null) {
+        out.putDecimal(revenue[s].sum());
+      }
+    }
+    out.putInt(skus.size());
+    skus.forEach(
+        (sku, totals) -> {
+          out.putBytes(sku.value().getBytes(StandardCharsets.UTF_8));
+          out.putLong(totals.quantity);
+          out.putDecimal(totals.revenue.sum());
+        });
+    return out.toByteArray();
+  }
+
+  private void decodeTotals(ByteBuffer in) throws IOException {
+    if (in.getInt() != STATUSES.length) {
+      throw new IOException("Checkpoint was written with other order statuses");
+    }
+    for (int s = 0; s < STATUSES.length; s++) {
+      counts[s] = in.getLong();
+      if (in.get() != 0) {
+        revenue[s] = new DecimalSum().add(getDecimal(in));
+      }
+    }
+    int skuCount = in.getInt();
+    for (int i = 0; i < skuCount; i++) {
+      SkuTotals totals = new SkuTotals();
+      Sku sku = new Sku(new String(getBytes(in), StandardCharsets.UTF_8));
+      totals.quantity = in.getLong();
+      totals.revenue.add(getDecimal(in));
+      skus.put(sku, totals);
+    }
+  }
+
+  private static BigDecimal getDecimal(ByteBuffer in) {
+    int scale = in.getInt();
+    return new BigDecimal(new BigInteger(getBytes(in)), scale);
+  }
+
+  private static byte[] getBytes(ByteBuffer in) {
+    byte[] bytes = new byte[in.getInt()];
+    in.get(bytes);
+    return bytes;
+  }
+
+  private static int crc(ByteBuffer bytes) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes.duplicate());
+    return (int) crc.getValue();
+  }
+
+  private static final class SkuTotals {
+    private long quantity;
+    private final DecimalSum revenue = new DecimalSum();
+  }
+
+  /** A checkpoint being written from {@code parts}. */
+  private record Checkpoint(
+      List<OffHeapOrderIdSet> parts, CompletableFuture<OffHeapOrderIdSet> written) {}
+
+  /** Little-endian writer into a growing heap buffer. */
+  private static final class Encoder {
+    private ByteBuffer buffer = ByteBuffer.allocate(256).order(ORDER);
+
+    void putByte(int value) {
+      ensure(1).put((byte) value);
+    }
+
+    void putInt(int value) {
+      ensure(Integer.BYTES).putInt(value);
+    }
+
+    void putLong(long value) {
+      ensure(Long.BYTES).putLong(value);
+    }
+
+    void putBytes(byte[] bytes) {
+      putInt(bytes.length);
+      ensure(bytes.length).put(bytes);
+    }
+
+    void putDecimal(BigDecimal value) {
+      putInt(value.scale());
+      putBytes(value.unscaledValue().toByteArray());
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private ByteBuffer ensure(int bytes) {
+      if (buffer.remaining() < bytes) {
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        buffer = ByteBuffer.allocate(capacity).order(ORDER).put(buffer.flip());
+      }
+      return buffer;
+    }
+  }
+}
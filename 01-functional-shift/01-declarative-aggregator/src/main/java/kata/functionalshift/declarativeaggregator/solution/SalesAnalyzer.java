@@ -1,13 +1,26 @@
 package kata.functionalshift.declarativeaggregator.solution;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import kata.functionalshift.declarativeaggregator.domain.Order;
 import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
 import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
 import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.metrics.Metrics;
+import kata.functionalshift.declarativeaggregator.metrics.Operation;
+import kata.functionalshift.declarativeaggregator.metrics.Probe;
 
 /** SalesAnalyzer sample solution by author. */
 public class SalesAnalyzer {
@@ -22,7 +35,26 @@ public class SalesAnalyzer {
    * @return The number of order with the status.
    */
   public static long countOrdersByStatus(List<Order> orders, OrderStatus status) {
-    return orders.stream().distinct().filter((o) -> o.status().equals(status)).count();
+    return countOrdersByStatus(orders, status, OrderDedup.ON_HEAP);
+  }
+
+  /**
+   * Tries to count the number of orders with the provided status.
+   *
+   * @param orders The order List.
+   * @param status The status to be counted against.
+   * @param dedup Where the seen order ids are kept.
+   * @return The number of order with the status.
+   */
+  public static long countOrdersByStatus(
+      List<Order> orders, OrderStatus status, OrderDedup dedup) {
+    Probe probe = Metrics.begin(Operation.COUNT_ORDERS_BY_STATUS);
+    long count;
+    try (Stream<Order> distinct = distinct(orders, dedup, probe)) {
+      count = distinct.filter((o) -> o.status().equals(status)).count();
+    }
+    probe.end(orders.size(), probe.distinctSeen());
+    return count;
   }
 
   /**
@@ -32,12 +64,29 @@ public class SalesAnalyzer {
    * @return The gross revenue before discounts.
    */
   public static BigDecimal calculateTotalRevenue(List<Order> orders) {
-    return orders.stream()
-        .distinct()
-        .filter(order -> !order.lines().isEmpty())
-        .map(o -> o.totalBeforeDiscount())
-        .map(money -> money.amount())
-        .reduce(BigDecimal.ZERO, BigDecimal::add);
+    return calculateTotalRevenue(orders, OrderDedup.ON_HEAP);
+  }
+
+  /**
+   * Calculates total gross revenue from all non-empty orders.
+   *
+   * @param orders The order List.
+   * @param dedup Where the seen order ids are kept.
+   * @return The gross revenue before discounts.
+   */
+  public static BigDecimal calculateTotalRevenue(List<Order> orders, OrderDedup dedup) {
+    Probe probe = Metrics.begin(Operation.CALCULATE_TOTAL_REVENUE);
+    BigDecimal total;
+    try (Stream<Order> distinct = distinct(orders, dedup, probe)) {
+      total =
+          distinct
+              .filter(order -> order.lineCount() > 0)
+              .map(o -> o.totalBeforeDiscount())
+              .map(money -> money.amount())
+              .collect(DecimalSum.summing());
+    }
+    probe.end(orders.size(), probe.distinctSeen());
+    return total;
   }
 
   /**
@@ -47,33 +96,450 @@ public class SalesAnalyzer {
    * @return The distinct products present in sales.
    */
   public static List<ProductSnapshot> getDistinctProductsSold(List<Order> orders) {
-    return orders.stream()
-        .flatMap(o -> o.lines().stream())
-        .distinct()
-        .map(line -> line.key().productSnapshot())
-        .distinct()
-        .toList();
+    Probe probe = Metrics.begin(Operation.GET_DISTINCT_PRODUCTS_SOLD);
+    List<ProductSnapshot> products =
+        orders.stream()
+            .flatMap(o -> o.lines().stream())
+            .distinct()
+            .map(line -> line.key().productSnapshot())
+            .distinct()
+            .toList();
+    if (probe.isActive()) {
+      long lines = 0;
+      for (Order order : orders) {
+        lines += order.lineCount();
+      }
+      probe.end(lines, products.size());
+    }
+    return products;
   }
 
   // --- Level 2 ----
 
   public static Map<OrderStatus, List<OrderId>> groupOrderIdsByStatus(List<Order> orders) {
-    return orders.stream()
-        .distinct()
-        .collect(
-            Collectors.groupingBy(
-                o -> o.status(), Collectors.mapping(o -> o.id(), Collectors.toList())));
+    return groupOrderIdsByStatus(orders, OrderDedup.ON_HEAP);
+  }
+
+  public static Map<OrderStatus, List<OrderId>> groupOrderIdsByStatus(
+      List<Order> orders, OrderDedup dedup) {
+    Probe probe = Metrics.begin(Operation.GROUP_ORDER_IDS_BY_STATUS);
+    Map<OrderStatus, List<OrderId>> groups;
+    try (Stream<Order> distinct = distinct(orders, dedup, probe)) {
+      groups =
+          distinct.collect(
+              Collectors.groupingBy(
+                  o -> o.status(), Collectors.mapping(o -> o.id(), Collectors.toList())));
+    }
+    probe.end(orders.size(), probe.distinctSeen());
+    return groups;
   }
 
   // --- Level 3 ---
 
   public static Map<OrderStatus, BigDecimal> calculateRevenueByStatus(List<Order> orders) {
-    return orders.stream()
-        .distinct()
-        .collect(
-            Collectors.groupingBy(
-                Order::status,
-                Collectors.reducing(
-                    BigDecimal.ZERO, o -> o.totalBeforeDiscount().amount(), BigDecimal::add)));
+    return calculateRevenueByStatus(orders, OrderDedup.ON_HEAP);
+  }
+
+  public static Map<OrderStatus, BigDecimal> calculateRevenueByStatus(
+      List<Order> orders, OrderDedup dedup) {
+    Probe probe = Metrics.begin(Operation.CALCULATE_REVENUE_BY_STATUS);
+    Map<OrderStatus, BigDecimal> revenue;
+    try (Stream<Order> distinct = distinct(orders, dedup, probe)) {
+      revenue =
+          distinct.collect(
+              Collectors.groupingBy(
+                  Order::status,
+                  Collectors.mapping(
+                      o -> o.totalBeforeDiscount().amount(), DecimalSum.summing())));
+    }
+    probe.end(orders.size(), probe.distinctSeen());
+    return revenue;
+  }
+
+  /**
+   * The dedup stage of the List metrics, keeping the first occurrence of every order id like
+   * {@code distinct()} would, counted into {@code probe} if active. Closing the stream closes the
+   * stage.
+   */
+  private static Stream<Order> distinct(List<Order> orders, OrderDedup dedup, Probe probe) {
+    OrderDedup.Stage firstSeen = dedup.open(orders.size());
+    Stream<Order> distinct =
+        orders.stream().onClose(firstSeen::close).filter(o -> firstSeen.test(o.id()));
+    return probe.isActive() ? distinct.peek(o -> probe.countDistinct()) : distinct;
+  }
+
+  // --- Columnar overloads (OrderBatch) ---
+  //
+  // Same semantics as the List<Order> methods above, computed with plain loops over the primitive
+  // columns of an OrderBatch. The batch is already deduplicated by OrderId, so there is no
+  // distinct() stage, and amounts are summed as long minor units per currency (DecimalSum) and only
+  // turned into a BigDecimal once at the end.
+
+  /**
+   * Counts orders with the provided status in a columnar batch.
+   *
+   * @param batch The order batch.
+   * @param status The status to be counted against.
+   * @return The number of orders with the status.
+   */
+  public static long countOrdersByStatus(OrderBatch batch, OrderStatus status) {
+    byte wanted = (byte) status.ordinal();
+    byte[] statuses = batch.status;
+    long count = 0;
+    for (byte s : statuses) {
+      if (s == wanted) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Calculates total gross revenue from all non-empty orders in a columnar batch.
+   *
+   * @param batch The order batch.
+   * @return The gross revenue before discounts.
+   */
+  public static BigDecimal calculateTotalRevenue(OrderBatch batch) {
+    DecimalSum[] sums = new DecimalSum[batch.currencies.length];
+    int[] lineStart = batch.lineStart;
+    long[] lineAmount = batch.lineAmount;
+    for (int o = 0; o < batch.orderCount(); o++) {
+      int c = batch.currency[o];
+      if (c == OrderBatch.NO_CURRENCY) {
+        continue;
+      }
+      DecimalSum sum = sums[c] == null ? (sums[c] = new DecimalSum()) : sums[c];
+      int scale = batch.currencyScale[c];
+      for (int l = lineStart[o]; l < lineStart[o + 1]; l++) {
+        sum.addUnscaled(lineAmount[l], scale);
+      }
+    }
+    return sumAcrossCurrencies(sums, 0, batch.currencies.length);
+  }
+
+  /**
+   * Returns the distinct products sold in a columnar batch, in first-seen order.
+   *
+   * <p>The product dictionary of the batch already is that list, so this is a copy of it. It was
+   * built from every input order, repeated ids included, so this matches {@link
+   * #getDistinctProductsSold(List)} even when a repeat has other lines than the order kept.
+   *
+   * @param batch The order batch.
+   * @return The distinct products present in sales.
+   */
+  public static List<ProductSnapshot> getDistinctProductsSold(OrderBatch batch) {
+    return batch.products();
+  }
+
+  /**
+   * Groups order ids by status in a columnar batch.
+   *
+   * @param batch The order batch.
+   * @return Order ids per status, in batch order; statuses without orders are absent.
+   */
+  public static Map<OrderStatus, List<OrderId>> groupOrderIdsByStatus(OrderBatch batch) {
+    int[] counts = new int[OrderBatch.STATUSES.length];
+    for (byte s : batch.status) {
+      counts[s]++;
+    }
+    Map<OrderStatus, List<OrderId>> result = new EnumMap<>(OrderStatus.class);
+    for (OrderStatus status : OrderBatch.STATUSES) {
+      if (counts[status.ordinal()] > 0) {
+        result.put(status, new ArrayList<>(counts[status.ordinal()]));
+      }
+    }
+    for (int o = 0; o < batch.orderCount(); o++) {
+      result.get(batch.status(o)).add(batch.orderId(o));
+    }
+    return result;
+  }
+
+  /**
+   * Sums order revenue per status in a columnar batch.
+   *
+   * @param batch The order batch.
+   * @return Revenue per status; statuses without orders are absent.
+   * @throws IllegalStateException if the batch contains an order without lines.
+   */
+  public static Map<OrderStatus, BigDecimal> calculateRevenueByStatus(OrderBatch batch) {
+    int currencies = batch.currencies.length;
+    DecimalSum[] sums = new DecimalSum[OrderBatch.STATUSES.length * currencies];
+    int[] lineStart = batch.lineStart;
+    long[] lineAmount = batch.lineAmount;
+    for (int o = 0; o < batch.orderCount(); o++) {
+      int c = batch.currency[o];
+      if (c == OrderBatch.NO_CURRENCY) {
+        throw new IllegalStateException("Cannot total an empty order");
+      }
+      int slot = batch.status[o] * currencies + c;
+      DecimalSum sum = sums[slot] == null ? (sums[slot] = new DecimalSum()) : sums[slot];
+      int scale = batch.currencyScale[c];
+      for (int l = lineStart[o]; l < lineStart[o + 1]; l++) {
+        sum.addUnscaled(lineAmount[l], scale);
+      }
+    }
+    Map<OrderStatus, BigDecimal> result = new EnumMap<>(OrderStatus.class);
+    for (OrderStatus status : OrderBatch.STATUSES) {
+      int offset = status.ordinal() * currencies;
+      for (int c = 0; c < currencies; c++) {
+        if (sums[offset + c] != null) {
+          result.put(status, sumAcrossCurrencies(sums, offset, currencies));
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  // --- Memory-mapped overloads (OrderFile) ---
+  //
+  // The same loops as the OrderBatch overloads, reading the columns of a mapped OrderFile in
+  // place. Absolute buffer reads keep these safe to run concurrently over one file.
+
+  /**
+   * Counts orders with the provided status in a mapped order file.
+   *
+   * @param file The order file.
+   * @param status The status to be counted against.
+   * @return The number of orders with the status.
+   */
+  public static long countOrdersByStatus(OrderFile file, OrderStatus status) {
+    byte wanted = (byte) status.ordinal();
+    ByteBuffer statuses = file.status;
+    long count = 0;
+    for (int o = 0; o < file.orderCount(); o++) {
+      if (statuses.get(o) == wanted) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Calculates total gross revenue from all non-empty orders in a mapped order file.
+   *
+   * @param file The order file.
+   * @return The gross revenue before discounts.
+   */
+  public static BigDecimal calculateTotalRevenue(OrderFile file) {
+    DecimalSum[] sums = new DecimalSum[file.currencies.length];
+    IntBuffer lineStart = file.lineStart;
+    LongBuffer lineAmount = file.lineAmount;
+    for (int o = 0; o < file.orderCount(); o++) {
+      int c = file.currency.get(o);
+      if (c == OrderBatch.NO_CURRENCY) {
+        continue;
+      }
+      DecimalSum sum = sums[c] == null ? (sums[c] = new DecimalSum()) : sums[c];
+      int scale = file.currencyScale[c];
+      for (int l = lineStart.get(o); l < lineStart.get(o + 1); l++) {
+        sum.addUnscaled(lineAmount.get(l), scale);
+      }
+    }
+    return sumAcrossCurrencies(sums, 0, file.currencies.length);
+  }
+
+  /**
+   * Returns the distinct products sold in a mapped order file, in first-seen order.
+   *
+   * <p>The file's product dictionary also holds the products of repeated ids dropped on write, so
+   * this matches {@link #getDistinctProductsSold(List)} over the orders the file was written from.
+   *
+   * @param file The order file.
+   * @return The distinct products present in sales.
+   */
+  public static List<ProductSnapshot> getDistinctProductsSold(OrderFile file) {
+    return file.products();
+  }
+
+  /**
+   * Groups order ids by status in a mapped order file.
+   *
+   * @param file The order file.
+   * @return Order ids per status, in file order; statuses without orders are absent.
+   */
+  public static Map<OrderStatus, List<OrderId>> groupOrderIdsByStatus(OrderFile file) {
+    Map<OrderStatus, List<OrderId>> result = new EnumMap<>(OrderStatus.class);
+    for (int o = 0; o < file.orderCount(); o++) {
+      result.computeIfAbsent(file.status(o), s -> new ArrayList<>()).add(file.orderId(o));
+    }
+    return result;
+  }
+
+  /**
+   * Sums order revenue per status in a mapped order file.
+   *
+   * @param file The order file.
+   * @return Revenue per status; statuses without orders are absent.
+   * @throws IllegalStateException if the file contains an order without lines.
+   */
+  public static Map<OrderStatus, BigDecimal> calculateRevenueByStatus(OrderFile file) {
+    int currencies = file.currencies.length;
+    DecimalSum[] sums = new DecimalSum[OrderBatch.STATUSES.length * currencies];
+    IntBuffer lineStart = file.lineStart;
+    LongBuffer lineAmount = file.lineAmount;
+    for (int o = 0; o < file.orderCount(); o++) {
+      int c = file.currency.get(o);
+      if (c == OrderBatch.NO_CURRENCY) {
+        throw new IllegalStateException("Cannot total an empty order");
+      }
+      int slot = file.status.get(o) * currencies + c;
+      DecimalSum sum = sums[slot] == null ? (sums[slot] = new DecimalSum()) : sums[slot];
+      int scale = file.currencyScale[c];
+      for (int l = lineStart.get(o); l < lineStart.get(o + 1); l++) {
+        sum.addUnscaled(lineAmount.get(l), scale);
+      }
+    }
+    Map<OrderStatus, BigDecimal> result = new EnumMap<>(OrderStatus.class);
+    for (OrderStatus status : OrderBatch.STATUSES) {
+      int offset = status.ordinal() * currencies;
+      for (int c = 0; c < currencies; c++) {
+        if (sums[offset + c] != null) {
+          result.put(status, sumAcrossCurrencies(sums, offset, currencies));
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  // --- Time-range overloads (OrderTimeIndex) ---
+  //
+  // The List<Order> metrics restricted to orders created in [from, to). Two binary searches find
+  // the slice of the index holding the interval, and only the orders inside it are visited. The
+  // index is already deduplicated by OrderId, so the loops have no distinct() stage.
+
+  /**
+   * Counts orders created in {@code [from, to)} with the provided status.
+   *
+   * @param index The order index.
+   * @param from The start of the interval, inclusive.
+   * @param to The end of the interval, exclusive.
+   * @param status The status to be counted against.
+   * @return The number of orders with the status.
+   * @throws IllegalArgumentException if {@code to} is before {@code from}.
+   */
+  public static long countOrdersByStatus(
+      OrderTimeIndex index, Instant from, Instant to, OrderStatus status) {
+    OrderTimeIndex.requireInterval(from, to);
+    long count = 0;
+    for (int o = index.position(from), end = index.position(to); o < end; o++) {
+      if (index.order(o).status() == status) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Calculates total gross revenue from the non-empty orders created in {@code [from, to)}.
+   *
+   * @param index The order index.
+   * @param from The start of the interval, inclusive.
+   * @param to The end of the interval, exclusive.
+   * @return The gross revenue before discounts.
+   * @throws IllegalArgumentException if {@code to} is before {@code from}.
+   */
+  public static BigDecimal calculateTotalRevenue(OrderTimeIndex index, Instant from, Instant to) {
+    OrderTimeIndex.requireInterval(from, to);
+    DecimalSum sum = new DecimalSum();
+    for (int o = index.position(from), end = index.position(to); o < end; o++) {
+      Order order = index.order(o);
+      if (order.lineCount() > 0) {
+        sum.add(order.totalBeforeDiscount().amount());
+      }
+    }
+    return sum.sum();
+  }
+
+  /**
+   * Collects distinct products sold by orders created in {@code [from, to)}.
+   *
+   * <p>Like {@link #getDistinctProductsSold(List)} over the orders in the interval, this includes
+   * the products of repeated ids the index dropped. The order differs: products are listed in
+   * creation order of the orders selling them, not in input order.
+   *
+   * @param index The order index.
+   * @param from The start of the interval, inclusive.
+   * @param to The end of the interval, exclusive.
+   * @return The distinct products present in sales, in creation order.
+   * @throws IllegalArgumentException if {@code to} is before {@code from}.
+   */
+  public static List<ProductSnapshot> getDistinctProductsSold(
+      OrderTimeIndex index, Instant from, Instant to) {
+    OrderTimeIndex.requireInterval(from, to);
+    Set<ProductSnapshot> products = new LinkedHashSet<>();
+    for (int o = index.position(from), end = index.position(to); o < end; o++) {
+      Order order = index.order(o);
+      for (OrderLine line : order.lines()) {
+        products.add(line.key().productSnapshot());
+      }
+      products.addAll(index.repeatProducts(order.id()));
+    }
+    return List.copyOf(products);
+  }
+
+  /**
+   * Groups the ids of orders created in {@code [from, to)} by status.
+   *
+   * @param index The order index.
+   * @param from The start of the interval, inclusive.
+   * @param to The end of the interval, exclusive.
+   * @return Order ids per status, in creation order; statuses without orders are absent.
+   * @throws IllegalArgumentException if {@code to} is before {@code from}.
+   */
+  public static Map<OrderStatus, List<OrderId>> groupOrderIdsByStatus(
+      OrderTimeIndex index, Instant from, Instant to) {
+    OrderTimeIndex.requireInterval(from, to);
+    Map<OrderStatus, List<OrderId>> result = new EnumMap<>(OrderStatus.class);
+    for (int o = index.position(from), end = index.position(to); o < end; o++) {
+      Order order = index.order(o);
+      result.computeIfAbsent(order.status(), s -> new ArrayList<>()).add(order.id());
+    }
+    return result;
+  }
+
+  /**
+   * Sums the revenue of orders created in {@code [from, to)} per status.
+   *
+   * @param index The order index.
+   * @param from The start of the interval, inclusive.
+   * @param to The end of the interval, exclusive.
+   * @return Revenue per status; statuses without orders are absent.
+   * @throws IllegalArgumentException if {@code to} is before {@code from}.
+   * @throws IllegalStateException if the interval contains an order without lines.
+   */
+  public static Map<OrderStatus, BigDecimal> calculateRevenueByStatus(
+      OrderTimeIndex index, Instant from, Instant to) {
+    OrderTimeIndex.requireInterval(from, to);
+    DecimalSum[] sums = new DecimalSum[OrderBatch.STATUSES.length];
+    for (int o = index.position(from), end = index.position(to); o < end; o++) {
+      Order order = index.order(o);
+      int s = order.status().ordinal();
+      DecimalSum sum = sums[s] == null ? (sums[s] = new DecimalSum()) : sums[s];
+      sum.add(order.totalBeforeDiscount().amount());
+    }
+    Map<OrderStatus, BigDecimal> result = new EnumMap<>(OrderStatus.class);
+    for (OrderStatus status : OrderBatch.STATUSES) {
+      if (sums[status.ordinal()] != null) {
+        result.put(status, sums[status.ordinal()].sum());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Folds per-currency sums into one {@code BigDecimal}, the same way {@code
+   * reduce(BigDecimal.ZERO, BigDecimal::add)} over the individual amounts would (value and scale).
+   */
+  private static BigDecimal sumAcrossCurrencies(DecimalSum[] sums, int offset, int currencies) {
+    BigDecimal total = BigDecimal.ZERO;
+    for (int c = 0; c < currencies; c++) {
+      if (sums[offset + c] != null) {
+        total = total.add(sums[offset + c].sum());
+      }
+    }
+    return total;
   }
 }
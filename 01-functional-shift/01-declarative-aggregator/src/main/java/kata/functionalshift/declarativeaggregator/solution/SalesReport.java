@@ -0,0 +1,440 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IntSummaryStatistics;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+
+/**
+ * Computes several {@link SalesAnalyzer} metrics in one traversal of the orders.
+ *
+ * <p>Calling the analyzer methods one after another re-streams and re-deduplicates the whole list
+ * for every metric. A report instead declares the metrics it needs up front, then visits each
+ * distinct order exactly once, computing its total and walking its lines at most once, and feeds
+ * every requested accumulator from that single visit.
+ *
+ * <pre>{@code
+ * SalesReport.Result result =
+ *     SalesReport.of(Metric.STATUS_COUNTS, Metric.REVENUE_BY_STATUS, Metric.TOP_SKUS_BY_REVENUE)
+ *         .withTopSkuLimit(5)
+ *         .run(orders);
+ * }</pre>
+ *
+ * <p>Every metric but {@link Metric#DISTINCT_PRODUCTS} is computed over distinct orders (same
+ * {@link OrderId} = same order, first occurrence wins); {@link #withDedup} picks where the seen ids
+ * are kept. {@code DISTINCT_PRODUCTS} also takes the products of repeated orders, since {@link
+ * SalesAnalyzer#getDistinctProductsSold(List)} looks at the lines of every input order. Each metric
+ * thus keeps the semantics of its {@code SalesAnalyzer} counterpart, including {@link
+ * Metric#REVENUE_BY_STATUS} failing on an order without lines while {@link Metric#TOTAL_REVENUE}
+ * skips it.
+ */
+public final class SalesReport {
+
+  /** Metrics a report can compute. */
+  public enum Metric {
+    /** Number of orders per status; see {@link SalesAnalyzer#countOrdersByStatus}. */
+    STATUS_COUNTS,
+    /** Gross revenue of non-empty orders; see {@link SalesAnalyzer#calculateTotalRevenue}. */
+    TOTAL_REVENUE,
+    /** Order ids per status; see {@link SalesAnalyzer#groupOrderIdsByStatus}. */
+    ORDER_IDS_BY_STATUS,
+    /** Revenue per status; see {@link SalesAnalyzer#calculateRevenueByStatus}. */
+    REVENUE_BY_STATUS,
+    /**
+     * Distinct products sold by every order, repeats included; see {@link
+     * SalesAnalyzer#getDistinctProductsSold}.
+     */
+    DISTINCT_PRODUCTS,
+    /**
+     * High-value vs standard order counts; requires {@link #withHighValueThreshold}, and every
+     * order in the threshold's currency.
+     */
+    VALUE_PARTITION,
+    /** Min/max/average/count/sum of line quantities. */
+    LINE_QUANTITY_STATISTICS,
+    /** SKU with the highest total quantity sold. */
+    BEST_SELLING_SKU,
+    /** SKUs with the highest line revenue, descending; see {@link #withTopSkuLimit}. */
+    TOP_SKUS_BY_REVENUE,
+    /** Approximate distinct orders, SKUs and products per status; see {@link DistinctCounts}. */
+    DISTINCT_COUNTS,
+  }
+
+  private static final int DEFAULT_TOP_SKU_LIMIT = 3;
+
+  private final Set<Metric> metrics;
+  private final Money highValueThreshold;
+  private final int topSkuLimit;
+  private final OrderDedup dedup;
+
+  private SalesReport(
+      Set<Metric> metrics, Money highValueThreshold, int topSkuLimit, OrderDedup dedup) {
+    this.metrics = metrics;
+    this.highValueThreshold = highValueThreshold;
+    this.topSkuLimit = topSkuLimit;
+    this.dedup = dedup;
+  }
+
+  /**
+   * Declares a report over the given metrics.
+   *
+   * @param first The first metric.
+   * @param rest Any further metrics.
+   * @return The report definition.
+   */
+  public static SalesReport of(Metric first, Metric... rest) {
+    return new SalesReport(
+        Collections.unmodifiableSet(EnumSet.of(first, rest)),
+        null,
+        DEFAULT_TOP_SKU_LIMIT,
+        OrderDedup.ON_HEAP);
+  }
+
+  /**
+   * Returns a copy that classifies orders whose total exceeds {@code threshold} as high value.
+   * Orders in another currency are rejected rather than compared by amount alone.
+   */
+  public SalesReport withHighValueThreshold(Money threshold) {
+    return new SalesReport(
+        metrics, Objects.requireNonNull(threshold, "threshold is required"), topSkuLimit, dedup);
+  }
+
+  /** Returns a copy that keeps the {@code limit} best SKUs by revenue (3 by default). */
+  public SalesReport withTopSkuLimit(int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+    return new SalesReport(metrics, highValueThreshold, limit, dedup);
+  }
+
+  /** Returns a copy that keeps the ids of the orders seen so far as {@code dedup} does. */
+  public SalesReport withDedup(OrderDedup dedup) {
+    Objects.requireNonNull(dedup, "dedup is required");
+    return new SalesReport(metrics, highValueThreshold, topSkuLimit, dedup);
+  }
+
+  /** Returns the declared metrics. */
+  public Set<Metric> metrics() {
+    return metrics;
+  }
+
+  /**
+   * Computes every declared metric in a single pass over {@code orders}.
+   *
+   * @param orders The order List.
+   * @return The computed metrics.
+   */
+  public Result run(List<Order> orders) {
+    try (Accumulator accumulator = newAccumulator(orders.size())) {
+      orders.forEach(accumulator::accept);
+      return accumulator.result();
+    }
+  }
+
+  /**
+   * Returns a fresh accumulator, for callers that receive orders one at a time. Close it once its
+   * result is taken.
+   *
+   * @throws IllegalStateException if {@link Metric#VALUE_PARTITION} is declared without a
+   *     threshold.
+   */
+  public Accumulator newAccumulator() {
+    return newAccumulator(0);
+  }
+
+  private Accumulator newAccumulator(int expectedSize) {
+    if (metrics.contains(Metric.VALUE_PARTITION) && highValueThreshold == null) {
+      throw new IllegalStateException("VALUE_PARTITION requires a high-value threshold");
+    }
+    return new Accumulator(dedup.open(expectedSize));
+  }
+
+  /**
+   * Mutable single-pass state for one report run. Closing it releases the order ids kept by the
+   * dedup stage; a result already taken stays valid. Not thread-safe.
+   */
+  public final class Accumulator implements AutoCloseable {
+    private final OrderDedup.Stage firstSeen;
+
+    private final boolean strictTotals =
+        metrics.contains(Metric.REVENUE_BY_STATUS) || metrics.contains(Metric.VALUE_PARTITION);
+    private final boolean needsTotals = strictTotals || metrics.contains(Metric.TOTAL_REVENUE);
+    private final boolean needsLines =
+        metrics.contains(Metric.DISTINCT_PRODUCTS)
+            || metrics.contains(Metric.LINE_QUANTITY_STATISTICS)
+            || metrics.contains(Metric.BEST_SELLING_SKU)
+            || metrics.contains(Metric.TOP_SKUS_BY_REVENUE);
+
+    private final Map<OrderStatus, Long> statusCounts = new EnumMap<>(OrderStatus.class);
+    private final DecimalSum totalRevenue = new DecimalSum();
+    private final Map<OrderStatus, List<OrderId>> orderIdsByStatus =
+        new EnumMap<>(OrderStatus.class);
+    private final Map<OrderStatus, DecimalSum> revenueByStatus = new EnumMap<>(OrderStatus.class);
+    private final Set<ProductSnapshot> distinctProducts = new LinkedHashSet<>();
+    private long highValueOrders;
+    private long standardOrders;
+    private final IntSummaryStatistics lineQuantities = new IntSummaryStatistics();
+    private final Map<Sku, Long> quantityBySku = new LinkedHashMap<>();
+    private final Map<Sku, BigDecimal> revenueBySku = new LinkedHashMap<>();
+    private final DistinctCounts distinctCounts =
+        metrics.contains(Metric.DISTINCT_COUNTS)
+            ? new DistinctCounts(DistinctCounts.DEFAULT_PRECISION)
+            : null;
+
+    private Accumulator(OrderDedup.Stage firstSeen) {
+      this.firstSeen = firstSeen;
+    }
+
+    /**
+     * Folds one order into every declared metric; repeated order ids only add their products to
+     * {@link Metric#DISTINCT_PRODUCTS}.
+     *
+     * <p>The order's total is computed and checked before its id is marked as seen, so a rejected
+     * order leaves no trace: no metric counts it, and a later order with the same id is accepted.
+     *
+     * @throws IllegalStateException if {@link Metric#REVENUE_BY_STATUS} or {@link
+     *     Metric#VALUE_PARTITION} is declared and the order has no lines.
+     * @throws IllegalArgumentException if {@link Metric#VALUE_PARTITION} is declared and the order
+     *     is not in the threshold's currency.
+     */
+    public void accept(Order order) {
+      if (firstSeen.contains(order.id())) {
+        if (metrics.contains(Metric.DISTINCT_PRODUCTS)) {
+          order.lines().forEach(line -> distinctProducts.add(line.key().productSnapshot()));
+        }
+        return;
+      }
+      Money total =
+          needsTotals && (strictTotals || order.lineCount() > 0)
+              ? order.totalBeforeDiscount()
+              : null;
+      if (total != null
+          && metrics.contains(Metric.VALUE_PARTITION)
+          && !total.currency().equals(highValueThreshold.currency())) {
+        throw new IllegalArgumentException(
+            "Currency mismatch: order "
+                + order.id()
+                + " is in "
+                + total.currency()
+                + ", the high-value threshold in "
+                + highValueThreshold.currency());
+      }
+      firstSeen.test(order.id());
+      OrderStatus status = order.status();
+      if (metrics.contains(Metric.STATUS_COUNTS)) {
+        statusCounts.merge(status, 1L, Long::sum);
+      }
+      if (metrics.contains(Metric.ORDER_IDS_BY_STATUS)) {
+        orderIdsByStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(order.id());
+      }
+      if (distinctCounts != null) {
+        distinctCounts.accept(order);
+      }
+      if (!needsTotals && !needsLines) {
+        return;
+      }
+      if (total != null) {
+        acceptTotal(status, total.amount());
+      }
+      if (needsLines) {
+        order.lines().forEach(this::acceptLine);
+      }
+    }
+
+    private void acceptTotal(OrderStatus status, BigDecimal total) {
+      if (metrics.contains(Metric.TOTAL_REVENUE)) {
+        totalRevenue.add(total);
+      }
+      if (metrics.contains(Metric.REVENUE_BY_STATUS)) {
+        revenueByStatus.computeIfAbsent(status, s -> new DecimalSum()).add(total);
+      }
+      if (metrics.contains(Metric.VALUE_PARTITION)) {
+        if (total.compareTo(highValueThreshold.amount()) > 0) {
+          highValueOrders++;
+        } else {
+          standardOrders++;
+        }
+      }
+    }
+
+    private void acceptLine(OrderLine line) {
+      ProductSnapshot product = line.key().productSnapshot();
+      if (metrics.contains(Metric.DISTINCT_PRODUCTS)) {
+        distinctProducts.add(product);
+      }
+      if (metrics.contains(Metric.LINE_QUANTITY_STATISTICS)) {
+        lineQuantities.accept(line.quantity());
+      }
+      if (metrics.contains(Metric.BEST_SELLING_SKU)) {
+        quantityBySku.merge(product.sku(), (long) line.quantity(), Long::sum);
+      }
+      if (metrics.contains(Metric.TOP_SKUS_BY_REVENUE)) {
+        revenueBySku.merge(product.sku(), line.totalBeforeDiscount().amount(), BigDecimal::add);
+      }
+    }
+
+    /** Returns the metrics accumulated so far. */
+    public Result result() {
+      Map<Metric, Object> values = new EnumMap<>(Metric.class);
+      for (Metric metric : metrics) {
+        values.put(metric, value(metric));
+      }
+      return new Result(values);
+    }
+
+    /** Releases the order ids kept by the dedup stage; no order may be accepted afterwards. */
+    @Override
+    public void close() {
+      firstSeen.close();
+    }
+
+    private Object value(Metric metric) {
+      return switch (metric) {
+        case STATUS_COUNTS -> Collections.unmodifiableMap(new EnumMap<>(statusCounts));
+        case TOTAL_REVENUE -> totalRevenue.sum();
+        case ORDER_IDS_BY_STATUS -> copyOfIds();
+        case REVENUE_BY_STATUS -> sums(revenueByStatus);
+        case DISTINCT_PRODUCTS -> List.copyOf(distinctProducts);
+        case VALUE_PARTITION -> Map.of(true, highValueOrders, false, standardOrders);
+        case LINE_QUANTITY_STATISTICS -> copyOfLineQuantities();
+        case BEST_SELLING_SKU -> bestSellingSku();
+        case TOP_SKUS_BY_REVENUE -> topSkusByRevenue();
+        case DISTINCT_COUNTS ->
+            new DistinctCounts(DistinctCounts.DEFAULT_PRECISION).merge(distinctCounts);
+      };
+    }
+
+    private Map<OrderStatus, List<OrderId>> copyOfIds() {
+      Map<OrderStatus, List<OrderId>> copy = new EnumMap<>(OrderStatus.class);
+      orderIdsByStatus.forEach((status, ids) -> copy.put(status, List.copyOf(ids)));
+      return Collections.unmodifiableMap(copy);
+    }
+
+    private Map<OrderStatus, BigDecimal> sums(Map<OrderStatus, DecimalSum> sums) {
+      Map<OrderStatus, BigDecimal> copy = new EnumMap<>(OrderStatus.class);
+      sums.forEach((status, sum) -> copy.put(status, sum.sum()));
+      return Collections.unmodifiableMap(copy);
+    }
+
+    private IntSummaryStatistics copyOfLineQuantities() {
+      IntSummaryStatistics copy = new IntSummaryStatistics();
+      copy.combine(lineQuantities);
+      return copy;
+    }
+
+    /** Highest total quantity wins; ties go to the SKU seen first. */
+    private Optional<Sku> bestSellingSku() {
+      Sku best = null;
+      long bestQuantity = Long.MIN_VALUE;
+      for (Map.Entry<Sku, Long> entry : quantityBySku.entrySet()) {
+        if (entry.getValue() > bestQuantity) {
+          best = entry.getKey();
+          bestQuantity = entry.getValue();
+        }
+      }
+      return Optional.ofNullable(best);
+    }
+
+    /** Highest revenue first; ties keep first-seen order. */
+    private List<Sku> topSkusByRevenue() {
+      return TopK.largest(revenueBySku, topSkuLimit);
+    }
+  }
+
+  /**
+   * The outcome of one report run.
+   *
+   * <p>Accessors of metrics that were not declared throw {@link IllegalStateException}.
+   */
+  public static final class Result {
+    private final Map<Metric, Object> values;
+
+    private Result(Map<Metric, Object> values) {
+      this.values = values;
+    }
+
+    /** Returns the number of orders per status; statuses without orders are absent. */
+    @SuppressWarnings("unchecked")
+    public Map<OrderStatus, Long> statusCounts() {
+      return (Map<OrderStatus, Long>) get(Metric.STATUS_COUNTS);
+    }
+
+    /** Returns the gross revenue of all non-empty orders. */
+    public BigDecimal totalRevenue() {
+      return (BigDecimal) get(Metric.TOTAL_REVENUE);
+    }
+
+    /** Returns order ids per status, in encounter order; statuses without orders are absent. */
+    @SuppressWarnings("unchecked")
+    public Map<OrderStatus, List<OrderId>> orderIdsByStatus() {
+      return (Map<OrderStatus, List<OrderId>>) get(Metric.ORDER_IDS_BY_STATUS);
+    }
+
+    /** Returns revenue per status; statuses without orders are absent. */
+    @SuppressWarnings("unchecked")
+    public Map<OrderStatus, BigDecimal> revenueByStatus() {
+      return (Map<OrderStatus, BigDecimal>) get(Metric.REVENUE_BY_STATUS);
+    }
+
+    /** Returns the distinct products sold, in first-seen order. */
+    @SuppressWarnings("unchecked")
+    public List<ProductSnapshot> distinctProducts() {
+      return (List<ProductSnapshot>) get(Metric.DISTINCT_PRODUCTS);
+    }
+
+    /** Returns order counts keyed by {@code true} (high value) and {@code false} (standard). */
+    @SuppressWarnings("unchecked")
+    public Map<Boolean, Long> valuePartition() {
+      return (Map<Boolean, Long>) get(Metric.VALUE_PARTITION);
+    }
+
+    /** Returns statistics over the quantity of every line. */
+    public IntSummaryStatistics lineQuantityStatistics() {
+      return (IntSummaryStatistics) get(Metric.LINE_QUANTITY_STATISTICS);
+    }
+
+    /** Returns the SKU with the highest total quantity, or empty when there are no lines. */
+    @SuppressWarnings("unchecked")
+    public Optional<Sku> bestSellingSku() {
+      return (Optional<Sku>) get(Metric.BEST_SELLING_SKU);
+    }
+
+    /** Returns the best SKUs by line revenue, highest first. */
+    @SuppressWarnings("unchecked")
+    public List<Sku> topSkusByRevenue() {
+      return (List<Sku>) get(Metric.TOP_SKUS_BY_REVENUE);
+    }
+
+    /**
+     * Returns the approximate distinct counts. The counts are a copy, so counts of several results,
+     * e.g. of consecutive windows, can be merged into them.
+     */
+    public DistinctCounts distinctCounts() {
+      return (DistinctCounts) get(Metric.DISTINCT_COUNTS);
+    }
+
+    private Object get(Metric metric) {
+      Object value = values.get(metric);
+      if (value == null) {
+        throw new IllegalStateException("Metric not requested: " + metric);
+      }
+      return value;
+    }
+  }
+}
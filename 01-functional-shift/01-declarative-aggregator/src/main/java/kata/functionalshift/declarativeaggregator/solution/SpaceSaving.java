@@ -0,0 +1,213 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Weighted Space-Saving sketch: approximate heavy hitters in a fixed number of counters.
+ *
+ * <p>The sketch monitors at most {@code capacity} keys. A new key arriving when every counter is
+ * taken replaces the key with the smallest count and inherits that count as its error. With total
+ * weight {@code N}, every reported count overestimates the true weight of its key by at most
+ * {@link Estimate#error()} {@code <= N / capacity}, and every key whose true weight exceeds {@code
+ * N / capacity} is monitored. A sketch built with {@link #withError(double)} therefore needs
+ * {@code ceil(1 / epsilon)} counters whatever the number of distinct keys.
+ *
+ * <p>Sketches over disjoint parts of a stream can be {@link #merge merged}; the merged error stays
+ * within {@code (N1 + N2) / capacity}. Not thread-safe: use one sketch per thread and merge.
+ */
+public final class SpaceSaving<K> {
+  private final int capacity;
+  private final Map<K, Counter<K>> counters;
+  // min-heap on count, so the counter to evict is always heap[0]
+  private final Counter<K>[] heap;
+  private int size;
+  private long totalWeight;
+
+  /**
+   * Creates a sketch monitoring at most {@code capacity} keys.
+   *
+   * @throws IllegalArgumentException if {@code capacity} is not positive.
+   */
+  @SuppressWarnings("unchecked")
+  public SpaceSaving(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.capacity = capacity;
+    this.counters = HashMap.newHashMap(capacity);
+    this.heap = (Counter<K>[]) new Counter<?>[capacity];
+  }
+
+  /**
+   * Creates a sketch whose counts are off by at most {@code epsilon} times the total weight.
+   *
+   * @throws IllegalArgumentException if {@code epsilon} is not in (0, 1].
+   */
+  public static <K> SpaceSaving<K> withError(double epsilon) {
+    if (!(epsilon > 0 && epsilon <= 1)) {
+      throw new IllegalArgumentException("epsilon must be in (0, 1]");
+    }
+    return new SpaceSaving<>((int) Math.ceil(1 / epsilon));
+  }
+
+  /**
+   * Adds {@code weight} to {@code key}.
+   *
+   * @throws IllegalArgumentException if {@code weight} is negative.
+   */
+  public void add(K key, long weight) {
+    Objects.requireNonNull(key, "key is required");
+    if (weight < 0) {
+      throw new IllegalArgumentException("weight must not be negative");
+    }
+    totalWeight += weight;
+    Counter<K> counter = counters.get(key);
+    if (counter != null) {
+      counter.count += weight;
+      siftDown(counter.index);
+    } else if (size < capacity) {
+      counter = new Counter<>(key, weight, 0);
+      counters.put(key, counter);
+      heap[size] = counter;
+      counter.index = size;
+      siftUp(size++);
+    } else {
+      Counter<K> evicted = heap[0];
+      counters.remove(evicted.key);
+      counter = new Counter<>(key, evicted.count + weight, evicted.count);
+      counters.put(key, counter);
+      heap[0] = counter;
+      counter.index = 0;
+      siftDown(0);
+    }
+  }
+
+  /**
+   * Returns a new sketch summarizing both this stream and {@code other}'s, with this capacity.
+   *
+   * <p>A key one side does not monitor may still have up to that side's minimum count there, so
+   * that minimum is added to both its count and its error, then the largest counts are kept.
+   */
+  public SpaceSaving<K> merge(SpaceSaving<K> other) {
+    long thisFloor = floor();
+    long otherFloor = other.floor();
+    Map<K, Counter<K>> union = new HashMap<>();
+    for (Counter<K> counter : counters.values()) {
+      Counter<K> theirs = other.counters.get(counter.key);
+      long count = counter.count + (theirs == null ? otherFloor : theirs.count);
+      long error = counter.error + (theirs == null ? otherFloor : theirs.error);
+      union.put(counter.key, new Counter<>(counter.key, count, error));
+    }
+    for (Counter<K> counter : other.counters.values()) {
+      if (!union.containsKey(counter.key)) {
+        union.put(
+            counter.key,
+            new Counter<>(counter.key, counter.count + thisFloor, counter.error + thisFloor));
+      }
+    }
+    List<Counter<K>> kept = new ArrayList<>(union.values());
+    kept.sort(Comparator.comparingLong((Counter<K> c) -> c.count).reversed());
+    SpaceSaving<K> merged = new SpaceSaving<>(capacity);
+    for (Counter<K> counter : kept.subList(0, Math.min(capacity, kept.size()))) {
+      merged.counters.put(counter.key, counter);
+      merged.heap[merged.size] = counter;
+      counter.index = merged.size;
+      merged.siftUp(merged.size++);
+    }
+    merged.totalWeight = totalWeight + other.totalWeight;
+    return merged;
+  }
+
+  /** Returns up to {@code k} monitored keys with the highest counts, highest first. */
+  public List<Estimate<K>> top(int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    List<Estimate<K>> estimates = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      estimates.add(new Estimate<>(heap[i].key, heap[i].count, heap[i].error));
+    }
+    estimates.sort(Comparator.comparingLong(Estimate<K>::count).reversed());
+    return List.copyOf(estimates.subList(0, Math.min(k, estimates.size())));
+  }
+
+  /** Returns the estimated weight of {@code key}, an upper bound of its true weight. */
+  public long estimate(K key) {
+    Counter<K> counter = counters.get(key);
+    return counter == null ? floor() : counter.count;
+  }
+
+  /** Returns the total weight added. */
+  public long totalWeight() {
+    return totalWeight;
+  }
+
+  /** Returns the maximum number of monitored keys. */
+  public int capacity() {
+    return capacity;
+  }
+
+  /** Upper bound of the weight of any unmonitored key: the smallest count once full, else 0. */
+  private long floor() {
+    return size < capacity ? 0 : heap[0].count;
+  }
+
+  private void siftUp(int index) {
+    Counter<K> item = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (item.count >= heap[parent].count) {
+        break;
+      }
+      place(heap[parent], index);
+      index = parent;
+    }
+    place(item, index);
+  }
+
+  private void siftDown(int index) {
+    Counter<K> item = heap[index];
+    int half = size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+        child++;
+      }
+      if (item.count <= heap[child].count) {
+        break;
+      }
+      place(heap[child], index);
+      index = child;
+    }
+    place(item, index);
+  }
+
+  private void place(Counter<K> counter, int index) {
+    heap[index] = counter;
+    counter.index = index;
+  }
+
+  /**
+   * A monitored key with its estimated weight; the true weight is in {@code [count - error,
+   * count]}.
+   */
+  public record Estimate<K>(K key, long count, long error) {}
+
+  private static final class Counter<K> {
+    final K key;
+    long count;
+    final long error;
+    int index;
+
+    Counter(K key, long count, long error) {
+      this.key = key;
+      this.count = count;
+      this.error = error;
+    }
+  }
+}
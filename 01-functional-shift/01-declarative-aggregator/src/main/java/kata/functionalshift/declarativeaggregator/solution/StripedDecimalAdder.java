@@ -0,0 +1,70 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Exact concurrent {@code BigDecimal} sum, striped across cells like {@link
+ * java.util.concurrent.atomic.LongAdder}.
+ *
+ * <p>Each thread hashes to one cell and CASes its partial sum there, so threads rarely contend on
+ * the same reference. {@code BigDecimal} addition is exact, associative and commutative, so {@link
+ * #sum()} equals a sequential {@code reduce(BigDecimal.ZERO, BigDecimal::add)} over the same
+ * values in any order, scale included.
+ */
+final class StripedDecimalAdder {
+  private final AtomicReferenceArray<BigDecimal> cells;
+  private final int mask;
+
+  StripedDecimalAdder() {
+    int size = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2);
+    this.cells = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+  }
+
+  /** Adds {@code value} to the cell owned by the calling thread. */
+  void add(BigDecimal value) {
+    int index = probe() & mask;
+    BigDecimal current;
+    do {
+      current = cells.get(index);
+    } while (!cells.compareAndSet(index, current, current == null ? value : current.add(value)));
+  }
+
+  /** Folds another adder into this one; only used when merging non-concurrent containers. */
+  void addAll(StripedDecimalAdder other) {
+    for (int i = 0; i < other.cells.length(); i++) {
+      BigDecimal value = other.cells.get(i);
+      if (value != null) {
+        add(value);
+      }
+    }
+  }
+
+  /** Returns whether nothing was ever added. */
+  boolean isEmpty() {
+    for (int i = 0; i < cells.length(); i++) {
+      if (cells.get(i) != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the exact sum; not atomic with respect to concurrent {@link #add} calls. */
+  BigDecimal sum() {
+    BigDecimal total = BigDecimal.ZERO;
+    for (int i = 0; i < cells.length(); i++) {
+      BigDecimal value = cells.get(i);
+      if (value != null) {
+        total = total.add(value);
+      }
+    }
+    return total;
+  }
+
+  private static int probe() {
+    long h = Thread.currentThread().threadId() * 0x9E37_79B9_7F4A_7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
@@ -0,0 +1,101 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact top-k selection over partial aggregates.
+ *
+ * <p>Sorting every aggregate to keep the best {@code k} costs O(n log n) time and a copy of all
+ * entries. {@link #largest} keeps a bounded min-heap of the {@code k} best entries seen so far
+ * instead: O(n log k) time and O(k) extra memory.
+ */
+public final class TopK {
+  private TopK() {}
+
+  /**
+   * Returns the keys of the {@code k} largest values, largest first.
+   *
+   * <p>Ties keep the iteration order of {@code aggregates}, exactly like a stable descending sort
+   * followed by {@code limit(k)}.
+   *
+   * @param aggregates The aggregate per key, e.g. revenue per SKU.
+   * @param k The number of keys to keep.
+   * @param order The order of the values.
+   * @return At most {@code k} keys, best first.
+   */
+  public static <K, V> List<K> largest(Map<K, V> aggregates, int k, Comparator<? super V> order) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    // heap[0] is the worst kept entry: smallest value, and among equal values the latest seen
+    Candidate<K, V>[] heap = newHeap(Math.min(k, aggregates.size()));
+    Comparator<Candidate<K, V>> worstFirst =
+        Comparator.<Candidate<K, V>, V>comparing(Candidate::value, order)
+            .thenComparing(Comparator.comparingInt((Candidate<K, V> c) -> c.seen()).reversed());
+    int size = 0;
+    int seen = 0;
+    for (Map.Entry<K, V> entry : aggregates.entrySet()) {
+      Candidate<K, V> candidate = new Candidate<>(entry.getKey(), entry.getValue(), seen++);
+      if (size < heap.length) {
+        heap[size] = candidate;
+        siftUp(heap, size++, worstFirst);
+      } else if (order.compare(candidate.value(), heap[0].value()) > 0) {
+        heap[0] = candidate;
+        siftDown(heap, size, worstFirst);
+      }
+    }
+    Arrays.sort(heap, 0, size, worstFirst.reversed());
+    List<K> keys = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      keys.add(heap[i].key());
+    }
+    return keys;
+  }
+
+  /** Returns the keys of the {@code k} largest values in their natural order, largest first. */
+  public static <K, V extends Comparable<? super V>> List<K> largest(Map<K, V> aggregates, int k) {
+    return largest(aggregates, k, Comparator.naturalOrder());
+  }
+
+  private static <T> void siftUp(T[] heap, int index, Comparator<? super T> order) {
+    T item = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (order.compare(item, heap[parent]) >= 0) {
+        break;
+      }
+      heap[index] = heap[parent];
+      index = parent;
+    }
+    heap[index] = item;
+  }
+
+  private static <T> void siftDown(T[] heap, int size, Comparator<? super T> order) {
+    T item = heap[0];
+    int index = 0;
+    int half = size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      if (child + 1 < size && order.compare(heap[child + 1], heap[child]) < 0) {
+        child++;
+      }
+      if (order.compare(item, heap[child]) <= 0) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = item;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K, V> Candidate<K, V>[] newHeap(int length) {
+    return (Candidate<K, V>[]) new Candidate<?, ?>[length];
+  }
+
+  private record Candidate<K, V>(K key, V value, int seen) {}
+}
@@ -0,0 +1,265 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+
+/**
+ * Ranks SKUs by line revenue ({@link OrderLine#totalBeforeDiscount()}) or quantity sold.
+ *
+ * <p>{@link #exact} aggregates every SKU and keeps the best {@code k} with a bounded heap ({@link
+ * TopK}). {@link #approximate} streams lines into a {@link SpaceSaving} sketch instead, so memory
+ * is fixed by the error bound rather than by the number of SKUs, and sketches built on separate
+ * threads or machines can be merged. {@link #countMin} does the same with a {@link CountMinSketch}
+ * and a bounded set of candidate SKUs: its estimates hold for every SKU, not only monitored ones,
+ * at the cost of a probabilistic rather than a hard error bound.
+ */
+public final class TopSkus {
+
+  /** What a SKU is ranked by. */
+  public enum Measure {
+    /** Sum of line totals before discount. */
+    REVENUE,
+    /** Sum of line quantities. */
+    QUANTITY,
+  }
+
+  /** Seed of every ranking's sketch, so rankings with the same error bounds can be merged. */
+  private static final long COUNT_MIN_SEED = 0x5EED_70B5_C0DEL;
+
+  private TopSkus() {}
+
+  /**
+   * Returns the {@code k} best SKUs over distinct orders, best first; ties keep first-seen order.
+   *
+   * @param orders The order List.
+   * @param measure What to rank by.
+   * @param k The number of SKUs to return.
+   * @return At most {@code k} SKUs.
+   */
+  public static List<Sku> exact(List<Order> orders, Measure measure, int k) {
+    Set<OrderId> seen = new HashSet<>();
+    Map<Sku, DecimalSum> revenue = new LinkedHashMap<>();
+    Map<Sku, Long> quantity = new LinkedHashMap<>();
+    for (Order order : orders) {
+      if (!seen.add(order.id())) {
+        continue;
+      }
+      for (OrderLine line : order.lines()) {
+        Sku sku = line.key().productSnapshot().sku();
+        if (measure == Measure.REVENUE) {
+          revenue
+              .computeIfAbsent(sku, s -> new DecimalSum())
+              .add(line.totalBeforeDiscount().amount());
+        } else {
+          quantity.merge(sku, (long) line.quantity(), Long::sum);
+        }
+      }
+    }
+    if (measure == Measure.QUANTITY) {
+      return TopK.largest(quantity, k);
+    }
+    Map<Sku, BigDecimal> totals = LinkedHashMap.newLinkedHashMap(revenue.size());
+    revenue.forEach((sku, sum) -> totals.put(sku, sum.sum()));
+    return TopK.largest(totals, k);
+  }
+
+  /**
+   * Returns an empty sketch ranking by {@code measure} with counts off by at most {@code epsilon}
+   * times the total weight.
+   */
+  public static Sketch approximate(Measure measure, double epsilon) {
+    return new Sketch(Objects.requireNonNull(measure, "measure is required"), epsilon);
+  }
+
+  /**
+   * Returns an empty Count-Min ranking by {@code measure} that keeps the {@code k} SKUs with the
+   * highest estimates, each estimate off by more than {@code epsilon} times the total weight with
+   * probability at most {@code delta}.
+   *
+   * @throws IllegalArgumentException if {@code k} is not positive, or {@code epsilon} or {@code
+   *     delta} is not in (0, 1).
+   */
+  public static CountMinRanking countMin(Measure measure, int k, double epsilon, double delta) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    return new CountMinRanking(
+        Objects.requireNonNull(measure, "measure is required"), k, epsilon, delta);
+  }
+
+  /** The weight of {@code line} under {@code measure}; revenue is in minor units. */
+  private static long weight(Measure measure, OrderLine line) {
+    return measure == Measure.QUANTITY
+        ? line.quantity()
+        : Math.multiplyExact(
+            line.key().productSnapshot().unitPrice().minorUnits(), line.quantity());
+  }
+
+  /**
+   * Bounded-memory SKU ranking over a stream of lines.
+   *
+   * <p>Revenue is weighed in minor units of each line's currency, so rankings are meaningful for
+   * single-currency streams. The sketch does not deduplicate orders: feed each order once, e.g.
+   * per {@link WindowedSalesAnalyzer} window. Not thread-safe; use one sketch per thread and
+   * {@link #merge} them.
+   */
+  public static final class Sketch {
+    private final Measure measure;
+    private final SpaceSaving<Sku> counters;
+
+    private Sketch(Measure measure, double epsilon) {
+      this(measure, SpaceSaving.withError(epsilon));
+    }
+
+    private Sketch(Measure measure, SpaceSaving<Sku> counters) {
+      this.measure = measure;
+      this.counters = counters;
+    }
+
+    /** Adds every line of {@code order}. */
+    public void accept(Order order) {
+      order.lines().forEach(this::accept);
+    }
+
+    /** Adds one line. */
+    public void accept(OrderLine line) {
+      counters.add(line.key().productSnapshot().sku(), weight(measure, line));
+    }
+
+    /**
+     * Returns a sketch covering both streams.
+     *
+     * @throws IllegalArgumentException if the sketches rank by different measures.
+     */
+    public Sketch merge(Sketch other) {
+      if (measure != other.measure) {
+        throw new IllegalArgumentException("Sketches rank by different measures");
+      }
+      return new Sketch(measure, counters.merge(other.counters));
+    }
+
+    /** Returns up to {@code k} SKUs with the highest estimated weight, highest first. */
+    public List<SpaceSaving.Estimate<Sku>> top(int k) {
+      return counters.top(k);
+    }
+  }
+
+  /**
+   * Bounded-memory SKU ranking over a stream of lines, backed by a {@link CountMinSketch}.
+   *
+   * <p>Every line adds its weight to the sketch; its SKU then becomes a candidate if fewer than
+   * {@code k} are kept or its estimate beats the lowest candidate's, which it replaces. Estimates
+   * never underestimate, and {@link SpaceSaving.Estimate#error()} is the {@code epsilon} bound that
+   * holds with probability {@code 1 - delta}. As with {@link Sketch}, revenue is weighed in minor
+   * units, orders are not deduplicated, and rankings from separate threads can be {@link #merge
+   * merged}. Not thread-safe.
+   */
+  public static final class CountMinRanking {
+    private final Measure measure;
+    private final int capacity;
+    private final double epsilon;
+    private final double delta;
+    private final CountMinSketch sketch;
+    private final Map<Sku, Long> candidates;
+    private Sku lowest;
+
+    private CountMinRanking(Measure measure, int capacity, double epsilon, double delta) {
+      this.measure = measure;
+      this.capacity = capacity;
+      this.epsilon = epsilon;
+      this.delta = delta;
+      this.sketch = CountMinSketch.withError(epsilon, delta, COUNT_MIN_SEED);
+      this.candidates = HashMap.newHashMap(capacity);
+    }
+
+    /** Adds every line of {@code order}. */
+    public void accept(Order order) {
+      order.lines().forEach(this::accept);
+    }
+
+    /** Adds one line. */
+    public void accept(OrderLine line) {
+      Sku sku = line.key().productSnapshot().sku();
+      sketch.add(sku, weight(measure, line));
+      offer(sku, sketch.estimate(sku));
+    }
+
+    /**
+     * Returns a ranking covering both streams, keeping this ranking's {@code k}.
+     *
+     * @throws IllegalArgumentException if the rankings rank by different measures or were built
+     *     with different error bounds.
+     */
+    public CountMinRanking merge(CountMinRanking other) {
+      if (measure != other.measure) {
+        throw new IllegalArgumentException("Rankings rank by different measures");
+      }
+      CountMinRanking merged = new CountMinRanking(measure, capacity, epsilon, delta);
+      merged.sketch.merge(sketch).merge(other.sketch);
+      for (Sku sku : candidates.keySet()) {
+        merged.offer(sku, merged.sketch.estimate(sku));
+      }
+      for (Sku sku : other.candidates.keySet()) {
+        merged.offer(sku, merged.sketch.estimate(sku));
+      }
+      return merged;
+    }
+
+    /** Returns up to {@code k} SKUs with the highest estimated weight, highest first. */
+    public List<SpaceSaving.Estimate<Sku>> top(int k) {
+      if (k <= 0) {
+        throw new IllegalArgumentException("k must be positive");
+      }
+      long error = (long) Math.ceil(epsilon * sketch.totalWeight());
+      List<SpaceSaving.Estimate<Sku>> estimates = new ArrayList<>(candidates.size());
+      candidates.forEach(
+          (sku, count) -> estimates.add(new SpaceSaving.Estimate<>(sku, count, error)));
+      estimates.sort(Comparator.comparingLong(SpaceSaving.Estimate<Sku>::count).reversed());
+      return List.copyOf(estimates.subList(0, Math.min(k, estimates.size())));
+    }
+
+    /** Returns the estimated weight of {@code sku}, an upper bound of its true weight. */
+    public long estimate(Sku sku) {
+      return sketch.estimate(sku);
+    }
+
+    /** Keeps {@code sku} if it is a candidate already, there is room, or it beats the lowest. */
+    private void offer(Sku sku, long estimate) {
+      if (candidates.containsKey(sku) || candidates.size() < capacity) {
+        candidates.put(sku, estimate);
+        if (lowest == null || sku.equals(lowest) || estimate < candidates.get(lowest)) {
+          lowest = findLowest();
+        }
+      } else if (estimate > candidates.get(lowest)) {
+        candidates.remove(lowest);
+        candidates.put(sku, estimate);
+        lowest = findLowest();
+      }
+    }
+
+    /** The candidate with the smallest estimate; {@code k} is small, so a scan is enough. */
+    private Sku findLowest() {
+      Sku min = null;
+      long minEstimate = Long.MAX_VALUE;
+      for (Map.Entry<Sku, Long> entry : candidates.entrySet()) {
+        if (entry.getValue() < minEstimate) {
+          min = entry.getKey();
+          minEstimate = entry.getValue();
+        }
+      }
+      return min;
+    }
+  }
+}
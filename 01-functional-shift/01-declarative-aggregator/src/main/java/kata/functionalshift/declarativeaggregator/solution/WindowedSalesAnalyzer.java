@@ -0,0 +1,199 @@
+package kata.functionalshift.declarativeaggregator.solution;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+
+/**
+ * Runs a {@link SalesReport} over time windows of an unbounded order feed.
+ *
+ * <p>Orders are placed in event time, the creation instant embedded in their UUIDv7 {@link
+ * OrderId}. Windows are aligned to the epoch and {@code size} long, a new one starting every
+ * {@code slide}; tumbling windows are the special case {@code slide == size}, where every order
+ * falls into exactly one window.
+ *
+ * <p>The feed tracks a watermark: the latest event time seen minus the allowed lateness. A window
+ * is emitted, and its state dropped, once its end is at or before the watermark. An order that
+ * only belongs to windows already emitted is late: it is dropped and counted. Open windows
+ * therefore never span more than {@code size + allowedLateness} of event time.
+ *
+ * <pre>{@code
+ * WindowedSalesAnalyzer.Feed feed =
+ *     WindowedSalesAnalyzer.sliding(Duration.ofMinutes(10), Duration.ofMinutes(1))
+ *         .withAllowedLateness(Duration.ofSeconds(30))
+ *         .open(window -> publish(window.start(), window.result().revenueByStatus()));
+ * liveOrders.forEach(feed::accept);
+ * }</pre>
+ *
+ * <p>Each window has its own {@link SalesReport.Accumulator}, so deduplication by {@link OrderId}
+ * (first occurrence wins) is per window instead of over the whole feed, and metric semantics and
+ * the {@link OrderDedup} stage are those of the report. Declare {@link
+ * SalesReport.Metric#DISTINCT_COUNTS} for approximate distinct counts per window: they merge, so
+ * the counts of a longer span are the merge of its windows' counts, with no order kept.
+ */
+public final class WindowedSalesAnalyzer {
+  private static final SalesReport DEFAULT_REPORT =
+      SalesReport.of(
+          SalesReport.Metric.STATUS_COUNTS,
+          SalesReport.Metric.REVENUE_BY_STATUS,
+          SalesReport.Metric.TOP_SKUS_BY_REVENUE);
+
+  private final long sizeMillis;
+  private final long slideMillis;
+  private final long allowedLatenessMillis;
+  private final SalesReport report;
+
+  private WindowedSalesAnalyzer(
+      long sizeMillis, long slideMillis, long allowedLatenessMillis, SalesReport report) {
+    this.sizeMillis = sizeMillis;
+    this.slideMillis = slideMillis;
+    this.allowedLatenessMillis = allowedLatenessMillis;
+    this.report = report;
+  }
+
+  /**
+   * Declares non-overlapping windows of {@code size}.
+   *
+   * @throws IllegalArgumentException if {@code size} is shorter than a millisecond.
+   */
+  public static WindowedSalesAnalyzer tumbling(Duration size) {
+    return sliding(size, size);
+  }
+
+  /**
+   * Declares windows of {@code size} starting every {@code slide}.
+   *
+   * @throws IllegalArgumentException if {@code slide} is shorter than a millisecond or longer than
+   *     {@code size}.
+   */
+  public static WindowedSalesAnalyzer sliding(Duration size, Duration slide) {
+    long sizeMillis = size.toMillis();
+    long slideMillis = slide.toMillis();
+    if (slideMillis <= 0 || slideMillis > sizeMillis) {
+      throw new IllegalArgumentException("slide must be between 1 ms and the window size");
+    }
+    return new WindowedSalesAnalyzer(sizeMillis, slideMillis, 0, DEFAULT_REPORT);
+  }
+
+  /** Returns a copy that still accepts orders up to {@code lateness} behind the latest one. */
+  public WindowedSalesAnalyzer withAllowedLateness(Duration lateness) {
+    if (lateness.isNegative()) {
+      throw new IllegalArgumentException("lateness must not be negative");
+    }
+    return new WindowedSalesAnalyzer(sizeMillis, slideMillis, lateness.toMillis(), report);
+  }
+
+  /**
+   * Returns a copy computing {@code report} per window, instead of status counts, revenue by
+   * status and top SKUs by revenue.
+   */
+  public WindowedSalesAnalyzer withReport(SalesReport report) {
+    return new WindowedSalesAnalyzer(
+        sizeMillis, slideMillis, allowedLatenessMillis, Objects.requireNonNull(report));
+  }
+
+  /** Starts a feed that hands every closed window to {@code sink}, oldest first. */
+  public Feed open(Consumer<WindowResult> sink) {
+    report.newAccumulator().close(); // fail fast on an invalid report
+    return new Feed(Objects.requireNonNull(sink, "sink is required"));
+  }
+
+  /** The metrics of one window, covering event times in {@code [start, end)}. */
+  public record WindowResult(Instant start, Instant end, SalesReport.Result result) {}
+
+  /** Mutable state of one feed: the open windows and the watermark. Not thread-safe. */
+  public final class Feed implements AutoCloseable {
+    private final Consumer<WindowResult> sink;
+    private final TreeMap<Long, SalesReport.Accumulator> windows = new TreeMap<>();
+    private long watermark = Long.MIN_VALUE;
+    private long lateOrders;
+
+    private Feed(Consumer<WindowResult> sink) {
+      this.sink = sink;
+    }
+
+    /**
+     * Adds {@code order} to every open window covering its creation instant, then advances the
+     * watermark and emits the windows it closes.
+     *
+     * @return Whether the order was accepted; false if it was late for all its windows.
+     */
+    public boolean accept(Order order) {
+      long time = order.creationInstant().toEpochMilli();
+      boolean accepted = false;
+      for (long start = time - Math.floorMod(time, slideMillis);
+          start > time - sizeMillis;
+          start -= slideMillis) {
+        if (start + sizeMillis <= watermark) {
+          break; // this and every earlier window are closed
+        }
+        windows.computeIfAbsent(start, s -> report.newAccumulator()).accept(order);
+        accepted = true;
+      }
+      if (!accepted) {
+        lateOrders++;
+        return false;
+      }
+      advance(time - allowedLatenessMillis);
+      return true;
+    }
+
+    /**
+     * Moves the watermark to {@code instant} if that is later, e.g. on a quiet feed, and emits
+     * the windows it closes.
+     */
+    public void advanceWatermark(Instant instant) {
+      advance(instant.toEpochMilli());
+    }
+
+    /** Returns the current watermark; it is far in the past until the first order arrives. */
+    public Instant watermark() {
+      return Instant.ofEpochMilli(watermark);
+    }
+
+    /** Returns the number of orders dropped as late so far. */
+    public long lateOrders() {
+      return lateOrders;
+    }
+
+    /** Returns the number of windows holding state. */
+    public int openWindows() {
+      return windows.size();
+    }
+
+    /** Emits every open window, regardless of the watermark; later orders count as late. */
+    @Override
+    public void close() {
+      watermark = Long.MAX_VALUE;
+      while (!windows.isEmpty()) {
+        emit(windows.pollFirstEntry());
+      }
+    }
+
+    private void advance(long candidate) {
+      if (candidate <= watermark) {
+        return;
+      }
+      watermark = candidate;
+      while (!windows.isEmpty() && windows.firstKey() + sizeMillis <= watermark) {
+        emit(windows.pollFirstEntry());
+      }
+    }
+
+    private void emit(Map.Entry<Long, SalesReport.Accumulator> window) {
+      long start = window.getKey();
+      SalesReport.Result result;
+      try (SalesReport.Accumulator accumulator = window.getValue()) {
+        result = accumulator.result();
+      }
+      sink.accept(
+          new WindowResult(
+              Instant.ofEpochMilli(start), Instant.ofEpochMilli(start + sizeMillis), result));
+    }
+  }
+}
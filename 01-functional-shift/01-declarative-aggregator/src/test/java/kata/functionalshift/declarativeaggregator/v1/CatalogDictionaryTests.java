@@ -0,0 +1,106 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.lineItem;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.order;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.CatalogDictionary;
+import kata.functionalshift.declarativeaggregator.domain.vo.InternTable;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.OrderBatch;
+import kata.functionalshift.declarativeaggregator.solution.OrderJson;
+import org.junit.jupiter.api.Test;
+
+class CatalogDictionaryTests {
+  private static final Currency USD = Currency.getInstance("USD");
+
+  @Test
+  void rawSkuVariantsResolveToOneCanonicalInstance() {
+    CatalogDictionary dictionary = CatalogDictionary.unbounded();
+
+    Sku first = dictionary.sku(" abc-1 ");
+    Sku second = dictionary.sku("ABC-1");
+
+    assertThat(first).isEqualTo(new Sku("ABC-1"));
+    assertThat(second).isSameAs(first);
+    assertThat(dictionary.sku(new Sku("abc-1"))).isSameAs(first);
+    assertThat(dictionary.skuOf(dictionary.skuCode(second))).isSameAs(first);
+  }
+
+  @Test
+  void invalidSkuIsRejectedAndNotInterned() {
+    CatalogDictionary dictionary = CatalogDictionary.unbounded();
+
+    assertThatThrownBy(() -> dictionary.sku("!"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Invalid SKU format");
+    assertThatThrownBy(() -> dictionary.sku("!")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void productsShareCanonicalSkuAndGetDenseCodes() {
+    CatalogDictionary dictionary = CatalogDictionary.unbounded();
+    Money price = Money.of(new BigDecimal("9.99"), USD);
+
+    ProductSnapshot book = dictionary.product("book", price);
+    ProductSnapshot sameBook = dictionary.product(new ProductSnapshot(new Sku("BOOK"), price));
+    ProductSnapshot pen = dictionary.product("pen", price);
+
+    assertThat(sameBook).isSameAs(book);
+    assertThat(book.sku()).isSameAs(dictionary.sku("book"));
+    assertThat(dictionary.productCode(book)).isEqualTo(0);
+    assertThat(dictionary.productCode(pen)).isEqualTo(1);
+    assertThat(dictionary.productOf(1)).isSameAs(pen);
+    assertThat(dictionary.currency("USD")).isSameAs(USD);
+    assertThat(dictionary.currencyOf(dictionary.currencyCode(USD))).isSameAs(USD);
+  }
+
+  @Test
+  void batchesAndJsonReadThroughOneDictionaryShareCanonicalInstances() throws IOException {
+    CatalogDictionary dictionary = CatalogDictionary.unbounded();
+    Sku canonical = dictionary.sku("book");
+    List<Order> orders =
+        List.of(order("o-1", OrderStatus.NEW, lineItem(product("BOOK", "9.99"), 1)));
+    StringBuilder json = new StringBuilder();
+    OrderJson.write(orders, json);
+
+    List<Order> decoded = new ArrayList<>();
+    OrderJson.read(new StringReader(json.toString()), dictionary, decoded::add);
+    OrderJson.read(new StringReader(json.toString()), dictionary, decoded::add);
+    OrderBatch batch = OrderBatch.of(orders, dictionary);
+
+    for (Order order : decoded) {
+      assertThat(order.lines().get(0).key().productSnapshot().sku()).isSameAs(canonical);
+    }
+    assertThat(batch.sku(0)).isSameAs(canonical);
+    assertThat(batch.products().get(0).sku()).isSameAs(canonical);
+  }
+
+  @Test
+  void boundedTableEvictsIdleValuesAndRecyclesTheirCodes() {
+    InternTable<String> table = InternTable.bounded(2);
+
+    int a = table.code("a");
+    int b = table.code("b");
+    table.code("a"); // a is used again, so b is the idle one
+    int c = table.code("c");
+
+    assertThat(table.size()).isEqualTo(2);
+    assertThat(c).isEqualTo(b);
+    assertThat(table.valueOf(a)).isEqualTo("a");
+    assertThat(table.valueOf(c)).isEqualTo("c");
+    assertThatThrownBy(() -> table.valueOf(2)).isInstanceOf(IllegalArgumentException.class);
+  }
+}
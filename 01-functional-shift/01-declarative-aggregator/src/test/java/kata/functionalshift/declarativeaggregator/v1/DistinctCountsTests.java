@@ -0,0 +1,90 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.CREATED_MILLIS;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.uuidV7;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.DistinctCounts;
+import kata.functionalshift.declarativeaggregator.solution.HyperLogLog;
+import org.junit.jupiter.api.Test;
+
+class DistinctCountsTests {
+  private static final Currency USD = Currency.getInstance("USD");
+
+  @Test
+  void estimateStaysWithinThreeStandardErrors() {
+    HyperLogLog sketch = new HyperLogLog(12);
+    for (long key = 0; key < 200_000; key++) {
+      sketch.add(key);
+      sketch.add(key); // repeats do not count
+    }
+
+    double relativeError = Math.abs(sketch.estimate() - 200_000) / 200_000.0;
+    assertThat(relativeError).isLessThanOrEqualTo(3 * sketch.standardError());
+  }
+
+  @Test
+  void smallCardinalitiesAreNearlyExact() {
+    HyperLogLog sketch = new HyperLogLog(14);
+    for (long key = 0; key < 100; key++) {
+      sketch.add(key);
+    }
+
+    assertThat(sketch.estimate()).isBetween(99L, 101L);
+    assertThat(new HyperLogLog(4).estimate()).isEqualTo(0L);
+  }
+
+  @Test
+  void mergedSketchEqualsSketchOfTheUnion() {
+    HyperLogLog left = new HyperLogLog(10);
+    HyperLogLog right = new HyperLogLog(10);
+    HyperLogLog union = new HyperLogLog(10);
+    for (long key = 0; key < 50_000; key++) {
+      (key % 3 == 0 ? left : right).add(key);
+      union.add(key);
+    }
+
+    assertThat(left.merge(right).estimate()).isEqualTo(union.estimate());
+    assertThatThrownBy(() -> left.merge(new HyperLogLog(11)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void countsOrdersSkusAndProductsPerStatusInParallel() {
+    List<ProductSnapshot> catalog = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      catalog.add(new ProductSnapshot(new Sku("P-" + i), Money.of(new BigDecimal("1.00"), USD)));
+    }
+    // the same SKU at another price is another product
+    catalog.add(new ProductSnapshot(new Sku("P-0"), Money.of(new BigDecimal("2.00"), USD)));
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      Order.Builder builder = Order.builder(new OrderId(uuidV7(CREATED_MILLIS, i)));
+      builder.status(i % 2 == 0 ? OrderStatus.PAID : OrderStatus.NEW);
+      builder.add(catalog.get(i % catalog.size()), 1, null);
+      orders.add(builder.build());
+    }
+    orders.addAll(orders.subList(0, 1_000));
+
+    DistinctCounts sequential = orders.stream().collect(DistinctCounts.collector());
+    DistinctCounts parallel = orders.parallelStream().collect(DistinctCounts.collector());
+
+    assertThat(sequential.distinctOrders()).isBetween(4_900L, 5_100L);
+    assertThat(sequential.distinctSkus()).isEqualTo(50L);
+    assertThat(sequential.distinctProductsByStatus().get(OrderStatus.PAID)).isBetween(50L, 52L);
+    assertThat(parallel.distinctOrders()).isEqualTo(sequential.distinctOrders());
+    assertThat(parallel.distinctProductsByStatus())
+        .isEqualTo(sequential.distinctProductsByStatus());
+  }
+}
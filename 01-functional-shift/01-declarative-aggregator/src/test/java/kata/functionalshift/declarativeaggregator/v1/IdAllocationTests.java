@@ -0,0 +1,88 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import org.junit.jupiter.api.Test;
+
+class IdAllocationTests {
+
+  @Test
+  void idsAreVersion7WithTheCurrentTimestamp() {
+    Instant before = Instant.now().minusMillis(1);
+    OrderId id = OrderId.newRandom();
+    Instant after = Instant.now().plusMillis(1);
+
+    assertThat(id.uuidv7().version()).isEqualTo(7);
+    assertThat(id.uuidv7().variant()).isEqualTo(2);
+    assertThat(id.creationInstant()).isBetween(before, after);
+  }
+
+  @Test
+  void idsOfOneThreadStrictlyIncreaseWithinAMillisecond() {
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 100_000; i++) {
+      ids.add(LineId.newRandom().uuidv7());
+    }
+    LineId.newRandom(1_000).forEach(id -> ids.add(id.uuidv7()));
+    OrderId.newRandom(1_000).forEach(id -> ids.add(id.uuidv7()));
+
+    for (int i = 1; i < ids.size(); i++) {
+      assertThat(compareUnsigned(ids.get(i - 1), ids.get(i))).isLessThan(0);
+    }
+  }
+
+  @Test
+  void batchesShareOneTimestampAndStayUnique() {
+    List<LineId> batch = LineId.newRandom(10_000);
+
+    assertThat(batch).hasSize(10_000);
+    assertThat(Set.copyOf(batch)).hasSize(10_000);
+    Duration spread =
+        Duration.between(batch.get(0).creationInstant(), batch.get(9_999).creationInstant());
+    assertThat(spread.toMillis()).isBetween(0L, 1L);
+  }
+
+  @Test
+  void idsAreUniqueAcrossThreads() throws Exception {
+    Set<UUID> seen = ConcurrentHashMap.newKeySet();
+    List<Future<Integer>> results = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      for (int t = 0; t < 8; t++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  int added = 0;
+                  for (int i = 0; i < 20_000; i++) {
+                    added += seen.add(OrderId.newRandom().uuidv7()) ? 1 : 0;
+                  }
+                  return added;
+                }));
+      }
+    }
+    int added = 0;
+    for (Future<Integer> result : results) {
+      added += result.get();
+    }
+
+    assertThat(added).isEqualTo(160_000);
+  }
+
+  private static int compareUnsigned(UUID a, UUID b) {
+    int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+    return high != 0
+        ? high
+        : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+  }
+}
@@ -0,0 +1,138 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.metrics.LatencyHistogram;
+import kata.functionalshift.declarativeaggregator.metrics.Metrics;
+import kata.functionalshift.declarativeaggregator.metrics.Operation;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.junit.jupiter.api.Test;
+
+class MetricsTests {
+  private static final Currency USD = Currency.getInstance("USD");
+
+  @Test
+  void recordsNothingWhileDisabled() {
+    Metrics.setEnabled(false);
+    Metrics.reset();
+
+    SalesAnalyzer.calculateRevenueByStatus(orders());
+
+    assertThat(Metrics.snapshot(Operation.CALCULATE_REVENUE_BY_STATUS).calls()).isZero();
+    assertThat(Metrics.snapshot(Operation.ORDER_ADD).calls()).isZero();
+  }
+
+  @Test
+  void recordsInputSizesDistinctCountsAndLatency() {
+    Metrics.reset();
+    Metrics.setEnabled(true);
+    try {
+      List<Order> orders = orders(); // 3 entries, 2 distinct orders, 4 lines
+
+      SalesAnalyzer.calculateRevenueByStatus(orders);
+      SalesAnalyzer.countOrdersByStatus(orders, OrderStatus.NEW);
+      SalesAnalyzer.getDistinctProductsSold(orders);
+      Money.of(BigDecimal.ONE, USD).add(Money.of(BigDecimal.TEN, USD));
+
+      Metrics.Snapshot revenue = Metrics.snapshot(Operation.CALCULATE_REVENUE_BY_STATUS);
+      assertThat(revenue.calls()).isEqualTo(1);
+      assertThat(revenue.inputs()).isEqualTo(3);
+      assertThat(revenue.distinct()).isEqualTo(2);
+      assertThat(revenue.maxNanos()).isPositive();
+      assertThat(revenue.p50Nanos()).isLessThanOrEqualTo(revenue.maxNanos());
+      assertThat(Metrics.snapshot(Operation.COUNT_ORDERS_BY_STATUS).distinct()).isEqualTo(2);
+      assertThat(Metrics.snapshot(Operation.GET_DISTINCT_PRODUCTS_SOLD).inputs()).isEqualTo(4);
+      assertThat(Metrics.snapshot(Operation.GET_DISTINCT_PRODUCTS_SOLD).distinct()).isEqualTo(2);
+      assertThat(Metrics.snapshot(Operation.ORDER_ADD).calls()).isEqualTo(2);
+      assertThat(Metrics.snapshot(Operation.ORDER_ADD).inputs()).isEqualTo(1); // lines before
+      assertThat(revenue.allocatedBytes()).isZero(); // not tracked unless opted in
+      assertThat(Metrics.snapshot(Operation.MONEY_ADD).calls()).isEqualTo(1);
+    } finally {
+      Metrics.setEnabled(false);
+    }
+  }
+
+  @Test
+  void measuresAllocatedBytesOnlyOnceTrackingIsTurnedOn() {
+    Metrics.reset();
+    Metrics.setEnabled(true);
+    Metrics.setAllocationTracking(true);
+    try {
+      SalesAnalyzer.calculateRevenueByStatus(orders());
+
+      assertThat(Metrics.snapshot(Operation.CALCULATE_REVENUE_BY_STATUS).allocatedBytes())
+          .isPositive();
+    } finally {
+      Metrics.setAllocationTracking(false);
+      Metrics.setEnabled(false);
+    }
+  }
+
+  @Test
+  void emitsFlightRecorderEventsWhileRecording() throws Exception {
+    Metrics.setEnabled(true);
+    Path file = Files.createTempFile("metrics", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("kata.aggregator.Operation");
+      recording.start();
+      SalesAnalyzer.groupOrderIdsByStatus(orders());
+      recording.stop();
+      recording.dump(file);
+
+      List<RecordedEvent> events =
+          RecordingFile.readAllEvents(file).stream()
+              .filter(e -> e.getString("operation").equals("GROUP_ORDER_IDS_BY_STATUS"))
+              .toList();
+      assertThat(events).hasSize(1);
+      assertThat(events.get(0).getLong("inputSize")).isEqualTo(3);
+      assertThat(events.get(0).getLong("distinctCount")).isEqualTo(2);
+      assertThat(events.get(0).getDouble("distinctRatio")).isEqualTo(2.0 / 3);
+    } finally {
+      Metrics.setEnabled(false);
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void histogramReportsPercentilesWithinItsPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long v = 1; v <= 1_000; v++) {
+      histogram.record(v * 1_000);
+    }
+
+    assertThat(histogram.count()).isEqualTo(1_000);
+    assertThat(histogram.max()).isEqualTo(1_000_000);
+    assertThat(histogram.valueAtPercentile(50)).isBetween(500_000L, 562_500L);
+    assertThat(histogram.valueAtPercentile(99)).isBetween(990_000L, 1_000_000L);
+    assertThat(histogram.valueAtPercentile(100)).isEqualTo(1_000_000);
+    histogram.reset();
+    assertThat(histogram.valueAtPercentile(50)).isZero();
+  }
+
+  private static List<Order> orders() {
+    ProductSnapshot apple = new ProductSnapshot(new Sku("APPLE"), Money.of(BigDecimal.ONE, USD));
+    ProductSnapshot pear = new ProductSnapshot(new Sku("PEAR"), Money.of(BigDecimal.TEN, USD));
+    Order first = Order.builder(new OrderId(new UUID(0x7000L, 1))).build().add(apple, 1, null);
+    Order second =
+        Order.builder(new OrderId(new UUID(0x7000L, 2)))
+            .add(apple, 2, null)
+            .build()
+            .add(pear, 1, null);
+    return List.of(first, second, first);
+  }
+}
@@ -0,0 +1,81 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.MoneyAccumulator;
+import org.junit.jupiter.api.Test;
+
+class MoneyAccumulatorTests {
+  private static final Currency USD = Currency.getInstance("USD");
+  private static final Currency JPY = Currency.getInstance("JPY");
+
+  @Test
+  void totalMatchesMoneyAddIncludingScale() {
+    List<Money> values =
+        List.of(usd("10.05"), usd("0.10"), usd("199999.99"), usd("0"), usd("3.333"));
+
+    MoneyAccumulator accumulator = new MoneyAccumulator();
+    values.forEach(accumulator::add);
+
+    assertThat(accumulator.total()).isEqualTo(values.stream().reduce(Money::add).orElseThrow());
+    assertThat(accumulator.total().amount().scale()).isEqualTo(2);
+  }
+
+  @Test
+  void addLineMatchesMultiplyThenAdd() {
+    MoneyAccumulator accumulator = new MoneyAccumulator(JPY);
+    accumulator.addLine(Money.of(new BigDecimal("1500"), JPY), 3).addLine(jpy("7"), 11);
+
+    assertThat(accumulator.total())
+        .isEqualTo(jpy("1500").multiply(3).add(jpy("7").multiply(11)));
+  }
+
+  @Test
+  void spillsToBigDecimalWhenLongOverflows() {
+    Money nearMax = Money.ofMinor(Long.MAX_VALUE - 1, USD);
+
+    MoneyAccumulator accumulator = new MoneyAccumulator();
+    accumulator.add(nearMax).add(nearMax).addLine(nearMax, 1_000);
+
+    Money expected = nearMax.add(nearMax).add(nearMax.multiply(1_000));
+    assertThat(accumulator.total()).isEqualTo(expected);
+  }
+
+  @Test
+  void mergeCombinesPartialTotals() {
+    MoneyAccumulator left = new MoneyAccumulator().add(usd("1.25"));
+    MoneyAccumulator right = new MoneyAccumulator().add(usd("2.50")).add(usd("0.01"));
+
+    assertThat(left.merge(right).total()).isEqualTo(usd("3.76"));
+    assertThat(left.merge(new MoneyAccumulator()).total()).isEqualTo(usd("3.76"));
+  }
+
+  @Test
+  void rejectsCurrencyMismatch() {
+    MoneyAccumulator accumulator = new MoneyAccumulator().add(usd("1.00"));
+
+    assertThatThrownBy(() -> accumulator.add(jpy("1")))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Currency mismatch");
+  }
+
+  @Test
+  void minorUnitsRoundTrip() {
+    assertThat(usd("12.34").minorUnits()).isEqualTo(1234L);
+    assertThat(Money.ofMinor(1234, USD)).isEqualTo(usd("12.34"));
+    assertThat(Money.ofMinor(1234, JPY)).isEqualTo(jpy("1234"));
+  }
+
+  private static Money usd(String amount) {
+    return Money.of(new BigDecimal(amount), USD);
+  }
+
+  private static Money jpy(String amount) {
+    return Money.of(new BigDecimal(amount), JPY);
+  }
+}
@@ -0,0 +1,123 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.JPY;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.USD;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.lineItem;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.order;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.solution.OrderBatch;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.junit.jupiter.api.Test;
+
+class OrderBatchTests {
+  @Test
+  void batchDropsRepeatedOrderIds() {
+    Order first = order("o-1", OrderStatus.NEW, lineItem(product("p-1", "10.00", USD), 1));
+    Order duplicate = order("o-1", OrderStatus.NEW, lineItem(product("p-1", "10.00", USD), 1));
+    Order second = order("o-2", OrderStatus.PAID, lineItem(product("p-2", "5.00", USD), 2));
+
+    OrderBatch batch = OrderBatch.of(List.of(first, duplicate, second));
+
+    assertThat(batch.orderCount()).isEqualTo(2);
+    assertThat(batch.lineCount()).isEqualTo(2);
+    assertThat(batch.orderId(0)).isEqualTo(first.id());
+    assertThat(batch.status(1)).isEqualTo(OrderStatus.PAID);
+  }
+
+  @Test
+  void columnarOverloadsMatchListBasedResults() {
+    ProductSnapshot book = product("p-1", "10.00", USD);
+    ProductSnapshot laptop = product("p-2", "900.00", USD);
+    ProductSnapshot pen = product("p-3", "1.25", USD);
+    List<Order> orders =
+        List.of(
+            order("o-1", OrderStatus.NEW, lineItem(book, 2), lineItem(pen, 4)),
+            order("o-2", OrderStatus.SHIPPED, lineItem(laptop, 1)),
+            order("o-1", OrderStatus.NEW, lineItem(book, 2), lineItem(pen, 4)),
+            order("o-3", OrderStatus.NEW, lineItem(pen, 1), lineItem(laptop, 3)),
+            order("o-4", OrderStatus.RECEIVED, lineItem(book, 7)));
+
+    OrderBatch batch = OrderBatch.of(orders);
+
+    for (OrderStatus status : OrderStatus.values()) {
+      assertThat(SalesAnalyzer.countOrdersByStatus(batch, status))
+          .isEqualTo(SalesAnalyzer.countOrdersByStatus(orders, status));
+    }
+    assertThat(SalesAnalyzer.calculateTotalRevenue(batch))
+        .isEqualTo(SalesAnalyzer.calculateTotalRevenue(orders));
+    assertThat(SalesAnalyzer.getDistinctProductsSold(batch))
+        .containsExactlyElementsOf(SalesAnalyzer.getDistinctProductsSold(orders));
+    assertThat(SalesAnalyzer.groupOrderIdsByStatus(batch))
+        .isEqualTo(SalesAnalyzer.groupOrderIdsByStatus(orders));
+    assertThat(SalesAnalyzer.calculateRevenueByStatus(batch))
+        .isEqualTo(SalesAnalyzer.calculateRevenueByStatus(orders));
+  }
+
+  @Test
+  void distinctProductsIncludeLinesOfRepeatedOrderIds() {
+    ProductSnapshot book = product("p-1", "10.00", USD);
+    ProductSnapshot pen = product("p-3", "1.25", USD);
+    List<Order> orders =
+        List.of(
+            order("o-1", OrderStatus.NEW, lineItem(book, 1)),
+            order("o-1", OrderStatus.PAID, lineItem(pen, 2)));
+
+    OrderBatch batch = OrderBatch.of(orders);
+
+    assertThat(batch.orderCount()).isEqualTo(1);
+    assertThat(SalesAnalyzer.getDistinctProductsSold(batch))
+        .containsExactly(book, pen)
+        .containsExactlyElementsOf(SalesAnalyzer.getDistinctProductsSold(orders));
+  }
+
+  @Test
+  void calculateTotalRevenueKeepsScaleAcrossCurrencies() {
+    List<Order> orders =
+        List.of(
+            order("o-1", OrderStatus.NEW, lineItem(product("p-1", "10.05", USD), 3)),
+            order("o-2", OrderStatus.NEW, lineItem(product("p-2", "1500", JPY), 2)));
+
+    BigDecimal revenue = SalesAnalyzer.calculateTotalRevenue(OrderBatch.of(orders));
+
+    assertThat(revenue).isEqualTo(SalesAnalyzer.calculateTotalRevenue(orders));
+    assertThat(revenue).isEqualTo(new BigDecimal("3030.15"));
+  }
+
+  @Test
+  void calculateTotalRevenueIgnoresEmptyOrders() {
+    OrderBatch batch = OrderBatch.of(List.of(order("o-1", OrderStatus.NEW)));
+
+    assertThat(SalesAnalyzer.calculateTotalRevenue(batch)).isEqualTo(BigDecimal.ZERO);
+  }
+
+  @Test
+  void calculateRevenueByStatusThrowsWhenOrderHasNoLines() {
+    OrderBatch batch = OrderBatch.of(List.of(order("o-1", OrderStatus.NEW)));
+
+    assertThatThrownBy(() -> SalesAnalyzer.calculateRevenueByStatus(batch))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Cannot total an empty order");
+  }
+
+  @Test
+  void batchRejectsOrdersMixingCurrencies() {
+    Order mixed =
+        order(
+            "o-1",
+            OrderStatus.NEW,
+            lineItem(product("p-1", "1.00", USD), 1),
+            lineItem(product("p-2", "100", JPY), 1));
+
+    assertThatThrownBy(() -> OrderBatch.of(List.of(mixed)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Currency mismatch");
+  }
+}
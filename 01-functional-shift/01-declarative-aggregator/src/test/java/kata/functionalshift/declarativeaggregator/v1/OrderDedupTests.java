@@ -0,0 +1,169 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.solution.OffHeapOrderIdSet;
+import kata.functionalshift.declarativeaggregator.solution.OrderDedup;
+import kata.functionalshift.declarativeaggregator.solution.OrderGenerator;
+import kata.functionalshift.declarativeaggregator.solution.ParallelSalesAnalyzer;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import kata.functionalshift.declarativeaggregator.solution.SalesReport;
+import kata.functionalshift.declarativeaggregator.solution.SalesReport.Metric;
+import org.junit.jupiter.api.Test;
+
+class OrderDedupTests {
+
+  @Test
+  void offHeapSetIsExactAndGrows() {
+    List<OrderId> ids = OrderId.newRandom(100_000);
+    OffHeapOrderIdSet set = OffHeapOrderIdSet.create(0);
+
+    assertThat(set.capacity()).isEqualTo(16);
+    for (OrderId id : ids) {
+      assertThat(set.add(id)).isTrue();
+    }
+    for (OrderId id : ids) {
+      assertThat(set.add(id)).isFalse();
+    }
+
+    assertThat(set.size()).isEqualTo(100_000);
+    assertThat(set.capacity()).isEqualTo(1 << 18);
+    assertThat(set.contains(ids.get(54_321))).isTrue();
+    assertThat(set.contains(OrderId.newRandom())).isFalse();
+    assertThat(set.isSpilled()).isFalse();
+    assertThat(OffHeapOrderIdSet.create(12).capacity()).isEqualTo(16);
+    assertThat(OffHeapOrderIdSet.create(13).capacity()).isEqualTo(32);
+  }
+
+  @Test
+  void spillsToAMappedFileThatLeavesNothingBehind() throws Exception {
+    Path directory = Files.createTempDirectory("order-ids");
+    try {
+      List<OrderId> ids = OrderId.newRandom(10_000);
+      OffHeapOrderIdSet set = OffHeapOrderIdSet.create(0, 4_096, directory);
+
+      assertThat(set.isSpilled()).isFalse();
+      ids.forEach(set::add);
+      ids.forEach(set::add);
+
+      assertThat(set.isSpilled()).isTrue();
+      assertThat(set.size()).isEqualTo(10_000);
+      assertThat(set.contains(ids.get(0))).isTrue();
+      assertThat(set.contains(ids.get(9_999))).isTrue();
+      try (Stream<Path> files = Files.list(directory)) {
+        assertThat(files.count()).isZero();
+      }
+    } finally {
+      Files.deleteIfExists(directory);
+    }
+  }
+
+  @Test
+  void setsLeftToTheCollectorStillDropTheirSpillFiles() throws Exception {
+    boolean freesOnClose = OffHeapOrderIdSet.freesOnClose();
+    Path directory = Files.createTempDirectory("order-ids");
+    OffHeapOrderIdSet.setFreeOnClose(false);
+    try {
+      List<OrderId> ids = OrderId.newRandom(10_000);
+      OffHeapOrderIdSet set = OffHeapOrderIdSet.create(0, 4_096, directory);
+      ids.forEach(set::add); // every table replaced while growing is left to the collector
+
+      assertThat(OffHeapOrderIdSet.freesOnClose()).isFalse();
+      assertThat(set.isSpilled()).isTrue();
+      assertThat(set.size()).isEqualTo(10_000);
+      assertThat(set.contains(ids.get(9_999))).isTrue();
+
+      set.close();
+      set.close();
+
+      try (Stream<Path> files = Files.list(directory)) {
+        assertThat(files.count()).isZero();
+      }
+      assertThatThrownBy(() -> set.contains(ids.get(0))).isInstanceOf(IllegalStateException.class);
+    } finally {
+      OffHeapOrderIdSet.setFreeOnClose(freesOnClose);
+      Files.deleteIfExists(directory);
+    }
+    assertThat(OffHeapOrderIdSet.freesOnClose()).isEqualTo(freesOnClose);
+  }
+
+  @Test
+  void stagesAgreeOnTheFirstOccurrence() {
+    List<OrderId> ids = OrderId.newRandom(3);
+    List<OrderId> input = List.of(ids.get(0), ids.get(1), ids.get(0), ids.get(2), ids.get(1));
+
+    for (OrderDedup dedup : List.of(OrderDedup.ON_HEAP, OrderDedup.OFF_HEAP)) {
+      try (OrderDedup.Stage firstSeen = dedup.open(0)) {
+        assertThat(input.stream().map(firstSeen::test).toList())
+            .containsExactly(true, true, false, true, false);
+      }
+    }
+  }
+
+  @Test
+  void closingAStageFreesItsTableAndSpillFiles() throws Exception {
+    Path directory = Files.createTempDirectory("order-ids");
+    try {
+      List<OrderId> ids = OrderId.newRandom(10_000);
+      OrderDedup.Stage firstSeen = OrderDedup.offHeap(4_096, directory).open(0);
+      ids.forEach(firstSeen::test);
+
+      firstSeen.close();
+      firstSeen.close();
+
+      try (Stream<Path> files = Files.list(directory)) {
+        assertThat(files.count()).isZero();
+      }
+      assertThatThrownBy(() -> firstSeen.test(ids.get(0)))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageContaining("closed");
+    } finally {
+      Files.deleteIfExists(directory);
+    }
+
+    OffHeapOrderIdSet set = OffHeapOrderIdSet.create(100);
+    set.add(OrderId.newRandom());
+    set.close();
+    assertThatThrownBy(() -> set.contains(OrderId.newRandom()))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void analyzersGiveTheSameResultsWithAnOffHeapStage() {
+    List<Order> orders =
+        OrderGenerator.builder(11, 20_000).duplicatePercent(25).build().list(0, 20_000);
+    OrderDedup offHeap = OrderDedup.OFF_HEAP;
+    SalesReport report =
+        SalesReport.of(Metric.STATUS_COUNTS, Metric.TOTAL_REVENUE, Metric.ORDER_IDS_BY_STATUS);
+
+    assertThat(SalesAnalyzer.countOrdersByStatus(orders, OrderStatus.PAID, offHeap))
+        .isEqualTo(SalesAnalyzer.countOrdersByStatus(orders, OrderStatus.PAID));
+    assertThat(SalesAnalyzer.calculateTotalRevenue(orders, offHeap))
+        .isEqualTo(SalesAnalyzer.calculateTotalRevenue(orders));
+    assertThat(SalesAnalyzer.groupOrderIdsByStatus(orders, offHeap))
+        .isEqualTo(SalesAnalyzer.groupOrderIdsByStatus(orders));
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ParallelSalesAnalyzer parallel = new ParallelSalesAnalyzer(pool, offHeap);
+      assertThat(parallel.groupOrderIdsByStatus(orders))
+          .isEqualTo(SalesAnalyzer.groupOrderIdsByStatus(orders));
+      assertThat(parallel.calculateTotalRevenue(orders))
+          .isEqualTo(SalesAnalyzer.calculateTotalRevenue(orders));
+    } finally {
+      pool.shutdown();
+    }
+    assertThat(report.withDedup(offHeap).run(orders).orderIdsByStatus())
+        .isEqualTo(report.run(orders).orderIdsByStatus());
+    assertThat(report.withDedup(offHeap).run(orders).totalRevenue())
+        .isEqualTo(SalesAnalyzer.calculateTotalRevenue(orders));
+  }
+}
@@ -0,0 +1,188 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.JPY;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.USD;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.lineItem;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.order;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.DiscountId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.solution.OrderFile;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.junit.jupiter.api.Test;
+
+class OrderFileTests {
+  @Test
+  void mappedOverloadsMatchListBasedResults() throws IOException {
+    ProductSnapshot book = product("p-1", "10.00", USD);
+    ProductSnapshot laptop = product("p-2", "900.00", USD);
+    ProductSnapshot ramen = product("p-3", "1500", JPY);
+    List<Order> orders =
+        List.of(
+            order("o-1", OrderStatus.NEW, lineItem(book, 2), lineItem(laptop, 1)),
+            order("o-2", OrderStatus.SHIPPED, lineItem(ramen, 3)),
+            order("o-1", OrderStatus.NEW, lineItem(book, 2), lineItem(laptop, 1)),
+            order("o-3", OrderStatus.NEW, lineItem(book, 1)),
+            order("o-4", OrderStatus.RECEIVED, lineItem(ramen, 7)));
+
+    OrderFile file = writeAndOpen(orders);
+
+    assertThat(file.orderCount()).isEqualTo(4);
+    for (OrderStatus status : OrderStatus.values()) {
+      assertThat(SalesAnalyzer.countOrdersByStatus(file, status))
+          .isEqualTo(SalesAnalyzer.countOrdersByStatus(orders, status));
+    }
+    assertThat(SalesAnalyzer.calculateTotalRevenue(file))
+        .isEqualTo(SalesAnalyzer.calculateTotalRevenue(orders));
+    assertThat(SalesAnalyzer.getDistinctProductsSold(file))
+        .containsExactlyElementsOf(SalesAnalyzer.getDistinctProductsSold(orders));
+    assertThat(SalesAnalyzer.groupOrderIdsByStatus(file))
+        .isEqualTo(SalesAnalyzer.groupOrderIdsByStatus(orders));
+    assertThat(SalesAnalyzer.calculateRevenueByStatus(file))
+        .isEqualTo(SalesAnalyzer.calculateRevenueByStatus(orders));
+  }
+
+  @Test
+  void distinctProductsIncludeLinesOfRepeatedOrderIds() throws IOException {
+    ProductSnapshot book = product("p-1", "10.00", USD);
+    ProductSnapshot ramen = product("p-3", "1500", JPY);
+    List<Order> orders =
+        List.of(
+            order("o-1", OrderStatus.NEW, lineItem(book, 1)),
+            order("o-1", OrderStatus.PAID, lineItem(ramen, 2)));
+
+    OrderFile file = writeAndOpen(orders);
+
+    assertThat(file.orderCount()).isEqualTo(1);
+    assertThat(file.order(0).lines()).hasSize(1);
+    assertThat(SalesAnalyzer.getDistinctProductsSold(file))
+        .containsExactly(book, ramen)
+        .containsExactlyElementsOf(SalesAnalyzer.getDistinctProductsSold(orders));
+  }
+
+  @Test
+  void ordersRoundTripWithLinesDiscountsAndVersion() throws IOException {
+    DiscountId discount = new DiscountId(UUID.randomUUID());
+    Order original =
+        Order.builder(OrderId.newRandom())
+            .add(product("p-1", "3.50", USD), 2, null)
+            .add(product("p-1", "3.50", USD), 1, discount)
+            .add(product("p-2", "0.99", USD), 5, null)
+            .status(OrderStatus.PAID)
+            .version(7)
+            .build();
+
+    Order decoded = writeAndOpen(List.of(original)).order(0);
+
+    assertThat(decoded).isEqualTo(original);
+    assertThat(decoded.lines()).containsExactlyElementsOf(original.lines());
+    assertThat(decoded.status()).isEqualTo(OrderStatus.PAID);
+    assertThat(decoded.version()).isEqualTo(7);
+    assertThat(decoded.totalBeforeDiscount()).isEqualTo(original.totalBeforeDiscount());
+  }
+
+  @Test
+  void emptyOrdersAreSkippedByTotalsButRejectedPerStatus() throws IOException {
+    OrderFile file = writeAndOpen(List.of(order("o-1", OrderStatus.NEW)));
+
+    assertThat(SalesAnalyzer.calculateTotalRevenue(file)).isEqualTo(BigDecimal.ZERO);
+    assertThatThrownBy(() -> SalesAnalyzer.calculateRevenueByStatus(file))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Cannot total an empty order");
+  }
+
+  @Test
+  void openRejectsForeignAndTruncatedFiles() throws IOException {
+    Path path = Files.createTempFile("orders", ".bin");
+    try {
+      OrderFile.write(path, List.of(order("o-1", OrderStatus.NEW, lineItem(book(), 1))));
+      byte[] bytes = Files.readAllBytes(path);
+
+      Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+      assertThatThrownBy(() -> OrderFile.open(path))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("Truncated");
+
+      bytes[0] ^= 1;
+      Files.write(path, bytes);
+      assertThatThrownBy(() -> OrderFile.open(path))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("Not an order file");
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  private static OrderFile writeAndOpen(List<Order> orders) throws IOException {
+    Path path = Files.createTempFile("orders", ".bin");
+    try {
+      OrderFile.write(path, orders);
+      return OrderFile.open(path);
+    } finally {
+      path.toFile().deleteOnExit();
+    }
+  }
+
+
+
+  @Test
+  void openRejectsCodesOutsideTheDictionaries() throws IOException {
+    Path path = Files.createTempFile("orders", ".bin");
+    try {
+      OrderFile.write(path, List.of(order("o-1", OrderStatus.NEW, lineItem(book(), 1))));
+      byte[] bytes = Files.readAllBytes(path);
+      int lineProduct = 108; // header, six long columns of one entry, then four int columns
+      int status = bytes.length - "p-1".length() - "USD".length() - 1;
+
+      byte[] badProduct = bytes.clone();
+      badProduct[lineProduct] = 5;
+      Files.write(path, badProduct);
+      assertThatThrownBy(() -> OrderFile.open(path))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("line product code 5");
+
+      byte[] badStatus = bytes.clone();
+      badStatus[status] = 42;
+      Files.write(path, badStatus);
+      assertThatThrownBy(() -> OrderFile.open(path))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("status code 42");
+
+      Files.write(path, bytes);
+      assertThat(OrderFile.open(path).orderCount()).isEqualTo(1);
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  void writeReplacesTheFileWithoutLeavingATemporaryFile() throws IOException {
+    Path path = Files.createTempFile("orders", ".bin");
+    try {
+      OrderFile.write(path, List.of(order("o-1", OrderStatus.NEW, lineItem(book(), 1))));
+      OrderFile.write(path, List.of());
+
+      assertThat(OrderFile.open(path).orderCount()).isZero();
+      assertThat(Files.exists(path.resolveSibling(path.getFileName() + ".tmp"))).isFalse();
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  private static ProductSnapshot book() {
+    return product("p-1", "10.00", USD);
+  }
+}
@@ -0,0 +1,124 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.OrderBatch;
+import kata.functionalshift.declarativeaggregator.solution.OrderGenerator;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.junit.jupiter.api.Test;
+
+class OrderGeneratorTests {
+  private static final Currency USD = Currency.getInstance("USD");
+  private static final Currency JPY = Currency.getInstance("JPY");
+
+  @Test
+  void sameSeedGivesTheSameOrdersSequentiallyInParallelAndBySlice() {
+    OrderGenerator generator = OrderGenerator.builder(42, 5_000).duplicatePercent(10).build();
+
+    List<String> sequential = generator.stream().map(OrderGeneratorTests::fingerprint).toList();
+    List<String> parallel =
+        generator.stream().parallel().map(OrderGeneratorTests::fingerprint).toList();
+    List<String> again =
+        OrderGenerator.builder(42, 5_000).duplicatePercent(10).build().stream()
+            .map(OrderGeneratorTests::fingerprint)
+            .toList();
+
+    assertThat(parallel).isEqualTo(sequential);
+    assertThat(again).isEqualTo(sequential);
+    assertThat(fingerprint(generator.order(4_321))).isEqualTo(sequential.get(4_321));
+    assertThat(generator.list(100, 110).stream().map(OrderGeneratorTests::fingerprint).toList())
+        .isEqualTo(sequential.subList(100, 110));
+    assertThat(OrderGenerator.builder(43, 5_000).build().order(0).id())
+        .isNotEqualTo(generator.order(0).id());
+  }
+
+  @Test
+  void followsTheConfiguredDistributions() {
+    Map<OrderStatus, Integer> mix = Map.of(OrderStatus.NEW, 3, OrderStatus.PAID, 1);
+    List<Order> orders =
+        OrderGenerator.builder(7, 40_000)
+            .skus(1_000, 1.2)
+            .lines(1, 1)
+            .duplicatePercent(20)
+            .statusMix(mix)
+            .build()
+            .list(0, 40_000);
+
+    double distinct = orders.stream().distinct().count() / 40_000.0;
+    Map<OrderStatus, Long> statuses =
+        orders.stream().collect(Collectors.groupingBy(Order::status, Collectors.counting()));
+    Map<Sku, Long> skuLines = new HashMap<>();
+    for (Order order : orders) {
+      assertThat(order.lineCount()).isEqualTo(1);
+      for (OrderLine line : order.lines()) {
+        skuLines.merge(line.key().productSnapshot().sku(), 1L, Long::sum);
+      }
+    }
+    long top = skuLines.getOrDefault(new Sku("SKU-0"), 0L);
+    long tenth = skuLines.getOrDefault(new Sku("SKU-9"), 0L);
+
+    assertThat(distinct).isBetween(0.78, 0.82);
+    assertThat(statuses).containsOnlyKeys(OrderStatus.NEW, OrderStatus.PAID);
+    assertThat(statuses.get(OrderStatus.NEW) / 40_000.0).isBetween(0.73, 0.77);
+    assertThat(top).isEqualTo(skuLines.values().stream().mapToLong(l -> l).max().orElse(0));
+    assertThat((double) top / tenth).isBetween(12.0, 20.0); // 10^1.2 ≈ 15.8
+  }
+
+  @Test
+  void spreadsIdsOverTheTimeSpanAndPricesEachOrderInOneCurrency() {
+    Instant start = Instant.parse("2025-03-01T00:00:00Z");
+    OrderGenerator generator =
+        OrderGenerator.builder(1, 20_000)
+            .currencies(USD, JPY)
+            .timeSpan(start, Duration.ofHours(2))
+            .build();
+    List<Order> orders = generator.list(0, 20_000);
+
+    Set<Currency> seen =
+        orders.stream().map(o -> o.totalBeforeDiscount().currency()).collect(Collectors.toSet());
+    assertThat(seen).containsExactlyInAnyOrder(USD, JPY);
+    assertThat(orders.get(0).creationInstant()).isEqualTo(start);
+    assertThat(orders.get(19_999).creationInstant())
+        .isBetween(start.plus(Duration.ofMinutes(119)), start.plus(Duration.ofHours(2)));
+    for (int i = 1; i < orders.size(); i++) {
+      assertThat(orders.get(i).creationInstant())
+          .isGreaterThanOrEqualTo(orders.get(i - 1).creationInstant());
+    }
+    OrderBatch batch = OrderBatch.of(orders);
+    assertThat(SalesAnalyzer.calculateRevenueByStatus(batch))
+        .isEqualTo(SalesAnalyzer.calculateRevenueByStatus(orders));
+    assertThat(SalesAnalyzer.getDistinctProductsSold(batch))
+        .containsExactlyElementsOf(SalesAnalyzer.getDistinctProductsSold(orders));
+  }
+
+  @Test
+  void neverShipsEmptyOrdersAndValidatesSettings() {
+    List<Order> empty = OrderGenerator.builder(3, 1_000).lines(0, 0).build().list(0, 1_000);
+
+    assertThat(empty.stream().mapToInt(Order::lineCount).sum()).isZero();
+    assertThat(empty.stream().filter(o -> o.status() == OrderStatus.SHIPPED).count()).isZero();
+    assertThatThrownBy(() -> OrderGenerator.builder(1, 10).lines(3, 2))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> OrderGenerator.builder(1, 10).statusMix(Map.of()))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> OrderGenerator.builder(1, 10).build().order(10))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  private static String fingerprint(Order order) {
+    return order.id() + " " + order.status() + " " + order.lines();
+  }
+}
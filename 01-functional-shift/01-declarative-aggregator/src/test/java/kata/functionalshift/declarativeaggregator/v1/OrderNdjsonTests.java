@@ -0,0 +1,182 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.vo.CatalogDictionary;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.OrderGenerator;
+import kata.functionalshift.declarativeaggregator.solution.OrderJson;
+import kata.functionalshift.declarativeaggregator.solution.OrderNdjson;
+import kata.functionalshift.declarativeaggregator.solution.RunningTotals;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.junit.jupiter.api.Test;
+
+class OrderNdjsonTests {
+  private static final List<Order> ORDERS =
+      OrderGenerator.builder(24, 5_000).lines(1, 6).duplicatePercent(10).build().list(0, 5_000);
+
+  @Test
+  void parallelReadMatchesTheSequentialReaderInOrder() throws Exception {
+    Path file = Files.createTempFile("orders", ".ndjson");
+    try (ExecutorService pool = Executors.newFixedThreadPool(4)) {
+      write(file, ORDERS);
+      StringBuilder array = new StringBuilder();
+      OrderJson.write(ORDERS, array);
+      List<Order> expected = new ArrayList<>();
+      OrderJson.read(new StringReader(array.toString()), expected::add);
+
+      for (int chunkBytes : new int[] {1, 700, 64 << 10}) {
+        List<Order> read = new ArrayList<>();
+        long count = new OrderNdjson(pool, 4, chunkBytes).read(file, read::add);
+
+        assertThat(count).isEqualTo(ORDERS.size());
+        assertThat(read).containsExactlyElementsOf(expected);
+        for (int i = 0; i < read.size(); i++) {
+          assertThat(read.get(i).lines()).isEqualTo(expected.get(i).lines());
+          assertThat(read.get(i).status()).isEqualTo(expected.get(i).status());
+        }
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void workersShareOneSkuInstancePerValue() throws Exception {
+    Path file = Files.createTempFile("orders", ".ndjson");
+    try (ExecutorService pool = Executors.newFixedThreadPool(4)) {
+      write(file, ORDERS);
+      CatalogDictionary catalog = CatalogDictionary.unbounded();
+      List<Order> read = new ArrayList<>();
+      new OrderNdjson(pool, 4, 700).read(file, catalog, read::add);
+
+      Map<Sku, Sku> first = new HashMap<>();
+      for (Order order : read) {
+        for (OrderLine line : order.lines()) {
+          Sku sku = line.key().productSnapshot().sku();
+          assertThat(first.computeIfAbsent(sku, s -> s)).isSameAs(sku);
+          assertThat(catalog.sku(sku)).isSameAs(sku);
+        }
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void feedsASingleThreadedConsumer() throws Exception {
+    Path file = Files.createTempFile("orders", ".ndjson");
+    try (ExecutorService pool = Executors.newFixedThreadPool(3)) {
+      write(file, ORDERS);
+      Files.writeString(file, "\n\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+      RunningTotals totals = RunningTotals.create();
+
+      new OrderNdjson(pool, 3, 4096).read(file, totals::accept);
+
+      assertThat(totals.revenueByStatus())
+          .isEqualTo(SalesAnalyzer.calculateRevenueByStatus(ORDERS));
+      Files.writeString(file, "");
+      assertThat(new OrderNdjson(pool, 3).read(file, order -> {})).isZero();
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void malformedLinesNameTheirChunk() throws Exception {
+    Path file = Files.createTempFile("orders", ".ndjson");
+    try (ExecutorService pool = Executors.newFixedThreadPool(2)) {
+      List<Order> valid = ORDERS.subList(0, 100);
+      write(file, valid);
+      Files.writeString(file, "{\"id\": }\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+      long size = Files.size(file);
+      List<Order> read = new ArrayList<>();
+
+      assertThatThrownBy(() -> new OrderNdjson(pool, 2, 1).read(file, read::add))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("In bytes " + (size - 9) + ".." + size)
+          .hasMessageContaining("Malformed order JSON at character 7");
+      assertThat(read).containsExactlyElementsOf(valid);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void aFailedChunkNeverStrandsTheChunksClaimedBeforeIt() throws Exception {
+    Path file = Files.createTempFile("orders", ".ndjson");
+    try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+      StringBuilder valid = new StringBuilder();
+      OrderNdjson.write(ORDERS.subList(0, 2_000), valid);
+      StringBuilder lines = new StringBuilder("{\"id\": }\n");
+      for (String line : valid.toString().split("\n")) {
+        lines.append(line).append("\n{\"id\": }\n");
+      }
+      Files.writeString(file, lines);
+
+      // one line per chunk, every other one failing while the workers keep claiming
+      for (int round = 0; round < 20; round++) {
+        FutureTask<Long> reading =
+            new FutureTask<>(() -> new OrderNdjson(pool, 8, 1).read(file, order -> {}));
+        Thread.ofVirtual().start(reading);
+
+        assertThatThrownBy(() -> reading.get(30, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasMessageContaining("In bytes 0..9");
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void aSinkFailureStopsTheRead() throws Exception {
+    Path file = Files.createTempFile("orders", ".ndjson");
+    try (ExecutorService pool = Executors.newFixedThreadPool(2)) {
+      write(file, ORDERS);
+      AtomicInteger seen = new AtomicInteger();
+
+      assertThatThrownBy(
+              () ->
+                  new OrderNdjson(pool, 2, 256)
+                      .read(
+                          file,
+                          order -> {
+                            if (seen.incrementAndGet() == 10) {
+                              throw new IllegalStateException("sink is full");
+                            }
+                          }))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessage("sink is full");
+      assertThat(seen.get()).isEqualTo(10);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static void write(Path file, List<Order> orders) throws IOException {
+    try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      OrderNdjson.write(orders, out);
+    }
+  }
+}
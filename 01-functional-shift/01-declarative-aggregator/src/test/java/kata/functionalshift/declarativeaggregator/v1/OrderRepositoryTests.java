@@ -0,0 +1,124 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.OrderRepository;
+import org.junit.jupiter.api.Test;
+
+class OrderRepositoryTests {
+  private static final Currency USD = Currency.getInstance("USD");
+  private static final ProductSnapshot APPLE =
+      new ProductSnapshot(new Sku("APPLE"), Money.of(new BigDecimal("1.50"), USD));
+  private static final ProductSnapshot PEAR =
+      new ProductSnapshot(new Sku("PEAR"), Money.of(new BigDecimal("2.00"), USD));
+
+  @Test
+  void updatesStoreTheNextVersion() {
+    OrderRepository repository = new OrderRepository();
+    Order order = Order.builder(OrderId.newRandom()).build();
+
+    assertThat(repository.insert(order)).isTrue();
+    assertThat(repository.insert(order)).isFalse();
+    Order updated = repository.update(order.id(), b -> b.add(APPLE, 2, null));
+
+    assertThat(updated.version()).isEqualTo(1);
+    assertThat(updated.totalQuantity()).isEqualTo(2);
+    assertThat(repository.find(order.id())).contains(updated);
+    assertThat(repository.find(order.id()).orElseThrow().version()).isEqualTo(1);
+    assertThat(repository.remove(order.id())).isPresent();
+    assertThat(repository.find(order.id())).isEmpty();
+    assertThatThrownBy(() -> repository.update(order.id(), b -> b.add(APPLE, 1, null)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Order does not exist");
+  }
+
+  @Test
+  void batchedEditsLandTogetherInOneVersionOrNotAtAll() {
+    OrderRepository repository = new OrderRepository();
+    Order order = Order.builder(OrderId.newRandom()).add(APPLE, 1, null).build();
+    repository.insert(order);
+    List<Consumer<Order.Builder>> edits =
+        List.of(b -> b.add(PEAR, 3, null), b -> b.setQuantity(APPLE, 5, null));
+    ProductSnapshot missing = new ProductSnapshot(new Sku("KIWI"), Money.of(BigDecimal.ONE, USD));
+    List<Consumer<Order.Builder>> failing =
+        List.of(b -> b.add(PEAR, 1, null), b -> b.setQuantity(missing, 1, null));
+
+    Order updated = repository.update(order.id(), edits);
+
+    assertThat(updated.version()).isEqualTo(1);
+    assertThat(updated.totalQuantity()).isEqualTo(8);
+    assertThatThrownBy(() -> repository.update(order.id(), failing))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Product does not exist in order");
+    assertThat(repository.find(order.id()).orElseThrow().totalQuantity()).isEqualTo(8);
+    assertThat(repository.contention().updates()).isEqualTo(1);
+  }
+
+  @Test
+  void replaceRefusesAStaleVersion() {
+    OrderRepository repository = new OrderRepository();
+    Order read = Order.builder(OrderId.newRandom()).add(APPLE, 1, null).build();
+    repository.insert(read);
+    repository.update(read.id(), b -> b.status(OrderStatus.PAID));
+
+    assertThat(repository.replace(read, read.add(PEAR, 1, null))).isEmpty();
+    Order current = repository.find(read.id()).orElseThrow();
+    Order shipped = current.toBuilder().status(OrderStatus.SHIPPED).build();
+    assertThat(repository.replace(current, shipped).orElseThrow().version()).isEqualTo(2);
+    assertThat(repository.contention().conflicts()).isEqualTo(1);
+    assertThatThrownBy(
+            () -> repository.replace(current, Order.builder(OrderId.newRandom()).build()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void concurrentEditsOfAHotOrderAreNeverLost() throws Exception {
+    OrderRepository repository = new OrderRepository();
+    Order hot = Order.builder(OrderId.newRandom()).add(APPLE, 1, null).build();
+    repository.insert(hot);
+    int threads = 8;
+    int editsPerThread = 2_000;
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+      for (int t = 0; t < threads; t++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < editsPerThread; i++) {
+                    repository.update(hot.id(), b -> b.add(APPLE, 1, null));
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> result : results) {
+        result.get();
+      }
+    }
+
+    Order last = repository.find(hot.id()).orElseThrow();
+    assertThat(last.totalQuantity()).isEqualTo(1 + threads * editsPerThread);
+    assertThat(last.version()).isEqualTo(threads * editsPerThread);
+    assertThat(repository.contention().updates()).isEqualTo(threads * editsPerThread);
+    assertThat(repository.contention().maxRetries())
+        .isLessThanOrEqualTo(repository.contention().retries());
+  }
+}
@@ -0,0 +1,126 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.USD;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.order;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineKey;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import org.junit.jupiter.api.Test;
+
+class OrderTests {
+  @Test
+  void addCreatesLineWithRequestedQuantity() {
+    ProductSnapshot book = product("p-1", "10.00");
+
+    Order order = emptyOrder().add(book, 3, null);
+
+    assertThat(order.lines()).hasSize(1);
+    assertThat(order.lines().get(0).quantity()).isEqualTo(3);
+    assertThat(order.totalBeforeDiscount()).isEqualTo(Money.of(new BigDecimal("30.00"), USD));
+  }
+
+  @Test
+  void addMergesSameProductIntoExistingLine() {
+    ProductSnapshot book = product("p-1", "10.00");
+    ProductSnapshot pen = product("p-2", "1.50");
+
+    Order order = emptyOrder().add(book, 1, null).add(pen, 2, null).add(book, 4, null);
+
+    assertThat(order.lines()).hasSize(2);
+    OrderLine bookLine = order.lines().get(0);
+    assertThat(bookLine.key().productSnapshot()).isEqualTo(book);
+    assertThat(bookLine.quantity()).isEqualTo(5);
+  }
+
+  @Test
+  void setQuantityReplacesQuantityOfAddedLine() {
+    ProductSnapshot book = product("p-1", "10.00");
+
+    Order order = emptyOrder().add(book, 1, null).setQuantity(book, 6, null);
+
+    assertThat(order.lines().get(0).quantity()).isEqualTo(6);
+  }
+
+  @Test
+  void updatesLeaveThePreviousOrderUnchanged() {
+    ProductSnapshot book = product("p-1", "10.00");
+    ProductSnapshot pen = product("p-2", "1.50");
+    Order original = emptyOrder().add(book, 1, null);
+
+    Order added = original.add(pen, 2, null);
+    Order removed = added.setQuantity(book, 0, null);
+
+    assertThat(original.lines()).extracting(OrderLine::quantity).containsExactly(1);
+    assertThat(added.lines()).extracting(OrderLine::quantity).containsExactly(1, 2);
+    assertThat(removed.lines()).extracting(OrderLine::key).containsExactly(new LineKey(pen, null));
+  }
+
+  @Test
+  void builderKeepsInsertionOrderAcrossManyLines() {
+    List<ProductSnapshot> products =
+        IntStream.range(0, 2_000).mapToObj(i -> product("p-" + i, "1.00")).toList();
+
+    Order.Builder builder = Order.builder(emptyOrder().id());
+    products.forEach(product -> builder.add(product, 1, null));
+    builder.setQuantity(products.get(0), 0, null).add(products.get(0), 3, null);
+    Order order = builder.status(OrderStatus.PAID).build();
+
+    assertThat(order.status()).isEqualTo(OrderStatus.PAID);
+    assertThat(order.lines()).hasSize(2_000);
+    assertThat(order.lines().get(0).key().productSnapshot()).isEqualTo(products.get(1));
+    assertThat(order.lines().get(1_999).key().productSnapshot()).isEqualTo(products.get(0));
+    assertThat(order.lines().get(1_999).quantity()).isEqualTo(3);
+    assertThat(order.totalBeforeDiscount()).isEqualTo(Money.of(new BigDecimal("2002.00"), USD));
+  }
+
+  @Test
+  void builderEditsAfterBuildDoNotLeakIntoBuiltOrders() {
+    ProductSnapshot book = product("p-1", "10.00");
+    Order.Builder builder = Order.builder(emptyOrder().id()).add(book, 1, null);
+
+    Order first = builder.build();
+    Order second = builder.add(book, 4, null).add(product("p-2", "1.50"), 1, null).build();
+
+    assertThat(first.lines()).extracting(OrderLine::quantity).containsExactly(1);
+    assertThat(second.lines()).extracting(OrderLine::quantity).containsExactly(5, 1);
+  }
+
+  @Test
+  void derivedValuesAreComputedOnceAndMatchTheLines() {
+    Order order =
+        emptyOrder().add(product("p-1", "10.00"), 3, null).add(product("p-2", "1.25"), 2, null);
+
+    assertThat(order.lines()).isSameAs(order.lines());
+    assertThat(order.totalBeforeDiscount()).isSameAs(order.totalBeforeDiscount());
+    assertThat(order.lineCount()).isEqualTo(2);
+    assertThat(order.totalQuantity()).isEqualTo(5L);
+    assertThat(order.totalMinorUnits()).isEqualTo(3250L);
+    assertThat(order.totalBeforeDiscount()).isEqualTo(Money.of(new BigDecimal("32.50"), USD));
+  }
+
+  @Test
+  void emptyOrderHasNoTotal() {
+    Order order = emptyOrder();
+
+    assertThat(order.lineCount()).isEqualTo(0);
+    assertThat(order.totalQuantity()).isEqualTo(0L);
+    assertThatThrownBy(order::totalMinorUnits)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Cannot total an empty order");
+  }
+
+  private static Order emptyOrder() {
+    return order(OrderId.newRandom(), OrderStatus.NEW);
+  }
+}
@@ -0,0 +1,141 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.uuidV7;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+import java.util.Random;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.OrderTimeIndex;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.junit.jupiter.api.Test;
+
+class OrderTimeIndexTests {
+  private static final Currency USD = Currency.getInstance("USD");
+
+  @Test
+  void keepsOrdersSortedByCreationTimeAndDropsRepeatedIds() {
+    Order a = order(1_000, 1, OrderStatus.NEW);
+    Order b = order(2_000, 2, OrderStatus.PAID);
+    Order c = order(3_000, 3, OrderStatus.NEW);
+    OrderTimeIndex index = new OrderTimeIndex();
+
+    assertThat(index.add(b)).isTrue();
+    assertThat(index.add(c)).isTrue();
+    assertThat(index.add(a)).isTrue(); // late: shifted into place
+    assertThat(index.add(order(2_000, 2, OrderStatus.SHIPPED))).isFalse();
+    assertThat(index.addAll(List.of(c, a))).isZero();
+
+    assertThat(index.orders()).containsExactly(a, b, c);
+    assertThat(index.orders().get(1).status()).isEqualTo(OrderStatus.PAID);
+    assertThat(OrderTimeIndex.of(List.of(c, b, a, c)).orders()).containsExactly(a, b, c);
+  }
+
+  @Test
+  void betweenIsHalfOpenAndRoundsToWholeMilliseconds() {
+    OrderTimeIndex index =
+        OrderTimeIndex.of(
+            List.of(
+                order(1_000, 1, OrderStatus.NEW),
+                order(2_000, 2, OrderStatus.NEW),
+                order(3_000, 3, OrderStatus.NEW)));
+
+    assertThat(index.between(millis(1_000), millis(3_000))).hasSize(2);
+    assertThat(index.between(millis(1_000).plusNanos(1), millis(3_000).plusNanos(1))).hasSize(2);
+    assertThat(index.between(millis(2_000), millis(2_000))).isEmpty();
+    assertThat(index.between(Instant.MIN, Instant.MAX)).hasSize(3);
+    assertThatThrownBy(() -> index.between(millis(2_000), millis(1_000)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void aggregationsMatchTheListAnalyzerOverTheSameInterval() {
+    Random random = new Random(7);
+    List<Order> orders = new ArrayList<>();
+    OrderStatus[] statuses = OrderStatus.values();
+    for (int i = 0; i < 500; i++) {
+      orders.add(order(random.nextInt(10_000), i, statuses[random.nextInt(statuses.length)]));
+    }
+    orders.addAll(orders.subList(0, 50));
+    Collections.shuffle(orders, random);
+    OrderTimeIndex index = new OrderTimeIndex();
+    index.addAll(orders);
+    Instant from = millis(2_500);
+    Instant to = millis(7_500);
+    List<Order> inInterval =
+        orders.stream()
+            .filter(o -> !o.id().creationInstant().isBefore(from))
+            .filter(o -> o.id().creationInstant().isBefore(to))
+            .toList();
+
+    assertThat(index.size()).isEqualTo(500);
+    assertThat(SalesAnalyzer.countOrdersByStatus(index, from, to, OrderStatus.PAID))
+        .isEqualTo(SalesAnalyzer.countOrdersByStatus(inInterval, OrderStatus.PAID));
+    assertThat(SalesAnalyzer.calculateTotalRevenue(index, from, to))
+        .isEqualTo(SalesAnalyzer.calculateTotalRevenue(inInterval));
+    assertThat(SalesAnalyzer.calculateRevenueByStatus(index, from, to))
+        .isEqualTo(SalesAnalyzer.calculateRevenueByStatus(inInterval));
+    assertThat(SalesAnalyzer.getDistinctProductsSold(index, from, to))
+        .containsExactlyInAnyOrderElementsOf(SalesAnalyzer.getDistinctProductsSold(inInterval));
+    assertThat(SalesAnalyzer.groupOrderIdsByStatus(index, from, to).get(OrderStatus.PAID))
+        .containsExactlyInAnyOrderElementsOf(
+            SalesAnalyzer.groupOrderIdsByStatus(inInterval).get(OrderStatus.PAID));
+  }
+
+  @Test
+  void distinctProductsIncludeLinesOfRepeatedOrderIds() {
+    Order kept = order(1_000, 1, OrderStatus.NEW);
+    ProductSnapshot other =
+        new ProductSnapshot(new Sku("SKU-X"), Money.of(new BigDecimal("2.00"), USD));
+    Order repeat = Order.builder(kept.id()).add(other, 1, null).status(OrderStatus.PAID).build();
+    List<Order> orders = List.of(kept, repeat);
+    OrderTimeIndex added = new OrderTimeIndex();
+    added.addAll(orders);
+
+    for (OrderTimeIndex index : List.of(OrderTimeIndex.of(orders), added)) {
+      assertThat(index.size()).isEqualTo(1);
+      assertThat(SalesAnalyzer.getDistinctProductsSold(index, Instant.MIN, Instant.MAX))
+          .containsExactlyElementsOf(SalesAnalyzer.getDistinctProductsSold(orders));
+    }
+  }
+
+  @Test
+  void revenueByStatusRejectsEmptyOrdersInsideTheInterval() {
+    Order empty = Order.builder(new OrderId(uuidV7(5_000, 1))).build();
+    OrderTimeIndex index = OrderTimeIndex.of(List.of(order(1_000, 2, OrderStatus.NEW), empty));
+
+    assertThat(SalesAnalyzer.calculateRevenueByStatus(index, millis(0), millis(5_000)))
+        .containsEntry(OrderStatus.NEW, new BigDecimal("10.50"));
+    assertThat(SalesAnalyzer.calculateTotalRevenue(index, millis(0), millis(6_000)))
+        .isEqualTo(new BigDecimal("10.50"));
+    assertThatThrownBy(
+            () -> SalesAnalyzer.calculateRevenueByStatus(index, millis(0), millis(6_000)))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Cannot total an empty order");
+  }
+
+  private static Instant millis(long epochMillis) {
+    return Instant.ofEpochMilli(epochMillis);
+  }
+
+  private static Order order(long epochMillis, long sequence, OrderStatus status) {
+    ProductSnapshot product =
+        new ProductSnapshot(
+            new Sku("SKU-" + sequence % 7), Money.of(new BigDecimal("10.50"), USD));
+    return Order.builder(new OrderId(uuidV7(epochMillis, sequence)))
+        .add(product, 1, null)
+        .status(status)
+        .build();
+  }
+}
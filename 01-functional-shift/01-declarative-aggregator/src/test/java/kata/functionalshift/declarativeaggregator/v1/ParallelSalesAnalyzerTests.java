@@ -0,0 +1,98 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.USD;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.lineItem;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.order;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.solution.ParallelSalesAnalyzer;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.junit.jupiter.api.Test;
+
+class ParallelSalesAnalyzerTests {
+  @Test
+  void parallelResultsMatchSequentialAnalyzerExactly() {
+    List<Order> orders = randomOrders(new Random(42), 30_000);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ParallelSalesAnalyzer analyzer = new ParallelSalesAnalyzer(pool);
+
+      for (OrderStatus status : OrderStatus.values()) {
+        assertThat(analyzer.countOrdersByStatus(orders, status))
+            .isEqualTo(SalesAnalyzer.countOrdersByStatus(orders, status));
+      }
+      assertThat(analyzer.calculateTotalRevenue(orders))
+          .isEqualTo(SalesAnalyzer.calculateTotalRevenue(orders));
+      assertThat(analyzer.getDistinctProductsSold(orders))
+          .isEqualTo(SalesAnalyzer.getDistinctProductsSold(orders));
+      assertThat(analyzer.groupOrderIdsByStatus(orders))
+          .isEqualTo(SalesAnalyzer.groupOrderIdsByStatus(orders));
+      assertThat(analyzer.calculateRevenueByStatus(orders))
+          .isEqualTo(SalesAnalyzer.calculateRevenueByStatus(orders));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void firstOccurrenceWinsWhenDuplicateIdsDisagree() {
+    Order paid = order(OrderId.newRandom(), OrderStatus.PAID, lineItem(product("p-1", "10.00"), 1));
+    Order laterDuplicate =
+        new Order(paid.id(), Map.of(), Map.of(), OrderStatus.NEW, 1)
+            .add(product("p-2", "99.00"), 1, null);
+    List<Order> orders = new LinkedList<>(List.of(paid, laterDuplicate));
+
+    ParallelSalesAnalyzer analyzer = ParallelSalesAnalyzer.onCommonPool();
+
+    assertThat(analyzer.countOrdersByStatus(orders, OrderStatus.PAID)).isEqualTo(1L);
+    assertThat(analyzer.countOrdersByStatus(orders, OrderStatus.NEW)).isEqualTo(0L);
+    assertThat(analyzer.calculateTotalRevenue(orders)).isEqualTo(new BigDecimal("10.00"));
+  }
+
+  @Test
+  void calculateRevenueByStatusThrowsWhenOrderHasNoLines() {
+    List<Order> orders = List.of(order(OrderId.newRandom(), OrderStatus.NEW));
+
+    assertThatThrownBy(() -> ParallelSalesAnalyzer.onCommonPool().calculateRevenueByStatus(orders))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Cannot total an empty order");
+  }
+
+  private static List<Order> randomOrders(Random random, int count) {
+    List<ProductSnapshot> catalog = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      catalog.add(product("p-" + i, BigDecimal.valueOf(100 + random.nextInt(10_000), 2), USD));
+    }
+    OrderStatus[] statuses = OrderStatus.values();
+    List<Order> orders = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      OrderStatus status = statuses[random.nextInt(statuses.length)];
+      if (i > 0 && random.nextInt(10) == 0) {
+        // Same id, possibly different content: only the first occurrence may count.
+        Order earlier = orders.get(random.nextInt(i));
+        orders.add(order(earlier.id(), status, lineItem(catalog.get(random.nextInt(200)), 1)));
+        continue;
+      }
+      OrderLine[] lines = new OrderLine[1 + random.nextInt(4)];
+      for (int j = 0; j < lines.length; j++) {
+        lines[j] = lineItem(catalog.get(random.nextInt(200)), 1 + random.nextInt(9));
+      }
+      orders.add(order(OrderId.newRandom(), status, lines));
+    }
+    return orders;
+  }
+}
@@ -0,0 +1,155 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.CREATED_MILLIS;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.USD;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.product;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.uuidV7;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.DiscountId;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.solution.OrderJson;
+import kata.functionalshift.declarativeaggregator.solution.RevenueService;
+import org.junit.jupiter.api.Test;
+
+class RevenueServiceTests {
+  @Test
+  void orderJsonRoundTripsLinesDiscountsAndVersion() throws IOException {
+    Order original =
+        order(1, OrderStatus.PAID)
+            .toBuilder()
+            .add(product("SKU-2", "0.99"), 5, new DiscountId(UUID.randomUUID()))
+            .version(3)
+            .build();
+    StringBuilder json = new StringBuilder();
+    OrderJson.write(List.of(original), json);
+
+    List<Order> decoded = new ArrayList<>();
+    long count = OrderJson.read(new StringReader(json.toString()), decoded::add);
+
+    assertThat(count).isEqualTo(1);
+    assertThat(decoded.get(0)).isEqualTo(original);
+    assertThat(decoded.get(0).lines()).containsExactlyElementsOf(original.lines());
+    assertThat(decoded.get(0).version()).isEqualTo(3);
+  }
+
+  @Test
+  void orderJsonSkipsUnknownFieldsAndAcceptsNumericAmounts() throws IOException {
+    String json =
+        """
+        [{"note": {"tags": ["a", 1, true, null]}, "status": "NEW",
+          "id": "%s",
+          "lines": [{"sku": "sku-1", "quantity": 2,
+                     "unitPrice": {"currency": "USD", "amount": 1.5}}]}]
+        """
+            .formatted(uuidV7(CREATED_MILLIS, 1));
+
+    List<Order> decoded = new ArrayList<>();
+    OrderJson.read(new StringReader(json), decoded::add);
+
+    assertThat(decoded.get(0).totalBeforeDiscount())
+        .isEqualTo(Money.of(new BigDecimal("3.00"), USD));
+  }
+
+  @Test
+  void orderJsonRejectsMalformedInput() {
+    assertThatThrownBy(() -> OrderJson.read(new StringReader("[{\"id\": }]"), order -> {}))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Malformed order JSON at character 8");
+  }
+
+  @Test
+  void servicePostsOrdersAndReturnsRevenueByStatus() throws Exception {
+    List<Order> orders =
+        List.of(order(1, OrderStatus.NEW), order(2, OrderStatus.PAID), order(1, OrderStatus.NEW));
+    StringBuilder json = new StringBuilder();
+    OrderJson.write(orders, json);
+
+    try (RevenueService service = RevenueService.start(new InetSocketAddress("localhost", 0));
+        HttpClient http = HttpClient.newHttpClient()) {
+      HttpResponse<String> ok = post(http, service, json.toString());
+      HttpResponse<String> empty = post(http, service, "[]");
+      HttpResponse<String> malformed = post(http, service, "[{");
+
+      assertThat(ok.statusCode()).isEqualTo(200);
+      assertThat(ok.body()).isEqualTo("{\"NEW\":21.00,\"PAID\":21.00}");
+      assertThat(empty.body()).isEqualTo("{}");
+      assertThat(malformed.statusCode()).isEqualTo(400);
+    }
+  }
+
+  @Test
+  void serviceRejectsEmptyOrdersAndOtherMethods() throws Exception {
+    String emptyOrder =
+        "[{\"id\": \"%s\", \"status\": \"NEW\"}]".formatted(uuidV7(CREATED_MILLIS, 1));
+
+    try (RevenueService service = RevenueService.start(new InetSocketAddress("localhost", 0));
+        HttpClient http = HttpClient.newHttpClient()) {
+      HttpResponse<String> unprocessable = post(http, service, emptyOrder);
+      HttpResponse<String> get =
+          http.send(
+              HttpRequest.newBuilder(uri(service)).GET().build(),
+              HttpResponse.BodyHandlers.ofString());
+
+      assertThat(unprocessable.statusCode()).isEqualTo(422);
+      assertThat(unprocessable.body()).contains("Cannot total an empty order");
+      assertThat(get.statusCode()).isEqualTo(405);
+    }
+  }
+
+  @Test
+  void serviceAnswersUnexpectedFailuresWithAServerError() throws Exception {
+    String outOfRange =
+        """
+        [{"id": "%s", "status": "NEW",
+          "lines": [{"sku": "SKU-1", "quantity": 1,
+                     "unitPrice": {"currency": "USD", "amount": "1e2147483647"}}]}]
+        """
+            .formatted(uuidV7(CREATED_MILLIS, 1));
+
+    try (RevenueService service = RevenueService.start(new InetSocketAddress("localhost", 0));
+        HttpClient http = HttpClient.newHttpClient()) {
+      HttpResponse<String> failed = post(http, service, outOfRange);
+      HttpResponse<String> next = post(http, service, "[]");
+
+      assertThat(failed.statusCode()).isEqualTo(500);
+      assertThat(failed.body()).isEqualTo("{\"error\":\"Internal error\"}");
+      assertThat(next.statusCode()).isEqualTo(200);
+    }
+  }
+
+  private static HttpResponse<String> post(HttpClient http, RevenueService service, String body)
+      throws Exception {
+    return http.send(
+        HttpRequest.newBuilder(uri(service))
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static URI uri(RevenueService service) {
+    return URI.create("http://localhost:" + service.address().getPort() + RevenueService.PATH);
+  }
+
+  private static Order order(int id, OrderStatus status) {
+    return Order.builder(new OrderId(uuidV7(CREATED_MILLIS, id)))
+        .add(product("SKU-1", "10.50"), 2, null)
+        .status(status)
+        .build();
+  }
+}
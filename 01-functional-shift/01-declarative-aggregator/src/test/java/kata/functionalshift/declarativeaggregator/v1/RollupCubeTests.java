@@ -0,0 +1,163 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.JPY;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.product;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.uuidV7;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.RollupCube;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.junit.jupiter.api.Test;
+
+class RollupCubeTests {
+  private static final Sku APPLE = new Sku("APPLE");
+  private static final Sku PEAR = new Sku("PEAR");
+
+  @Test
+  void statusChangeMovesTheOrderBetweenCells() {
+    RollupCube cube = RollupCube.bucketedBy(Duration.ofMinutes(1));
+    Order order =
+        Order.builder(new OrderId(uuidV7(90_000, 1)))
+            .add(product("APPLE", "1.25"), 4, null)
+            .add(product("PEAR", "2.00"), 1, null)
+            .build();
+    Instant at = Instant.ofEpochMilli(90_000);
+
+    assertThat(cube.upsert(order)).isTrue();
+    assertThat(cube.changeStatus(order.id(), OrderStatus.PAID)).isTrue();
+
+    assertThat(cube.countOrdersByStatus(OrderStatus.NEW)).isZero();
+    assertThat(cube.countOrdersByStatus(OrderStatus.PAID)).isEqualTo(1);
+    assertThat(cube.revenueByStatus()).containsOnlyKeys(OrderStatus.PAID);
+    assertThat(cube.revenueByStatus()).containsEntry(OrderStatus.PAID, new BigDecimal("7.00"));
+    assertThat(cube.quantity(OrderStatus.PAID, APPLE, at)).isEqualTo(4);
+    assertThat(cube.revenue(OrderStatus.PAID, APPLE, at)).isEqualTo(new BigDecimal("5.00"));
+    assertThat(cube.quantity(OrderStatus.NEW, APPLE, at)).isZero();
+    assertThat(cube.quantity(APPLE)).isEqualTo(4);
+    assertThat(cube.bucketStart(at)).isEqualTo(Instant.ofEpochMilli(60_000));
+    assertThat(cube.cellCount()).isEqualTo(2);
+    assertThat(cube.order(order.id()).version()).isEqualTo(1);
+  }
+
+  @Test
+  void staleVersionsAreIgnoredAndRemovalRetractsEverything() {
+    RollupCube cube = RollupCube.bucketedBy(Duration.ofSeconds(1));
+    Order v0 =
+        Order.builder(new OrderId(uuidV7(1_000, 1))).add(product("APPLE", "3"), 2, null).build();
+    Order v2 = v0.toBuilder().status(OrderStatus.SHIPPED).version(2).build();
+
+    cube.upsert(v2);
+    assertThat(cube.upsert(v0)).isFalse();
+    assertThat(cube.countOrdersByStatus(OrderStatus.SHIPPED)).isEqualTo(1);
+    assertThat(cube.remove(v0.id())).isTrue();
+    assertThat(cube.remove(v0.id())).isFalse();
+    assertThat(cube.changeStatus(v0.id(), OrderStatus.PAID)).isFalse();
+
+    assertThat(cube.size()).isZero();
+    assertThat(cube.cellCount()).isZero();
+    assertThat(cube.quantityBySku()).isEmpty();
+    assertThat(cube.revenueByStatus()).isEmpty();
+  }
+
+  @Test
+  void matchesTheAnalyzerAfterRandomDeltas() {
+    Random random = new Random(11);
+    OrderStatus[] statuses = OrderStatus.values();
+    RollupCube cube = RollupCube.bucketedBy(Duration.ofSeconds(10));
+    Map<OrderId, Order> current = new HashMap<>();
+    List<OrderId> ids = new ArrayList<>();
+    for (int step = 0; step < 2_000; step++) {
+      int action = random.nextInt(10);
+      if (action < 5 || ids.isEmpty()) {
+        Order order = randomOrder(random, step, statuses[random.nextInt(statuses.length)]);
+        ids.add(order.id());
+        current.put(order.id(), order);
+        cube.upsert(order);
+      } else if (action < 9) {
+        OrderId id = ids.get(random.nextInt(ids.size()));
+        if (cube.changeStatus(id, statuses[random.nextInt(statuses.length)])) {
+          current.put(id, cube.order(id));
+        }
+      } else {
+        OrderId id = ids.remove(random.nextInt(ids.size()));
+        cube.remove(id);
+        current.remove(id);
+      }
+    }
+    List<Order> orders = List.copyOf(current.values());
+    Map<Sku, Long> quantities = new HashMap<>();
+    for (Order order : orders) {
+      for (OrderLine line : order.lines()) {
+        quantities.merge(line.key().productSnapshot().sku(), (long) line.quantity(), Long::sum);
+      }
+    }
+
+    assertThat(cube.size()).isEqualTo(orders.size());
+    assertThat(cube.revenueByStatus()).isEqualTo(SalesAnalyzer.calculateRevenueByStatus(orders));
+    assertThat(cube.quantityBySku()).isEqualTo(quantities);
+    for (OrderStatus status : statuses) {
+      assertThat(cube.countOrdersByStatus(status))
+          .isEqualTo(SalesAnalyzer.countOrdersByStatus(orders, status));
+    }
+  }
+
+  @Test
+  void keepsCurrenciesApartAndRejectsEmptyOrdersInRevenue() {
+    RollupCube cube = RollupCube.bucketedBy(Duration.ofHours(1));
+    Order dollars =
+        Order.builder(new OrderId(uuidV7(0, 1))).add(product("APPLE", "0.10"), 3, null).build();
+    Order yen =
+        Order.builder(new OrderId(uuidV7(0, 2)))
+            .add(new ProductSnapshot(PEAR, Money.of(new BigDecimal("150"), JPY)), 2, null)
+            .build();
+    Order mixed =
+        Order.builder(new OrderId(uuidV7(0, 3)))
+            .add(product("APPLE", "1"), 1, null)
+            .add(new ProductSnapshot(PEAR, Money.of(new BigDecimal("1"), JPY)), 1, null)
+            .build();
+    Order empty = Order.builder(new OrderId(uuidV7(0, 4))).build();
+
+    cube.upsert(dollars);
+    cube.upsert(yen);
+    assertThatThrownBy(() -> cube.upsert(mixed))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Currency mismatch");
+    assertThat(cube.revenueByStatus())
+        .isEqualTo(SalesAnalyzer.calculateRevenueByStatus(List.of(dollars, yen)));
+    assertThat(cube.revenueByStatus()).containsEntry(OrderStatus.NEW, new BigDecimal("300.30"));
+
+    cube.upsert(empty);
+    assertThat(cube.countOrdersByStatus(OrderStatus.NEW)).isEqualTo(3);
+    assertThatThrownBy(cube::revenueByStatus)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Cannot total an empty order");
+    cube.remove(empty.id());
+    assertThat(cube.revenueByStatus()).containsEntry(OrderStatus.NEW, new BigDecimal("300.30"));
+  }
+
+  private static Order randomOrder(Random random, long sequence, OrderStatus status) {
+    Order.Builder builder = Order.builder(new OrderId(uuidV7(random.nextInt(60_000), sequence)));
+    int lines = 1 + random.nextInt(3);
+    for (int i = 0; i < lines; i++) {
+      String sku = "SKU-" + random.nextInt(12);
+      builder.add(product(sku, random.nextInt(10_000) + ".25"), 1 + random.nextInt(3), null);
+    }
+    return builder.status(status).build();
+  }
+}
@@ -0,0 +1,175 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.OrderGenerator;
+import kata.functionalshift.declarativeaggregator.solution.RunningTotals;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import org.junit.jupiter.api.Test;
+
+class RunningTotalsTests {
+  private static final List<Order> ORDERS =
+      OrderGenerator.builder(23, 20_000).lines(1, 4).duplicatePercent(15).build().list(0, 20_000);
+
+  @Test
+  void totalsMatchTheAnalyzer() {
+    RunningTotals totals = feed(RunningTotals.create(), ORDERS);
+
+    for (OrderStatus status : OrderStatus.values()) {
+      assertThat(totals.countOrdersByStatus(status))
+          .isEqualTo(SalesAnalyzer.countOrdersByStatus(ORDERS, status));
+    }
+    assertThat(totals.revenueByStatus()).isEqualTo(SalesAnalyzer.calculateRevenueByStatus(ORDERS));
+    assertThat(totals.orderCount()).isEqualTo(ORDERS.stream().distinct().count());
+    assertThat(totals.quantityBySku()).isEqualTo(quantityBySku(ORDERS));
+    assertThat(totals.revenueBySku().keySet()).isEqualTo(quantityBySku(ORDERS).keySet());
+
+    Order empty = Order.builder(OrderId.newRandom()).build();
+    assertThatThrownBy(() -> totals.accept(empty)).isInstanceOf(IllegalStateException.class);
+    assertThat(totals.orderCount()).isEqualTo(ORDERS.stream().distinct().count());
+  }
+
+  @Test
+  void restoredTotalsContinueWhereTheCheckpointLeftOff() throws Exception {
+    Path directory = Files.createTempDirectory("checkpoint");
+    Path file = directory.resolve("totals.ckpt");
+    try (ExecutorService writer = Executors.newSingleThreadExecutor()) {
+      List<Order> first = ORDERS.subList(0, 12_000);
+      List<Order> rest = ORDERS.subList(12_000, ORDERS.size());
+      RunningTotals totals = feed(RunningTotals.create(), first);
+
+      assertThat(totals.checkpoint(file, writer).join()).isEqualTo(file);
+      RunningTotals restored = RunningTotals.restore(file);
+
+      assertThat(restored.revenueByStatus()).isEqualTo(totals.revenueByStatus());
+      assertThat(restored.revenueBySku()).isEqualTo(totals.revenueBySku());
+      assertThat(restored.accept(first.get(4_321))).isFalse();
+      feed(totals, rest);
+      feed(restored, rest);
+      assertThat(restored.orderCount()).isEqualTo(totals.orderCount());
+      assertThat(restored.revenueByStatus())
+          .isEqualTo(SalesAnalyzer.calculateRevenueByStatus(ORDERS));
+      assertThat(restored.quantityBySku()).isEqualTo(quantityBySku(ORDERS));
+    } finally {
+      deleteAll(directory);
+    }
+  }
+
+  @Test
+  void ingestionContinuesWhileACheckpointIsWritten() throws Exception {
+    Path directory = Files.createTempDirectory("checkpoint");
+    Path firstFile = directory.resolve("first.ckpt");
+    Path secondFile = directory.resolve("second.ckpt");
+    try (ExecutorService writer = Executors.newSingleThreadExecutor()) {
+      RunningTotals totals = feed(RunningTotals.create(), ORDERS.subList(0, 5_000));
+      Map<OrderStatus, BigDecimal> atFirst = totals.revenueByStatus();
+
+      CompletableFuture<Path> first = totals.checkpoint(firstFile, writer);
+      feed(totals, ORDERS.subList(5_000, 10_000));
+      first.join();
+      feed(totals, ORDERS.subList(10_000, 15_000));
+      Map<OrderStatus, BigDecimal> atSecond = totals.revenueByStatus();
+      CountDownLatch release = new CountDownLatch(1);
+      Future<?> blocker =
+          writer.submit(
+              () -> {
+                release.await();
+                return null;
+              });
+      CompletableFuture<Path> second = totals.checkpoint(secondFile, writer);
+      assertThatThrownBy(() -> totals.checkpoint(secondFile, writer))
+          .isInstanceOf(IllegalStateException.class);
+      feed(totals, ORDERS.subList(15_000, ORDERS.size()));
+      release.countDown();
+      blocker.get();
+      second.join();
+
+      assertThat(RunningTotals.restore(firstFile).revenueByStatus()).isEqualTo(atFirst);
+      RunningTotals restored = RunningTotals.restore(secondFile);
+      assertThat(restored.revenueByStatus()).isEqualTo(atSecond);
+      assertThat(restored.orderCount())
+          .isEqualTo(ORDERS.subList(0, 15_000).stream().distinct().count());
+      assertThat(totals.revenueByStatus())
+          .isEqualTo(SalesAnalyzer.calculateRevenueByStatus(ORDERS));
+      try (Stream<Path> files = Files.list(directory)) {
+        assertThat(files.toList()).containsExactlyInAnyOrder(firstFile, secondFile);
+      }
+    } finally {
+      deleteAll(directory);
+    }
+  }
+
+  @Test
+  void restoreRejectsFilesThatAreNotWholeCheckpoints() throws Exception {
+    Path directory = Files.createTempDirectory("checkpoint");
+    Path file = directory.resolve("totals.ckpt");
+    try {
+      feed(RunningTotals.create(), ORDERS.subList(0, 100)).checkpoint(file, Runnable::run).join();
+      byte[] bytes = Files.readAllBytes(file);
+
+      bytes[45] ^= 1;
+      Files.write(file, bytes);
+      assertThatThrownBy(() -> RunningTotals.restore(file))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("totals are corrupt");
+      bytes[45] ^= 1;
+      bytes[bytes.length - 3] ^= 1; // in the id table
+      Files.write(file, bytes);
+      assertThatThrownBy(() -> RunningTotals.restore(file))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("order ids are corrupt");
+      Files.write(file, new byte[] {1, 2, 3, 4});
+      assertThatThrownBy(() -> RunningTotals.restore(file))
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("Not a checkpoint");
+    } finally {
+      deleteAll(directory);
+    }
+  }
+
+  private static RunningTotals feed(RunningTotals totals, List<Order> orders) {
+    orders.forEach(totals::accept);
+    return totals;
+  }
+
+  private static Map<Sku, Long> quantityBySku(List<Order> orders) {
+    Set<Order> distinct = new LinkedHashSet<>(orders);
+    Map<Sku, Long> quantities = new LinkedHashMap<>();
+    for (Order order : distinct) {
+      for (OrderLine line : order.lines()) {
+        quantities.merge(line.key().productSnapshot().sku(), (long) line.quantity(), Long::sum);
+      }
+    }
+    return quantities;
+  }
+
+  private static void deleteAll(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.toList()) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+}
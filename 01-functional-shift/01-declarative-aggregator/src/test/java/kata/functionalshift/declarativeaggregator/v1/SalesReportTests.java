@@ -0,0 +1,180 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.JPY;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.USD;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.lineItem;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.order;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.SalesAnalyzer;
+import kata.functionalshift.declarativeaggregator.solution.SalesReport;
+import kata.functionalshift.declarativeaggregator.solution.SalesReport.Metric;
+import org.junit.jupiter.api.Test;
+
+class SalesReportTests {
+  @Test
+  void singlePassMatchesSalesAnalyzerMetrics() {
+    List<Order> orders = sampleOrders();
+
+    SalesReport.Result result =
+        SalesReport.of(
+                Metric.STATUS_COUNTS,
+                Metric.TOTAL_REVENUE,
+                Metric.ORDER_IDS_BY_STATUS,
+                Metric.REVENUE_BY_STATUS,
+                Metric.DISTINCT_PRODUCTS)
+            .run(orders);
+
+    for (OrderStatus status : OrderStatus.values()) {
+      assertThat(result.statusCounts().getOrDefault(status, 0L))
+          .isEqualTo(SalesAnalyzer.countOrdersByStatus(orders, status));
+    }
+    assertThat(result.totalRevenue()).isEqualTo(SalesAnalyzer.calculateTotalRevenue(orders));
+    assertThat(result.orderIdsByStatus()).isEqualTo(SalesAnalyzer.groupOrderIdsByStatus(orders));
+    assertThat(result.revenueByStatus())
+        .isEqualTo(SalesAnalyzer.calculateRevenueByStatus(orders));
+    assertThat(result.distinctProducts())
+        .containsExactlyElementsOf(SalesAnalyzer.getDistinctProductsSold(orders));
+  }
+
+  @Test
+  void valuePartitionCountsOrdersAboveThresholdAsHighValue() {
+    SalesReport.Result result =
+        SalesReport.of(Metric.VALUE_PARTITION)
+            .withHighValueThreshold(Money.of(new BigDecimal("50.00"), USD))
+            .run(sampleOrders());
+
+    assertThat(result.valuePartition()).containsEntry(true, 3L).containsEntry(false, 1L);
+  }
+
+  @Test
+  void valuePartitionRejectsOrdersInAnotherCurrency() {
+    SalesReport.Accumulator accumulator =
+        SalesReport.of(Metric.STATUS_COUNTS, Metric.VALUE_PARTITION)
+            .withHighValueThreshold(Money.of(new BigDecimal("50.00"), USD))
+            .newAccumulator();
+    Order yen = order("o-9", OrderStatus.NEW, lineItem(product("p-9", "1500", JPY), 1));
+
+    accumulator.accept(sampleOrders().get(0));
+    assertThatThrownBy(() -> accumulator.accept(yen))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Currency mismatch");
+
+    SalesReport.Result result = accumulator.result();
+    assertThat(result.statusCounts()).isEqualTo(Map.of(OrderStatus.NEW, 1L));
+    assertThat(result.valuePartition()).containsEntry(true, 0L).containsEntry(false, 1L);
+  }
+
+  @Test
+  void rejectedOrderDoesNotClaimItsId() {
+    SalesReport.Accumulator accumulator =
+        SalesReport.of(Metric.STATUS_COUNTS, Metric.VALUE_PARTITION)
+            .withHighValueThreshold(Money.of(new BigDecimal("50.00"), USD))
+            .newAccumulator();
+    Order yen = order("o-10", OrderStatus.NEW, lineItem(product("p-9", "1500", JPY), 1));
+    Order retry = order("o-10", OrderStatus.PAID, lineItem(product("p-9", "75.00", USD), 1));
+
+    assertThatThrownBy(() -> accumulator.accept(yen))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Currency mismatch");
+    accumulator.accept(retry);
+
+    SalesReport.Result result = accumulator.result();
+    assertThat(result.statusCounts()).isEqualTo(Map.of(OrderStatus.PAID, 1L));
+    assertThat(result.valuePartition()).containsEntry(true, 1L).containsEntry(false, 0L);
+  }
+
+  @Test
+  void distinctProductsIncludeLinesOfRepeatedOrderIds() {
+    ProductSnapshot book = product("p-1", "10.00");
+    ProductSnapshot pen = product("p-3", "1.25");
+    List<Order> orders =
+        List.of(
+            order("o-11", OrderStatus.NEW, lineItem(book, 1)),
+            order("o-11", OrderStatus.PAID, lineItem(pen, 2)));
+
+    SalesReport.Result result =
+        SalesReport.of(Metric.STATUS_COUNTS, Metric.DISTINCT_PRODUCTS).run(orders);
+
+    assertThat(result.statusCounts()).isEqualTo(Map.of(OrderStatus.NEW, 1L));
+    assertThat(result.distinctProducts())
+        .containsExactly(book, pen)
+        .containsExactlyElementsOf(SalesAnalyzer.getDistinctProductsSold(orders));
+  }
+
+  @Test
+  void lineMetricsCoverQuantitiesAndSkuRankings() {
+    SalesReport.Result result =
+        SalesReport.of(
+                Metric.LINE_QUANTITY_STATISTICS,
+                Metric.BEST_SELLING_SKU,
+                Metric.TOP_SKUS_BY_REVENUE)
+            .withTopSkuLimit(2)
+            .run(sampleOrders());
+
+    IntSummaryStatistics stats = result.lineQuantityStatistics();
+    assertThat(stats.getCount()).isEqualTo(6L);
+    assertThat(stats.getSum()).isEqualTo(18L);
+    assertThat(stats.getMin()).isEqualTo(1);
+    assertThat(stats.getMax()).isEqualTo(7);
+    assertThat(result.bestSellingSku()).contains(new Sku("p-1"));
+    assertThat(result.topSkusByRevenue()).containsExactly(new Sku("p-2"), new Sku("p-1"));
+  }
+
+  @Test
+  void bestSellingSkuIsEmptyWithoutOrders() {
+    SalesReport.Result result = SalesReport.of(Metric.BEST_SELLING_SKU).run(List.of());
+
+    assertThat(result.bestSellingSku()).isEmpty();
+  }
+
+  @Test
+  void accessingUndeclaredMetricThrows() {
+    SalesReport.Result result = SalesReport.of(Metric.TOTAL_REVENUE).run(sampleOrders());
+
+    assertThatThrownBy(result::statusCounts)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("STATUS_COUNTS");
+  }
+
+  @Test
+  void valuePartitionRequiresThreshold() {
+    assertThatThrownBy(() -> SalesReport.of(Metric.VALUE_PARTITION).run(sampleOrders()))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("threshold");
+  }
+
+  @Test
+  void revenueByStatusThrowsWhenOrderHasNoLines() {
+    List<Order> orders = List.of(order("o-1", OrderStatus.NEW));
+
+    assertThat(SalesReport.of(Metric.TOTAL_REVENUE).run(orders).totalRevenue())
+        .isEqualTo(BigDecimal.ZERO);
+    assertThatThrownBy(() -> SalesReport.of(Metric.REVENUE_BY_STATUS).run(orders))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Cannot total an empty order");
+  }
+
+  private List<Order> sampleOrders() {
+    ProductSnapshot book = product("p-1", "10.00");
+    ProductSnapshot laptop = product("p-2", "900.00");
+    ProductSnapshot pen = product("p-3", "1.25");
+    return List.of(
+        order("o-1", OrderStatus.NEW, lineItem(book, 2), lineItem(pen, 4)),
+        order("o-2", OrderStatus.SHIPPED, lineItem(laptop, 1)),
+        order("o-1", OrderStatus.NEW, lineItem(book, 2), lineItem(pen, 4)),
+        order("o-3", OrderStatus.NEW, lineItem(pen, 3), lineItem(laptop, 1)),
+        order("o-4", OrderStatus.RECEIVED, lineItem(book, 7)));
+  }
+}
@@ -0,0 +1,79 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineId;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineKey;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+
+/** Order fixtures shared by the tests. */
+final class TestOrders {
+  static final Currency USD = Currency.getInstance("USD");
+  static final Currency JPY = Currency.getInstance("JPY");
+  /** A creation time, 2023-11-14T22:13:20Z, for ids whose time does not matter. */
+  static final long CREATED_MILLIS = 1_700_000_000_000L;
+
+  private static final Map<String, OrderId> IDS = new ConcurrentHashMap<>();
+  private static final AtomicLong SEQUENCE = new AtomicLong();
+
+  private TestOrders() {}
+
+  /**
+   * Builds an order with exactly {@code lines}. Every order built with the same {@code orderKey}
+   * has the same id, so it stands in for one order seen twice.
+   */
+  static Order order(String orderKey, OrderStatus status, OrderLine... lines) {
+    return order(IDS.computeIfAbsent(orderKey, ignored -> OrderId.newRandom()), status, lines);
+  }
+
+  /** Builds an order with exactly {@code lines}, keeping lines that share a key apart. */
+  static Order order(OrderId id, OrderStatus status, OrderLine... lines) {
+    Map<LineKey, LineId> primaryLineForKey = new LinkedHashMap<>();
+    Map<LineId, OrderLine> lineMap = new LinkedHashMap<>();
+    for (OrderLine line : lines) {
+      primaryLineForKey.put(line.key(), line.id());
+      lineMap.put(line.id(), line);
+    }
+    return new Order(id, primaryLineForKey, lineMap, status, 0);
+  }
+
+  /**
+   * Returns a UUIDv7 created at {@code epochMillis}. Ids of the same millisecond order by {@code
+   * sequence}, so sorting them by bits sorts them by {@code (epochMillis, sequence)}.
+   */
+  static UUID uuidV7(long epochMillis, long sequence) {
+    return new UUID((epochMillis << 16) | 0x7000L, 0x8000_0000_0000_0000L | sequence);
+  }
+
+  /** Returns a UUIDv7 created at {@code epochMillis} that no other call returns. */
+  static UUID uuidV7(long epochMillis) {
+    return uuidV7(epochMillis, SEQUENCE.incrementAndGet());
+  }
+
+  static OrderLine lineItem(ProductSnapshot product, int quantity) {
+    return new OrderLine(LineId.newRandom(), new LineKey(product, null), quantity);
+  }
+
+  static ProductSnapshot product(String sku, String price) {
+    return product(sku, price, USD);
+  }
+
+  static ProductSnapshot product(String sku, String price, Currency currency) {
+    return product(sku, new BigDecimal(price), currency);
+  }
+
+  static ProductSnapshot product(String sku, BigDecimal price, Currency currency) {
+    return new ProductSnapshot(new Sku(sku), Money.of(price, currency));
+  }
+}
@@ -0,0 +1,150 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.CREATED_MILLIS;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.lineItem;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.product;
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.uuidV7;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.CountMinSketch;
+import kata.functionalshift.declarativeaggregator.solution.SpaceSaving;
+import kata.functionalshift.declarativeaggregator.solution.TopK;
+import kata.functionalshift.declarativeaggregator.solution.TopSkus;
+import org.junit.jupiter.api.Test;
+
+class TopSkusTests {
+  @Test
+  void boundedHeapMatchesStableDescendingSort() {
+    SplittableRandom random = new SplittableRandom(7);
+    Map<Integer, Long> aggregates = new LinkedHashMap<>();
+    for (int key = 0; key < 1_000; key++) {
+      aggregates.put(key, (long) random.nextInt(50)); // plenty of ties
+    }
+
+    List<Integer> sorted =
+        aggregates.entrySet().stream()
+            .sorted(Map.Entry.<Integer, Long>comparingByValue(Comparator.reverseOrder()))
+            .limit(10)
+            .map(Map.Entry::getKey)
+            .toList();
+
+    assertThat(TopK.largest(aggregates, 10)).isEqualTo(sorted);
+    assertThat(TopK.largest(Map.of("only", 1), 3)).containsExactly("only");
+  }
+
+  @Test
+  void spaceSavingFindsHeavyHittersWithinItsErrorBound() {
+    SplittableRandom random = new SplittableRandom(11);
+    Map<Integer, Long> truth = new HashMap<>();
+    SpaceSaving<Integer> left = SpaceSaving.withError(0.01);
+    SpaceSaving<Integer> right = SpaceSaving.withError(0.01);
+    for (int i = 0; i < 200_000; i++) {
+      // keys 0..4 carry about half the weight, the rest is spread over 100 000 keys
+      int key = random.nextBoolean() ? random.nextInt(5) : 5 + random.nextInt(100_000);
+      long weight = 1 + random.nextInt(3);
+      truth.merge(key, weight, Long::sum);
+      (i % 2 == 0 ? left : right).add(key, weight);
+    }
+
+    SpaceSaving<Integer> merged = left.merge(right);
+    long bound = merged.totalWeight() / merged.capacity();
+
+    List<Integer> topKeys = new ArrayList<>();
+    for (SpaceSaving.Estimate<Integer> estimate : merged.top(5)) {
+      long actual = truth.get(estimate.key());
+      assertThat(estimate.count()).isGreaterThanOrEqualTo(actual);
+      assertThat(estimate.count() - actual).isLessThanOrEqualTo(bound);
+      topKeys.add(estimate.key());
+    }
+    assertThat(topKeys).containsExactlyInAnyOrder(0, 1, 2, 3, 4);
+  }
+
+  @Test
+  void countMinNeverUnderestimatesAndMerges() {
+    CountMinSketch left = CountMinSketch.withError(0.001, 0.01, 42);
+    CountMinSketch right = CountMinSketch.withError(0.001, 0.01, 42);
+    for (int key = 0; key < 10_000; key++) {
+      left.add(key, key % 7);
+      right.add(key, 1);
+    }
+
+    CountMinSketch merged = left.merge(right);
+    long bound = (long) Math.ceil(0.001 * merged.totalWeight());
+    int withinBound = 0;
+    for (int key = 0; key < 10_000; key++) {
+      long actual = key % 7 + 1;
+      assertThat(merged.estimate(key)).isGreaterThanOrEqualTo(actual);
+      if (merged.estimate(key) - actual <= bound) {
+        withinBound++;
+      }
+    }
+    assertThat(withinBound).isGreaterThanOrEqualTo(9_900);
+  }
+
+  @Test
+  void countMinRankingKeepsHeavySkusWithinItsErrorBound() {
+    SplittableRandom random = new SplittableRandom(13);
+    Map<Sku, Long> truth = new HashMap<>();
+    TopSkus.CountMinRanking left = TopSkus.countMin(TopSkus.Measure.QUANTITY, 5, 0.001, 0.01);
+    TopSkus.CountMinRanking right = TopSkus.countMin(TopSkus.Measure.QUANTITY, 5, 0.001, 0.01);
+    for (int i = 0; i < 50_000; i++) {
+      // SKUs S-0..S-4 carry about half the quantity, the rest is spread over 10 000 SKUs
+      int key = random.nextBoolean() ? random.nextInt(5) : 5 + random.nextInt(10_000);
+      int quantity = 1 + random.nextInt(3);
+      ProductSnapshot snapshot = product("S-" + key, "1.00");
+      truth.merge(snapshot.sku(), (long) quantity, Long::sum);
+      (i % 2 == 0 ? left : right).accept(lineItem(snapshot, quantity));
+    }
+
+    List<Sku> topSkus = new ArrayList<>();
+    for (SpaceSaving.Estimate<Sku> estimate : left.merge(right).top(5)) {
+      long actual = truth.get(estimate.key());
+      assertThat(estimate.count()).isGreaterThanOrEqualTo(actual);
+      assertThat(estimate.count() - actual).isLessThanOrEqualTo(estimate.error());
+      topSkus.add(estimate.key());
+    }
+    assertThat(topSkus)
+        .containsExactlyInAnyOrder(
+            new Sku("S-0"), new Sku("S-1"), new Sku("S-2"), new Sku("S-3"), new Sku("S-4"));
+  }
+
+  @Test
+  void exactAndApproximateRankingsAgreeOnSkewedOrders() {
+    ProductSnapshot book = product("BOOK", "20.00");
+    ProductSnapshot pen = product("PEN", "1.00");
+    ProductSnapshot mug = product("MUG", "5.00");
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Order.Builder builder =
+          Order.builder(new OrderId(uuidV7(CREATED_MILLIS, i))).status(OrderStatus.PAID);
+      builder.add(pen, 10, null).add(mug, 1, null);
+      if (i % 10 == 0) {
+        builder.add(book, 1, null);
+      }
+      orders.add(builder.build());
+    }
+    orders.add(orders.get(0)); // duplicates are ignored by the exact ranking
+
+    assertThat(TopSkus.exact(orders, TopSkus.Measure.REVENUE, 2))
+        .containsExactly(new Sku("PEN"), new Sku("MUG"));
+    assertThat(TopSkus.exact(orders, TopSkus.Measure.QUANTITY, 1)).containsExactly(new Sku("PEN"));
+
+    TopSkus.Sketch sketch = TopSkus.approximate(TopSkus.Measure.REVENUE, 0.25);
+    orders.subList(0, 100).forEach(sketch::accept);
+    assertThat(sketch.top(1).get(0).key()).isEqualTo(new Sku("PEN"));
+    assertThat(sketch.top(1).get(0).count()).isEqualTo(100_000L);
+    assertThat(sketch.top(1).get(0).error()).isEqualTo(0L);
+  }
+}
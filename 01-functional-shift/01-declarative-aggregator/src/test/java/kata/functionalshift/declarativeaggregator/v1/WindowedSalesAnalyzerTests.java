@@ -0,0 +1,135 @@
+package kata.functionalshift.declarativeaggregator.v1;
+
+import static kata.functionalshift.declarativeaggregator.v1.TestOrders.uuidV7;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import kata.functionalshift.declarativeaggregator.domain.Order;
+import kata.functionalshift.declarativeaggregator.domain.OrderStatus;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineId;
+import kata.functionalshift.declarativeaggregator.domain.vo.LineKey;
+import kata.functionalshift.declarativeaggregator.domain.vo.Money;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderId;
+import kata.functionalshift.declarativeaggregator.domain.vo.OrderLine;
+import kata.functionalshift.declarativeaggregator.domain.vo.ProductSnapshot;
+import kata.functionalshift.declarativeaggregator.domain.vo.Sku;
+import kata.functionalshift.declarativeaggregator.solution.DistinctCounts;
+import kata.functionalshift.declarativeaggregator.solution.SalesReport;
+import kata.functionalshift.declarativeaggregator.solution.SalesReport.Metric;
+import kata.functionalshift.declarativeaggregator.solution.WindowedSalesAnalyzer;
+import kata.functionalshift.declarativeaggregator.solution.WindowedSalesAnalyzer.WindowResult;
+import org.junit.jupiter.api.Test;
+
+class WindowedSalesAnalyzerTests {
+  private static final Currency USD = Currency.getInstance("USD");
+  private static final long MINUTE = 60_000L;
+
+  @Test
+  void tumblingWindowsAreEmittedOnceTheWatermarkPassesTheirEnd() {
+    List<WindowResult> emitted = new ArrayList<>();
+    WindowedSalesAnalyzer.Feed feed =
+        WindowedSalesAnalyzer.tumbling(Duration.ofMinutes(1)).open(emitted::add);
+
+    Order first = order(10_000, OrderStatus.NEW, "10.00");
+    feed.accept(first);
+    feed.accept(first); // same order again: counted once per window
+    feed.accept(order(50_000, OrderStatus.PAID, "5.00"));
+    assertThat(emitted).isEmpty();
+
+    feed.accept(order(MINUTE + 1, OrderStatus.NEW, "1.00"));
+
+    assertThat(emitted).hasSize(1);
+    WindowResult window = emitted.get(0);
+    assertThat(window.start()).isEqualTo(Instant.ofEpochMilli(0));
+    assertThat(window.end()).isEqualTo(Instant.ofEpochMilli(MINUTE));
+    assertThat(window.result().statusCounts())
+        .containsEntry(OrderStatus.NEW, 1L)
+        .containsEntry(OrderStatus.PAID, 1L);
+    assertThat(window.result().revenueByStatus())
+        .containsEntry(OrderStatus.NEW, new BigDecimal("10.00"));
+    assertThat(feed.openWindows()).isEqualTo(1);
+  }
+
+  @Test
+  void ordersBehindTheWatermarkAreDroppedAsLate() {
+    List<WindowResult> emitted = new ArrayList<>();
+    WindowedSalesAnalyzer.Feed feed =
+        WindowedSalesAnalyzer.tumbling(Duration.ofMinutes(1))
+            .withAllowedLateness(Duration.ofSeconds(30))
+            .open(emitted::add);
+
+    feed.accept(order(MINUTE + 20_000, OrderStatus.NEW, "1.00"));
+    assertThat(feed.accept(order(50_000, OrderStatus.NEW, "2.00"))).isTrue();
+
+    feed.accept(order(MINUTE + 40_000, OrderStatus.NEW, "1.00"));
+    assertThat(feed.accept(order(55_000, OrderStatus.NEW, "3.00"))).isFalse();
+
+    feed.close();
+    assertThat(feed.lateOrders()).isEqualTo(1L);
+    assertThat(emitted)
+        .extracting(WindowResult::start)
+        .containsExactly(Instant.ofEpochMilli(0), Instant.ofEpochMilli(MINUTE));
+    assertThat(emitted.get(0).result().revenueByStatus())
+        .containsEntry(OrderStatus.NEW, new BigDecimal("2.00"));
+  }
+
+  @Test
+  void slidingWindowsShareOrdersThatFallInSeveral() {
+    List<WindowResult> emitted = new ArrayList<>();
+    WindowedSalesAnalyzer.Feed feed =
+        WindowedSalesAnalyzer.sliding(Duration.ofMinutes(2), Duration.ofMinutes(1))
+            .open(emitted::add);
+
+    feed.accept(order(MINUTE + 5_000, OrderStatus.NEW, "4.00"));
+    feed.advanceWatermark(Instant.ofEpochMilli(10 * MINUTE));
+
+    assertThat(emitted)
+        .extracting(WindowResult::start)
+        .containsExactly(Instant.ofEpochMilli(0), Instant.ofEpochMilli(MINUTE));
+    assertThat(emitted.get(0).result().statusCounts()).containsEntry(OrderStatus.NEW, 1L);
+    assertThat(emitted.get(1).result().statusCounts()).containsEntry(OrderStatus.NEW, 1L);
+    assertThat(feed.openWindows()).isEqualTo(0);
+  }
+
+  @Test
+  void distinctCountsOfWindowsMergeIntoTheCountsOfTheFeed() {
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < 3_000; i++) {
+      orders.add(order(i * 60L, i % 3 == 0 ? OrderStatus.PAID : OrderStatus.NEW, i % 40 + ".00"));
+    }
+    List<WindowResult> emitted = new ArrayList<>();
+    try (WindowedSalesAnalyzer.Feed feed =
+        WindowedSalesAnalyzer.tumbling(Duration.ofMinutes(1))
+            .withReport(SalesReport.of(Metric.DISTINCT_COUNTS))
+            .open(emitted::add)) {
+      orders.forEach(feed::accept);
+    }
+
+    assertThat(emitted).hasSize(3);
+    DistinctCounts merged = new DistinctCounts(DistinctCounts.DEFAULT_PRECISION);
+    emitted.forEach(window -> merged.merge(window.result().distinctCounts()));
+    DistinctCounts whole = orders.stream().collect(DistinctCounts.collector());
+    assertThat(emitted.get(0).result().distinctCounts().distinctOrders()).isBetween(990L, 1_010L);
+    assertThat(merged.distinctOrders()).isEqualTo(whole.distinctOrders());
+    assertThat(merged.distinctSkus()).isEqualTo(1L);
+    assertThat(merged.distinctProductsByStatus()).isEqualTo(whole.distinctProductsByStatus());
+  }
+
+  private static Order order(long epochMillis, OrderStatus status, String price) {
+    ProductSnapshot product =
+        new ProductSnapshot(new Sku("p-1"), Money.of(new BigDecimal(price), USD));
+    OrderLine line = new OrderLine(LineId.newRandom(), new LineKey(product, null), 1);
+    Map<LineKey, LineId> primaryLineForKey = new LinkedHashMap<>();
+    primaryLineForKey.put(line.key(), line.id());
+    Map<LineId, OrderLine> lines = new LinkedHashMap<>();
+    lines.put(line.id(), line);
+    return new Order(new OrderId(uuidV7(epochMillis)), primaryLineForKey, lines, status, 0);
+  }
+}
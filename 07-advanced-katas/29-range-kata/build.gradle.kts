@@ -0,0 +1,22 @@
+plugins {
+  id("java-quality")
+  // Version is pinned once in the root build; see libs.plugins.jmh.
+  id("me.champeau.jmh")
+}
+
+dependencies {
+  testImplementation(platform(libs.spring.boot.bom))
+  testImplementation(libs.spring.boot.starter.test)
+  testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test { useJUnitPlatform() }
+
+// Micro-benchmarks live in src/jmh/java and run with `./gradlew :<module>:jmh`.
+// Narrow the run with -PjmhIncludes=<regex>, e.g. -PjmhIncludes=RangeBenchmark.
+jmh {
+  jmhVersion = libs.versions.jmh
+  profilers = listOf("gc")
+  resultFormat = "JSON"
+  includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(listOf(".*"))
+}
@@ -0,0 +1,105 @@
+package kata.advanced.range.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import kata.advanced.range.IntRange;
+import kata.advanced.range.Range;
+import kata.advanced.range.RangeSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Membership tests over a batch of probe values: boxed {@link Range} versus {@link IntRange}, and a
+ * {@link RangeSet} binary search versus scanning its ranges one by one.
+ *
+ * <p>Every benchmark counts hits over the same {@code int[]} of probes, so the boxed variants pay
+ * for {@code Integer.valueOf} outside the small-integer cache as well as two {@code compareTo}
+ * calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangeBenchmark {
+
+  @Param({"16", "1024"})
+  public int rangeCount;
+
+  private final Range<Integer> boxed = Range.closedOpen(1_000, 50_000);
+  private final IntRange primitive = IntRange.closedOpen(1_000, 50_000);
+  private int[] probes;
+  private List<Range<Integer>> ranges;
+  private RangeSet<Integer> rangeSet;
+
+  /** Builds {@code rangeCount} disjoint slots of width 50 every 100 values, and 4096 probes. */
+  @Setup
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(42);
+    probes = random.ints(4_096, 0, rangeCount * 100).toArray();
+    ranges = new ArrayList<>(rangeCount);
+    for (int i = 0; i < rangeCount; i++) {
+      ranges.add(Range.closedOpen(i * 100, i * 100 + 50));
+    }
+    rangeSet = RangeSet.copyOf(ranges);
+  }
+
+  @Benchmark
+  public int rangeContains() {
+    int hits = 0;
+    for (int probe : probes) {
+      if (boxed.contains(probe)) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  @Benchmark
+  public int intRangeContains() {
+    int hits = 0;
+    for (int probe : probes) {
+      if (primitive.contains(probe)) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  @Benchmark
+  public int rangeSetContains() {
+    int hits = 0;
+    for (int probe : probes) {
+      if (rangeSet.contains(probe)) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  @Benchmark
+  public int linearScanContains() {
+    int hits = 0;
+    for (int probe : probes) {
+      for (Range<Integer> range : ranges) {
+        if (range.contains(probe)) {
+          hits++;
+          break;
+        }
+      }
+    }
+    return hits;
+  }
+}
@@ -0,0 +1,100 @@
+package kata.advanced.range.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import kata.advanced.range.IntRange;
+import kata.advanced.range.IntRangeParser;
+import kata.advanced.range.Range;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing and intersecting 1024 range pairs: {@code Range.parse} versus {@link IntRangeParser}.
+ *
+ * <p>{@link #intRangeParserBytes()} reads the ranges from one ASCII buffer, as the batch endpoint
+ * does; the GC profiler's {@code gc.alloc.rate.norm} shows what each variant allocates per batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangeParserBenchmark {
+  private static final int PAIRS = 1_024;
+
+  private final IntRangeParser parser = new IntRangeParser();
+  private String[] texts;
+  private ByteBuffer bytes;
+  private int[] offsets;
+
+  @Setup
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(42);
+    texts = new String[PAIRS * 2];
+    for (int i = 0; i < texts.length; i++) {
+      int lower = random.nextInt(1_000_000);
+      texts[i] =
+          random.nextInt(8) == 0
+              ? "[" + lower + ", +Infinity)"
+              : "[" + lower + ", " + (lower + random.nextInt(100_000)) + ")";
+    }
+    StringBuilder joined = new StringBuilder();
+    offsets = new int[texts.length + 1];
+    for (int i = 0; i < texts.length; i++) {
+      offsets[i] = joined.length();
+      joined.append(texts[i]);
+    }
+    offsets[texts.length] = joined.length();
+    bytes = ByteBuffer.wrap(joined.toString().getBytes(StandardCharsets.US_ASCII));
+  }
+
+  @Benchmark
+  public int rangeParse() {
+    int nonEmpty = 0;
+    for (int i = 0; i < texts.length; i += 2) {
+      Range<Integer> a = Range.parse(texts[i], Integer::valueOf);
+      Range<Integer> b = Range.parse(texts[i + 1], Integer::valueOf);
+      if (a.isConnected(b) && !a.intersection(b).isEmpty()) {
+        nonEmpty++;
+      }
+    }
+    return nonEmpty;
+  }
+
+  @Benchmark
+  public int intRangeParser() {
+    int nonEmpty = 0;
+    for (int i = 0; i < texts.length; i += 2) {
+      IntRange a = parser.parse(texts[i]);
+      IntRange b = parser.parse(texts[i + 1]);
+      if (a.isConnected(b) && !a.intersection(b).isEmpty()) {
+        nonEmpty++;
+      }
+    }
+    return nonEmpty;
+  }
+
+  @Benchmark
+  public int intRangeParserBytes() {
+    int nonEmpty = 0;
+    for (int i = 0; i < texts.length; i += 2) {
+      IntRange a = parser.parse(bytes, offsets[i], offsets[i + 1]);
+      IntRange b = parser.parse(bytes, offsets[i + 1], offsets[i + 2]);
+      if (a.isConnected(b) && !a.intersection(b).isEmpty()) {
+        nonEmpty++;
+      }
+    }
+    return nonEmpty;
+  }
+}
@@ -0,0 +1,97 @@
+package kata.advanced.range;
+
+import java.util.Objects;
+
+/**
+ * A point on the extended line of a totally ordered domain, lying between values rather than on
+ * them: just below a value, just above it, or beyond every value.
+ *
+ * <p>Every range bound is a cut: {@code [a} is "below a", {@code (a} "above a", {@code b]} "above
+ * b" and {@code b)} "below b". A range is then the values between its two cuts, and comparing
+ * bounds of any type (open, closed, unbounded) is comparing cuts.
+ */
+final class Cut<C extends Comparable<? super C>> implements Comparable<Cut<C>> {
+  private static final Cut<?> BELOW_ALL = new Cut<>(null, -1);
+  private static final Cut<?> ABOVE_ALL = new Cut<>(null, 1);
+
+  private final C endpoint; // null only for BELOW_ALL and ABOVE_ALL
+  private final int side; // -1 just below the endpoint, +1 just above it
+
+  private Cut(C endpoint, int side) {
+    this.endpoint = endpoint;
+    this.side = side;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <C extends Comparable<? super C>> Cut<C> belowAll() {
+    return (Cut<C>) BELOW_ALL;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <C extends Comparable<? super C>> Cut<C> aboveAll() {
+    return (Cut<C>) ABOVE_ALL;
+  }
+
+  static <C extends Comparable<? super C>> Cut<C> below(C endpoint) {
+    return new Cut<>(Objects.requireNonNull(endpoint, "endpoint is required"), -1);
+  }
+
+  static <C extends Comparable<? super C>> Cut<C> above(C endpoint) {
+    return new Cut<>(Objects.requireNonNull(endpoint, "endpoint is required"), 1);
+  }
+
+  /** True for the cuts beyond every value. */
+  boolean isUnbounded() {
+    return endpoint == null;
+  }
+
+  /** True if this cut lies just below its endpoint, i.e. it closes a lower bound. */
+  boolean isBelow() {
+    return side < 0;
+  }
+
+  C endpoint() {
+    return endpoint;
+  }
+
+  /** Returns whether {@code value} lies above this cut. */
+  boolean isLessThan(C value) {
+    if (endpoint == null) {
+      return this == BELOW_ALL;
+    }
+    int c = endpoint.compareTo(value);
+    return c < 0 || (c == 0 && side < 0);
+  }
+
+  @Override
+  public int compareTo(Cut<C> other) {
+    if (this == other) {
+      return 0;
+    }
+    if (endpoint == null || other.endpoint == null) {
+      return this == BELOW_ALL || other == ABOVE_ALL ? -1 : 1;
+    }
+    int c = endpoint.compareTo(other.endpoint);
+    return c != 0 ? c : Integer.compare(side, other.side);
+  }
+
+  static <C extends Comparable<? super C>> Cut<C> min(Cut<C> a, Cut<C> b) {
+    return a.compareTo(b) <= 0 ? a : b;
+  }
+
+  static <C extends Comparable<? super C>> Cut<C> max(Cut<C> a, Cut<C> b) {
+    return a.compareTo(b) >= 0 ? a : b;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof Cut<?> cut
+        && side == cut.side
+        && Objects.equals(endpoint, cut.endpoint);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(endpoint) * 31 + side;
+  }
+}
@@ -0,0 +1,98 @@
+package kata.advanced.range;
+
+/**
+ * The bounds of a {@code Range<Integer>} as two primitive cuts, without boxing.
+ *
+ * <p>An {@link IntRange} keeps only the integers of a range, so {@code (5, 10]} and {@code [6, 10]}
+ * are the same {@code IntRange}. These bounds keep the bound types, so they intersect, compare and
+ * print exactly like the {@code Range<Integer>} with the same notation. Each {@link Cut} is packed
+ * into a {@code long}: just below {@code e} is {@code 2e}, just above {@code e} is {@code 2e + 1},
+ * and the cuts beyond every value are {@link Long#MIN_VALUE} and {@link Long#MAX_VALUE}. Cuts then
+ * order as their {@code long}s do.
+ */
+final class IntBounds {
+  static final long BELOW_ALL = Long.MIN_VALUE;
+  static final long ABOVE_ALL = Long.MAX_VALUE;
+
+  private final long lower;
+  private final long upper;
+
+  private IntBounds(long lower, long upper) {
+    this.lower = lower;
+    this.upper = upper;
+  }
+
+  /**
+   * Returns the bounds between two cuts.
+   *
+   * @throws IllegalArgumentException if the cuts are out of order, as {@link Range} throws.
+   */
+  static IntBounds of(long lower, long upper) {
+    if (lower > upper) {
+      throw new IllegalArgumentException("Invalid range: lower bound is above upper bound");
+    }
+    return new IntBounds(lower, upper);
+  }
+
+  /** Returns the cut just below {@code endpoint}, which closes a lower bound. */
+  static long below(int endpoint) {
+    return 2L * endpoint;
+  }
+
+  /** Returns the cut just above {@code endpoint}, which closes an upper bound. */
+  static long above(int endpoint) {
+    return 2L * endpoint + 1;
+  }
+
+  /** True if {@code cut} lies just below its endpoint, or below every value. */
+  static boolean isBelow(long cut) {
+    return (cut & 1) == 0;
+  }
+
+  /** Returns the endpoint of a bounded cut. */
+  static int endpoint(long cut) {
+    return (int) (cut >> 1);
+  }
+
+  long lowerCut() {
+    return lower;
+  }
+
+  long upperCut() {
+    return upper;
+  }
+
+  /**
+   * Returns the maximal bounds enclosed by both these bounds and {@code other}, as {@link
+   * Range#intersection} does.
+   *
+   * @throws IllegalArgumentException if the ranges are not connected.
+   */
+  IntBounds intersection(IntBounds other) {
+    if (lower > other.upper || other.lower > upper) {
+      throw new IllegalArgumentException("Ranges are not connected: " + this + ", " + other);
+    }
+    return new IntBounds(Math.max(lower, other.lower), Math.min(upper, other.upper));
+  }
+
+  /** Returns the same bounds as a generic range. */
+  Range<Integer> toRange() {
+    return Range.of(cut(lower), cut(upper));
+  }
+
+  private static Cut<Integer> cut(long cut) {
+    if (cut == BELOW_ALL) {
+      return Cut.belowAll();
+    }
+    if (cut == ABOVE_ALL) {
+      return Cut.aboveAll();
+    }
+    return isBelow(cut) ? Cut.below(endpoint(cut)) : Cut.above(endpoint(cut));
+  }
+
+  /** Returns the {@link Range#toString()} notation, e.g. {@code "(5, 10]"}. */
+  @Override
+  public String toString() {
+    return toRange().toString();
+  }
+}
@@ -0,0 +1,204 @@
+package kata.advanced.range;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable contiguous set of {@code int} values, without boxing.
+ *
+ * <p>Because {@code int} is discrete, every range is stored in canonical closed form {@code [min,
+ * max]}: {@code (3, 5)} is {@code [4, 4]}, {@code atLeast(5)} is {@code [5, 2147483647]}, and all
+ * empty ranges are the same value, {@link #empty()}. {@link #contains} is then two primitive
+ * comparisons, where {@code Range<Integer>} unboxes and calls {@code compareTo} on each bound.
+ *
+ * <p>Ranges are compared as sets of integers: {@code [1, 3]} and {@code [4, 5]} are {@link
+ * #isConnected connected}, since their union {@code [1, 5]} is contiguous. The factories validate
+ * their endpoints like {@link Range}'s do.
+ */
+public final class IntRange {
+  private static final IntRange EMPTY = new IntRange(0, -1);
+  private static final IntRange ALL = new IntRange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+  private final int min;
+  private final int max; // max < min only for EMPTY
+
+  private IntRange(int min, int max) {
+    this.min = min;
+    this.max = max;
+  }
+
+  /**
+   * Returns the values between {@code lower} and {@code upper} in canonical closed form, an open
+   * bound excluding its endpoint, or {@link #empty()} if there are none.
+   */
+  private static IntRange canonical(int lower, boolean lowerOpen, int upper, boolean upperOpen) {
+    // widened to long so that stepping past an open bound cannot overflow
+    long min = lowerOpen ? lower + 1L : lower;
+    long max = upperOpen ? upper - 1L : upper;
+    return min > max ? EMPTY : new IntRange((int) min, (int) max);
+  }
+
+  private static void requireOrdered(int lower, int upper, boolean strict) {
+    if (lower > upper || (strict && lower == upper)) {
+      throw new IllegalArgumentException("Invalid range: lower bound is above upper bound");
+    }
+  }
+
+  /** Returns {@code [lower, upper]}. */
+  public static IntRange closed(int lower, int upper) {
+    requireOrdered(lower, upper, false);
+    return new IntRange(lower, upper);
+  }
+
+  /** Returns {@code (lower, upper)}. */
+  public static IntRange open(int lower, int upper) {
+    requireOrdered(lower, upper, true);
+    return canonical(lower, true, upper, true);
+  }
+
+  /** Returns {@code [lower, upper)}. */
+  public static IntRange closedOpen(int lower, int upper) {
+    requireOrdered(lower, upper, false);
+    return canonical(lower, false, upper, true);
+  }
+
+  /** Returns {@code (lower, upper]}. */
+  public static IntRange openClosed(int lower, int upper) {
+    requireOrdered(lower, upper, false);
+    return canonical(lower, true, upper, false);
+  }
+
+  /** Returns {@code [value, value]}. */
+  public static IntRange singleton(int value) {
+    return new IntRange(value, value);
+  }
+
+  /** Returns every {@code int} below {@code upper}. */
+  public static IntRange lessThan(int upper) {
+    return canonical(Integer.MIN_VALUE, false, upper, true);
+  }
+
+  /** Returns every {@code int} up to {@code upper} inclusive. */
+  public static IntRange atMost(int upper) {
+    return new IntRange(Integer.MIN_VALUE, upper);
+  }
+
+  /** Returns every {@code int} above {@code lower}. */
+  public static IntRange greaterThan(int lower) {
+    return canonical(lower, true, Integer.MAX_VALUE, false);
+  }
+
+  /** Returns every {@code int} from {@code lower} inclusive. */
+  public static IntRange atLeast(int lower) {
+    return new IntRange(lower, Integer.MAX_VALUE);
+  }
+
+  /** Returns every {@code int}. */
+  public static IntRange all() {
+    return ALL;
+  }
+
+  /** Returns the range containing no values. */
+  public static IntRange empty() {
+    return EMPTY;
+  }
+
+  /** Returns whether {@code value} is in this range. */
+  public boolean contains(int value) {
+    return min <= value && value <= max;
+  }
+
+  /** Returns whether every value of {@code other} is in this range; true if it is empty. */
+  public boolean encloses(IntRange other) {
+    return other.isEmpty() || (min <= other.min && other.max <= max);
+  }
+
+  /**
+   * Returns whether the union of this range and {@code other} is contiguous. The empty range has no
+   * position, so it is connected to no range and never intersected.
+   */
+  public boolean isConnected(IntRange other) {
+    if (isEmpty() || other.isEmpty()) {
+      return false;
+    }
+    // widened to long so that max + 1 cannot overflow
+    return min <= other.max + 1L && other.min <= max + 1L;
+  }
+
+  /**
+   * Returns the values in both this range and {@code other}; empty if they only touch.
+   *
+   * @throws IllegalArgumentException if the ranges are not connected.
+   */
+  public IntRange intersection(IntRange other) {
+    if (!isConnected(other)) {
+      throw new IllegalArgumentException("Ranges are not connected: " + this + ", " + other);
+    }
+    return canonical(Math.max(min, other.min), false, Math.min(max, other.max), false);
+  }
+
+  /** Returns the minimal range enclosing both this range and {@code other}. */
+  public IntRange span(IntRange other) {
+    if (other.isEmpty()) {
+      return this;
+    }
+    if (isEmpty()) {
+      return other;
+    }
+    return new IntRange(Math.min(min, other.min), Math.max(max, other.max));
+  }
+
+  /** Returns whether this range contains no values. */
+  public boolean isEmpty() {
+    return max < min;
+  }
+
+  /**
+   * Returns the smallest value of the range.
+   *
+   * @throws NoSuchElementException if the range is empty.
+   */
+  public int min() {
+    if (isEmpty()) {
+      throw new NoSuchElementException("Range is empty");
+    }
+    return min;
+  }
+
+  /**
+   * Returns the largest value of the range.
+   *
+   * @throws NoSuchElementException if the range is empty.
+   */
+  public int max() {
+    if (isEmpty()) {
+      throw new NoSuchElementException("Range is empty");
+    }
+    return max;
+  }
+
+  /** Returns the number of values in the range; never more than {@code 2^32}, so always exact. */
+  public long size() {
+    return isEmpty() ? 0 : (long) max - min + 1;
+  }
+
+  /** Returns the same values as a generic closed range; {@code [0, 0)} if empty. */
+  public Range<Integer> toRange() {
+    return isEmpty() ? Range.closedOpen(0, 0) : Range.closed(min, max);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof IntRange range && min == range.min && max == range.max;
+  }
+
+  @Override
+  public int hashCode() {
+    return min * 31 + max;
+  }
+
+  /** Returns the canonical closed notation, e.g. {@code "[4, 4]"}, or {@code "[0, 0)"}. */
+  @Override
+  public String toString() {
+    return isEmpty() ? "[0, 0)" : "[" + min + ", " + max + "]";
+  }
+}
@@ -0,0 +1,261 @@
+package kata.advanced.range;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Parses the interval notation of {@link Range#parse} straight into an {@link IntRange}.
+ *
+ * <pre>{@code
+ * range    = ws ( "[" | "(" ) ws lower ws "," ws upper ws ( "]" | ")" ) ws
+ * lower    = "-Infinity" | int      -- "-Infinity" only after "("
+ * upper    = "+Infinity" | int      -- "+Infinity" only before ")"
+ * int      = [ "+" | "-" ] digit { digit }
+ * }</pre>
+ *
+ * <p>{@code Range.parse(text, Integer::valueOf)} cuts the text into substrings, boxes both
+ * endpoints and builds two {@code Cut}s. This parser reads the characters in place, from a {@code
+ * CharSequence} or from ASCII bytes in a {@code ByteBuffer}, and accumulates the endpoints as
+ * {@code int}s: the only allocation of a successful parse is the resulting {@code IntRange}, and
+ * not even that for empty or unbounded ranges. Endpoints are validated like the {@code IntRange}
+ * factories validate them.
+ *
+ * <p>{@link #parseBounds} reads the same notation into {@link IntBounds}, which keep the bound
+ * types: the batch intersection endpoint answers in {@code Range<Integer>} notation and semantics.
+ *
+ * <p>The parser keeps its position in fields so it can be reused for any number of inputs. Not
+ * thread-safe: use one parser per thread.
+ */
+public final class IntRangeParser {
+  private static final String NEGATIVE_INFINITY = "-Infinity";
+  private static final String POSITIVE_INFINITY = "+Infinity";
+
+  private final AsciiChars ascii = new AsciiChars();
+  private CharSequence text = "";
+  private int start;
+  private int position;
+  private int end;
+  private long lowerCut;
+  private long upperCut;
+
+  /**
+   * Parses the whole of {@code text}.
+   *
+   * @throws IllegalArgumentException if the text is not a valid range.
+   */
+  public IntRange parse(CharSequence text) {
+    return parse(text, 0, text.length());
+  }
+
+  /**
+   * Parses {@code text[start, end)}.
+   *
+   * @throws IllegalArgumentException if the characters are not a valid range.
+   */
+  public IntRange parse(CharSequence text, int start, int end) {
+    read(text, start, end);
+    return range();
+  }
+
+  /**
+   * Parses the ASCII bytes {@code bytes[start, end)}, read with absolute gets.
+   *
+   * @throws IllegalArgumentException if the bytes are not a valid range.
+   */
+  public IntRange parse(ByteBuffer bytes, int start, int end) {
+    ascii.bytes = bytes;
+    try {
+      return parse(ascii, start, end);
+    } finally {
+      ascii.bytes = AsciiChars.NONE;
+    }
+  }
+
+  /**
+   * Parses the ASCII bytes {@code bytes[start, end)} into bounds that keep their types, read with
+   * absolute gets.
+   *
+   * @throws IllegalArgumentException if the bytes are not a valid range.
+   */
+  IntBounds parseBounds(ByteBuffer bytes, int start, int end) {
+    ascii.bytes = bytes;
+    try {
+      read(ascii, start, end);
+      return IntBounds.of(lowerCut, upperCut);
+    } finally {
+      ascii.bytes = AsciiChars.NONE;
+    }
+  }
+
+  /** Reads the bounds of {@code text[start, end)} into {@code lowerCut} and {@code upperCut}. */
+  private void read(CharSequence text, int start, int end) {
+    Objects.checkFromToIndex(start, end, text.length());
+    this.text = text;
+    this.start = start;
+    this.position = start;
+    this.end = end;
+    try {
+      cuts();
+    } finally {
+      this.text = "";
+    }
+  }
+
+  private void cuts() {
+    skipWhitespace();
+    boolean lowerClosed = bracket('[', '(');
+    skipWhitespace();
+    boolean lowerUnbounded = !lowerClosed && keyword(NEGATIVE_INFINITY);
+    int lower = lowerUnbounded ? Integer.MIN_VALUE : integer();
+    skipWhitespace();
+    expect(',');
+    skipWhitespace();
+    boolean upperUnbounded = keyword(POSITIVE_INFINITY);
+    int upper = upperUnbounded ? Integer.MAX_VALUE : integer();
+    skipWhitespace();
+    boolean upperClosed = bracket(']', ')');
+    if (upperUnbounded && upperClosed) {
+      throw error("+Infinity must be closed by ')'");
+    }
+    skipWhitespace();
+    if (position != end) {
+      throw error("unexpected trailing characters");
+    }
+    if (lowerUnbounded) {
+      lowerCut = IntBounds.BELOW_ALL;
+    } else {
+      lowerCut = lowerClosed ? IntBounds.below(lower) : IntBounds.above(lower);
+    }
+    if (upperUnbounded) {
+      upperCut = IntBounds.ABOVE_ALL;
+    } else {
+      upperCut = upperClosed ? IntBounds.above(upper) : IntBounds.below(upper);
+    }
+  }
+
+  private IntRange range() {
+    boolean lowerUnbounded = lowerCut == IntBounds.BELOW_ALL;
+    boolean upperUnbounded = upperCut == IntBounds.ABOVE_ALL;
+    boolean lowerClosed = IntBounds.isBelow(lowerCut);
+    boolean upperClosed = !IntBounds.isBelow(upperCut);
+    int low = IntBounds.endpoint(lowerCut);
+    int high = IntBounds.endpoint(upperCut);
+    if (lowerUnbounded && upperUnbounded) {
+      return IntRange.all();
+    }
+    if (lowerUnbounded) {
+      return upperClosed ? IntRange.atMost(high) : IntRange.lessThan(high);
+    }
+    if (upperUnbounded) {
+      return lowerClosed ? IntRange.atLeast(low) : IntRange.greaterThan(low);
+    }
+    if (lowerClosed) {
+      return upperClosed ? IntRange.closed(low, high) : IntRange.closedOpen(low, high);
+    }
+    return upperClosed ? IntRange.openClosed(low, high) : IntRange.open(low, high);
+  }
+
+  /** Consumes {@code closed} or {@code open} and returns whether it was {@code closed}. */
+  private boolean bracket(char closed, char open) {
+    if (position < end) {
+      char c = text.charAt(position);
+      if (c == closed || c == open) {
+        position++;
+        return c == closed;
+      }
+    }
+    throw error("expected '" + closed + "' or '" + open + "'");
+  }
+
+  private boolean keyword(String keyword) {
+    int length = keyword.length();
+    if (end - position < length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (text.charAt(position + i) != keyword.charAt(i)) {
+        return false;
+      }
+    }
+    position += length;
+    return true;
+  }
+
+  private int integer() {
+    boolean negative = false;
+    if (position < end && (text.charAt(position) == '-' || text.charAt(position) == '+')) {
+      negative = text.charAt(position) == '-';
+      position++;
+    }
+    int digitsStart = position;
+    long value = 0;
+    while (position < end) {
+      int digit = text.charAt(position) - '0';
+      if (digit < 0 || digit > 9) {
+        break;
+      }
+      value = value * 10 + digit;
+      if (value > 1L + Integer.MAX_VALUE) {
+        throw error("endpoint out of int range");
+      }
+      position++;
+    }
+    if (position == digitsStart) {
+      throw error("expected an integer");
+    }
+    value = negative ? -value : value;
+    if (value > Integer.MAX_VALUE) {
+      throw error("endpoint out of int range");
+    }
+    return (int) value;
+  }
+
+  private void expect(char c) {
+    if (position >= end || text.charAt(position) != c) {
+      throw error("expected '" + c + "'");
+    }
+    position++;
+  }
+
+  private void skipWhitespace() {
+    while (position < end && Character.isWhitespace(text.charAt(position))) {
+      position++;
+    }
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(
+        "Invalid range at character " + (position - start) + ": " + message);
+  }
+
+  /** Reusable {@code CharSequence} view of bytes, one {@code char} per byte as in ISO-8859-1. */
+  private static final class AsciiChars implements CharSequence {
+    static final ByteBuffer NONE = ByteBuffer.allocate(0);
+
+    ByteBuffer bytes = NONE;
+
+    @Override
+    public char charAt(int index) {
+      return (char) (bytes.get(index) & 0xFF);
+    }
+
+    @Override
+    public int length() {
+      return bytes.limit();
+    }
+
+    @Override
+    public String subSequence(int start, int end) {
+      Objects.checkFromToIndex(start, end, length());
+      byte[] copy = new byte[end - start];
+      bytes.get(start, copy);
+      return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+      return subSequence(0, length());
+    }
+  }
+}
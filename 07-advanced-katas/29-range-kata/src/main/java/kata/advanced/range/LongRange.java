@@ -0,0 +1,216 @@
+package kata.advanced.range;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable contiguous set of {@code long} values, without boxing.
+ *
+ * <p>Because {@code long} is discrete, every range is stored in canonical closed form {@code [min,
+ * max]}: {@code (3, 5)} is {@code [4, 4]}, {@code atLeast(5)} is {@code [5, Long.MAX_VALUE]}, and
+ * all empty ranges are the same value, {@link #empty()}. {@link #contains} is then two primitive
+ * comparisons, where {@code Range<Long>} unboxes and calls {@code compareTo} on each bound.
+ *
+ * <p>Ranges are compared as sets of integers: {@code [1, 3]} and {@code [4, 5]} are {@link
+ * #isConnected connected}, since their union {@code [1, 5]} is contiguous. The factories validate
+ * their endpoints like {@link Range}'s do.
+ */
+public final class LongRange {
+  private static final LongRange EMPTY = new LongRange(0, -1);
+  private static final LongRange ALL = new LongRange(Long.MIN_VALUE, Long.MAX_VALUE);
+
+  private final long min;
+  private final long max; // max < min only for EMPTY
+
+  private LongRange(long min, long max) {
+    this.min = min;
+    this.max = max;
+  }
+
+  /**
+   * Returns the values between {@code lower} and {@code upper} in canonical closed form, an open
+   * bound excluding its endpoint, or {@link #empty()} if there are none.
+   */
+  private static LongRange canonical(
+      long lower, boolean lowerOpen, long upper, boolean upperOpen) {
+    // there is no wider type, so an open bound at the edge of the domain excludes everything
+    if ((lowerOpen && lower == Long.MAX_VALUE) || (upperOpen && upper == Long.MIN_VALUE)) {
+      return EMPTY;
+    }
+    long min = lowerOpen ? lower + 1 : lower;
+    long max = upperOpen ? upper - 1 : upper;
+    return min > max ? EMPTY : new LongRange(min, max);
+  }
+
+  private static void requireOrdered(long lower, long upper, boolean strict) {
+    if (lower > upper || (strict && lower == upper)) {
+      throw new IllegalArgumentException("Invalid range: lower bound is above upper bound");
+    }
+  }
+
+  /** Returns {@code [lower, upper]}. */
+  public static LongRange closed(long lower, long upper) {
+    requireOrdered(lower, upper, false);
+    return new LongRange(lower, upper);
+  }
+
+  /** Returns {@code (lower, upper)}. */
+  public static LongRange open(long lower, long upper) {
+    requireOrdered(lower, upper, true);
+    return canonical(lower, true, upper, true);
+  }
+
+  /** Returns {@code [lower, upper)}. */
+  public static LongRange closedOpen(long lower, long upper) {
+    requireOrdered(lower, upper, false);
+    return canonical(lower, false, upper, true);
+  }
+
+  /** Returns {@code (lower, upper]}. */
+  public static LongRange openClosed(long lower, long upper) {
+    requireOrdered(lower, upper, false);
+    return canonical(lower, true, upper, false);
+  }
+
+  /** Returns {@code [value, value]}. */
+  public static LongRange singleton(long value) {
+    return new LongRange(value, value);
+  }
+
+  /** Returns every {@code long} below {@code upper}. */
+  public static LongRange lessThan(long upper) {
+    return canonical(Long.MIN_VALUE, false, upper, true);
+  }
+
+  /** Returns every {@code long} up to {@code upper} inclusive. */
+  public static LongRange atMost(long upper) {
+    return new LongRange(Long.MIN_VALUE, upper);
+  }
+
+  /** Returns every {@code long} above {@code lower}. */
+  public static LongRange greaterThan(long lower) {
+    return canonical(lower, true, Long.MAX_VALUE, false);
+  }
+
+  /** Returns every {@code long} from {@code lower} inclusive. */
+  public static LongRange atLeast(long lower) {
+    return new LongRange(lower, Long.MAX_VALUE);
+  }
+
+  /** Returns every {@code long}. */
+  public static LongRange all() {
+    return ALL;
+  }
+
+  /** Returns the range containing no values. */
+  public static LongRange empty() {
+    return EMPTY;
+  }
+
+  /** Returns whether {@code value} is in this range. */
+  public boolean contains(long value) {
+    return min <= value && value <= max;
+  }
+
+  /** Returns whether every value of {@code other} is in this range; true if it is empty. */
+  public boolean encloses(LongRange other) {
+    return other.isEmpty() || (min <= other.min && other.max <= max);
+  }
+
+  /**
+   * Returns whether the union of this range and {@code other} is contiguous. The empty range has no
+   * position, so it is connected to no range and never intersected.
+   */
+  public boolean isConnected(LongRange other) {
+    if (isEmpty() || other.isEmpty()) {
+      return false;
+    }
+    // x - 1 only runs once x > y, so it cannot underflow
+    return (min <= other.max || min - 1 == other.max)
+        && (other.min <= max || other.min - 1 == max);
+  }
+
+  /**
+   * Returns the values in both this range and {@code other}; empty if they only touch.
+   *
+   * @throws IllegalArgumentException if the ranges are not connected.
+   */
+  public LongRange intersection(LongRange other) {
+    if (!isConnected(other)) {
+      throw new IllegalArgumentException("Ranges are not connected: " + this + ", " + other);
+    }
+    return canonical(Math.max(min, other.min), false, Math.min(max, other.max), false);
+  }
+
+  /** Returns the minimal range enclosing both this range and {@code other}. */
+  public LongRange span(LongRange other) {
+    if (other.isEmpty()) {
+      return this;
+    }
+    if (isEmpty()) {
+      return other;
+    }
+    return new LongRange(Math.min(min, other.min), Math.max(max, other.max));
+  }
+
+  /** Returns whether this range contains no values. */
+  public boolean isEmpty() {
+    return max < min;
+  }
+
+  /**
+   * Returns the smallest value of the range.
+   *
+   * @throws NoSuchElementException if the range is empty.
+   */
+  public long min() {
+    if (isEmpty()) {
+      throw new NoSuchElementException("Range is empty");
+    }
+    return min;
+  }
+
+  /**
+   * Returns the largest value of the range.
+   *
+   * @throws NoSuchElementException if the range is empty.
+   */
+  public long max() {
+    if (isEmpty()) {
+      throw new NoSuchElementException("Range is empty");
+    }
+    return max;
+  }
+
+  /**
+   * Returns the number of values in the range, or {@code Long.MAX_VALUE} if it holds more, as
+   * {@code Collection.size()} saturates at {@code Integer.MAX_VALUE}.
+   */
+  public long size() {
+    if (isEmpty()) {
+      return 0;
+    }
+    long size = max - min + 1; // exact unless it wraps past Long.MAX_VALUE, to 0 or below
+    return size > 0 ? size : Long.MAX_VALUE;
+  }
+
+  /** Returns the same values as a generic closed range; {@code [0, 0)} if empty. */
+  public Range<Long> toRange() {
+    return isEmpty() ? Range.closedOpen(0L, 0L) : Range.closed(min, max);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof LongRange range && min == range.min && max == range.max;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(min) * 31 + Long.hashCode(max);
+  }
+
+  /** Returns the canonical closed notation, e.g. {@code "[4, 4]"}, or {@code "[0, 0)"}. */
+  @Override
+  public String toString() {
+    return isEmpty() ? "[0, 0)" : "[" + min + ", " + max + "]";
+  }
+}
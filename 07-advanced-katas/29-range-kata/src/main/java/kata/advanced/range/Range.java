@@ -0,0 +1,230 @@
+package kata.advanced.range;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Immutable contiguous interval of a totally ordered domain, with open, closed or unbounded ends.
+ *
+ * <pre>{@code
+ * Range.closed(5, 7).contains(5);            // true
+ * Range.open(5, 7).contains(5);              // false
+ * Range.atLeast(3).encloses(Range.closed(4, 100)); // true
+ * Range.closed(1, 5).intersection(Range.closed(3, 9)); // [3, 5]
+ * }</pre>
+ *
+ * <p>Internally both ends are {@link Cut}s, so every bound type is compared the same way. A range
+ * whose cuts coincide, such as {@code [5, 5)}, is empty; empty ranges at different points are not
+ * equal. Endpoints must not be mutated after the range is created. For {@code int} and {@code long}
+ * domains, {@link IntRange} and {@link LongRange} avoid boxing and {@code compareTo} calls.
+ */
+public final class Range<C extends Comparable<? super C>> {
+  private static final String NEGATIVE_INFINITY = "-Infinity";
+  private static final String POSITIVE_INFINITY = "+Infinity";
+
+  private final Cut<C> lower;
+  private final Cut<C> upper;
+
+  private Range(Cut<C> lower, Cut<C> upper) {
+    this.lower = lower;
+    this.upper = upper;
+  }
+
+  /** Returns the range between two cuts; the cuts must be in order. */
+  static <C extends Comparable<? super C>> Range<C> of(Cut<C> lower, Cut<C> upper) {
+    if (lower.compareTo(upper) > 0) {
+      throw new IllegalArgumentException("Invalid range: lower bound is above upper bound");
+    }
+    return new Range<>(lower, upper);
+  }
+
+  /** Returns {@code [lower, upper]}. */
+  public static <C extends Comparable<? super C>> Range<C> closed(C lower, C upper) {
+    return of(Cut.below(lower), Cut.above(upper));
+  }
+
+  /** Returns {@code (lower, upper)}. */
+  public static <C extends Comparable<? super C>> Range<C> open(C lower, C upper) {
+    return of(Cut.above(lower), Cut.below(upper));
+  }
+
+  /** Returns {@code [lower, upper)}. */
+  public static <C extends Comparable<? super C>> Range<C> closedOpen(C lower, C upper) {
+    return of(Cut.below(lower), Cut.below(upper));
+  }
+
+  /** Returns {@code (lower, upper]}. */
+  public static <C extends Comparable<? super C>> Range<C> openClosed(C lower, C upper) {
+    return of(Cut.above(lower), Cut.above(upper));
+  }
+
+  /** Returns {@code (-Infinity, upper)}. */
+  public static <C extends Comparable<? super C>> Range<C> lessThan(C upper) {
+    return of(Cut.belowAll(), Cut.below(upper));
+  }
+
+  /** Returns {@code (-Infinity, upper]}. */
+  public static <C extends Comparable<? super C>> Range<C> atMost(C upper) {
+    return of(Cut.belowAll(), Cut.above(upper));
+  }
+
+  /** Returns {@code (lower, +Infinity)}. */
+  public static <C extends Comparable<? super C>> Range<C> greaterThan(C lower) {
+    return of(Cut.above(lower), Cut.aboveAll());
+  }
+
+  /** Returns {@code [lower, +Infinity)}. */
+  public static <C extends Comparable<? super C>> Range<C> atLeast(C lower) {
+    return of(Cut.below(lower), Cut.aboveAll());
+  }
+
+  /** Returns {@code (-Infinity, +Infinity)}. */
+  public static <C extends Comparable<? super C>> Range<C> all() {
+    return new Range<>(Cut.<C>belowAll(), Cut.<C>aboveAll());
+  }
+
+  /**
+   * Parses the {@link #toString()} notation, e.g. {@code "[3, +Infinity)"}.
+   *
+   * @param text The range in interval notation; endpoints must not contain commas.
+   * @param valueParser Parses one endpoint.
+   * @throws IllegalArgumentException if the text is not a valid range.
+   */
+  public static <C extends Comparable<? super C>> Range<C> parse(
+      String text, Function<String, C> valueParser) {
+    String trimmed = text.strip();
+    int comma = trimmed.indexOf(',');
+    if (trimmed.length() < 5 || comma < 0 || comma != trimmed.lastIndexOf(',')) {
+      throw new IllegalArgumentException("Invalid range: " + text);
+    }
+    char open = trimmed.charAt(0);
+    char close = trimmed.charAt(trimmed.length() - 1);
+    String lowerText = trimmed.substring(1, comma).strip();
+    String upperText = trimmed.substring(comma + 1, trimmed.length() - 1).strip();
+    Cut<C> lower;
+    if (lowerText.equals(NEGATIVE_INFINITY) && open == '(') {
+      lower = Cut.belowAll();
+    } else if (open == '[' || open == '(') {
+      C value = valueParser.apply(lowerText);
+      lower = open == '[' ? Cut.below(value) : Cut.above(value);
+    } else {
+      throw new IllegalArgumentException("Invalid range: " + text);
+    }
+    Cut<C> upper;
+    if (upperText.equals(POSITIVE_INFINITY) && close == ')') {
+      upper = Cut.aboveAll();
+    } else if (close == ']' || close == ')') {
+      C value = valueParser.apply(upperText);
+      upper = close == ']' ? Cut.above(value) : Cut.below(value);
+    } else {
+      throw new IllegalArgumentException("Invalid range: " + text);
+    }
+    return of(lower, upper);
+  }
+
+  /** Returns whether {@code value} lies within the bounds of this range. */
+  public boolean contains(C value) {
+    Objects.requireNonNull(value, "value is required");
+    return lower.isLessThan(value) && !upper.isLessThan(value);
+  }
+
+  /** Returns whether the bounds of {@code other} do not extend outside the bounds of this range. */
+  public boolean encloses(Range<C> other) {
+    return lower.compareTo(other.lower) <= 0 && other.upper.compareTo(upper) <= 0;
+  }
+
+  /** Returns whether some, possibly empty, range is enclosed by this range and {@code other}. */
+  public boolean isConnected(Range<C> other) {
+    return lower.compareTo(other.upper) <= 0 && other.lower.compareTo(upper) <= 0;
+  }
+
+  /**
+   * Returns the maximal range enclosed by both this range and {@code other}.
+   *
+   * @throws IllegalArgumentException if the ranges are not connected.
+   */
+  public Range<C> intersection(Range<C> other) {
+    if (!isConnected(other)) {
+      throw new IllegalArgumentException("Ranges are not connected: " + this + ", " + other);
+    }
+    return new Range<>(Cut.max(lower, other.lower), Cut.min(upper, other.upper));
+  }
+
+  /** Returns the minimal range enclosing both this range and {@code other}. */
+  public Range<C> span(Range<C> other) {
+    return new Range<>(Cut.min(lower, other.lower), Cut.max(upper, other.upper));
+  }
+
+  /** Returns whether this range contains no values, like {@code [5, 5)}. */
+  public boolean isEmpty() {
+    return lower.equals(upper);
+  }
+
+  /** Returns whether the range has a lower endpoint. */
+  public boolean hasLowerBound() {
+    return !lower.isUnbounded();
+  }
+
+  /** Returns whether the range has an upper endpoint. */
+  public boolean hasUpperBound() {
+    return !upper.isUnbounded();
+  }
+
+  /**
+   * Returns the lower endpoint.
+   *
+   * @throws IllegalStateException if the range is unbounded below.
+   */
+  public C lowerEndpoint() {
+    if (lower.isUnbounded()) {
+      throw new IllegalStateException("Range has no lower bound");
+    }
+    return lower.endpoint();
+  }
+
+  /**
+   * Returns the upper endpoint.
+   *
+   * @throws IllegalStateException if the range is unbounded above.
+   */
+  public C upperEndpoint() {
+    if (upper.isUnbounded()) {
+      throw new IllegalStateException("Range has no upper bound");
+    }
+    return upper.endpoint();
+  }
+
+  Cut<C> lowerCut() {
+    return lower;
+  }
+
+  Cut<C> upperCut() {
+    return upper;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof Range<?> range
+        && lower.equals(range.lower)
+        && upper.equals(range.upper);
+  }
+
+  @Override
+  public int hashCode() {
+    return lower.hashCode() * 31 + upper.hashCode();
+  }
+
+  /** Returns the interval notation, e.g. {@code "(1, 5]"} or {@code "[3, +Infinity)"}. */
+  @Override
+  public String toString() {
+    String from =
+        lower.isUnbounded()
+            ? "(" + NEGATIVE_INFINITY
+            : (lower.isBelow() ? "[" : "(") + lower.endpoint();
+    String to =
+        upper.isUnbounded()
+            ? POSITIVE_INFINITY + ")"
+            : upper.endpoint() + (upper.isBelow() ? ")" : "]");
+    return from + ", " + to;
+  }
+}
@@ -0,0 +1,435 @@
+package kata.advanced.range;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Level 7: intersections of integer ranges over the JDK {@link HttpServer}.
+ *
+ * <p>A pair is a JSON array of two ranges in interval notation, {@code ["[1, 10]", "(5, 15)"]}.
+ *
+ * <ul>
+ *   <li>{@code POST /api/range/intersection} takes one pair of {@code Range<Integer>}s and answers
+ *       {@code {"intersection":"(5, 10]"}} in {@link Range#toString()} notation, or 400 with {@code
+ *       {"error":"..."}} if the JSON or a range is invalid or the ranges are not connected, e.g.
+ *       {@code [1, 5]} and {@code [6, 9]}.
+ *   <li>{@code POST /api/range/intersections} takes many pairs, either as a JSON array of pairs or
+ *       as NDJSON (one pair per line; told apart by the second token), and streams back one result
+ *       per pair in the same shape and order, {@code {"intersection":...}} or {@code
+ *       {"error":...}}. Per-pair errors do not stop the batch. Pairs are answered as {@code
+ *       Range<Integer>}s, like the single endpoint answers them: the example answers {@code "(5,
+ *       10]"}, and {@code [1, 5]} and {@code [6, 9]} are a "not connected" error.
+ * </ul>
+ *
+ * <p>The batch endpoint never holds the request or the response: {@link RangePairReader} scans the
+ * body in a fixed buffer, {@link IntRangeParser} reads each range in place into unboxed {@link
+ * IntBounds}, and results go through a fixed output buffer. The response is committed as 200 when
+ * that buffer first fills; malformed JSON before that answers 400, after it ends the stream with a
+ * final error result. Every exchange runs on its own virtual thread. Anything but {@code POST}
+ * answers 405.
+ */
+public final class RangeIntersectionService implements AutoCloseable {
+  /** Single pair endpoint. */
+  public static final String PATH = "/api/range/intersection";
+
+  /** Batch endpoint. */
+  public static final String BATCH_PATH = "/api/range/intersections";
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private RangeIntersectionService(HttpServer server, ExecutorService executor) {
+    this.server = server;
+    this.executor = executor;
+  }
+
+  /**
+   * Starts serving on {@code address}; port 0 picks a free port, see {@link #address()}.
+   *
+   * @throws IOException if the address cannot be bound.
+   */
+  public static RangeIntersectionService start(InetSocketAddress address) throws IOException {
+    HttpServer server = HttpServer.create(address, 0);
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    server.setExecutor(executor);
+    server.createContext(PATH, RangeIntersectionService::handleSingle);
+    server.createContext(BATCH_PATH, RangeIntersectionService::handleBatch);
+    server.start();
+    return new RangeIntersectionService(server, executor);
+  }
+
+  /**
+   * Runs the service on the port given as first argument, 8080 by default, until killed.
+   *
+   * <p>Sets {@code sun.net.httpserver.nodelay} first, as the aggregator's {@code RevenueService}
+   * does: without it, Nagle's algorithm and a client's delayed ACK stall small responses by ~40
+   * ms. The JDK reads it once, when the first server is created; embedders pass it as a JVM
+   * argument.
+   */
+  public static void main(String[] args) throws IOException {
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+    RangeIntersectionService service = start(new InetSocketAddress(port));
+    System.out.println("Listening on http://localhost:" + service.address().getPort() + PATH);
+  }
+
+  /** Returns the bound address. */
+  public InetSocketAddress address() {
+    return server.getAddress();
+  }
+
+  /** Stops accepting requests and waits for the running ones to finish. */
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.close();
+  }
+
+  private static void handleSingle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      Output out = new Output(exchange);
+      if (allowed(exchange, out)) {
+        try {
+          RangePairReader in = new RangePairReader(exchange.getRequestBody(), BUFFER_SIZE);
+          in.expect('[');
+          Range<Integer> intersection =
+              pair(in, RangeIntersectionService::parseRange, Range::intersection);
+          in.expectEnd();
+          out.intersection(intersection);
+        } catch (IllegalArgumentException e) {
+          out.fail(400, e.getMessage());
+        }
+      }
+      out.finish();
+    }
+  }
+
+  private static void handleBatch(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      Output out = new Output(exchange);
+      if (allowed(exchange, out)) {
+        try {
+          intersections(new RangePairReader(exchange.getRequestBody(), BUFFER_SIZE), out);
+        } catch (IllegalArgumentException e) {
+          if (out.isCommitted()) {
+            out.error(e.getMessage());
+          } else {
+            out.fail(400, e.getMessage());
+          }
+        }
+      }
+      out.finish();
+    }
+  }
+
+  private static boolean allowed(HttpExchange exchange, Output out) throws IOException {
+    if ("POST".equals(exchange.getRequestMethod())) {
+      return true;
+    }
+    exchange.getResponseHeaders().set("Allow", "POST");
+    out.fail(405, "Method not allowed");
+    return false;
+  }
+
+  /** Answers every pair of a JSON array of pairs, or of NDJSON pairs, in order. */
+  static void intersections(RangePairReader in, Output out) throws IOException {
+    IntRangeParser parser = new IntRangeParser();
+    Function<RangePairReader, IntBounds> ranges =
+        reader -> parser.parseBounds(reader.bytes(), reader.stringStart, reader.stringEnd);
+    in.expect('[');
+    if (in.peek() == '"') {
+      // NDJSON: the '[' just read opened the first pair
+      out.beginLines();
+      item(in, ranges, out);
+      while (in.peek() == '[') {
+        in.expect('[');
+        item(in, ranges, out);
+      }
+    } else {
+      out.beginArray();
+      if (in.peek() == ']') {
+        in.expect(']');
+      } else {
+        do {
+          in.expect('[');
+          item(in, ranges, out);
+        } while (in.more(',', ']'));
+      }
+    }
+    in.expectEnd();
+  }
+
+  private static void item(
+      RangePairReader in, Function<RangePairReader, IntBounds> ranges, Output out)
+      throws IOException {
+    IntBounds intersection;
+    try {
+      intersection = pair(in, ranges, IntBounds::intersection);
+    } catch (PairException e) {
+      out.error(e.getMessage());
+      return;
+    }
+    out.intersection(intersection);
+  }
+
+  /**
+   * Reads the rest of a pair whose {@code '['} is consumed and returns the intersection.
+   *
+   * @param ranges Parses the string the reader points at into a range.
+   * @throws PairException if a range is invalid or the ranges are not connected; the pair is
+   *     consumed regardless.
+   * @throws IllegalArgumentException if the JSON is malformed.
+   */
+  private static <R> R pair(
+      RangePairReader in, Function<RangePairReader, R> ranges, BinaryOperator<R> intersection)
+      throws IOException {
+    boolean plain = in.string();
+    R first = null;
+    String error = null;
+    try {
+      first = range(in, ranges, plain);
+    } catch (IllegalArgumentException e) {
+      error = "First range: " + e.getMessage();
+    }
+    in.expect(',');
+    plain = in.string();
+    R second = null;
+    if (error == null) {
+      try {
+        second = range(in, ranges, plain);
+      } catch (IllegalArgumentException e) {
+        error = "Second range: " + e.getMessage();
+      }
+    }
+    in.expect(']');
+    if (first == null || second == null) {
+      throw new PairException(error);
+    }
+    try {
+      return intersection.apply(first, second);
+    } catch (IllegalArgumentException e) {
+      throw new PairException(e.getMessage());
+    }
+  }
+
+  private static <R> R range(
+      RangePairReader in, Function<RangePairReader, R> ranges, boolean plain) {
+    if (!plain) {
+      throw new IllegalArgumentException("Invalid range: escape sequences are not supported");
+    }
+    return ranges.apply(in);
+  }
+
+  /** Parses the string the reader points at as a {@code Range<Integer>}. */
+  private static Range<Integer> parseRange(RangePairReader in) {
+    return Range.parse(in.text(), Integer::valueOf);
+  }
+
+  /** A pair that is well-formed JSON but has no intersection; answered as a per-pair error. */
+  private static final class PairException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    PairException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Results written as JSON into a fixed buffer, sent with a {@code Content-Length} if they fit in
+   * it and streamed with chunked encoding otherwise.
+   */
+  static final class Output {
+    private static final byte[] INTERSECTION = ascii("{\"intersection\":\"");
+    private static final byte[] ERROR = ascii("{\"error\":\"");
+    private static final byte[] BELOW_ALL = ascii("(-Infinity");
+    private static final byte[] ABOVE_ALL = ascii("+Infinity)");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private final HttpExchange exchange;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] digits = new byte[11];
+    private int count;
+    private int status = 200;
+    private boolean array;
+    private boolean lines;
+    private int results;
+    private OutputStream body;
+
+    Output(HttpExchange exchange) {
+      this.exchange = exchange;
+    }
+
+    /** Writes the results as the elements of a JSON array. */
+    void beginArray() {
+      array = true;
+      buffer[count++] = '[';
+    }
+
+    /** Writes the results as NDJSON, one per line. */
+    void beginLines() {
+      lines = true;
+    }
+
+    /** Returns whether the status and part of the body have been sent. */
+    boolean isCommitted() {
+      return body != null;
+    }
+
+    /** Discards the uncommitted results and answers {@code status} with one error object. */
+    void fail(int status, String message) throws IOException {
+      this.status = status;
+      count = 0;
+      array = false;
+      lines = false;
+      results = 0;
+      error(message);
+    }
+
+    /** Writes the bounds in {@link Range#toString()} notation, without building the string. */
+    void intersection(IntBounds range) throws IOException {
+      separate();
+      write(INTERSECTION);
+      long lower = range.lowerCut();
+      if (lower == IntBounds.BELOW_ALL) {
+        write(BELOW_ALL);
+      } else {
+        write(IntBounds.isBelow(lower) ? '[' : '(');
+        writeInt(IntBounds.endpoint(lower));
+      }
+      write(',');
+      write(' ');
+      long upper = range.upperCut();
+      if (upper == IntBounds.ABOVE_ALL) {
+        write(ABOVE_ALL);
+      } else {
+        writeInt(IntBounds.endpoint(upper));
+        write(IntBounds.isBelow(upper) ? ')' : ']');
+      }
+      write('"');
+      write('}');
+      terminate();
+    }
+
+    void intersection(Range<Integer> range) throws IOException {
+      separate();
+      write(INTERSECTION);
+      String text = range.toString();
+      for (int i = 0; i < text.length(); i++) {
+        write(text.charAt(i));
+      }
+      write('"');
+      write('}');
+      terminate();
+    }
+
+    void error(String message) throws IOException {
+      separate();
+      write(ERROR);
+      for (int i = 0; i < message.length(); i++) {
+        char c = message.charAt(i);
+        if (c == '"' || c == '\\') {
+          write('\\');
+          write(c);
+        } else if (c < 0x20 || c >= 0x7F) {
+          write('\\');
+          write('u');
+          for (int shift = 12; shift >= 0; shift -= 4) {
+            write(HEX[(c >> shift) & 0xF]);
+          }
+        } else {
+          write(c);
+        }
+      }
+      write('"');
+      write('}');
+      terminate();
+    }
+
+    /** Closes the array, if any, and sends what is left. */
+    void finish() throws IOException {
+      if (array) {
+        write(']');
+      }
+      if (body == null) {
+        commit(count);
+      }
+      body.write(buffer, 0, count);
+      body.close();
+    }
+
+    private void separate() throws IOException {
+      if (array && results > 0) {
+        write(',');
+      }
+      results++;
+    }
+
+    private void terminate() throws IOException {
+      if (lines) {
+        write('\n');
+      }
+    }
+
+    private void writeInt(int value) throws IOException {
+      long v = value;
+      if (v < 0) {
+        write('-');
+        v = -v;
+      }
+      int i = digits.length;
+      do {
+        digits[--i] = (byte) ('0' + v % 10);
+        v /= 10;
+      } while (v > 0);
+      for (; i < digits.length; i++) {
+        write(digits[i]);
+      }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+      for (byte b : bytes) {
+        write(b);
+      }
+    }
+
+    private void write(char c) throws IOException {
+      write((byte) c);
+    }
+
+    private void write(byte b) throws IOException {
+      if (count == buffer.length) {
+        if (body == null) {
+          commit(0);
+        }
+        body.write(buffer, 0, count);
+        count = 0;
+      }
+      buffer[count++] = b;
+    }
+
+    /** Sends the headers; a length of 0 means chunked encoding. */
+    private void commit(long length) throws IOException {
+      exchange
+          .getResponseHeaders()
+          .set("Content-Type", lines ? "application/x-ndjson" : "application/json");
+      exchange.sendResponseHeaders(status, length);
+      body = exchange.getResponseBody();
+    }
+
+    private static byte[] ascii(String text) {
+      return text.getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+}
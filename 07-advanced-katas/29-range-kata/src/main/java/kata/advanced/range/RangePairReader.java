@@ -0,0 +1,153 @@
+package kata.advanced.range;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull tokenizer for the JSON carrying range pairs, reading UTF-8 bytes straight from a stream.
+ *
+ * <p>Only the tokens the pair formats need are supported: structural characters and strings.
+ * Strings are not decoded: {@link #string()} leaves the raw bytes in the read buffer, at {@code
+ * [stringStart, stringEnd)} of {@link #bytes()}, for {@link IntRangeParser} to scan in place. They
+ * stay valid until the next call. Consumed bytes are dropped from the buffer as it refills, so
+ * memory is the buffer whatever the length of the body, and one string must fit in it.
+ *
+ * <p>Malformed input throws {@code IllegalArgumentException("Malformed JSON at character N: ...")}
+ * where N counts bytes from the start of the stream.
+ */
+final class RangePairReader {
+  private final InputStream in;
+  private final byte[] buffer;
+  private final ByteBuffer bytes;
+  private int position;
+  private int limit;
+  private long discarded; // bytes dropped from the front of the buffer so far
+
+  int stringStart;
+  int stringEnd;
+
+  RangePairReader(InputStream in, int bufferSize) {
+    this.in = in;
+    this.buffer = new byte[bufferSize];
+    this.bytes = ByteBuffer.wrap(buffer);
+  }
+
+  /** Returns the read buffer, in which the last string lies at {@code [stringStart, stringEnd)}. */
+  ByteBuffer bytes() {
+    return bytes;
+  }
+
+  /** Decodes the last string, for callers that need it as a {@code String}. */
+  String text() {
+    return new String(buffer, stringStart, stringEnd - stringStart, StandardCharsets.UTF_8);
+  }
+
+  /** Skips whitespace and returns the next byte without consuming it, or -1 at the end. */
+  int peek() throws IOException {
+    while (true) {
+      while (position < limit) {
+        byte b = buffer[position];
+        if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+          return b & 0xFF;
+        }
+        position++;
+      }
+      if (!fill()) {
+        return -1;
+      }
+    }
+  }
+
+  /** Consumes {@code c}, after any whitespace. */
+  void expect(char c) throws IOException {
+    if (peek() != c) {
+      throw error("expected '" + c + "'");
+    }
+    position++;
+  }
+
+  /**
+   * Consumes {@code separator} or {@code close}, after any whitespace.
+   *
+   * @return Whether another element follows, i.e. {@code separator} was read.
+   */
+  boolean more(char separator, char close) throws IOException {
+    int c = peek();
+    if (c != separator && c != close) {
+      throw error("expected '" + separator + "' or '" + close + "'");
+    }
+    position++;
+    return c == separator;
+  }
+
+  /** Checks that only whitespace is left. */
+  void expectEnd() throws IOException {
+    if (peek() != -1) {
+      throw error("unexpected data after the end");
+    }
+  }
+
+  /**
+   * Consumes a string, after any whitespace, and points {@code stringStart}/{@code stringEnd} at
+   * its raw bytes.
+   *
+   * @return Whether the string is plain, i.e. contains no escape sequence.
+   */
+  boolean string() throws IOException {
+    expect('"');
+    boolean plain = true;
+    boolean escape = false;
+    for (int n = 0; ; n++) {
+      if (position + n == limit && !fill()) {
+        throw error("unterminated string");
+      }
+      byte b = buffer[position + n];
+      if (escape) {
+        escape = false;
+      } else if (b == '\\') {
+        plain = false;
+        escape = true;
+      } else if (b == '"') {
+        stringStart = position;
+        stringEnd = position + n;
+        position += n + 1;
+        return plain;
+      } else if ((b & 0xFF) < 0x20) {
+        throw error("control character in string");
+      }
+    }
+  }
+
+  /**
+   * Drops the consumed bytes and reads more after the unconsumed ones.
+   *
+   * @return False at the end of the stream.
+   */
+  private boolean fill() throws IOException {
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      discarded += position;
+      position = 0;
+    }
+    if (limit == buffer.length) {
+      throw error("string longer than " + buffer.length + " bytes");
+    }
+    int read;
+    do {
+      read = in.read(buffer, limit, buffer.length - limit);
+    } while (read == 0);
+    if (read < 0) {
+      return false;
+    }
+    limit += read;
+    return true;
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(
+        "Malformed JSON at character " + (discarded + position) + ": " + message);
+  }
+}
@@ -0,0 +1,235 @@
+package kata.advanced.range;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * Immutable set of non-empty, pairwise disconnected {@link Range}s, e.g. {@code {[1, 5], [10,
+ * 15]}}.
+ *
+ * <p>Ranges are coalesced as the set is built: connected ranges, overlapping or merely touching
+ * like {@code [1, 5]} and {@code (5, 9)}, become their span, and empty ranges are dropped. Note
+ * that {@code [1, 3]} and {@code [4, 5]} are not connected for a generic domain; use {@link
+ * IntRange} or {@link LongRange} when adjacent integers should merge.
+ *
+ * <p>The ranges are kept in one array sorted by lower bound, so {@link #contains}, {@link
+ * #encloses} and {@link #rangeContaining} are binary searches, O(log n), and {@link #union},
+ * {@link #intersection} and {@link #complement} are linear merges over the sorted arrays.
+ */
+public final class RangeSet<C extends Comparable<? super C>> {
+  private final Range<C>[] ranges;
+
+  private RangeSet(Range<C>[] ranges) {
+    this.ranges = ranges;
+  }
+
+  /** Returns the empty set. */
+  public static <C extends Comparable<? super C>> RangeSet<C> of() {
+    return new RangeSet<>(RangeSet.<C>newArray(0));
+  }
+
+  /** Returns the union of the given ranges. */
+  @SafeVarargs
+  public static <C extends Comparable<? super C>> RangeSet<C> of(Range<C>... ranges) {
+    Range<C>[] copy = newArray(ranges.length);
+    for (int i = 0; i < ranges.length; i++) {
+      copy[i] = ranges[i];
+    }
+    return sortAndCoalesce(copy);
+  }
+
+  /** Returns the union of the given ranges; O(n log n). */
+  public static <C extends Comparable<? super C>> RangeSet<C> copyOf(Iterable<Range<C>> ranges) {
+    List<Range<C>> list = new ArrayList<>();
+    ranges.forEach(list::add);
+    return sortAndCoalesce(list.toArray(RangeSet.<C>newArray(list.size())));
+  }
+
+  /** Returns whether some range of the set contains {@code value}; O(log n). */
+  public boolean contains(C value) {
+    int i = floor(value);
+    return i >= 0 && ranges[i].contains(value);
+  }
+
+  /** Returns the range of the set containing {@code value}, if any; O(log n). */
+  public Optional<Range<C>> rangeContaining(C value) {
+    int i = floor(value);
+    return i >= 0 && ranges[i].contains(value) ? Optional.of(ranges[i]) : Optional.empty();
+  }
+
+  /** Returns whether one range of the set encloses {@code range}; O(log n). */
+  public boolean encloses(Range<C> range) {
+    int low = 0;
+    int high = ranges.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (ranges[mid].lowerCut().compareTo(range.lowerCut()) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return high >= 0 && ranges[high].encloses(range);
+  }
+
+  /** Returns the set of values in this set or {@code other}; O(n + m). */
+  public RangeSet<C> union(RangeSet<C> other) {
+    if (other.ranges.length == 0) {
+      return this;
+    }
+    if (ranges.length == 0) {
+      return other;
+    }
+    Range<C>[] merged = Arrays.copyOf(ranges, ranges.length + other.ranges.length);
+    int i = 0;
+    int j = 0;
+    for (int k = 0; k < merged.length; k++) {
+      boolean takeThis =
+          j == other.ranges.length
+              || (i < ranges.length
+                  && ranges[i].lowerCut().compareTo(other.ranges[j].lowerCut()) <= 0);
+      merged[k] = takeThis ? ranges[i++] : other.ranges[j++];
+    }
+    return coalesce(merged, merged.length);
+  }
+
+  /** Returns the set of values in both this set and {@code other}; O(n + m). */
+  public RangeSet<C> intersection(RangeSet<C> other) {
+    Range<C>[] result = newArray(ranges.length + other.ranges.length);
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < ranges.length && j < other.ranges.length) {
+      Range<C> a = ranges[i];
+      Range<C> b = other.ranges[j];
+      if (a.isConnected(b)) {
+        Range<C> both = a.intersection(b);
+        if (!both.isEmpty()) {
+          result[size++] = both;
+        }
+      }
+      if (a.upperCut().compareTo(b.upperCut()) <= 0) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return size == 0 ? of() : new RangeSet<>(Arrays.copyOf(result, size));
+  }
+
+  /** Returns the set of values not in this set; O(n). */
+  public RangeSet<C> complement() {
+    Range<C>[] gaps = newArray(ranges.length + 1);
+    int size = 0;
+    Cut<C> from = Cut.belowAll();
+    for (Range<C> range : ranges) {
+      if (!from.equals(range.lowerCut())) {
+        gaps[size++] = Range.of(from, range.lowerCut());
+      }
+      from = range.upperCut();
+    }
+    if (!from.equals(Cut.aboveAll())) {
+      gaps[size++] = Range.of(from, Cut.aboveAll());
+    }
+    return new RangeSet<>(Arrays.copyOf(gaps, size));
+  }
+
+  /** Returns the set of values in this set but not in {@code other}; O(n + m). */
+  public RangeSet<C> difference(RangeSet<C> other) {
+    return intersection(other.complement());
+  }
+
+  /**
+   * Returns the minimal range enclosing every range of the set.
+   *
+   * @throws NoSuchElementException if the set is empty.
+   */
+  public Range<C> span() {
+    if (ranges.length == 0) {
+      throw new NoSuchElementException("RangeSet is empty");
+    }
+    return ranges[0].span(ranges[ranges.length - 1]);
+  }
+
+  /** Returns the ranges of the set in ascending order. */
+  public List<Range<C>> asRanges() {
+    return List.of(ranges);
+  }
+
+  /** Returns whether the set contains no values. */
+  public boolean isEmpty() {
+    return ranges.length == 0;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RangeSet<?> set && Arrays.equals(ranges, set.ranges);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(ranges);
+  }
+
+  /** Returns the ranges in braces, e.g. {@code "{[1, 5], [10, 15]}"}. */
+  @Override
+  public String toString() {
+    StringJoiner joiner = new StringJoiner(", ", "{", "}");
+    for (Range<C> range : ranges) {
+      joiner.add(range.toString());
+    }
+    return joiner.toString();
+  }
+
+  /** Returns the index of the last range whose lower bound lies below {@code value}, or -1. */
+  private int floor(C value) {
+    Objects.requireNonNull(value, "value is required");
+    int low = 0;
+    int high = ranges.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (ranges[mid].lowerCut().isLessThan(value)) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return high;
+  }
+
+  private static <C extends Comparable<? super C>> RangeSet<C> sortAndCoalesce(Range<C>[] ranges) {
+    for (Range<C> range : ranges) {
+      Objects.requireNonNull(range, "range is required");
+    }
+    Arrays.sort(ranges, (a, b) -> a.lowerCut().compareTo(b.lowerCut()));
+    return coalesce(ranges, ranges.length);
+  }
+
+  /** Merges connected neighbours of the first {@code size} ranges, sorted by lower bound. */
+  private static <C extends Comparable<? super C>> RangeSet<C> coalesce(
+      Range<C>[] sorted, int size) {
+    int out = 0;
+    for (int i = 0; i < size; i++) {
+      Range<C> range = sorted[i];
+      if (range.isEmpty()) {
+        continue;
+      }
+      if (out > 0 && sorted[out - 1].isConnected(range)) {
+        sorted[out - 1] = sorted[out - 1].span(range);
+      } else {
+        sorted[out++] = range;
+      }
+    }
+    return out == 0 ? of() : new RangeSet<>(Arrays.copyOf(sorted, out));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <C extends Comparable<? super C>> Range<C>[] newArray(int length) {
+    return (Range<C>[]) new Range<?>[length];
+  }
+}
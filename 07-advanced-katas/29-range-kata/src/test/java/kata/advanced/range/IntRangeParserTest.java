@@ -0,0 +1,85 @@
+package kata.advanced.range;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class IntRangeParserTest {
+  private final IntRangeParser parser = new IntRangeParser();
+
+  @Test
+  void parsesEveryBoundTypeIntoCanonicalForm() {
+    assertThat(parser.parse("[1, 10]")).isEqualTo(IntRange.closed(1, 10));
+    assertThat(parser.parse("(5, 15)")).isEqualTo(IntRange.closed(6, 14));
+    assertThat(parser.parse("[1,5)")).isEqualTo(IntRange.closedOpen(1, 5));
+    assertThat(parser.parse(" ( -3 , +3 ] ")).isEqualTo(IntRange.openClosed(-3, 3));
+    assertThat(parser.parse("[5, 5)").isEmpty()).isTrue();
+  }
+
+  @Test
+  void parsesUnboundedEnds() {
+    assertThat(parser.parse("(-Infinity, 5]")).isEqualTo(IntRange.atMost(5));
+    assertThat(parser.parse("(-Infinity, 5)")).isEqualTo(IntRange.lessThan(5));
+    assertThat(parser.parse("[3, +Infinity)")).isEqualTo(IntRange.atLeast(3));
+    assertThat(parser.parse("(3, +Infinity)")).isEqualTo(IntRange.greaterThan(3));
+    assertThat(parser.parse("(-Infinity, +Infinity)")).isEqualTo(IntRange.all());
+  }
+
+  @Test
+  void agreesWithTheGenericParser() {
+    String[] texts = {"[1, 10]", "(5, 15)", "(-Infinity, 0)", "[-2147483648, 7]", "(3, 4]"};
+    for (String text : texts) {
+      IntRange parsed = parser.parse(text);
+      Range<Integer> generic = Range.parse(text, Integer::valueOf);
+      for (int value = -2; value <= 16; value++) {
+        assertThat(parsed.contains(value)).isEqualTo(generic.contains(value));
+      }
+    }
+  }
+
+  @Test
+  void boundsKeepTheNotationOfTheGenericParser() {
+    String[] texts = {"[1, 10]", "(5, 15)", "(-Infinity, 0)", "[-2147483648, 7]", "[3, 3)"};
+    for (String text : texts) {
+      ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+      IntBounds bounds = parser.parseBounds(bytes, 0, text.length());
+
+      assertThat(bounds.toRange()).isEqualTo(Range.parse(text, Integer::valueOf));
+      assertThat(bounds.toString()).isEqualTo(text);
+    }
+    ByteBuffer bytes = ByteBuffer.wrap("(5, 5)".getBytes(StandardCharsets.US_ASCII));
+    assertThatThrownBy(() -> parser.parseBounds(bytes, 0, 6))
+        .hasMessage("Invalid range: lower bound is above upper bound");
+  }
+
+  @Test
+  void parsesASliceOfBytesInPlace() {
+    byte[] json = "[\"[1, 10]\",\"(5, 15)\"]".getBytes(StandardCharsets.US_ASCII);
+    ByteBuffer bytes = ByteBuffer.wrap(json);
+
+    assertThat(parser.parse(bytes, 2, 9)).isEqualTo(IntRange.closed(1, 10));
+    assertThat(parser.parse(bytes, 12, 19)).isEqualTo(IntRange.closed(6, 14));
+    assertThat(parser.parse("xx[1, 2]xx", 2, 8)).isEqualTo(IntRange.closed(1, 2));
+  }
+
+  @Test
+  void rejectsInvalidRangesWithTheirPosition() {
+    assertThatThrownBy(() -> parser.parse("[1; 2]"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Invalid range at character 2: expected ','");
+    assertThatThrownBy(() -> parser.parse("[-Infinity, 2]"))
+        .hasMessage("Invalid range at character 2: expected an integer");
+    assertThatThrownBy(() -> parser.parse("[1, +Infinity]"))
+        .hasMessageContaining("+Infinity must be closed by ')'");
+    assertThatThrownBy(() -> parser.parse("[1, 2147483648]"))
+        .hasMessageContaining("endpoint out of int range");
+    assertThatThrownBy(() -> parser.parse("[1, 2] x"))
+        .hasMessageContaining("unexpected trailing characters");
+    assertThatThrownBy(() -> parser.parse("[2, 1]"))
+        .hasMessage("Invalid range: lower bound is above upper bound");
+    assertThat(parser.parse("[-2147483648, 2147483647]")).isEqualTo(IntRange.all());
+  }
+}
@@ -0,0 +1,84 @@
+package kata.advanced.range;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+
+class PrimitiveRangeTest {
+
+  @Test
+  void intRangesAreStoredInCanonicalClosedForm() {
+    assertThat(IntRange.open(3, 5)).isEqualTo(IntRange.singleton(4)).hasToString("[4, 4]");
+    assertThat(IntRange.closedOpen(1, 4)).isEqualTo(IntRange.openClosed(0, 3));
+    assertThat(IntRange.open(3, 4)).isEqualTo(IntRange.closedOpen(7, 7));
+    assertThat(IntRange.empty()).hasToString("[0, 0)");
+    assertThat(IntRange.empty().size()).isZero();
+    assertThat(IntRange.all().size()).isEqualTo(1L << 32);
+    assertThatThrownBy(() -> IntRange.closed(5, 4)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> IntRange.open(5, 5)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> IntRange.empty().min()).isInstanceOf(NoSuchElementException.class);
+  }
+
+  @Test
+  void intRangesHandleTheEdgesOfTheDomain() {
+    assertThat(IntRange.lessThan(Integer.MIN_VALUE).isEmpty()).isTrue();
+    assertThat(IntRange.greaterThan(Integer.MAX_VALUE).isEmpty()).isTrue();
+    assertThat(IntRange.atLeast(Integer.MAX_VALUE).contains(Integer.MAX_VALUE)).isTrue();
+    assertThat(IntRange.atMost(0).isConnected(IntRange.atLeast(1))).isTrue();
+    assertThat(IntRange.atMost(Integer.MAX_VALUE).isConnected(IntRange.singleton(0))).isTrue();
+  }
+
+  @Test
+  void intRangesCompareAsSetsOfIntegers() {
+    IntRange base = IntRange.closed(3, 6);
+
+    assertThat(base.contains(3)).isTrue();
+    assertThat(base.contains(7)).isFalse();
+    assertThat(base.encloses(IntRange.open(3, 6))).isTrue();
+    assertThat(base.encloses(IntRange.empty())).isTrue();
+    assertThat(base.isConnected(IntRange.closed(7, 9))).isTrue();
+    assertThat(base.isConnected(IntRange.closed(8, 9))).isFalse();
+    assertThat(base.intersection(IntRange.closed(7, 9)).isEmpty()).isTrue();
+    assertThat(base.intersection(IntRange.closed(5, 9))).isEqualTo(IntRange.closed(5, 6));
+    assertThat(base.span(IntRange.closed(8, 9))).isEqualTo(IntRange.closed(3, 9));
+    assertThat(base.toRange()).isEqualTo(Range.closed(3, 6));
+    assertThatThrownBy(() -> base.intersection(IntRange.closed(8, 9)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(base.isConnected(IntRange.empty())).isFalse();
+    assertThat(IntRange.empty().isConnected(IntRange.all())).isFalse();
+    assertThatThrownBy(() -> IntRange.open(1, 2).intersection(IntRange.closed(100, 200)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void longRangesAvoidOverflowAtTheEdgesOfTheDomain() {
+    assertThat(LongRange.open(Long.MAX_VALUE - 2, Long.MAX_VALUE))
+        .isEqualTo(LongRange.singleton(Long.MAX_VALUE - 1));
+    assertThat(LongRange.closedOpen(Long.MIN_VALUE, Long.MIN_VALUE).isEmpty()).isTrue();
+    assertThat(LongRange.lessThan(Long.MIN_VALUE).isEmpty()).isTrue();
+    assertThat(LongRange.greaterThan(Long.MAX_VALUE).isEmpty()).isTrue();
+    assertThat(LongRange.atMost(Long.MAX_VALUE).isConnected(LongRange.singleton(0))).isTrue();
+    assertThat(LongRange.atMost(-1).isConnected(LongRange.atLeast(0))).isTrue();
+    assertThat(LongRange.atMost(-1).isConnected(LongRange.atLeast(1))).isFalse();
+    assertThat(LongRange.closed(0, Long.MAX_VALUE - 1).size()).isEqualTo(Long.MAX_VALUE);
+    assertThat(LongRange.closed(-1, Long.MAX_VALUE - 1).size()).isEqualTo(Long.MAX_VALUE);
+    assertThat(LongRange.closed(-1, Long.MAX_VALUE).size()).isEqualTo(Long.MAX_VALUE);
+    assertThat(LongRange.all().size()).isEqualTo(Long.MAX_VALUE);
+    assertThat(IntRange.all().size()).isEqualTo(1L << 32);
+    assertThat(LongRange.openClosed(Long.MAX_VALUE, Long.MAX_VALUE).isEmpty()).isTrue();
+    assertThat(LongRange.empty().isConnected(LongRange.all())).isFalse();
+  }
+
+  @Test
+  void longRangesMatchTheGenericRange() {
+    LongRange range = LongRange.openClosed(10, 20);
+
+    assertThat(range.contains(10)).isFalse();
+    assertThat(range.contains(20)).isTrue();
+    assertThat(range.toRange()).isEqualTo(Range.closed(11L, 20L));
+    assertThat(range.span(LongRange.empty())).isSameAs(range);
+    assertThat(LongRange.empty().toRange().isEmpty()).isTrue();
+  }
+}
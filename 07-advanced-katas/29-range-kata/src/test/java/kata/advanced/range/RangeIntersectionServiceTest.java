@@ -0,0 +1,154 @@
+package kata.advanced.range;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.Test;
+
+class RangeIntersectionServiceTest {
+
+  @Test
+  void singleEndpointAnswersTheIntersectionOrBadRequest() throws Exception {
+    try (RangeIntersectionService service =
+            RangeIntersectionService.start(new InetSocketAddress("localhost", 0));
+        HttpClient http = HttpClient.newHttpClient()) {
+      HttpResponse<String> ok =
+          post(http, service, RangeIntersectionService.PATH, "[\"[1, 10]\", \"(5, 15)\"]");
+      HttpResponse<String> disconnected =
+          post(http, service, RangeIntersectionService.PATH, "[\"[1, 5]\", \"[8, 9]\"]");
+      HttpResponse<String> adjacent =
+          post(http, service, RangeIntersectionService.PATH, "[\"[1, 5]\", \"[6, 9]\"]");
+      HttpResponse<String> farFromEmpty =
+          post(http, service, RangeIntersectionService.PATH, "[\"(1, 2)\", \"[100, 200]\"]");
+      HttpResponse<String> malformed = post(http, service, RangeIntersectionService.PATH, "[");
+
+      assertThat(ok.statusCode()).isEqualTo(200);
+      assertThat(ok.body()).isEqualTo("{\"intersection\":\"(5, 10]\"}");
+      assertThat(disconnected.statusCode()).isEqualTo(400);
+      assertThat(disconnected.body()).contains("Ranges are not connected");
+      assertThat(adjacent.statusCode()).isEqualTo(400);
+      assertThat(farFromEmpty.statusCode()).isEqualTo(400);
+      assertThat(malformed.statusCode()).isEqualTo(400);
+      assertThat(malformed.body()).contains("Malformed JSON at character 1");
+    }
+  }
+
+  @Test
+  void batchEndpointAnswersAJsonArrayWithPerPairErrors() throws Exception {
+    String body =
+        """
+        [["[1, 10]", "(5, 15)"],
+         ["[1, 5]", "[6, 9]"],
+         ["[1, 5]", "[8; 9]"],
+         ["(1, 2)", "[100, 200]"],
+         ["(-Infinity, 0]", "[-5, +Infinity)"]]
+        """;
+
+    try (RangeIntersectionService service =
+            RangeIntersectionService.start(new InetSocketAddress("localhost", 0));
+        HttpClient http = HttpClient.newHttpClient()) {
+      HttpResponse<String> response =
+          post(http, service, RangeIntersectionService.BATCH_PATH, body);
+      HttpResponse<String> empty = post(http, service, RangeIntersectionService.BATCH_PATH, "[]");
+
+      assertThat(response.statusCode()).isEqualTo(200);
+      assertThat(response.body())
+          .isEqualTo(
+              "[{\"intersection\":\"(5, 10]\"},"
+                  + "{\"error\":\"Ranges are not connected: [1, 5], [6, 9]\"},"
+                  + "{\"error\":\"Second range: Invalid range at character 2: expected ','\"},"
+                  + "{\"error\":\"Ranges are not connected: (1, 2), [100, 200]\"},"
+                  + "{\"intersection\":\"[-5, 0]\"}]");
+      assertThat(empty.body()).isEqualTo("[]");
+    }
+  }
+
+  @Test
+  void batchEndpointAnswersEveryPairLikeTheSingleEndpoint() throws Exception {
+    String[] pairs = {
+      "[\"[1, 10]\", \"(5, 15)\"]",
+      "[\"[1, 5]\", \"[5, 9]\"]",
+      "[\"[1, 5)\", \"[5, 9]\"]",
+      "[\"[1, 5]\", \"[6, 9]\"]",
+      "[\"(1, 2)\", \"(2, 3)\"]",
+      "[\"(-Infinity, 3)\", \"(-Infinity, +Infinity)\"]",
+      "[\"[-2147483648, 0]\", \"(-1, 2147483647]\"]"
+    };
+
+    try (RangeIntersectionService service =
+            RangeIntersectionService.start(new InetSocketAddress("localhost", 0));
+        HttpClient http = HttpClient.newHttpClient()) {
+      String batch =
+          post(http, service, RangeIntersectionService.BATCH_PATH, String.join("\n", pairs))
+              .body();
+
+      String[] lines = batch.split("\n");
+      assertThat(lines).hasSize(pairs.length);
+      for (int i = 0; i < pairs.length; i++) {
+        assertThat(lines[i])
+            .isEqualTo(post(http, service, RangeIntersectionService.PATH, pairs[i]).body());
+      }
+    }
+  }
+
+  @Test
+  void batchEndpointStreamsNdjsonAndLargeBatches() throws Exception {
+    StringBuilder body = new StringBuilder();
+    int pairs = 20_000;
+    for (int i = 0; i < pairs; i++) {
+      body.append("[\"[%d, %d]\", \"(%d, +Infinity)\"]\n".formatted(i, i + 10, i + 5));
+    }
+
+    try (RangeIntersectionService service =
+            RangeIntersectionService.start(new InetSocketAddress("localhost", 0));
+        HttpClient http = HttpClient.newHttpClient()) {
+      HttpResponse<String> response =
+          post(http, service, RangeIntersectionService.BATCH_PATH, body.toString());
+      HttpResponse<String> truncated =
+          post(http, service, RangeIntersectionService.BATCH_PATH, body + "[\"[1, 2]\"");
+
+      String[] lines = response.body().split("\n");
+      assertThat(response.statusCode()).isEqualTo(200);
+      assertThat(response.headers().firstValue("Content-Type")).contains("application/x-ndjson");
+      assertThat(lines).hasSize(pairs);
+      assertThat(lines[0]).isEqualTo("{\"intersection\":\"(5, 10]\"}");
+      assertThat(lines[pairs - 1]).isEqualTo("{\"intersection\":\"(20004, 20009]\"}");
+      assertThat(truncated.statusCode()).isEqualTo(200);
+      assertThat(truncated.body().split("\n")[pairs]).contains("Malformed JSON");
+    }
+  }
+
+  @Test
+  void rejectsOtherMethods() throws Exception {
+    try (RangeIntersectionService service =
+            RangeIntersectionService.start(new InetSocketAddress("localhost", 0));
+        HttpClient http = HttpClient.newHttpClient()) {
+      HttpResponse<String> get =
+          http.send(
+              HttpRequest.newBuilder(uri(service, RangeIntersectionService.BATCH_PATH))
+                  .GET()
+                  .build(),
+              HttpResponse.BodyHandlers.ofString());
+
+      assertThat(get.statusCode()).isEqualTo(405);
+    }
+  }
+
+  private static HttpResponse<String> post(
+      HttpClient http, RangeIntersectionService service, String path, String body)
+      throws Exception {
+    return http.send(
+        HttpRequest.newBuilder(uri(service, path))
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static URI uri(RangeIntersectionService service, String path) {
+    return URI.create("http://localhost:" + service.address().getPort() + path);
+  }
+}
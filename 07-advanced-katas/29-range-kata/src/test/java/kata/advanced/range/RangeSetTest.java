@@ -0,0 +1,101 @@
+package kata.advanced.range;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RangeSetTest {
+
+  @Test
+  void coalescesOverlappingAndTouchingRangesAndDropsEmptyOnes() {
+    RangeSet<Integer> set =
+        RangeSet.of(
+            Range.closed(10, 15),
+            Range.closed(1, 3),
+            Range.closedOpen(2, 5),
+            Range.closed(5, 6),
+            Range.closedOpen(8, 8),
+            Range.open(15, 20));
+
+    assertThat(set.asRanges())
+        .containsExactly(Range.closed(1, 6), Range.closedOpen(10, 20));
+    assertThat(set).hasToString("{[1, 6], [10, 20)}");
+    assertThat(RangeSet.of(Range.closed(1, 3), Range.closed(4, 5)).asRanges()).hasSize(2);
+  }
+
+  @Test
+  void looksUpValuesAndRanges() {
+    RangeSet<Integer> set = RangeSet.of(Range.closed(1, 5), Range.open(10, 15), Range.atLeast(20));
+
+    assertThat(set.contains(0)).isFalse();
+    assertThat(set.contains(5)).isTrue();
+    assertThat(set.contains(10)).isFalse();
+    assertThat(set.contains(1_000)).isTrue();
+    assertThat(set.rangeContaining(12)).contains(Range.open(10, 15));
+    assertThat(set.rangeContaining(7)).isEmpty();
+    assertThat(set.encloses(Range.closed(11, 14))).isTrue();
+    assertThat(set.encloses(Range.closed(4, 11))).isFalse();
+    assertThat(set.encloses(Range.closedOpen(7, 7))).isFalse();
+    assertThat(set.span()).isEqualTo(Range.atLeast(1));
+  }
+
+  @Test
+  void combinesSets() {
+    RangeSet<Integer> a = RangeSet.of(Range.closed(1, 5), Range.closed(10, 15));
+    RangeSet<Integer> b = RangeSet.of(Range.open(5, 10), Range.closed(20, 25));
+
+    assertThat(a.union(b)).isEqualTo(RangeSet.of(Range.closed(1, 15), Range.closed(20, 25)));
+    assertThat(a.intersection(b)).isEqualTo(RangeSet.of());
+    assertThat(a.intersection(RangeSet.of(Range.closed(3, 12))))
+        .isEqualTo(RangeSet.of(Range.closed(3, 5), Range.closed(10, 12)));
+    assertThat(a.complement())
+        .isEqualTo(
+            RangeSet.of(Range.lessThan(1), Range.open(5, 10), Range.greaterThan(15)));
+    assertThat(a.difference(RangeSet.of(Range.closed(4, 11))))
+        .isEqualTo(RangeSet.of(Range.closedOpen(1, 4), Range.openClosed(11, 15)));
+    assertThat(RangeSet.<Integer>of().complement()).isEqualTo(RangeSet.of(Range.<Integer>all()));
+    assertThat(RangeSet.of(Range.<Integer>all()).complement().isEmpty()).isTrue();
+  }
+
+  @Test
+  void emptySetHasNoSpan() {
+    assertThat(RangeSet.<Integer>of().contains(1)).isFalse();
+    assertThatThrownBy(() -> RangeSet.<Integer>of().span())
+        .isInstanceOf(NoSuchElementException.class);
+  }
+
+  @Test
+  void agreesWithLinearScanOnRandomRanges() {
+    Random random = new Random(42);
+    for (int round = 0; round < 200; round++) {
+      List<Range<Integer>> ranges = new ArrayList<>();
+      for (int i = random.nextInt(8); i > 0; i--) {
+        int lower = random.nextInt(50);
+        ranges.add(Range.closedOpen(lower, lower + random.nextInt(6)));
+      }
+      List<Range<Integer>> others =
+          List.of(Range.closed(random.nextInt(25), 25 + random.nextInt(25)));
+      RangeSet<Integer> set = RangeSet.copyOf(ranges);
+      RangeSet<Integer> other = RangeSet.copyOf(others);
+
+      for (int value = -1; value <= 56; value++) {
+        boolean inSet = contains(ranges, value);
+        boolean inOther = contains(others, value);
+        assertThat(set.contains(value)).isEqualTo(inSet);
+        assertThat(set.complement().contains(value)).isEqualTo(!inSet);
+        assertThat(set.union(other).contains(value)).isEqualTo(inSet || inOther);
+        assertThat(set.intersection(other).contains(value)).isEqualTo(inSet && inOther);
+        assertThat(set.difference(other).contains(value)).isEqualTo(inSet && !inOther);
+      }
+    }
+  }
+
+  private static boolean contains(List<Range<Integer>> ranges, int value) {
+    return ranges.stream().anyMatch(range -> range.contains(value));
+  }
+}
@@ -0,0 +1,109 @@
+package kata.advanced.range;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class RangeTest {
+
+  @Test
+  void boundTypesDecideWhetherEndpointsAreContained() {
+    assertThat(Range.closed(5, 7).contains(4)).isFalse();
+    assertThat(Range.closed(5, 7).contains(5)).isTrue();
+    assertThat(Range.closed(5, 7).contains(7)).isTrue();
+    assertThat(Range.open(5, 7).contains(5)).isFalse();
+    assertThat(Range.open(5, 7).contains(6)).isTrue();
+    assertThat(Range.openClosed(5, 7).contains(5)).isFalse();
+    assertThat(Range.openClosed(5, 7).contains(7)).isTrue();
+    assertThat(Range.closedOpen(5, 7).contains(5)).isTrue();
+    assertThat(Range.closedOpen(5, 7).contains(7)).isFalse();
+  }
+
+  @Test
+  void rejectsLowerBoundAboveUpperBound() {
+    assertThatThrownBy(() -> Range.closed(7, 5)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> Range.open(5, 5)).isInstanceOf(IllegalArgumentException.class);
+    assertThat(Range.closedOpen(5, 5).isEmpty()).isTrue();
+  }
+
+  @Test
+  void worksWithAnyComparable() {
+    Range<LocalDate> march = Range.closedOpen(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 4, 1));
+
+    assertThat(march.contains(LocalDate.of(2024, 3, 31))).isTrue();
+    assertThat(march.contains(LocalDate.of(2024, 4, 1))).isFalse();
+    assertThat(Range.closed("apple", "banana").contains("avocado")).isTrue();
+  }
+
+  @Test
+  void unboundedRangesContainEverythingOnTheirOpenSide() {
+    assertThat(Range.lessThan(5).contains(4)).isTrue();
+    assertThat(Range.lessThan(5).contains(5)).isFalse();
+    assertThat(Range.atMost(5).contains(5)).isTrue();
+    assertThat(Range.greaterThan(5).contains(5)).isFalse();
+    assertThat(Range.greaterThan(5).contains(6)).isTrue();
+    assertThat(Range.atLeast(5).contains(5)).isTrue();
+    assertThat(Range.<Integer>all().contains(Integer.MIN_VALUE)).isTrue();
+    assertThat(Range.<Integer>all().contains(Integer.MAX_VALUE)).isTrue();
+    assertThatThrownBy(() -> Range.atLeast(5).upperEndpoint())
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void enclosesComparesBoundsIncludingTheirType() {
+    Range<Integer> base = Range.closed(3, 6);
+
+    assertThat(base.encloses(Range.closed(4, 5))).isTrue();
+    assertThat(base.encloses(Range.open(3, 6))).isTrue();
+    assertThat(base.encloses(Range.closedOpen(4, 7))).isFalse();
+    assertThat(Range.open(3, 6).encloses(base)).isFalse();
+    assertThat(Range.atLeast(3).encloses(Range.closed(4, 100))).isTrue();
+  }
+
+  @Test
+  void connectedRangesMayOnlyTouch() {
+    Range<Integer> r1 = Range.closed(3, 5);
+
+    assertThat(r1.isConnected(Range.open(5, 10))).isTrue();
+    assertThat(r1.isConnected(Range.closed(6, 10))).isFalse();
+    assertThat(Range.closed(1, 5).intersection(Range.closed(3, 9)))
+        .isEqualTo(Range.closed(3, 5));
+  }
+
+  @Test
+  void intersectionOfTouchingRangesIsEmptyOrTheSharedEndpoint() {
+    Range<Integer> touch = Range.closed(1, 5).intersection(Range.open(5, 9));
+
+    assertThat(touch.isEmpty()).isTrue();
+    assertThat(touch).hasToString("(5, 5]");
+    assertThat(Range.closed(1, 5).intersection(Range.closedOpen(5, 9)))
+        .isEqualTo(Range.closed(5, 5));
+    assertThatThrownBy(() -> Range.closed(3, 5).intersection(Range.closed(6, 10)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void spanEnclosesBothRanges() {
+    assertThat(Range.closed(1, 3).span(Range.closed(5, 8))).isEqualTo(Range.closed(1, 8));
+    assertThat(Range.lessThan(5).span(Range.greaterThan(10))).isEqualTo(Range.<Integer>all());
+  }
+
+  @Test
+  void formatsAndParsesIntervalNotation() {
+    assertThat(Range.openClosed(1, 5)).hasToString("(1, 5]");
+    assertThat(Range.<Integer>all()).hasToString("(-Infinity, +Infinity)");
+
+    Range<Integer> parsed = Range.parse("[3, +Infinity)", Integer::valueOf);
+
+    assertThat(parsed.contains(3)).isTrue();
+    assertThat(parsed.contains(999)).isTrue();
+    assertThat(parsed.contains(2)).isFalse();
+    assertThat(Range.parse(" ( -Infinity , 5 ] ", Integer::valueOf)).isEqualTo(Range.atMost(5));
+    assertThatThrownBy(() -> Range.parse("[3, +Infinity]", Integer::valueOf))
+        .isInstanceOf(NumberFormatException.class);
+    assertThatThrownBy(() -> Range.parse("{1, 2}", Integer::valueOf))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
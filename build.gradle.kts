@@ -20,6 +20,9 @@ plugins {
   id("java")
 
   alias(libs.plugins.spotless) apply false
+
+  // JMH harness for modules that ship micro-benchmarks under src/jmh/java.
+  alias(libs.plugins.jmh) apply false
 }
 
 // libs is a special helper generated by Gradle. It works fine in plugins {} and at the top level.
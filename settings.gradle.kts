@@ -40,4 +40,5 @@ dependencyResolutionManagement {
 // https://docs.gradle.org/9.3.1/kotlin-dsl/gradle/org.gradle.api.initialization/-settings/include.html
 include(
     ":01-functional-shift:01-declarative-aggregator",
+    ":07-advanced-katas:29-range-kata",
 )